@@ -14,6 +14,13 @@ public class ApplicationProperties {
     private SecurityProperties security = new SecurityProperties();
     private HsmProperties hsm = new HsmProperties();
     private VerificationProperties verification = new VerificationProperties();
+    private NearCacheProperties nearCache = new NearCacheProperties();
+    private SerializationProperties serialization = new SerializationProperties();
+    private SerialNumberProperties serialNumber = new SerialNumberProperties();
+    private JobProperties jobs = new JobProperties();
+    private RecallProperties recall = new RecallProperties();
+    private AuditProperties audit = new AuditProperties();
+    private TelemetryProperties telemetry = new TelemetryProperties();
 
     @Data
     public static class JwtProperties {
@@ -26,6 +33,7 @@ public class ApplicationProperties {
     public static class SecurityProperties {
         private int maxFailedAttempts;
         private int lockoutDurationMinutes;
+        private int userCacheTtlSeconds = 300;
     }
 
     @Data
@@ -33,6 +41,12 @@ public class ApplicationProperties {
         private String pkcs11Library;
         private int slotIndex;
         private String pin;
+        private String keystorePath;
+        private String keystorePassword;
+        private String keystoreType = "PKCS12";
+        private String keyAliasPrefix = "crypto-tail-v";
+        private Integer activeKeyVersion;
+        private long keyRefreshIntervalMs = 60000;
     }
 
     @Data
@@ -40,6 +54,12 @@ public class ApplicationProperties {
         private int cacheTtlSeconds;
         private double maxDistanceMeters;
         private int minTimeBetweenScansSeconds;
+        private int duplicateScanWindowSeconds = 3600;
+        private int duplicateScanThreshold = 3;
+        private int bulkMaxSerials = 10000;
+        private int bulkChunkSize = 1000;
+        private WriteBehindProperties writeBehind = new WriteBehindProperties();
+        private ScanHistoryProperties scanHistory = new ScanHistoryProperties();
 
         public double getMaxDistanceKm() {
             return maxDistanceMeters / 1000.0;
@@ -49,4 +69,126 @@ public class ApplicationProperties {
             return minTimeBetweenScansSeconds / 60;
         }
     }
+
+    @Data
+    public static class WriteBehindProperties {
+        private int queueCapacity = 10000;
+        private int batchSize = 500;
+        private long flushIntervalMs = 200;
+        private long offerTimeoutMs = 50;
+        private long replayIntervalMs = 30000;
+        private String spillDirectory = "data/spill";
+    }
+
+    @Data
+    public static class ScanHistoryProperties {
+        private int shards = 64;
+        private int maxTrackedSerials = 200000;
+        private boolean redisMirrorEnabled = true;
+        private String redisKeyPrefix = "scan:history:";
+    }
+
+    @Data
+    public static class SerializationProperties {
+        private int chunkSize = 5000;
+        private int signingParallelism;
+        private int syncBulkMaxQuantity = 1000;
+        private int maxJobQuantity = 5000000;
+    }
+
+    @Data
+    public static class SerialNumberProperties {
+        private String prefix = "SN";
+        private int digits = 12;
+        private int rounds = 8;
+        private String permutationKey;
+    }
+
+    @Data
+    public static class JobProperties {
+        private int workerThreads = 4;
+        private int chunkRetries = 3;
+        private long retryBackoffMs = 1000;
+    }
+
+    @Data
+    public static class RecallProperties {
+        private int syncQuarantineLimit = 10000;
+        private int quarantineChunkSize = 10000;
+    }
+
+    @Data
+    public static class AuditProperties {
+        private int chainPartitions = 16;
+        private long merkleRootIntervalMs = 60000;
+        private int queueCapacity = 50000;
+        private int batchSize = 500;
+        private long flushIntervalMs = 50;
+        private String checkpointKey;
+        private long verificationIntervalMs = 3600000;
+        private int verificationParallelism;
+        private int verificationSegmentSize = 10000;
+        private int verificationFetchSize = 5000;
+        private long checkpointEveryRows = 1000000;
+        private int verificationLagSeconds = 60;
+        private String anchorFile = "data/audit-anchors.log";
+        private long anchorIntervalMs = 300000;
+        private int anchorWindowSize = 1024;
+        private int anchorMaxWindowsPerRun = 50;
+        private long partitionMaintenanceIntervalMs = 3600000;
+        private int partitionMonthsAhead = 2;
+        private int hotMonths = 3;
+        private String archiveDirectory = "data/audit-archive";
+        private int segmentBlockRows = 1000;
+        private int searchDefaultPageSize = 50;
+        private int searchMaxPageSize = 500;
+        private long replayIntervalMs = 30000;
+        private String spillDirectory = "data/spill";
+    }
+
+    @Data
+    public static class TelemetryProperties {
+        private int ingestMaxReadings = 5000;
+        private int queueCapacity = 100000;
+        private int batchSize = 1000;
+        private long flushIntervalMs = 100;
+        private long offerTimeoutMs = 20;
+        private int archiveAfterDays = 90;
+        private long archiveIntervalMs = 3600000;
+        private String archiveDirectory = "data/telemetry-archive";
+        private int archiveMaxBatchesPerRun = 100;
+        private int segmentMaxReadings = 100000;
+        private long thresholdCacheMaximumSize = 100000;
+        private int thresholdCacheTtlSeconds = 300;
+        private int kineticsMaxGapMinutes = 60;
+        private int seriesDefaultPoints = 500;
+        private int seriesMaxPoints = 2000;
+        private int seriesFetchSize = 5000;
+        private int maxClockSkewSeconds = 300;
+        private int sequenceWindow = 1024;
+        private long sequenceMaxDevices = 100000;
+        private int sequenceIdleMinutes = 1440;
+        private ExcursionProperties excursion = new ExcursionProperties();
+    }
+
+    @Data
+    public static class ExcursionProperties {
+        // Severity is the higher of the grades reached by duration and by distance outside the range
+        private int mediumMinutes = 30;
+        private int highMinutes = 120;
+        private int criticalMinutes = 480;
+        private double mediumDeltaCelsius = 1.0;
+        private double highDeltaCelsius = 3.0;
+        private double criticalDeltaCelsius = 8.0;
+        private int allowedLatenessSeconds = 60;
+        private long reorderFlushIntervalMs = 5000;
+    }
+
+    @Data
+    public static class NearCacheProperties {
+        private long maximumSize = 10000;
+        private int ttlSeconds = 60;
+        private boolean invalidationEnabled = true;
+        private String invalidationChannel = "cache:invalidation";
+    }
 }
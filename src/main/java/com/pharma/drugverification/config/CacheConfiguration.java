@@ -1,18 +1,36 @@
 package com.pharma.drugverification.config;
 
+import com.pharma.drugverification.service.TelemetryThresholdCache;
+import com.pharma.drugverification.service.UserDirectoryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
 import java.time.Duration;
 
 @Configuration
+@RequiredArgsConstructor
+@Slf4j
 public class CacheConfiguration implements CachingConfigurer {
 
+        private final ApplicationProperties applicationProperties;
+
         @Bean
         public RedisCacheConfiguration redisCacheConfiguration() {
                 return RedisCacheConfiguration.defaultCacheConfig()
@@ -25,6 +43,9 @@ public class CacheConfiguration implements CachingConfigurer {
 
         @Bean
         public RedisCacheManagerBuilderCustomizer redisCacheManagerBuilderCustomizer() {
+                Duration referenceDataTtl = Duration.ofSeconds(
+                                applicationProperties.getVerification().getCacheTtlSeconds());
+
                 return builder -> builder
                                 .withCacheConfiguration("drugDetails",
                                                 RedisCacheConfiguration.defaultCacheConfig()
@@ -34,6 +55,79 @@ public class CacheConfiguration implements CachingConfigurer {
                                                                 .entryTtl(Duration.ofMinutes(5)))
                                 .withCacheConfiguration("batchDetails",
                                                 RedisCacheConfiguration.defaultCacheConfig()
-                                                                .entryTtl(Duration.ofHours(1)));
+                                                                .entryTtl(Duration.ofHours(1)))
+                                // Reference data consulted on every verification scan
+                                .withCacheConfiguration("batchSnapshots",
+                                                RedisCacheConfiguration.defaultCacheConfig()
+                                                                .entryTtl(referenceDataTtl))
+                                .withCacheConfiguration("drugSnapshots",
+                                                RedisCacheConfiguration.defaultCacheConfig()
+                                                                .entryTtl(referenceDataTtl))
+                                .withCacheConfiguration("recallStatus",
+                                                RedisCacheConfiguration.defaultCacheConfig()
+                                                                .entryTtl(referenceDataTtl))
+                                // Identities read on every request and audited write
+                                .withCacheConfiguration(UserDirectoryService.CACHE_NAME,
+                                                RedisCacheConfiguration.defaultCacheConfig()
+                                                                .entryTtl(Duration.ofSeconds(applicationProperties
+                                                                                .getSecurity()
+                                                                                .getUserCacheTtlSeconds())));
+        }
+
+        /**
+         * Redis-backed cache manager with an in-process near tier per cache.
+         */
+        @Bean
+        public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                        RedisCacheConfiguration redisCacheConfiguration,
+                        ObjectProvider<RedisCacheManagerBuilderCustomizer> customizers,
+                        CacheInvalidationPublisher invalidationPublisher,
+                        ObjectProvider<MeterRegistry> meterRegistry) {
+                RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager
+                                .builder(redisConnectionFactory)
+                                .cacheDefaults(redisCacheConfiguration);
+                customizers.orderedStream().forEach(customizer -> customizer.customize(builder));
+
+                RedisCacheManager redisCacheManager = builder.build();
+                redisCacheManager.initializeCaches();
+
+                return new TwoLevelCacheManager(
+                                redisCacheManager,
+                                invalidationPublisher,
+                                applicationProperties.getNearCache(),
+                                meterRegistry.getIfAvailable());
+        }
+
+        @Bean
+        @ConditionalOnProperty(prefix = "application.near-cache", name = "invalidation-enabled", havingValue = "true", matchIfMissing = true)
+        public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+                        RedisConnectionFactory redisConnectionFactory,
+                        CacheManager cacheManager,
+                        CacheInvalidationPublisher invalidationPublisher,
+                        ObjectProvider<TelemetryThresholdCache> telemetryThresholdCache) {
+                RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+                container.setConnectionFactory(redisConnectionFactory);
+                container.addMessageListener((message, pattern) -> {
+                        CacheInvalidationPublisher.InvalidationMessage invalidation = invalidationPublisher
+                                        .decode(message.getBody());
+                        if (invalidation == null || invalidationPublisher.getNodeId().equals(invalidation.getOrigin())) {
+                                return;
+                        }
+                        if (TelemetryThresholdCache.CACHE_NAME.equals(invalidation.getCacheName())) {
+                                telemetryThresholdCache.ifAvailable(cache -> cache.evictLocal(invalidation.getKey()));
+                        } else if (cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager) {
+                                twoLevelCacheManager.evictLocal(invalidation.getCacheName(), invalidation.getKey());
+                        }
+                }, new ChannelTopic(applicationProperties.getNearCache().getInvalidationChannel()));
+                return container;
+        }
+
+        /**
+         * A Redis outage degrades to near-cache plus database reads instead of
+         * failing the request.
+         */
+        @Override
+        public CacheErrorHandler errorHandler() {
+                return new LoggingCacheErrorHandler();
         }
 }
@@ -0,0 +1,71 @@
+package com.pharma.drugverification.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Fans near-cache invalidations out to the other application nodes over Redis
+ * pub/sub. Each node tags its messages with a random id so it can ignore its
+ * own broadcasts.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationPublisher {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ApplicationProperties applicationProperties;
+    private final GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(RedisTemplate<String, String> redisTemplate,
+            ApplicationProperties applicationProperties) {
+        this.redisTemplate = redisTemplate;
+        this.applicationProperties = applicationProperties;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void publishEviction(String cacheName, Object key) {
+        publish(new InvalidationMessage(nodeId, cacheName, key));
+    }
+
+    public void publishClear(String cacheName) {
+        publish(new InvalidationMessage(nodeId, cacheName, null));
+    }
+
+    public InvalidationMessage decode(byte[] body) {
+        return serializer.deserialize(body, InvalidationMessage.class);
+    }
+
+    private void publish(InvalidationMessage message) {
+        if (!applicationProperties.getNearCache().isInvalidationEnabled()) {
+            return;
+        }
+        try {
+            String payload = new String(serializer.serialize(message), StandardCharsets.UTF_8);
+            redisTemplate.convertAndSend(applicationProperties.getNearCache().getInvalidationChannel(), payload);
+        } catch (Exception e) {
+            // Other nodes fall back to near-cache TTL expiry
+            log.warn("Failed to publish cache invalidation for {}: {}", message.getCacheName(), e.getMessage());
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InvalidationMessage {
+        private String origin;
+        private String cacheName;
+        private Object key;
+    }
+}
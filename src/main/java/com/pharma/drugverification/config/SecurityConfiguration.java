@@ -60,6 +60,8 @@ public class SecurityConfiguration {
                                                 .requestMatchers(HttpMethod.POST, "/api/v1/verify/decommission",
                                                                 "/api/v1/verify/revert")
                                                 .hasAnyRole("PHARMACIST", "ADMIN")
+                                                .requestMatchers(HttpMethod.POST, "/api/v1/verify/bulk")
+                                                .hasAnyRole("DISTRIBUTOR", "PHARMACIST", "ADMIN")
                                                 .anyRequest().authenticated())
                                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
@@ -0,0 +1,109 @@
+package com.pharma.drugverification.config;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Cache with a bounded on-heap near tier (L1) in front of the shared Redis
+ * cache (L2). Reads are served from L1 when possible and fall through to L2,
+ * back-filling L1 on a hit. Evictions are applied to both tiers and announced
+ * to the other nodes so they can drop their own L1 copies.
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> nearCache;
+    private final Cache remoteCache;
+    private final CacheInvalidationPublisher invalidationPublisher;
+
+    public TwoLevelCache(String name,
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nearCache,
+            Cache remoteCache,
+            CacheInvalidationPublisher invalidationPublisher) {
+        super(false);
+        this.name = name;
+        this.nearCache = nearCache;
+        this.remoteCache = remoteCache;
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return nearCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = nearCache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        ValueWrapper remoteValue = remoteCache.get(key);
+        if (remoteValue == null || remoteValue.get() == null) {
+            return null;
+        }
+
+        value = remoteValue.get();
+        nearCache.put(key, value);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) nearCache.get(key, k -> remoteCache.get(k, valueLoader));
+    }
+
+    /**
+     * Puts are not broadcast: values only enter the cache from a fresh load,
+     * and every write path that could make another node's copy stale evicts.
+     */
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        nearCache.put(key, value);
+        remoteCache.put(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        nearCache.invalidate(key);
+        try {
+            remoteCache.evict(key);
+        } finally {
+            invalidationPublisher.publishEviction(name, key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        nearCache.invalidateAll();
+        try {
+            remoteCache.clear();
+        } finally {
+            invalidationPublisher.publishClear(name);
+        }
+    }
+
+    /**
+     * Drops an entry from the near tier only, in response to an invalidation
+     * published by another node.
+     */
+    public void evictLocal(Object key) {
+        if (key == null) {
+            nearCache.invalidateAll();
+        } else {
+            nearCache.invalidate(key);
+        }
+    }
+}
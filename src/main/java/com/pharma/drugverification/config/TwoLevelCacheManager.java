@@ -0,0 +1,80 @@
+package com.pharma.drugverification.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decorates the Redis cache manager so that every cache gets its own bounded
+ * Caffeine near tier. Caches are transaction-aware: evictions issued inside a
+ * transaction are applied (and broadcast) only after commit, so other nodes
+ * cannot reload the old row in the meantime.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final ApplicationProperties.NearCacheProperties nearCacheProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final Map<String, Cache> decoratedCaches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+            CacheInvalidationPublisher invalidationPublisher,
+            ApplicationProperties.NearCacheProperties nearCacheProperties,
+            MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.invalidationPublisher = invalidationPublisher;
+        this.nearCacheProperties = nearCacheProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return decoratedCaches.computeIfAbsent(name,
+                cacheName -> new TransactionAwareCacheDecorator(getTwoLevelCache(cacheName)));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(decoratedCaches.keySet());
+    }
+
+    /**
+     * Applies an invalidation received from another node to the local near tier.
+     */
+    public void evictLocal(String cacheName, Object key) {
+        TwoLevelCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+    }
+
+    private TwoLevelCache getTwoLevelCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    private TwoLevelCache createCache(String name) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheProperties.getMaximumSize())
+                .expireAfterWrite(Duration.ofSeconds(nearCacheProperties.getTtlSeconds()))
+                .recordStats()
+                .build();
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, nearCache, name, "tier", "near");
+        }
+
+        return new TwoLevelCache(name, nearCache, remoteCacheManager.getCache(name), invalidationPublisher);
+    }
+}
@@ -1,22 +1,37 @@
 package com.pharma.drugverification.controller;
 
+import com.pharma.drugverification.dto.AuditAnchorProofResponse;
+import com.pharma.drugverification.dto.AuditChainRootResponse;
+import com.pharma.drugverification.dto.AuditLogFilter;
 import com.pharma.drugverification.dto.AuditLogResponse;
+import com.pharma.drugverification.dto.AuditLogSearchResponse;
+import com.pharma.drugverification.dto.AuditVerificationStatus;
+import com.pharma.drugverification.service.AuditChainVerifier;
+import com.pharma.drugverification.service.AuditAnchorService;
+import com.pharma.drugverification.service.AuditChainRootService;
 import com.pharma.drugverification.service.AuditService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping("/api/audit-logs")
 @RequiredArgsConstructor
 public class AuditController {
 
     private final AuditService auditService;
+    private final AuditChainRootService auditChainRootService;
+    private final AuditChainVerifier auditChainVerifier;
+    private final AuditAnchorService auditAnchorService;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'REGULATOR')")
@@ -25,6 +40,27 @@ public class AuditController {
         return ResponseEntity.ok(auditService.getLogs(pageable));
     }
 
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'REGULATOR')")
+    public ResponseEntity<AuditLogSearchResponse> searchLogs(
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) Long entityId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        AuditLogFilter filter = new AuditLogFilter();
+        filter.setAction(action);
+        filter.setEntityType(entityType);
+        filter.setEntityId(entityId);
+        filter.setUserId(userId);
+        filter.setFrom(from);
+        filter.setTo(to);
+        return ResponseEntity.ok(auditService.searchLogs(filter, cursor, size));
+    }
+
     @GetMapping("/entity/{entityType}/{entityId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'REGULATOR', 'MANUFACTURER')")
     public ResponseEntity<Page<AuditLogResponse>> getLogsByEntity(
@@ -41,4 +77,28 @@ public class AuditController {
             @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
         return ResponseEntity.ok(auditService.getLogsByUser(userId, pageable));
     }
+
+    @GetMapping("/chain-roots/latest")
+    @PreAuthorize("hasAnyRole('ADMIN', 'REGULATOR')")
+    public ResponseEntity<AuditChainRootResponse> getLatestChainRoot() {
+        return ResponseEntity.ok(auditChainRootService.getLatestRoot());
+    }
+
+    @GetMapping("/{id}/anchor-proof")
+    @PreAuthorize("hasAnyRole('ADMIN', 'REGULATOR')")
+    public ResponseEntity<AuditAnchorProofResponse> getAnchorProof(@PathVariable Long id) {
+        return ResponseEntity.ok(auditAnchorService.getProof(id));
+    }
+
+    @PostMapping("/verification")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<AuditVerificationStatus> startVerification() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(auditChainVerifier.startVerification());
+    }
+
+    @GetMapping("/verification")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<AuditVerificationStatus> getVerificationStatus() {
+        return ResponseEntity.ok(auditChainVerifier.getStatus());
+    }
 }
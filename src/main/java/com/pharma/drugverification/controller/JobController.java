@@ -0,0 +1,47 @@
+package com.pharma.drugverification.controller;
+
+import com.pharma.drugverification.domain.User;
+import com.pharma.drugverification.dto.JobResponse;
+import com.pharma.drugverification.service.JobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobService jobService;
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('MANUFACTURER', 'REGULATOR', 'ADMIN')")
+    public ResponseEntity<JobResponse> getJob(
+            @PathVariable Long id,
+            @RequestAttribute("userId") Long userId,
+            @RequestAttribute("role") String role) {
+        JobResponse response = jobService.getJob(id, userId, User.UserRole.valueOf(role));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/{id}/cancel")
+    @PreAuthorize("hasAnyRole('MANUFACTURER', 'REGULATOR', 'ADMIN')")
+    public ResponseEntity<JobResponse> cancelJob(
+            @PathVariable Long id,
+            @RequestAttribute("userId") Long userId,
+            @RequestAttribute("role") String role) {
+        JobResponse response = jobService.cancelJob(id, userId, User.UserRole.valueOf(role));
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/{id}/retry")
+    @PreAuthorize("hasAnyRole('MANUFACTURER', 'REGULATOR', 'ADMIN')")
+    public ResponseEntity<JobResponse> retryJob(
+            @PathVariable Long id,
+            @RequestAttribute("userId") Long userId,
+            @RequestAttribute("role") String role) {
+        JobResponse response = jobService.retryJob(id, userId, User.UserRole.valueOf(role));
+        return ResponseEntity.ok(response);
+    }
+}
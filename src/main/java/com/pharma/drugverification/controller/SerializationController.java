@@ -1,6 +1,7 @@
 package com.pharma.drugverification.controller;
 
 import com.pharma.drugverification.domain.SerializedUnit;
+import com.pharma.drugverification.dto.JobResponse;
 import com.pharma.drugverification.dto.SerializedUnitCreationRequest;
 import com.pharma.drugverification.dto.SerializedUnitResponse;
 import com.pharma.drugverification.service.SerializationService;
@@ -43,6 +44,17 @@ public class SerializationController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responses);
     }
 
+    @PostMapping("/serialization-jobs")
+    @PreAuthorize("hasAnyRole('MANUFACTURER', 'ADMIN')")
+    public ResponseEntity<JobResponse> submitSerializationJob(
+            @RequestParam Long batchId,
+            @RequestParam String gtin,
+            @RequestParam int quantity,
+            @RequestAttribute("userId") Long userId) {
+        JobResponse response = serializationService.submitSerializationJob(batchId, gtin, quantity, userId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
     @PostMapping("/{id}/decommission")
     @PreAuthorize("hasAnyRole('PHARMACIST', 'ADMIN')")
     public ResponseEntity<SerializedUnitResponse> decommissionUnit(
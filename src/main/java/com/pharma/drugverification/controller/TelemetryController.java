@@ -1,7 +1,12 @@
 package com.pharma.drugverification.controller;
 
+import com.pharma.drugverification.dto.TelemetryBatchRequest;
+import com.pharma.drugverification.dto.TelemetryBatchResponse;
 import com.pharma.drugverification.dto.TelemetryReadingRequest;
 import com.pharma.drugverification.dto.TelemetryReadingResponse;
+import com.pharma.drugverification.dto.TelemetrySeriesResponse;
+import com.pharma.drugverification.service.TelemetryIngestionService;
+import com.pharma.drugverification.service.TelemetrySeriesService;
 import com.pharma.drugverification.service.TelemetryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +28,8 @@ import java.util.Map;
 public class TelemetryController {
 
     private final TelemetryService telemetryService;
+    private final TelemetryIngestionService telemetryIngestionService;
+    private final TelemetrySeriesService telemetrySeriesService;
 
     @PostMapping("/readings")
     @PreAuthorize("hasAnyRole('MANUFACTURER', 'DISTRIBUTOR', 'IOT_DEVICE', 'ADMIN')")
@@ -33,6 +40,31 @@ public class TelemetryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Takes readings from many devices in one call. Queued readings are
+     * written asynchronously; each reading gets its own acknowledgement.
+     */
+    @PostMapping("/readings/batch")
+    @PreAuthorize("hasAnyRole('MANUFACTURER', 'DISTRIBUTOR', 'IOT_DEVICE', 'ADMIN')")
+    public ResponseEntity<TelemetryBatchResponse> recordReadings(
+            @Valid @RequestBody TelemetryBatchRequest request,
+            @RequestAttribute(value = "userId", required = false) Long userId) {
+        TelemetryBatchResponse response = telemetryIngestionService.ingest(request, userId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    /**
+     * The given sequence numbers of a device whose readings are stored.
+     * Devices keep queued readings until they are listed here.
+     */
+    @GetMapping("/device/{deviceId}/stored")
+    @PreAuthorize("hasAnyRole('MANUFACTURER', 'DISTRIBUTOR', 'IOT_DEVICE', 'ADMIN')")
+    public ResponseEntity<List<Long>> getStoredSequenceNumbers(
+            @PathVariable String deviceId,
+            @RequestParam List<Long> sequenceNumbers) {
+        return ResponseEntity.ok(telemetryIngestionService.findStored(deviceId, sequenceNumbers));
+    }
+
     @GetMapping("/batch/{batchId}")
     public ResponseEntity<Page<TelemetryReadingResponse>> getReadingsByBatch(
             @PathVariable Long batchId,
@@ -41,6 +73,21 @@ public class TelemetryController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Temperature of a batch over [from, to), reduced to at most
+     * {@code points} buckets for charting. Defaults to the last seven days.
+     */
+    @GetMapping("/batch/{batchId}/series")
+    public ResponseEntity<TelemetrySeriesResponse> getSeries(
+            @PathVariable Long batchId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer points) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(7);
+        return ResponseEntity.ok(telemetrySeriesService.getSeries(batchId, start, end, points));
+    }
+
     @GetMapping("/device/{deviceId}")
     public ResponseEntity<Page<TelemetryReadingResponse>> getReadingsByDevice(
             @PathVariable String deviceId,
@@ -50,11 +97,13 @@ public class TelemetryController {
     }
 
     @GetMapping("/batch/{batchId}/violations")
-    public ResponseEntity<List<TelemetryReadingResponse>> getViolationsByBatch(
+    public ResponseEntity<Page<TelemetryReadingResponse>> getViolationsByBatch(
             @PathVariable Long batchId,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            Pageable pageable) {
         LocalDateTime queryTime = since != null ? since : LocalDateTime.now().minusDays(7);
-        List<TelemetryReadingResponse> response = telemetryService.getViolationsByBatch(batchId, queryTime);
+        Page<TelemetryReadingResponse> response = telemetryService.getViolationsByBatch(batchId, queryTime,
+                pageable);
         return ResponseEntity.ok(response);
     }
 
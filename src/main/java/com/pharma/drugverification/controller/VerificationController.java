@@ -1,12 +1,20 @@
 package com.pharma.drugverification.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.dto.BulkVerificationRequest;
 import com.pharma.drugverification.dto.VerificationRequest;
 import com.pharma.drugverification.dto.VerificationResponse;
+import com.pharma.drugverification.service.BulkVerificationService;
 import com.pharma.drugverification.service.VerificationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -16,7 +24,11 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class VerificationController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final VerificationService verificationService;
+    private final BulkVerificationService bulkVerificationService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<VerificationResponse> verifyUnit(
@@ -32,6 +44,34 @@ public class VerificationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Verifies up to the configured number of serials in one call and streams
+     * one JSON result per line, in request order.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<StreamingResponseBody> verifyBulk(
+            @Valid @RequestBody BulkVerificationRequest request,
+            @RequestAttribute(value = "userId", required = false) Long userId) {
+        bulkVerificationService.validate(request);
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                bulkVerificationService.verifyBulk(request, userId, response -> {
+                    try {
+                        outputStream.write(objectMapper.writeValueAsBytes(response));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getVerificationStats(
             @RequestParam(required = false) Integer daysAgo) {
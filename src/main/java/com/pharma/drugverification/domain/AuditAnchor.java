@@ -0,0 +1,48 @@
+package com.pharma.drugverification.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Merkle root over one window of audit records, as recorded in the anchor
+ * ledger. The records themselves carry the transaction id.
+ */
+@Entity
+@Table(name = "audit_anchors", indexes = {
+        @Index(name = "idx_audit_anchor_transaction", columnList = "transactionId", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditAnchor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String transactionId;
+
+    @Column(nullable = false, length = 64)
+    private String previousTransactionId;
+
+    @Column(nullable = false, length = 64)
+    private String rootHash;
+
+    @Column(nullable = false)
+    private Integer leafCount;
+
+    @Column(nullable = false)
+    private Long firstAuditLogId;
+
+    @Column(nullable = false)
+    private Long lastAuditLogId;
+
+    // Part of the ledger entry, so set by AuditAnchorService rather than auditing
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime anchoredAt;
+}
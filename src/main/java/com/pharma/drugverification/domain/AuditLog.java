@@ -8,23 +8,22 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
-import org.springframework.data.annotation.CreatedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
 import java.util.Map;
 
 @Entity
 @Table(name = "audit_logs", indexes = {
-        @Index(name = "idx_action", columnList = "action"),
-        @Index(name = "idx_entity_type_id", columnList = "entityType,entityId"),
-        @Index(name = "idx_user_id", columnList = "userId"),
-        @Index(name = "idx_created_at", columnList = "createdAt")
+        @Index(name = "idx_audit_action_created", columnList = "action,createdAt,id"),
+        @Index(name = "idx_audit_entity_created", columnList = "entityType,entityId,createdAt,id"),
+        @Index(name = "idx_audit_user_created", columnList = "userId,createdAt,id"),
+        @Index(name = "idx_audit_created", columnList = "createdAt,id"),
+        @Index(name = "idx_audit_chain_position", columnList = "chainPartition,chainSequence", unique = true),
+        @Index(name = "idx_audit_blockchain_tx", columnList = "blockchainTransactionId")
 })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
 public class AuditLog {
 
     @Id
@@ -57,6 +56,12 @@ public class AuditLog {
     @Column(columnDefinition = "jsonb")
     private Map<String, Object> changes;
 
+    @Column(nullable = false)
+    private Integer chainPartition;
+
+    @Column(nullable = false)
+    private Long chainSequence;
+
     @Column(nullable = false, length = 64)
     private String currentHash;
 
@@ -69,7 +74,7 @@ public class AuditLog {
     @Column
     private LocalDateTime blockchainAnchoredAt;
 
-    @CreatedDate
+    // Set by AuditService rather than auditing, since the chain hash covers it
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 }
@@ -0,0 +1,65 @@
+package com.pharma.drugverification.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Closed audit partition moved to a compressed segment file. Records in the
+ * file are ordered by entity; the block index holds the first key, offset,
+ * length and CRC32 of every gzip block, so one entity's records can be read
+ * without inflating the whole segment.
+ */
+@Entity
+@Table(name = "audit_segments", indexes = {
+        @Index(name = "idx_audit_segment_partition", columnList = "partitionName", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class AuditSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 63)
+    private String partitionName;
+
+    @Column(nullable = false)
+    private LocalDateTime rangeEnd;
+
+    @Column(nullable = false, length = 500)
+    private String filePath;
+
+    @Column(nullable = false)
+    private Long rowCount;
+
+    @Column
+    private Long firstAuditLogId;
+
+    @Column
+    private Long lastAuditLogId;
+
+    // SHA-256 of the whole file
+    @Column(nullable = false, length = 64)
+    private String checksum;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb", nullable = false)
+    private List<Map<String, Object>> blockIndex;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,48 @@
+package com.pharma.drugverification.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Point up to which the audit chains have been verified. Heads maps each
+ * partition to its sequence and hash at that point; the signature covers
+ * both so a forged checkpoint cannot hide tampering behind it.
+ */
+@Entity
+@Table(name = "audit_verification_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class AuditVerificationCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long lastVerifiedId;
+
+    @Column(nullable = false)
+    private Long rowsVerified;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb", nullable = false)
+    private Map<String, Object> heads;
+
+    @Column(nullable = false, length = 64)
+    private String signature;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
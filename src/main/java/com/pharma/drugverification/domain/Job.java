@@ -0,0 +1,101 @@
+package com.pharma.drugverification.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Entity
+@Table(name = "jobs", indexes = {
+        @Index(name = "idx_job_type_target", columnList = "type,targetId"),
+        @Index(name = "idx_job_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class Job {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private JobType type;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private JobStatus status = JobStatus.QUEUED;
+
+    @Column(length = 50)
+    private String targetType;
+
+    @Column
+    private Long targetId;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    private Map<String, Object> parameters;
+
+    @NotNull
+    @Column(nullable = false)
+    private Long totalItems;
+
+    @NotNull
+    @Column(nullable = false)
+    private Long completedItems = 0L;
+
+    // Only ever set by JobRepository.requestCancel, so saving a stale copy cannot clear it
+    @NotNull
+    @Column(nullable = false, updatable = false)
+    private Boolean cancelRequested = false;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @Column
+    private Long requestedByUserId;
+
+    @Column
+    private LocalDateTime startedAt;
+
+    @Column
+    private LocalDateTime completedAt;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public boolean isFinished() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED || status == JobStatus.CANCELLED;
+    }
+
+    public enum JobType {
+        SERIALIZATION,
+        RECALL_QUARANTINE
+    }
+
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+}
@@ -0,0 +1,42 @@
+package com.pharma.drugverification.domain;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * A range of serial number counters reserved by one node. The sequence value
+ * is the block index; the node owns counters
+ * {@code [id * blockSize, (id + 1) * blockSize)}.
+ */
+@Entity
+@Table(name = "serial_number_blocks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class SerialNumberBlock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "serial_number_block_seq")
+    @SequenceGenerator(name = "serial_number_block_seq", sequenceName = "serial_number_block_seq", allocationSize = 1)
+    private Long id;
+
+    @NotNull
+    @Column(nullable = false, length = 100)
+    private String nodeId;
+
+    @NotNull
+    @Column(nullable = false)
+    private Integer blockSize;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime allocatedAt;
+}
@@ -0,0 +1,46 @@
+package com.pharma.drugverification.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running thermal history of one batch: the inputs of its mean kinetic
+ * temperature and how long, and how far, it has been above its drug's
+ * range. Rows are only ever merged into by {@code TelemetryKineticsService}.
+ */
+@Entity
+@Table(name = "telemetry_batch_kinetics")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TelemetryBatchKinetics {
+
+    @Id
+    private Long batchId;
+
+    @Column(nullable = false)
+    private Long temperatureCount;
+
+    // Sum of exp(-dH/RT) over every temperature, T in kelvin
+    @Column(nullable = false)
+    private Double kineticSum;
+
+    private LocalDateTime lastReadingAt;
+
+    @Column(precision = 5, scale = 2)
+    private BigDecimal lastTemperature;
+
+    @Column(nullable = false)
+    private Double minutesAboveRange;
+
+    @Column(nullable = false)
+    private Double degreeMinutesAboveRange;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
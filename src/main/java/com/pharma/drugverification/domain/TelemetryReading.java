@@ -12,7 +12,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "telemetry_readings", indexes = {
         @Index(name = "idx_batch_id_timestamp", columnList = "batchId,timestamp"),
-        @Index(name = "idx_device_id", columnList = "deviceId")
+        @Index(name = "idx_telemetry_batch_temperature", columnList = "batchId,temperature,timestamp"),
+        @Index(name = "idx_device_id", columnList = "deviceId"),
+        @Index(name = "idx_telemetry_device_sequence", columnList = "deviceId,sequenceNumber")
 })
 @Data
 @NoArgsConstructor
@@ -48,4 +50,8 @@ public class TelemetryReading {
 
     @Column
     private Double longitude;
+
+    // Assigned by the device; null for devices that do not number their readings
+    @Column
+    private Long sequenceNumber;
 }
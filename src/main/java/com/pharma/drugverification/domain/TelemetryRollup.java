@@ -0,0 +1,91 @@
+package com.pharma.drugverification.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Running aggregate of one batch's readings within one minute, hour or day.
+ * Rows are only ever merged into by {@code TelemetryRollupService}, so the
+ * sums stay exact and any range of buckets can be combined.
+ */
+@Entity
+@Table(name = "telemetry_rollups", indexes = {
+        @Index(name = "idx_telemetry_rollup_bucket", columnList = "batchId,granularity,bucketStart", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TelemetryRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long batchId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private Long readingCount;
+
+    @Column(nullable = false)
+    private Long temperatureCount;
+
+    @Column(precision = 5, scale = 2)
+    private BigDecimal temperatureMin;
+
+    @Column(precision = 5, scale = 2)
+    private BigDecimal temperatureMax;
+
+    @Column(nullable = false)
+    private Double temperatureSum;
+
+    @Column(nullable = false)
+    private Double temperatureSumSquares;
+
+    @Column(nullable = false)
+    private Long humidityCount;
+
+    @Column(nullable = false)
+    private Double humiditySum;
+
+    @Column(nullable = false)
+    private Long violationCount;
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public LocalDateTime bucketOf(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        public LocalDateTime nextBucket(LocalDateTime bucketStart) {
+            return bucketStart.plus(1, unit);
+        }
+
+        public Duration duration() {
+            return unit.getDuration();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.pharma.drugverification.domain;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Archived telemetry readings of one batch, stored as a columnar segment
+ * file. Readings in the file are ordered by (timestamp, id) and span
+ * [rangeStart, rangeEnd] inclusive.
+ */
+@Entity
+@Table(name = "telemetry_segments", indexes = {
+        @Index(name = "idx_telemetry_segment_batch", columnList = "batchId,rangeStart")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class TelemetrySegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long batchId;
+
+    @Column(nullable = false)
+    private LocalDateTime rangeStart;
+
+    @Column(nullable = false)
+    private LocalDateTime rangeEnd;
+
+    @Column(nullable = false)
+    private Long readingCount;
+
+    @Column(nullable = false)
+    private Long firstReadingId;
+
+    @Column(nullable = false)
+    private Long lastReadingId;
+
+    @Column(nullable = false, length = 500)
+    private String filePath;
+
+    @Column(nullable = false)
+    private Long sizeBytes;
+
+    // SHA-256 of the whole file
+    @Column(nullable = false, length = 64)
+    private String checksum;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
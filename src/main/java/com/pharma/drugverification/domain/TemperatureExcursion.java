@@ -63,6 +63,11 @@ public class TemperatureExcursion {
     @Column
     private Boolean resolved = false;
 
+    // Each node updates its own in-memory copy, so a stale save must fail rather than reopen a closed row
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @CreatedDate
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
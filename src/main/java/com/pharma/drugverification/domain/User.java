@@ -1,5 +1,6 @@
 package com.pharma.drugverification.domain;
 
+import com.pharma.drugverification.service.UserDirectoryInvalidationListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -18,7 +19,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, UserDirectoryInvalidationListener.class})
 public class User {
 
     @Id
@@ -0,0 +1,31 @@
+package com.pharma.drugverification.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class AuditAnchorProofResponse {
+    private Long auditLogId;
+    private String currentHash;
+    private String leaf;
+    private Integer leafIndex;
+    private Integer leafCount;
+    private String transactionId;
+    private String rootHash;
+    private LocalDateTime anchoredAt;
+    private List<ProofStep> proof;
+    private Boolean verified;
+
+    @Data
+    public static class ProofStep {
+        private String hash;
+        private Position position;
+    }
+
+    public enum Position {
+        LEFT,
+        RIGHT
+    }
+}
@@ -0,0 +1,26 @@
+package com.pharma.drugverification.dto;
+
+import com.pharma.drugverification.domain.AuditChainRoot;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+public class AuditChainRootResponse {
+    private Long id;
+    private String rootHash;
+    private Integer partitionCount;
+    private Map<String, Object> heads;
+    private LocalDateTime createdAt;
+
+    public static AuditChainRootResponse from(AuditChainRoot root) {
+        AuditChainRootResponse response = new AuditChainRootResponse();
+        response.setId(root.getId());
+        response.setRootHash(root.getRootHash());
+        response.setPartitionCount(root.getPartitionCount());
+        response.setHeads(root.getHeads());
+        response.setCreatedAt(root.getCreatedAt());
+        return response;
+    }
+}
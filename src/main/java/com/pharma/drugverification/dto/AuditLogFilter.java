@@ -0,0 +1,15 @@
+package com.pharma.drugverification.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class AuditLogFilter {
+    private String action;
+    private String entityType;
+    private Long entityId;
+    private Long userId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+}
@@ -17,6 +17,8 @@ public class AuditLogResponse {
     private String ipAddress;
     private String userAgent;
     private Map<String, Object> changes;
+    private Integer chainPartition;
+    private Long chainSequence;
     private String currentHash;
     private String previousHash;
     private Boolean blockchainAnchored;
@@ -34,6 +36,8 @@ public class AuditLogResponse {
         response.setIpAddress(log.getIpAddress());
         response.setUserAgent(log.getUserAgent());
         response.setChanges(log.getChanges());
+        response.setChainPartition(log.getChainPartition());
+        response.setChainSequence(log.getChainSequence());
         response.setCurrentHash(log.getCurrentHash());
         response.setPreviousHash(log.getPreviousHash());
         response.setBlockchainTransactionId(log.getBlockchainTransactionId());
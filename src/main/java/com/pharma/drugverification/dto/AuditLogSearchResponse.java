@@ -0,0 +1,13 @@
+package com.pharma.drugverification.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AuditLogSearchResponse {
+    private List<AuditLogResponse> content;
+    private Integer size;
+    private String nextCursor;
+    private Boolean hasMore;
+}
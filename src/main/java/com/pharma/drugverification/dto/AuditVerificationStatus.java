@@ -0,0 +1,37 @@
+package com.pharma.drugverification.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class AuditVerificationStatus {
+    private State state;
+    private Long fromId;
+    private Long upToId;
+    private Long lastVerifiedId;
+    private Long rowsVerified;
+    private Double progressPercentage;
+    private Long checkpointId;
+    private Boolean checkpointRejected;
+    private BrokenLink brokenLink;
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        VERIFIED,
+        BROKEN,
+        FAILED
+    }
+
+    @Data
+    public static class BrokenLink {
+        private Long auditLogId;
+        private Integer chainPartition;
+        private Long chainSequence;
+        private String reason;
+    }
+}
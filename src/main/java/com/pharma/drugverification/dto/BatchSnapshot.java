@@ -0,0 +1,35 @@
+package com.pharma.drugverification.dto;
+
+import com.pharma.drugverification.domain.Batch;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Cacheable view of the batch fields consulted during verification.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private String batchNumber;
+    private Long drugId;
+    private LocalDate expirationDate;
+    private Batch.BatchStatus status;
+
+    public static BatchSnapshot from(Batch batch) {
+        return new BatchSnapshot(
+                batch.getId(),
+                batch.getBatchNumber(),
+                batch.getDrugId(),
+                batch.getExpirationDate(),
+                batch.getStatus());
+    }
+}
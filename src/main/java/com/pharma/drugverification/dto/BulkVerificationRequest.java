@@ -0,0 +1,22 @@
+package com.pharma.drugverification.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkVerificationRequest {
+
+    @NotEmpty(message = "At least one serial number is required")
+    private List<@NotBlank String> serialNumbers;
+
+    private Double latitude;
+
+    private Double longitude;
+
+    private String location;
+
+    private String deviceId;
+}
@@ -0,0 +1,38 @@
+package com.pharma.drugverification.dto;
+
+import com.pharma.drugverification.domain.Drug;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Cacheable view of the drug fields consulted during verification and
+ * telemetry threshold checks.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DrugSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private String name;
+    private String manufacturer;
+    private Drug.DrugStatus status;
+    private BigDecimal minTemperature;
+    private BigDecimal maxTemperature;
+
+    public static DrugSnapshot from(Drug drug) {
+        return new DrugSnapshot(
+                drug.getId(),
+                drug.getName(),
+                drug.getManufacturer(),
+                drug.getStatus(),
+                drug.getMinTemperature(),
+                drug.getMaxTemperature());
+    }
+}
@@ -0,0 +1,48 @@
+package com.pharma.drugverification.dto;
+
+import com.pharma.drugverification.domain.Job;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobResponse {
+
+    private Long id;
+    private Job.JobType type;
+    private Job.JobStatus status;
+    private String targetType;
+    private Long targetId;
+    private Long totalItems;
+    private Long completedItems;
+    private Double progressPercentage;
+    private Boolean cancelRequested;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+
+    public static JobResponse from(Job job) {
+        JobResponse response = new JobResponse();
+        response.setId(job.getId());
+        response.setType(job.getType());
+        response.setStatus(job.getStatus());
+        response.setTargetType(job.getTargetType());
+        response.setTargetId(job.getTargetId());
+        response.setTotalItems(job.getTotalItems());
+        response.setCompletedItems(job.getCompletedItems());
+        response.setProgressPercentage(job.getTotalItems() > 0
+                ? job.getCompletedItems() * 100.0 / job.getTotalItems()
+                : 100.0);
+        response.setCancelRequested(job.getCancelRequested());
+        response.setErrorMessage(job.getErrorMessage());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setStartedAt(job.getStartedAt());
+        response.setCompletedAt(job.getCompletedAt());
+        return response;
+    }
+}
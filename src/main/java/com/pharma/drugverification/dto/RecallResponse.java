@@ -22,6 +22,7 @@ public class RecallResponse {
     private Integer totalUnitsAffected;
     private Integer unitsRecovered;
     private Double effectivenessPercentage;
+    private Long quarantineJobId;
     private LocalDateTime initiatedAt;
     private LocalDateTime completedAt;
     private LocalDateTime createdAt;
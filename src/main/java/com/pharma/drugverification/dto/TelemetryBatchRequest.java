@@ -0,0 +1,17 @@
+package com.pharma.drugverification.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Readings from any number of devices and batches. Each reading is validated
+ * and acknowledged on its own, so one bad reading does not fail the upload.
+ */
+@Data
+public class TelemetryBatchRequest {
+
+    @NotEmpty(message = "At least one reading is required")
+    private List<TelemetryReadingRequest> readings;
+}
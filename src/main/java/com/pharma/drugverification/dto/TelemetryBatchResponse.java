@@ -0,0 +1,14 @@
+package com.pharma.drugverification.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TelemetryBatchResponse {
+    private Integer queued;
+    private Integer rejected;
+    private Integer retry;
+    private Integer duplicate;
+    private List<TelemetryReadingAck> acknowledgements;
+}
@@ -0,0 +1,25 @@
+package com.pharma.drugverification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TelemetryReadingAck {
+
+    private Integer index;
+    private String deviceId;
+    private Long batchId;
+    private AckStatus status;
+    private Boolean thresholdViolation;
+    private String message;
+
+    public enum AckStatus {
+        QUEUED,
+        REJECTED,
+        RETRY,
+        DUPLICATE
+    }
+}
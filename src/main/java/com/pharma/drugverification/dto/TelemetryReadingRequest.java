@@ -1,23 +1,42 @@
 package com.pharma.drugverification.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 @Data
 public class TelemetryReadingRequest {
 
     @NotBlank(message = "Device ID is required")
+    @Size(max = 100, message = "Device ID must be at most 100 characters")
     private String deviceId;
 
     @NotNull(message = "Batch ID is required")
     private Long batchId;
 
     @NotNull(message = "Temperature is required")
+    @DecimalMin(value = "-273.15", message = "Temperature is below absolute zero")
+    @DecimalMax(value = "999.99", message = "Temperature is out of range")
     private Double temperatureCelsius;
 
     @NotNull(message = "Humidity is required")
+    @DecimalMin(value = "0", message = "Humidity must be between 0 and 100")
+    @DecimalMax(value = "100", message = "Humidity must be between 0 and 100")
     private Double humidityPercent;
 
+    @Size(max = 255, message = "Location must be at most 255 characters")
     private String location;
+
+    // When the device took the reading; readings without one are stamped on receipt
+    private LocalDateTime recordedAt;
+
+    // Per-device counter; a reading whose number was already seen is acknowledged as a duplicate
+    @PositiveOrZero(message = "Sequence number must not be negative")
+    private Long sequenceNumber;
 }
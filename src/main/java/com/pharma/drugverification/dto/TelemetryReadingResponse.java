@@ -20,6 +20,7 @@ public class TelemetryReadingResponse {
     private String location;
     private Boolean thresholdViolation;
     private LocalDateTime timestamp;
+    private Long sequenceNumber;
 
     public static TelemetryReadingResponse from(TelemetryReading reading) {
         TelemetryReadingResponse response = new TelemetryReadingResponse();
@@ -32,6 +33,7 @@ public class TelemetryReadingResponse {
         response.setLocation(reading.getLocation());
         response.setThresholdViolation(false); // Calculated separately
         response.setTimestamp(reading.getTimestamp());
+        response.setSequenceNumber(reading.getSequenceNumber());
         return response;
     }
 }
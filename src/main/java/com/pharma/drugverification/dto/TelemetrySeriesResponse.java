@@ -0,0 +1,44 @@
+package com.pharma.drugverification.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A batch's temperature over [from, to) downsampled to one point per
+ * bucket, each carrying the bucket's extremes so excursions stay visible.
+ * Empty buckets are left out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TelemetrySeriesResponse {
+
+    private Long batchId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Long bucketSeconds;
+    private Source source;
+    private List<Point> points;
+
+    public enum Source {
+        READINGS,
+        MINUTE_ROLLUPS,
+        HOUR_ROLLUPS,
+        DAY_ROLLUPS
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private LocalDateTime timestamp;
+        private Long readingCount;
+        private Double minTemperatureCelsius;
+        private Double maxTemperatureCelsius;
+        private Double averageTemperatureCelsius;
+    }
+}
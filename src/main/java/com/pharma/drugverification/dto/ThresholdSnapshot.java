@@ -0,0 +1,58 @@
+package com.pharma.drugverification.dto;
+
+/**
+ * Temperature range of a batch's drug as primitives, for the per-reading
+ * checks on the telemetry path. A missing bound is NaN, and a batch without
+ * both bounds never reports a reading out of range.
+ */
+public final class ThresholdSnapshot {
+
+    private final long batchId;
+    private final long drugId;
+    private final String batchNumber;
+    private final double minTemperature;
+    private final double maxTemperature;
+
+    public ThresholdSnapshot(long batchId, long drugId, String batchNumber, double minTemperature,
+            double maxTemperature) {
+        this.batchId = batchId;
+        this.drugId = drugId;
+        this.batchNumber = batchNumber;
+        this.minTemperature = minTemperature;
+        this.maxTemperature = maxTemperature;
+    }
+
+    public static ThresholdSnapshot from(BatchSnapshot batch, DrugSnapshot drug) {
+        return new ThresholdSnapshot(batch.getId(), batch.getDrugId(), batch.getBatchNumber(),
+                drug.getMinTemperature() != null ? drug.getMinTemperature().doubleValue() : Double.NaN,
+                drug.getMaxTemperature() != null ? drug.getMaxTemperature().doubleValue() : Double.NaN);
+    }
+
+    public long getBatchId() {
+        return batchId;
+    }
+
+    public long getDrugId() {
+        return drugId;
+    }
+
+    public String getBatchNumber() {
+        return batchNumber;
+    }
+
+    public double getMinTemperature() {
+        return minTemperature;
+    }
+
+    public double getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    public boolean hasRange() {
+        return !Double.isNaN(minTemperature) && !Double.isNaN(maxTemperature);
+    }
+
+    public boolean isOutOfRange(double temperature) {
+        return temperature < minTemperature || temperature > maxTemperature;
+    }
+}
@@ -0,0 +1,33 @@
+package com.pharma.drugverification.dto;
+
+import com.pharma.drugverification.domain.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Cacheable view of the user identity consulted on every request and on
+ * every audited write.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private String username;
+    private User.UserRole role;
+    private Boolean active;
+
+    public static UserSnapshot from(User user) {
+        return new UserSnapshot(
+                user.getId(),
+                user.getUsername(),
+                user.getRole(),
+                user.getActive());
+    }
+}
@@ -0,0 +1,18 @@
+package com.pharma.drugverification.repository;
+
+import com.pharma.drugverification.domain.AuditAnchor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AuditAnchorRepository extends JpaRepository<AuditAnchor, Long> {
+
+    Optional<AuditAnchor> findByTransactionId(String transactionId);
+
+    // Windows are cut in id order, so the anchor of a record covers its id
+    List<AuditAnchor> findByFirstAuditLogIdLessThanEqualAndLastAuditLogIdGreaterThanEqual(Long firstAuditLogId,
+            Long lastAuditLogId);
+}
@@ -0,0 +1,13 @@
+package com.pharma.drugverification.repository;
+
+import com.pharma.drugverification.domain.AuditChainRoot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AuditChainRootRepository extends JpaRepository<AuditChainRoot, Long> {
+
+    Optional<AuditChainRoot> findTopByOrderByIdDesc();
+}
@@ -4,6 +4,8 @@ import com.pharma.drugverification.domain.AuditLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,7 +15,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, JpaSpecificationExecutor<AuditLog> {
 
         Page<AuditLog> findByUserId(Long userId, Pageable pageable);
 
@@ -25,10 +27,22 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
         List<AuditLog> findByTimeRange(@Param("startTime") LocalDateTime startTime,
                         @Param("endTime") LocalDateTime endTime);
 
-        @Query("SELECT al FROM AuditLog al WHERE al.blockchainTransactionId IS NULL ORDER BY al.createdAt")
+        @Query("SELECT al FROM AuditLog al WHERE al.blockchainTransactionId IS NULL ORDER BY al.id")
         List<AuditLog> findUnanchoredLogs(Pageable pageable);
 
-        Optional<AuditLog> findTopByOrderByIdDesc();
+        List<AuditLog> findByBlockchainTransactionIdOrderById(String blockchainTransactionId);
+
+        @Modifying
+        @Query("UPDATE AuditLog al SET al.blockchainTransactionId = :transactionId, al.blockchainAnchoredAt = :anchoredAt "
+                        + "WHERE al.id IN :ids AND al.blockchainTransactionId IS NULL")
+        int markAnchored(@Param("ids") List<Long> ids, @Param("transactionId") String transactionId,
+                        @Param("anchoredAt") LocalDateTime anchoredAt);
+
+        Optional<AuditLog> findTopByChainPartitionOrderByChainSequenceDesc(Integer chainPartition);
+
+        @Query("SELECT al FROM AuditLog al WHERE al.chainSequence = (SELECT MAX(h.chainSequence) FROM AuditLog h "
+                        + "WHERE h.chainPartition = al.chainPartition) ORDER BY al.chainPartition")
+        List<AuditLog> findChainHeads();
 
         Optional<AuditLog> findByPreviousHash(String previousHash);
 }
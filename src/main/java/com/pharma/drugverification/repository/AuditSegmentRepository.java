@@ -0,0 +1,15 @@
+package com.pharma.drugverification.repository;
+
+import com.pharma.drugverification.domain.AuditSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AuditSegmentRepository extends JpaRepository<AuditSegment, Long> {
+
+    List<AuditSegment> findAllByOrderByRangeEndAsc();
+
+    boolean existsByPartitionName(String partitionName);
+}
@@ -0,0 +1,76 @@
+package com.pharma.drugverification.repository;
+
+import com.pharma.drugverification.domain.Job;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface JobRepository extends JpaRepository<Job, Long> {
+
+    List<Job> findByStatusIn(Collection<Job.JobStatus> statuses);
+
+    /**
+     * Advances progress only if no other runner has moved it since it was read
+     * and the job has not been cancelled.
+     */
+    @Modifying
+    @Query("UPDATE Job j SET j.completedItems = :completed, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.completedItems = :expected AND j.cancelRequested = false")
+    int advanceProgress(
+            @Param("id") Long id,
+            @Param("expected") Long expected,
+            @Param("completed") Long completed,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Job j SET j.cancelRequested = true, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.status IN ('QUEUED', 'RUNNING')")
+    int requestCancel(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Status changes below only apply while the job is still in the status
+     * the caller read, so a stale copy never overwrites a newer state.
+     * Starting fails once cancellation is requested.
+     */
+    @Modifying
+    @Query("UPDATE Job j SET j.status = 'RUNNING', j.startedAt = COALESCE(j.startedAt, :now), j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.status = :oldStatus AND j.cancelRequested = false")
+    int markRunning(
+            @Param("id") Long id,
+            @Param("oldStatus") Job.JobStatus oldStatus,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Job j SET j.status = 'COMPLETED', j.totalItems = :totalItems, j.completedAt = :now, "
+            + "j.updatedAt = :now WHERE j.id = :id AND j.status = 'RUNNING'")
+    int markCompleted(@Param("id") Long id, @Param("totalItems") Long totalItems, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Job j SET j.status = 'FAILED', j.errorMessage = :errorMessage, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.status = :oldStatus")
+    int markFailed(
+            @Param("id") Long id,
+            @Param("oldStatus") Job.JobStatus oldStatus,
+            @Param("errorMessage") String errorMessage,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Job j SET j.status = 'CANCELLED', j.completedAt = :now, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.status = :oldStatus AND j.cancelRequested = true")
+    int markCancelled(
+            @Param("id") Long id,
+            @Param("oldStatus") Job.JobStatus oldStatus,
+            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Job j SET j.status = 'QUEUED', j.errorMessage = null, j.completedAt = null, j.updatedAt = :now "
+            + "WHERE j.id = :id AND j.status = 'FAILED'")
+    int requeueFailed(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
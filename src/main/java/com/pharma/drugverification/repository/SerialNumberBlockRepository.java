@@ -0,0 +1,9 @@
+package com.pharma.drugverification.repository;
+
+import com.pharma.drugverification.domain.SerialNumberBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SerialNumberBlockRepository extends JpaRepository<SerialNumberBlock, Long> {
+}
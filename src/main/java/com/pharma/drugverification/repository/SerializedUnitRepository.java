@@ -9,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +19,8 @@ public interface SerializedUnitRepository extends JpaRepository<SerializedUnit,
 
     Optional<SerializedUnit> findBySerialNumber(String serialNumber);
 
+    List<SerializedUnit> findBySerialNumberIn(Collection<String> serialNumbers);
+
     Page<SerializedUnit> findByBatchId(Long batchId, Pageable pageable);
 
     List<SerializedUnit> findByBatchId(Long batchId); // Non-paginated variant for internal use
@@ -39,4 +43,19 @@ public interface SerializedUnitRepository extends JpaRepository<SerializedUnit,
             @Param("batchId") Long batchId,
             @Param("oldStatus") SerializedUnit.UnitStatus oldStatus,
             @Param("newStatus") SerializedUnit.UnitStatus newStatus);
+
+    /**
+     * Moves at most {@code limit} units of the batch between statuses, in id
+     * order, so a large batch can be updated in short transactions.
+     */
+    @Modifying
+    @Query(value = "UPDATE serialized_units SET status = :newStatus, updated_at = :now WHERE id IN ("
+            + "SELECT id FROM serialized_units WHERE batch_id = :batchId AND status = :oldStatus "
+            + "ORDER BY id LIMIT :limit)", nativeQuery = true)
+    int updateStatusByBatchIdAndStatusLimited(
+            @Param("batchId") Long batchId,
+            @Param("oldStatus") String oldStatus,
+            @Param("newStatus") String newStatus,
+            @Param("now") LocalDateTime now,
+            @Param("limit") int limit);
 }
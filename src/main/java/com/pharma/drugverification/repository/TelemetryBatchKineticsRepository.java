@@ -0,0 +1,9 @@
+package com.pharma.drugverification.repository;
+
+import com.pharma.drugverification.domain.TelemetryBatchKinetics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TelemetryBatchKineticsRepository extends JpaRepository<TelemetryBatchKinetics, Long> {
+}
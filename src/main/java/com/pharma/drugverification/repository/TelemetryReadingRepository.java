@@ -5,7 +5,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -26,9 +28,42 @@ public interface TelemetryReadingRepository extends JpaRepository<TelemetryReadi
 
         List<TelemetryReading> findByDeviceId(String deviceId);
 
+        TelemetryReading findFirstByDeviceIdAndSequenceNumber(String deviceId, Long sequenceNumber);
+
+        @Query("SELECT tr.sequenceNumber FROM TelemetryReading tr WHERE tr.deviceId = :deviceId "
+                        + "AND tr.sequenceNumber IN :sequenceNumbers ORDER BY tr.sequenceNumber")
+        List<Long> findStoredSequenceNumbers(String deviceId, Collection<Long> sequenceNumbers);
+
+        /**
+         * Readings outside [minTemperature, maxTemperature] since the given
+         * time, newest first. The two temperature ranges are separate index
+         * ranges on (batch_id, temperature, timestamp), so only violations are read.
+         */
+        @Query(value = "SELECT tr FROM TelemetryReading tr WHERE tr.batchId = :batchId "
+                        + "AND (tr.temperature < :minTemperature OR tr.temperature > :maxTemperature) "
+                        + "AND tr.timestamp >= :since ORDER BY tr.timestamp DESC, tr.id DESC",
+                        countQuery = "SELECT COUNT(tr) FROM TelemetryReading tr WHERE tr.batchId = :batchId "
+                                        + "AND (tr.temperature < :minTemperature OR tr.temperature > :maxTemperature) "
+                                        + "AND tr.timestamp >= :since")
+        org.springframework.data.domain.Page<TelemetryReading> findViolations(
+                        Long batchId,
+                        BigDecimal minTemperature,
+                        BigDecimal maxTemperature,
+                        LocalDateTime since,
+                        org.springframework.data.domain.Pageable pageable);
+
         org.springframework.data.domain.Page<TelemetryReading> findByBatchId(Long batchId,
                         org.springframework.data.domain.Pageable pageable);
 
+        // Slice rather than Page, so no count query runs per page
+        org.springframework.data.domain.Slice<TelemetryReading> findSliceByBatchId(Long batchId,
+                        org.springframework.data.domain.Pageable pageable);
+
+        long countByBatchId(Long batchId);
+
+        List<TelemetryReading> findByBatchIdAndTimestampLessThanEqual(Long batchId, LocalDateTime timestamp,
+                        org.springframework.data.domain.Sort sort);
+
         org.springframework.data.domain.Page<TelemetryReading> findByDeviceId(String deviceId,
                         org.springframework.data.domain.Pageable pageable);
 }
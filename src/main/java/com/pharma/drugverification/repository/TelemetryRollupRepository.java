@@ -0,0 +1,15 @@
+package com.pharma.drugverification.repository;
+
+import com.pharma.drugverification.domain.TelemetryRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TelemetryRollupRepository extends JpaRepository<TelemetryRollup, Long> {
+
+    List<TelemetryRollup> findByBatchIdAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+            Long batchId, TelemetryRollup.Granularity granularity, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,13 @@
+package com.pharma.drugverification.repository;
+
+import com.pharma.drugverification.domain.TelemetrySegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TelemetrySegmentRepository extends JpaRepository<TelemetrySegment, Long> {
+
+    List<TelemetrySegment> findByBatchIdOrderByRangeStartAscIdAsc(Long batchId);
+}
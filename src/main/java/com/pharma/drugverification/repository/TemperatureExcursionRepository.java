@@ -13,6 +13,8 @@ public interface TemperatureExcursionRepository extends JpaRepository<Temperatur
 
     List<TemperatureExcursion> findByBatchIdAndResolvedFalse(Long batchId);
 
+    List<TemperatureExcursion> findByResolvedFalse();
+
     List<TemperatureExcursion> findBySeverity(TemperatureExcursion.Severity severity);
 
     List<TemperatureExcursion> findByBatchIdAndSeverity(
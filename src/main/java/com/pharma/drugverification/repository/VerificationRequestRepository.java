@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -26,6 +27,13 @@ public interface VerificationRequestRepository extends JpaRepository<Verificatio
             LocalDateTime startTime,
             LocalDateTime endTime);
 
+    @Query("SELECT vr FROM VerificationRequest vr WHERE vr.serialNumber IN :serialNumbers " +
+            "AND vr.createdAt BETWEEN :startTime AND :endTime ORDER BY vr.createdAt DESC")
+    List<VerificationRequest> findRecentVerificationsBySerialIn(
+            Collection<String> serialNumbers,
+            LocalDateTime startTime,
+            LocalDateTime endTime);
+
     @Query("SELECT AVG(vr.responseTimeMs) FROM VerificationRequest vr " +
             "WHERE vr.createdAt >= :since")
     Double getAverageResponseTime(LocalDateTime since);
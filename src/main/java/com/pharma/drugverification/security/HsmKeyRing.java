@@ -0,0 +1,214 @@
+package com.pharma.drugverification.security;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Crypto-tail signing keys, indexed by key version.
+ *
+ * Keys are read from a PKCS#12 keystore standing in for the HSM, one secret
+ * key per version under the alias {@code <alias-prefix><version>}. Version 1
+ * falls back to the JWT secret, which signed every unit issued before the key
+ * ring existed. The keystore is re-read when its modification time changes,
+ * so a new version can be added and activated without a restart; keys whose
+ * material is unchanged keep their initialised per-thread Mac instances.
+ */
+@Component
+@Slf4j
+public class HsmKeyRing {
+
+    static final String ALGORITHM = "HmacSHA256";
+    static final int LEGACY_KEY_VERSION = 1;
+
+    private final ApplicationProperties applicationProperties;
+
+    private volatile Snapshot snapshot;
+
+    public HsmKeyRing(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+        this.snapshot = load(null);
+    }
+
+    /**
+     * Key for the given version.
+     *
+     * @throws IllegalArgumentException if the version is not in the ring
+     */
+    public SigningKey getKey(int keyVersion) {
+        return findKey(keyVersion).orElseThrow(
+                () -> new IllegalArgumentException("Unknown crypto-tail key version: " + keyVersion));
+    }
+
+    /**
+     * Key for the given version, or empty if the version is not in the ring.
+     */
+    public Optional<SigningKey> findKey(int keyVersion) {
+        SigningKey[] keys = snapshot.keys();
+        return Optional.ofNullable(keyVersion >= 0 && keyVersion < keys.length ? keys[keyVersion] : null);
+    }
+
+    /**
+     * Version used to sign newly serialized units.
+     */
+    public int getActiveVersion() {
+        return snapshot.activeVersion();
+    }
+
+    /**
+     * Reloads the keystore if it has changed since it was last read. A keystore
+     * that fails to load leaves the current ring in place.
+     */
+    @Scheduled(fixedDelayString = "${application.hsm.key-refresh-interval-ms:60000}")
+    public void refresh() {
+        Path keystore = keystorePath();
+        if (keystore == null) {
+            return;
+        }
+        try {
+            FileTime modified = Files.exists(keystore) ? Files.getLastModifiedTime(keystore) : null;
+            if (modified == null || modified.equals(snapshot.keystoreModified())) {
+                return;
+            }
+            Snapshot reloaded = load(snapshot);
+            snapshot = reloaded;
+            log.info("Reloaded crypto-tail key ring, active version {}", reloaded.activeVersion());
+        } catch (Exception e) {
+            log.error("Failed to reload crypto-tail key ring, keeping current keys", e);
+        }
+    }
+
+    private Snapshot load(Snapshot previous) {
+        ApplicationProperties.HsmProperties hsm = applicationProperties.getHsm();
+        Map<Integer, byte[]> material = new TreeMap<>();
+        FileTime modified = null;
+
+        Path keystore = keystorePath();
+        if (keystore != null && Files.exists(keystore)) {
+            try {
+                modified = Files.getLastModifiedTime(keystore);
+                material.putAll(readKeystore(keystore, hsm));
+            } catch (Exception e) {
+                if (previous != null) {
+                    throw new IllegalStateException("Unreadable keystore " + keystore, e);
+                }
+                log.error("Failed to load crypto-tail keystore {}, using legacy key only", keystore, e);
+            }
+        }
+
+        String legacySecret = applicationProperties.getJwt().getSecret();
+        if (!material.containsKey(LEGACY_KEY_VERSION) && legacySecret != null) {
+            material.put(LEGACY_KEY_VERSION, legacySecret.getBytes(StandardCharsets.UTF_8));
+        }
+        if (material.isEmpty()) {
+            throw new IllegalStateException("No crypto-tail signing keys configured");
+        }
+
+        int maxVersion = Collections.max(material.keySet());
+        SigningKey[] keys = new SigningKey[maxVersion + 1];
+        material.forEach((version, bytes) -> {
+            SigningKey existing = previous != null && version < previous.keys().length
+                    ? previous.keys()[version]
+                    : null;
+            keys[version] = existing != null && existing.hasMaterial(bytes) ? existing : new SigningKey(bytes);
+        });
+
+        Integer configured = hsm.getActiveKeyVersion();
+        int activeVersion = configured != null ? configured : maxVersion;
+        if (activeVersion < 0 || activeVersion >= keys.length || keys[activeVersion] == null) {
+            throw new IllegalStateException("Active crypto-tail key version " + activeVersion + " is not in the key ring");
+        }
+
+        log.info("Loaded crypto-tail key versions {}, active version {}", material.keySet(), activeVersion);
+        return new Snapshot(keys, activeVersion, modified);
+    }
+
+    private Map<Integer, byte[]> readKeystore(Path path, ApplicationProperties.HsmProperties hsm)
+            throws Exception {
+        char[] password = hsm.getKeystorePassword() != null ? hsm.getKeystorePassword().toCharArray() : null;
+        KeyStore keyStore = KeyStore.getInstance(hsm.getKeystoreType());
+        try (InputStream in = Files.newInputStream(path)) {
+            keyStore.load(in, password);
+        }
+
+        Map<Integer, byte[]> material = new TreeMap<>();
+        String prefix = hsm.getKeyAliasPrefix();
+        for (String alias : Collections.list(keyStore.aliases())) {
+            if (!alias.startsWith(prefix)) {
+                continue;
+            }
+            int version;
+            try {
+                version = Integer.parseInt(alias.substring(prefix.length()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring keystore alias {} without a numeric version", alias);
+                continue;
+            }
+            Key key = keyStore.getKey(alias, password);
+            if (key instanceof SecretKey secretKey && version > 0) {
+                material.put(version, secretKey.getEncoded());
+            }
+        }
+        return material;
+    }
+
+    private Path keystorePath() {
+        String path = applicationProperties.getHsm().getKeystorePath();
+        return path == null || path.isBlank() ? null : Path.of(path);
+    }
+
+    private record Snapshot(SigningKey[] keys, int activeVersion, FileTime keystoreModified) {
+    }
+
+    /**
+     * One key version. Mac instances are not thread-safe, so each thread keeps
+     * its own instance initialised with this key.
+     */
+    public static final class SigningKey {
+
+        private final SecretKeySpec key;
+        private final ThreadLocal<Mac> macs;
+
+        SigningKey(byte[] material) {
+            this.key = new SecretKeySpec(material, ALGORITHM);
+            this.macs = ThreadLocal.withInitial(this::newMac);
+        }
+
+        Mac mac() {
+            return macs.get();
+        }
+
+        boolean hasMaterial(byte[] material) {
+            return Arrays.equals(key.getEncoded(), material);
+        }
+
+        private Mac newMac() {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                log.error("Failed to initialise crypto-tail signer", e);
+                throw new RuntimeException("Cryptographic operation failed", e);
+            }
+        }
+    }
+}
@@ -1,17 +1,13 @@
 package com.pharma.drugverification.security;
 
-import com.pharma.drugverification.config.ApplicationProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.security.MessageDigest;
 import java.util.Base64;
-import java.util.HexFormat;
 
 /**
  * HSM Service - Simulates Hardware Security Module operations
@@ -23,8 +19,9 @@ import java.util.HexFormat;
 @Slf4j
 public class HsmService {
 
-    private final ApplicationProperties applicationProperties;
-    private static final int CURRENT_KEY_VERSION = 1;
+    private static final byte SEPARATOR = ':';
+
+    private final HsmKeyRing keyRing;
 
     /**
      * Generate a crypto-tail signature for a serialized unit
@@ -32,26 +29,13 @@ public class HsmService {
      * Current implementation: Uses HMAC-SHA256 as simulation
      */
     public String generateCryptoTail(String serialNumber, String gtin, String batchNumber) {
-        try {
-            String data = serialNumber + ":" + gtin + ":" + batchNumber;
-
-            // In production, this would use HSM PKCS#11 interface
-            // For now, simulate with HMAC using configured secret
-            String secret = applicationProperties.getJwt().getSecret();
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(secretKey);
-
-            byte[] signature = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-            String cryptoTail = Base64.getEncoder().encodeToString(signature);
-
-            log.debug("Generated crypto-tail for serial: {}", serialNumber);
-            return cryptoTail;
+        return generateCryptoTail(serialNumber, gtin, batchNumber, keyRing.getActiveVersion());
+    }
 
-        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
-            log.error("Failed to generate crypto-tail", e);
-            throw new RuntimeException("Cryptographic operation failed", e);
-        }
+    public String generateCryptoTail(String serialNumber, String gtin, String batchNumber, int keyVersion) {
+        byte[] signature = sign(serialNumber, gtin, batchNumber, keyRing.getKey(keyVersion));
+        log.debug("Generated crypto-tail for serial: {}", serialNumber);
+        return Base64.getEncoder().encodeToString(signature);
     }
 
     /**
@@ -59,15 +43,51 @@ public class HsmService {
      * In production: Uses HSM's public key to verify
      */
     public boolean verifyCryptoTail(String serialNumber, String gtin, String batchNumber, String cryptoTail) {
+        return verifyCryptoTail(serialNumber, gtin, batchNumber, cryptoTail, keyRing.getActiveVersion());
+    }
+
+    /**
+     * Verify a crypto-tail against the key version recorded on the unit.
+     * Units serialized before key versions were recorded use the legacy key.
+     */
+    public boolean verifyCryptoTail(String serialNumber, String gtin, String batchNumber, String cryptoTail,
+            Integer keyVersion) {
+        if (cryptoTail == null) {
+            return false;
+        }
+        int version = keyVersion != null ? keyVersion : HsmKeyRing.LEGACY_KEY_VERSION;
+        HsmKeyRing.SigningKey key = keyRing.findKey(version).orElse(null);
+        if (key == null) {
+            // Usually a unit signed with a key that is not in this node's keystore yet, or was retired
+            log.warn("Crypto-tail key version {} for serial {} is not in the key ring", version, serialNumber);
+            return false;
+        }
         try {
-            String expectedCryptoTail = generateCryptoTail(serialNumber, gtin, batchNumber);
-            return expectedCryptoTail.equals(cryptoTail);
+            byte[] presented = Base64.getDecoder().decode(cryptoTail);
+            byte[] expected = sign(serialNumber, gtin, batchNumber, key);
+            // Constant-time comparison so timing does not leak matching prefixes
+            return MessageDigest.isEqual(expected, presented);
+        } catch (IllegalArgumentException e) {
+            log.debug("Malformed crypto-tail for serial: {}", serialNumber);
+            return false;
         } catch (Exception e) {
             log.error("Failed to verify crypto-tail", e);
             return false;
         }
     }
 
+    private byte[] sign(String serialNumber, String gtin, String batchNumber, HsmKeyRing.SigningKey key) {
+        // In production, this would use HSM PKCS#11 interface
+        // For now, simulate with HMAC over "serial:gtin:batch" using the key for this version
+        Mac mac = key.mac();
+        mac.update(String.valueOf(serialNumber).getBytes(StandardCharsets.UTF_8));
+        mac.update(SEPARATOR);
+        mac.update(String.valueOf(gtin).getBytes(StandardCharsets.UTF_8));
+        mac.update(SEPARATOR);
+        mac.update(String.valueOf(batchNumber).getBytes(StandardCharsets.UTF_8));
+        return mac.doFinal();
+    }
+
     /**
      * Generate Data Matrix barcode content
      * Format: GS1 Digital Link standard
@@ -79,16 +99,6 @@ public class HsmService {
     }
 
     public int getCurrentKeyVersion() {
-        return CURRENT_KEY_VERSION;
-    }
-
-    /**
-     * Generate a unique serial number
-     * In production, this might use HSM's random number generator
-     */
-    public String generateSerialNumber() {
-        long timestamp = System.currentTimeMillis();
-        int random = (int) (Math.random() * 100000);
-        return String.format("SN%d%05d", timestamp, random);
+        return keyRing.getActiveVersion();
     }
 }
@@ -1,6 +1,8 @@
 package com.pharma.drugverification.security;
 
+import com.pharma.drugverification.dto.UserSnapshot;
 import com.pharma.drugverification.service.AuthenticationService;
+import com.pharma.drugverification.service.UserDirectoryService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,6 +28,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final AuthenticationService authenticationService;
+    private final UserDirectoryService userDirectoryService;
 
     @Override
     protected void doFilterInternal(
@@ -47,9 +50,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     return;
                 }
 
-                String username = jwtTokenProvider.getUsernameFromToken(token);
                 Long userId = jwtTokenProvider.getUserIdFromToken(token);
-                String role = jwtTokenProvider.getRoleFromToken(token);
+                // Current identity, so deactivations and role changes apply before the token expires
+                UserSnapshot user = userDirectoryService.getUser(userId);
+                if (user == null || !Boolean.TRUE.equals(user.getActive())) {
+                    log.warn("Blocked token of unknown or inactive user {}", userId);
+                    filterChain.doFilter(request, response);
+                    return;
+                }
+                String username = user.getUsername();
+                String role = user.getRole().name();
                 log.info("Authenticated user: {}, id: {}, role: {}", username, userId, role);
 
                 SimpleGrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + role);
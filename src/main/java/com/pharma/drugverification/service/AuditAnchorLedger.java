@@ -0,0 +1,103 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.AuditAnchor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only file standing in for the external ledger. Each line records one
+ * anchor; its transaction id hashes the entry together with the previous
+ * transaction id, so lines cannot be dropped or rewritten unnoticed.
+ */
+@Component
+@Slf4j
+public class AuditAnchorLedger {
+
+    private final Path ledgerFile;
+    private final ObjectMapper objectMapper;
+
+    private String lastTransactionId;
+
+    public AuditAnchorLedger(ApplicationProperties applicationProperties, ObjectMapper objectMapper) {
+        this.ledgerFile = Path.of(applicationProperties.getAudit().getAnchorFile());
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Appends the anchor and fills in its transaction ids. The entry is
+     * forced to disk before returning.
+     */
+    public synchronized void append(AuditAnchor anchor) {
+        try {
+            String previousTransactionId = lastTransactionId();
+            anchor.setPreviousTransactionId(previousTransactionId);
+            anchor.setTransactionId(transactionId(anchor));
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("transactionId", anchor.getTransactionId());
+            entry.put("previousTransactionId", previousTransactionId);
+            entry.put("rootHash", anchor.getRootHash());
+            entry.put("leafCount", anchor.getLeafCount());
+            entry.put("firstAuditLogId", anchor.getFirstAuditLogId());
+            entry.put("lastAuditLogId", anchor.getLastAuditLogId());
+            entry.put("anchoredAt", anchor.getAnchoredAt().toString());
+            byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+
+            if (ledgerFile.getParent() != null) {
+                Files.createDirectories(ledgerFile.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(ledgerFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            lastTransactionId = anchor.getTransactionId();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append audit anchor to " + ledgerFile, e);
+        }
+    }
+
+    static String transactionId(AuditAnchor anchor) {
+        String entry = anchor.getPreviousTransactionId() + ":" + anchor.getRootHash() + ":" + anchor.getLeafCount()
+                + ":" + anchor.getFirstAuditLogId() + ":" + anchor.getLastAuditLogId() + ":"
+                + anchor.getAnchoredAt();
+        return HexFormat.of().formatHex(AuditChainHasher.sha256().digest(entry.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String lastTransactionId() throws IOException {
+        if (lastTransactionId != null) {
+            return lastTransactionId;
+        }
+        String last = AuditChainHasher.GENESIS_HASH;
+        if (Files.exists(ledgerFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(ledgerFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        last = objectMapper.readTree(line).get("transactionId").asText();
+                    }
+                }
+            }
+        }
+        lastTransactionId = last;
+        return last;
+    }
+}
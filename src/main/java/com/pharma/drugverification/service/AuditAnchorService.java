@@ -0,0 +1,207 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.AuditAnchor;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.dto.AuditAnchorProofResponse;
+import com.pharma.drugverification.exception.ResourceNotFoundException;
+import com.pharma.drugverification.repository.AuditAnchorRepository;
+import com.pharma.drugverification.repository.AuditLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Anchors audit records in windows. Each window of unanchored records is
+ * reduced to one Merkle root, only the root goes to the ledger, and the
+ * records are stamped with its transaction id in a single update. Any record
+ * can then be proven against its anchor with a logarithmic inclusion proof.
+ * Records of archived months are proven from their segment, which holds
+ * the whole window since windows never span months.
+ */
+@Service
+@Slf4j
+public class AuditAnchorService {
+
+    private final AuditLogRepository auditLogRepository;
+    private final AuditAnchorRepository anchorRepository;
+    private final AuditSegmentStore segmentStore;
+    private final AuditAnchorLedger ledger;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationProperties.AuditProperties properties;
+
+    public AuditAnchorService(AuditLogRepository auditLogRepository,
+            AuditAnchorRepository anchorRepository,
+            AuditSegmentStore segmentStore,
+            AuditAnchorLedger ledger,
+            PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties) {
+        this.auditLogRepository = auditLogRepository;
+        this.anchorRepository = anchorRepository;
+        this.segmentStore = segmentStore;
+        this.ledger = ledger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getAudit();
+    }
+
+    @Scheduled(fixedDelayString = "${application.audit.anchor-interval-ms:300000}")
+    public void anchorPendingLogs() {
+        try {
+            int anchored = 0;
+            for (int window = 0; window < properties.getAnchorMaxWindowsPerRun(); window++) {
+                int count = anchorNextWindow();
+                if (count == 0) {
+                    break;
+                }
+                anchored += count;
+            }
+            if (anchored > 0) {
+                log.info("Anchored {} audit records", anchored);
+            }
+        } catch (Exception e) {
+            log.error("Failed to anchor audit records", e);
+        }
+    }
+
+    /**
+     * Anchors the oldest window of unanchored records and returns its size.
+     */
+    int anchorNextWindow() {
+        List<AuditLog> window = auditLogRepository.findUnanchoredLogs(
+                PageRequest.of(0, properties.getAnchorWindowSize()));
+        if (window.isEmpty()) {
+            return 0;
+        }
+        // Windows never span months, so an anchor never straddles an archived partition
+        YearMonth month = YearMonth.from(window.get(0).getCreatedAt());
+        for (int i = 1; i < window.size(); i++) {
+            if (!YearMonth.from(window.get(i).getCreatedAt()).equals(month)) {
+                window = window.subList(0, i);
+                break;
+            }
+        }
+
+        List<byte[]> leaves = new ArrayList<>(window.size());
+        List<Long> ids = new ArrayList<>(window.size());
+        for (AuditLog auditLog : window) {
+            leaves.add(leafData(auditLog));
+            ids.add(auditLog.getId());
+        }
+
+        AuditAnchor anchor = new AuditAnchor();
+        anchor.setRootHash(HexFormat.of().formatHex(MerkleTree.root(leaves)));
+        anchor.setLeafCount(window.size());
+        anchor.setFirstAuditLogId(ids.get(0));
+        anchor.setLastAuditLogId(ids.get(ids.size() - 1));
+        anchor.setAnchoredAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        ledger.append(anchor);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            anchorRepository.save(anchor);
+            int updated = auditLogRepository.markAnchored(ids, anchor.getTransactionId(), anchor.getAnchoredAt());
+            if (updated != ids.size()) {
+                // Another node anchored part of this window first; its anchor stands
+                throw new IllegalStateException("Audit window " + anchor.getFirstAuditLogId() + "-"
+                        + anchor.getLastAuditLogId() + " was anchored concurrently, ledger entry "
+                        + anchor.getTransactionId() + " is orphaned");
+            }
+        });
+
+        log.debug("Anchored audit records {}-{} under root {}", anchor.getFirstAuditLogId(),
+                anchor.getLastAuditLogId(), anchor.getRootHash());
+        return window.size();
+    }
+
+    public AuditAnchorProofResponse getProof(Long auditLogId) {
+        AuditLog stored = auditLogRepository.findById(auditLogId).orElse(null);
+        List<AuditLog> archived = stored == null ? findArchivedWindows(auditLogId) : null;
+        AuditLog auditLog = stored != null ? stored : archived.stream()
+                .filter(member -> member.getId().equals(auditLogId))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Audit log not found with id: " + auditLogId));
+        if (auditLog.getBlockchainTransactionId() == null) {
+            throw new ResourceNotFoundException("Audit log " + auditLogId + " has not been anchored yet");
+        }
+        AuditAnchor anchor = anchorRepository.findByTransactionId(auditLog.getBlockchainTransactionId())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Anchor not found with transaction id: " + auditLog.getBlockchainTransactionId()));
+
+        List<AuditLog> window = archived != null
+                ? archived.stream()
+                        .filter(member -> anchor.getTransactionId().equals(member.getBlockchainTransactionId()))
+                        .toList()
+                : auditLogRepository.findByBlockchainTransactionIdOrderById(anchor.getTransactionId());
+        List<byte[]> leaves = new ArrayList<>(window.size());
+        int leafIndex = -1;
+        for (AuditLog member : window) {
+            if (member.getId().equals(auditLogId)) {
+                leafIndex = leaves.size();
+            }
+            leaves.add(leafData(member));
+        }
+
+        List<MerkleTree.ProofStep> steps = MerkleTree.proof(leaves, leafIndex);
+        List<AuditAnchorProofResponse.ProofStep> proof = new ArrayList<>(steps.size());
+        for (MerkleTree.ProofStep step : steps) {
+            AuditAnchorProofResponse.ProofStep proofStep = new AuditAnchorProofResponse.ProofStep();
+            proofStep.setHash(HexFormat.of().formatHex(step.hash()));
+            proofStep.setPosition(step.left()
+                    ? AuditAnchorProofResponse.Position.LEFT
+                    : AuditAnchorProofResponse.Position.RIGHT);
+            proof.add(proofStep);
+        }
+
+        byte[] leaf = leaves.get(leafIndex);
+        boolean verified = window.size() == anchor.getLeafCount()
+                && MerkleTree.verify(leaf, steps, HexFormat.of().parseHex(anchor.getRootHash()));
+        if (!verified) {
+            log.error("Audit log {} does not prove against anchor {}", auditLogId, anchor.getTransactionId());
+        }
+
+        AuditAnchorProofResponse response = new AuditAnchorProofResponse();
+        response.setAuditLogId(auditLogId);
+        response.setCurrentHash(auditLog.getCurrentHash());
+        response.setLeaf(new String(leaf, StandardCharsets.UTF_8));
+        response.setLeafIndex(leafIndex);
+        response.setLeafCount(window.size());
+        response.setTransactionId(anchor.getTransactionId());
+        response.setRootHash(anchor.getRootHash());
+        response.setAnchoredAt(anchor.getAnchoredAt());
+        response.setProof(proof);
+        response.setVerified(verified);
+        return response;
+    }
+
+    /**
+     * Archived records within the id ranges of the anchors that can hold
+     * the given id, read with one pass over its segment.
+     */
+    private List<AuditLog> findArchivedWindows(Long auditLogId) {
+        List<AuditAnchor> anchors = anchorRepository
+                .findByFirstAuditLogIdLessThanEqualAndLastAuditLogIdGreaterThanEqual(auditLogId, auditLogId);
+        if (anchors.isEmpty()) {
+            return List.of();
+        }
+        long fromId = anchors.stream().mapToLong(AuditAnchor::getFirstAuditLogId).min().orElseThrow();
+        long toId = anchors.stream().mapToLong(AuditAnchor::getLastAuditLogId).max().orElseThrow();
+        return segmentStore.findByIdRange(fromId, toId);
+    }
+
+    /**
+     * Binds the record id to its chain hash, which already covers the content.
+     */
+    static byte[] leafData(AuditLog auditLog) {
+        return (auditLog.getId() + ":" + auditLog.getCurrentHash()).getBytes(StandardCharsets.UTF_8);
+    }
+}
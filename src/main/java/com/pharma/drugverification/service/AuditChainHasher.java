@@ -0,0 +1,113 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.DecimalNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pharma.drugverification.domain.AuditLog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Canonical SHA-256 hash of an audit record.
+ *
+ * Every stored field that describes the event is hashed, each one length
+ * prefixed so values cannot be shifted across field boundaries, and the
+ * changes map is serialized with sorted keys. Numbers are written as plain
+ * decimals without trailing zeros, so 9.50 hashed from an entity and 9.5
+ * read back from JSONB agree. The hash can therefore be recomputed from the
+ * stored row alone.
+ */
+public final class AuditChainHasher {
+
+    public static final String GENESIS_HASH = "0";
+
+    // Dates keep Jackson's default array form, which is what the JSONB column holds
+    private static final ObjectMapper CANONICAL_JSON = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN)
+            .build();
+
+    private AuditChainHasher() {
+    }
+
+    public static String hash(AuditLog log) {
+        MessageDigest digest = sha256();
+        update(digest, String.valueOf(log.getChainPartition()));
+        update(digest, String.valueOf(log.getChainSequence()));
+        update(digest, log.getPreviousHash());
+        update(digest, log.getAction());
+        update(digest, log.getEntityType());
+        update(digest, log.getEntityId() != null ? log.getEntityId().toString() : null);
+        update(digest, String.valueOf(log.getUserId()));
+        update(digest, log.getUsername());
+        update(digest, log.getIpAddress());
+        update(digest, log.getUserAgent());
+        update(digest, canonicalJson(log.getChanges()));
+        update(digest, log.getCreatedAt() != null ? log.getCreatedAt().toString() : null);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String field) {
+        if (field == null) {
+            digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+            return;
+        }
+        byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    static String canonicalJson(Map<String, Object> changes) {
+        if (changes == null) {
+            return null;
+        }
+        try {
+            return CANONICAL_JSON.writeValueAsString(canonical(CANONICAL_JSON.valueToTree(changes)));
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new IllegalArgumentException("Audit changes are not serializable", e);
+        }
+    }
+
+    private static JsonNode canonical(JsonNode node) {
+        if (node.isNumber()) {
+            return DecimalNode.valueOf(node.decimalValue().stripTrailingZeros());
+        }
+        if (node.isObject()) {
+            ObjectNode sorted = JsonNodeFactory.instance.objectNode();
+            new TreeMap<>(node.properties().stream()
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
+                    .forEach((key, value) -> sorted.set(key, canonical(value)));
+            return sorted;
+        }
+        if (node.isArray()) {
+            ArrayNode elements = JsonNodeFactory.instance.arrayNode();
+            node.forEach(element -> elements.add(canonical(element)));
+            return elements;
+        }
+        return node;
+    }
+}
@@ -0,0 +1,81 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.AuditChainRoot;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.dto.AuditChainRootResponse;
+import com.pharma.drugverification.exception.ResourceNotFoundException;
+import com.pharma.drugverification.repository.AuditChainRootRepository;
+import com.pharma.drugverification.repository.AuditLogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Periodically commits to the heads of all audit chain partitions with a
+ * single Merkle root, so the partitions together carry the same tamper
+ * evidence as one global chain.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditChainRootService {
+
+    private final AuditLogRepository auditLogRepository;
+    private final AuditChainRootRepository chainRootRepository;
+
+    @Scheduled(fixedDelayString = "${application.audit.merkle-root-interval-ms:60000}")
+    public void publishRoot() {
+        try {
+            List<AuditLog> chainHeads = auditLogRepository.findChainHeads();
+            if (chainHeads.isEmpty()) {
+                return;
+            }
+
+            AuditChainRoot root = buildRoot(chainHeads);
+            AuditChainRoot previous = chainRootRepository.findTopByOrderByIdDesc().orElse(null);
+            if (previous != null && previous.getRootHash().equals(root.getRootHash())) {
+                return;
+            }
+
+            chainRootRepository.save(root);
+            log.debug("Published audit chain root {} over {} partitions", root.getRootHash(),
+                    root.getPartitionCount());
+        } catch (Exception e) {
+            log.error("Failed to publish audit chain root", e);
+        }
+    }
+
+    public AuditChainRootResponse getLatestRoot() {
+        return chainRootRepository.findTopByOrderByIdDesc()
+                .map(AuditChainRootResponse::from)
+                .orElseThrow(() -> new ResourceNotFoundException("No audit chain root published yet"));
+    }
+
+    static AuditChainRoot buildRoot(List<AuditLog> chainHeads) {
+        List<byte[]> leaves = new ArrayList<>(chainHeads.size());
+        Map<String, Object> heads = new LinkedHashMap<>();
+        for (AuditLog head : chainHeads) {
+            leaves.add(leafData(head.getChainPartition(), head.getChainSequence(), head.getCurrentHash()));
+            heads.put(head.getChainPartition().toString(),
+                    Map.of("sequence", head.getChainSequence(), "hash", head.getCurrentHash()));
+        }
+
+        AuditChainRoot root = new AuditChainRoot();
+        root.setRootHash(HexFormat.of().formatHex(MerkleTree.root(leaves)));
+        root.setPartitionCount(chainHeads.size());
+        root.setHeads(heads);
+        return root;
+    }
+
+    static byte[] leafData(int partition, long sequence, String hash) {
+        return (partition + ":" + sequence + ":" + hash).getBytes(StandardCharsets.UTF_8);
+    }
+}
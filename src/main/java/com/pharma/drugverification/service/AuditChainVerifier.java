@@ -0,0 +1,477 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.domain.AuditVerificationCheckpoint;
+import com.pharma.drugverification.dto.AuditVerificationStatus;
+import com.pharma.drugverification.repository.AuditVerificationCheckpointRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Incremental verifier for the audit hash chains.
+ *
+ * Rows are streamed in id order through a server-side cursor and cut into
+ * segments. Segments are checked in parallel on a fork-join pool, which
+ * recomputes every hash and follows every link inside the segment. Links
+ * that cross segment boundaries are then stitched in order on the streaming
+ * thread; that only looks at each partition's first and last row per
+ * segment. Progress is saved as signed checkpoints, so a run starts from the
+ * last checkpoint and only verifies rows added since. Legacy records predate
+ * the canonical hash and were chained by concurrent writers that could fork
+ * the chain, so neither their hashes nor their links are checked.
+ */
+@Service
+@Slf4j
+public class AuditChainVerifier {
+
+    static final String SELECT_SQL = "SELECT " + AuditLogRowMapper.COLUMNS
+            + " FROM audit_logs WHERE id > ? AND id <= ? ORDER BY id";
+
+    static final int LEGACY_PARTITION = -1;
+
+    private final AuditVerificationCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate cursorTransaction;
+    private final TransactionTemplate checkpointTransaction;
+    private final AuditLogRowMapper rowMapper;
+    private final ApplicationProperties.AuditProperties properties;
+    private final byte[] checkpointKey;
+
+    private final ForkJoinPool verificationPool;
+    private final ExecutorService runner;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile AuditVerificationStatus status;
+
+    public AuditChainVerifier(AuditVerificationCheckpointRepository checkpointRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            ApplicationProperties applicationProperties) {
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.rowMapper = new AuditLogRowMapper(objectMapper);
+        this.properties = applicationProperties.getAudit();
+
+        // PostgreSQL only streams with a fetch size inside a transaction
+        this.cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorTemplate.setFetchSize(properties.getVerificationFetchSize());
+        this.cursorTransaction = new TransactionTemplate(transactionManager);
+        this.cursorTransaction.setReadOnly(true);
+        this.checkpointTransaction = new TransactionTemplate(transactionManager);
+        this.checkpointTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        String key = properties.getCheckpointKey();
+        if (key == null || key.isBlank()) {
+            key = "audit-checkpoint:" + applicationProperties.getJwt().getSecret();
+        }
+        this.checkpointKey = key.getBytes(StandardCharsets.UTF_8);
+
+        int parallelism = properties.getVerificationParallelism() > 0
+                ? properties.getVerificationParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.verificationPool = new ForkJoinPool(parallelism);
+        this.runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audit-chain-verifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AuditVerificationStatus idle = new AuditVerificationStatus();
+        idle.setState(AuditVerificationStatus.State.IDLE);
+        this.status = idle;
+    }
+
+    /**
+     * Starts a run in the background unless one is already in progress.
+     */
+    public AuditVerificationStatus startVerification() {
+        if (running.compareAndSet(false, true)) {
+            runner.execute(this::runExclusively);
+        }
+        return status;
+    }
+
+    public AuditVerificationStatus getStatus() {
+        return status;
+    }
+
+    @Scheduled(fixedDelayString = "${application.audit.verification-interval-ms:3600000}",
+            initialDelayString = "${application.audit.verification-interval-ms:3600000}")
+    public void scheduledVerification() {
+        if (running.compareAndSet(false, true)) {
+            runExclusively();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+        verificationPool.shutdownNow();
+    }
+
+    private void runExclusively() {
+        try {
+            verify();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    void verify() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(properties.getVerificationLagSeconds());
+        Long upToId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM audit_logs WHERE created_at < ?",
+                Long.class, Timestamp.valueOf(cutoff));
+
+        verify(upToId != null ? upToId : 0L, (fromId, sink) -> cursorTransaction.executeWithoutResult(tx ->
+                cursorTemplate.query(SELECT_SQL, (RowCallbackHandler) rs -> sink.accept(rowMapper.mapRow(rs, 0)),
+                        fromId, upToId)));
+    }
+
+    /**
+     * Verifies from the latest valid checkpoint up to {@code upToId}, reading
+     * rows in id order from {@code rowSource}.
+     */
+    void verify(long upToId, RowSource rowSource) {
+        Run run = new Run(upToId);
+        try {
+            resumeFromCheckpoint(run);
+            publish(run, AuditVerificationStatus.State.RUNNING, null);
+
+            if (run.upToId > run.lastVerifiedId) {
+                try {
+                    rowSource.stream(run.fromId, run::accept);
+                } catch (VerificationStopped e) {
+                    // First broken link found; the rest of the table is not read
+                }
+                run.finish();
+            }
+
+            if (run.brokenLink != null) {
+                log.error("Audit chain broken at record {} (partition {}, sequence {}): {}",
+                        run.brokenLink.getAuditLogId(), run.brokenLink.getChainPartition(),
+                        run.brokenLink.getChainSequence(), run.brokenLink.getReason());
+                publish(run, AuditVerificationStatus.State.BROKEN, null);
+            } else {
+                log.info("Audit chain verified up to record {} ({} rows)", run.lastVerifiedId, run.rowsVerified);
+                publish(run, AuditVerificationStatus.State.VERIFIED, null);
+            }
+        } catch (Exception e) {
+            log.error("Audit chain verification failed", e);
+            run.cancelInFlight();
+            publish(run, AuditVerificationStatus.State.FAILED, e.getMessage());
+        }
+    }
+
+    private void resumeFromCheckpoint(Run run) {
+        AuditVerificationCheckpoint checkpoint = checkpointRepository.findTopByOrderByIdDesc().orElse(null);
+        if (checkpoint == null) {
+            return;
+        }
+
+        if (!isSigned(checkpoint)) {
+            log.error("Audit verification checkpoint {} has an invalid signature, verifying from the start",
+                    checkpoint.getId());
+            run.checkpointRejected = true;
+            return;
+        }
+
+        run.checkpointId = checkpoint.getId();
+        run.fromId = checkpoint.getLastVerifiedId();
+        run.lastVerifiedId = checkpoint.getLastVerifiedId();
+        run.rowsVerified = checkpoint.getRowsVerified();
+        for (Map.Entry<String, Object> entry : checkpoint.getHeads().entrySet()) {
+            Map<?, ?> head = (Map<?, ?>) entry.getValue();
+            run.heads.put(Integer.valueOf(entry.getKey()),
+                    new Head(((Number) head.get("sequence")).longValue(), (String) head.get("hash")));
+        }
+    }
+
+    /**
+     * Id up to which the latest validly signed checkpoint vouches for the chains.
+     */
+    public long verifiedUpTo() {
+        return checkpointRepository.findTopByOrderByIdDesc()
+                .filter(this::isSigned)
+                .map(AuditVerificationCheckpoint::getLastVerifiedId)
+                .orElse(0L);
+    }
+
+    private boolean isSigned(AuditVerificationCheckpoint checkpoint) {
+        String expected = sign(checkpoint.getLastVerifiedId(), checkpoint.getRowsVerified(), checkpoint.getHeads());
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                checkpoint.getSignature().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void saveCheckpoint(Run run) {
+        Map<String, Object> heads = new TreeMap<>();
+        run.heads.forEach((partition, head) ->
+                heads.put(partition.toString(), Map.of("sequence", head.sequence(), "hash", head.hash())));
+
+        AuditVerificationCheckpoint checkpoint = new AuditVerificationCheckpoint();
+        checkpoint.setLastVerifiedId(run.lastVerifiedId);
+        checkpoint.setRowsVerified(run.rowsVerified);
+        checkpoint.setHeads(heads);
+        checkpoint.setSignature(sign(run.lastVerifiedId, run.rowsVerified, heads));
+
+        AuditVerificationCheckpoint saved = checkpointTransaction.execute(tx -> checkpointRepository.save(checkpoint));
+        run.checkpointId = saved != null ? saved.getId() : null;
+        run.rowsSinceCheckpoint = 0;
+    }
+
+    String sign(long lastVerifiedId, long rowsVerified, Map<String, Object> heads) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(checkpointKey, "HmacSHA256"));
+            String payload = lastVerifiedId + ":" + rowsVerified + ":" + AuditChainHasher.canonicalJson(heads);
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign audit verification checkpoint", e);
+        }
+    }
+
+    private void publish(Run run, AuditVerificationStatus.State state, String errorMessage) {
+        AuditVerificationStatus snapshot = new AuditVerificationStatus();
+        snapshot.setState(state);
+        snapshot.setFromId(run.fromId);
+        snapshot.setUpToId(run.upToId);
+        snapshot.setLastVerifiedId(run.lastVerifiedId);
+        snapshot.setRowsVerified(run.rowsVerified);
+        long span = run.upToId - run.fromId;
+        snapshot.setProgressPercentage(span > 0
+                ? Math.min(100.0, (run.lastVerifiedId - run.fromId) * 100.0 / span)
+                : 100.0);
+        snapshot.setCheckpointId(run.checkpointId);
+        snapshot.setCheckpointRejected(run.checkpointRejected);
+        snapshot.setBrokenLink(run.brokenLink);
+        snapshot.setErrorMessage(errorMessage);
+        snapshot.setStartedAt(run.startedAt);
+        if (state != AuditVerificationStatus.State.RUNNING) {
+            snapshot.setFinishedAt(LocalDateTime.now());
+        }
+        status = snapshot;
+    }
+
+    /**
+     * Checks hashes and the links between rows of one segment, skipping the
+     * legacy partition. Stops at the first problem, since every later row
+     * has a higher id.
+     */
+    static SegmentResult verifySegment(List<AuditLog> rows) {
+        SegmentResult result = new SegmentResult(rows.get(rows.size() - 1).getId(), rows.size());
+        for (AuditLog row : rows) {
+            if (row.getChainPartition() == LEGACY_PARTITION) {
+                continue;
+            }
+            if (!AuditChainHasher.hash(row).equals(row.getCurrentHash())) {
+                result.brokenLink = brokenLink(row, "Record hash does not match its contents");
+                break;
+            }
+            PartitionRun partitionRun = result.runs.get(row.getChainPartition());
+            if (partitionRun == null) {
+                result.runs.put(row.getChainPartition(), new PartitionRun(row));
+            } else if (row.getChainSequence() != partitionRun.lastSequence + 1
+                    || !Objects.equals(row.getPreviousHash(), partitionRun.lastHash)) {
+                result.brokenLink = brokenLink(row, "Record does not link to its predecessor");
+                break;
+            } else {
+                partitionRun.lastSequence = row.getChainSequence();
+                partitionRun.lastHash = row.getCurrentHash();
+            }
+        }
+        return result;
+    }
+
+    private static AuditVerificationStatus.BrokenLink brokenLink(AuditLog row, String reason) {
+        AuditVerificationStatus.BrokenLink brokenLink = new AuditVerificationStatus.BrokenLink();
+        brokenLink.setAuditLogId(row.getId());
+        brokenLink.setChainPartition(row.getChainPartition());
+        brokenLink.setChainSequence(row.getChainSequence());
+        brokenLink.setReason(reason);
+        return brokenLink;
+    }
+
+    @FunctionalInterface
+    interface RowSource {
+
+        /**
+         * Passes every row with an id above {@code fromId}, in id order, to the sink.
+         */
+        void stream(long fromId, Consumer<AuditLog> sink);
+    }
+
+    /**
+     * State of one verification run. Only touched by the streaming thread;
+     * segment tasks work on their own rows and results.
+     */
+    private final class Run {
+
+        private final long upToId;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final Map<Integer, Head> heads = new HashMap<>();
+        private final Deque<ForkJoinTask<SegmentResult>> inFlight = new ArrayDeque<>();
+        private final int maxInFlight = verificationPool.getParallelism() * 2;
+
+        private List<AuditLog> segment = new ArrayList<>(properties.getVerificationSegmentSize());
+        private long fromId;
+        private long lastVerifiedId;
+        private long rowsVerified;
+        private long rowsSinceCheckpoint;
+        private Long checkpointId;
+        private boolean checkpointRejected;
+        private AuditVerificationStatus.BrokenLink brokenLink;
+
+        Run(long upToId) {
+            this.upToId = upToId;
+        }
+
+        void accept(AuditLog row) {
+            segment.add(row);
+            if (segment.size() >= properties.getVerificationSegmentSize()) {
+                submitSegment();
+                while (inFlight.size() >= maxInFlight) {
+                    combineNext();
+                }
+            }
+            if (brokenLink != null) {
+                throw new VerificationStopped();
+            }
+        }
+
+        void finish() {
+            if (brokenLink == null && !segment.isEmpty()) {
+                submitSegment();
+            }
+            while (brokenLink == null && !inFlight.isEmpty()) {
+                combineNext();
+            }
+            cancelInFlight();
+            if (rowsSinceCheckpoint > 0) {
+                saveCheckpoint(this);
+            }
+        }
+
+        void cancelInFlight() {
+            inFlight.forEach(task -> task.cancel(false));
+            inFlight.clear();
+        }
+
+        private void submitSegment() {
+            List<AuditLog> rows = segment;
+            segment = new ArrayList<>(properties.getVerificationSegmentSize());
+            inFlight.add(verificationPool.submit(() -> verifySegment(rows)));
+        }
+
+        /**
+         * Stitches the oldest segment onto the heads verified so far.
+         */
+        private void combineNext() {
+            SegmentResult result = inFlight.poll().join();
+
+            for (Map.Entry<Integer, PartitionRun> entry : result.runs.entrySet()) {
+                PartitionRun partitionRun = entry.getValue();
+                Head head = heads.getOrDefault(entry.getKey(), Head.GENESIS);
+                if (partitionRun.firstSequence != head.sequence() + 1
+                        || !Objects.equals(partitionRun.firstPreviousHash, head.hash())) {
+                    brokenLink = brokenLink(partitionRun.first, "Record does not link to its predecessor");
+                    break;
+                }
+            }
+            if (result.brokenLink != null && (brokenLink == null
+                    || result.brokenLink.getAuditLogId() < brokenLink.getAuditLogId())) {
+                brokenLink = result.brokenLink;
+            }
+            if (brokenLink != null) {
+                return;
+            }
+
+            result.runs.forEach((partition, partitionRun) ->
+                    heads.put(partition, new Head(partitionRun.lastSequence, partitionRun.lastHash)));
+            lastVerifiedId = result.lastId;
+            rowsVerified += result.rowCount;
+            rowsSinceCheckpoint += result.rowCount;
+            if (rowsSinceCheckpoint >= properties.getCheckpointEveryRows()) {
+                saveCheckpoint(this);
+            }
+            publish(this, AuditVerificationStatus.State.RUNNING, null);
+        }
+    }
+
+    static final class SegmentResult {
+
+        private final long lastId;
+        private final int rowCount;
+        private final Map<Integer, PartitionRun> runs = new LinkedHashMap<>();
+        private AuditVerificationStatus.BrokenLink brokenLink;
+
+        SegmentResult(long lastId, int rowCount) {
+            this.lastId = lastId;
+            this.rowCount = rowCount;
+        }
+    }
+
+    private static final class PartitionRun {
+
+        private final AuditLog first;
+        private final long firstSequence;
+        private final String firstPreviousHash;
+        private long lastSequence;
+        private String lastHash;
+
+        PartitionRun(AuditLog first) {
+            this.first = first;
+            this.firstSequence = first.getChainSequence();
+            this.firstPreviousHash = first.getPreviousHash();
+            this.lastSequence = first.getChainSequence();
+            this.lastHash = first.getCurrentHash();
+        }
+    }
+
+    private record Head(long sequence, String hash) {
+
+        static final Head GENESIS = new Head(0, AuditChainHasher.GENESIS_HASH);
+    }
+
+    private static final class VerificationStopped extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        VerificationStopped() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.pharma.drugverification.domain.AuditLog;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+
+/**
+ * Maps raw audit_logs rows for the jobs that stream the table with plain
+ * JDBC rather than through the persistence context.
+ */
+final class AuditLogRowMapper implements RowMapper<AuditLog> {
+
+    static final String COLUMNS = "id, action, entity_type, entity_id, user_id, username, ip_address, user_agent, "
+            + "changes, chain_partition, chain_sequence, previous_hash, current_hash, blockchain_transaction_id, "
+            + "blockchain_anchored_at, created_at";
+
+    private static final TypeReference<Map<String, Object>> CHANGES_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectReader changesReader;
+
+    AuditLogRowMapper(ObjectMapper objectMapper) {
+        // Decimals are kept exact so the chain hash sees the digits that were stored
+        this.changesReader = objectMapper.readerFor(CHANGES_TYPE)
+                .with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    }
+
+    @Override
+    public AuditLog mapRow(ResultSet rs, int rowNum) throws SQLException {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setId(rs.getLong("id"));
+        auditLog.setAction(rs.getString("action"));
+        auditLog.setEntityType(rs.getString("entity_type"));
+        auditLog.setEntityId(rs.getObject("entity_id", Long.class));
+        auditLog.setUserId(rs.getObject("user_id", Long.class));
+        auditLog.setUsername(rs.getString("username"));
+        auditLog.setIpAddress(rs.getString("ip_address"));
+        auditLog.setUserAgent(rs.getString("user_agent"));
+        auditLog.setChainPartition(rs.getInt("chain_partition"));
+        auditLog.setChainSequence(rs.getLong("chain_sequence"));
+        auditLog.setPreviousHash(rs.getString("previous_hash"));
+        auditLog.setCurrentHash(rs.getString("current_hash"));
+        auditLog.setBlockchainTransactionId(rs.getString("blockchain_transaction_id"));
+        Timestamp anchoredAt = rs.getTimestamp("blockchain_anchored_at");
+        auditLog.setBlockchainAnchoredAt(anchoredAt != null ? anchoredAt.toLocalDateTime() : null);
+        auditLog.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+
+        String changes = rs.getString("changes");
+        if (changes != null) {
+            try {
+                auditLog.setChanges(changesReader.readValue(changes));
+            } catch (JsonProcessingException e) {
+                throw new SQLException("Unreadable changes on audit record " + auditLog.getId(), e);
+            }
+        }
+        return auditLog;
+    }
+}
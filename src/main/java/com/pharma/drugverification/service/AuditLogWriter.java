@@ -0,0 +1,419 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.dto.UserSnapshot;
+import com.pharma.drugverification.repository.AuditLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Group-commit writer for the audit hash chains.
+ *
+ * Callers hand entries to a lock-free queue. A single writer thread drains it
+ * in batches and inserts each batch in one transaction. The transaction first
+ * takes a PostgreSQL advisory lock on every chain partition the batch
+ * extends, in partition order, then reads the stored heads and links the
+ * entries onto them in queue order. Nodes therefore append to a partition
+ * one after another and always from its current head. The partitioned table
+ * cannot hold a unique (partition, sequence) index, so the lock is what keeps
+ * chain positions unique. Callers are slowed down rather than entries dropped
+ * when the queue is full.
+ *
+ * Rows are inserted with one JDBC batch rather than through the entity,
+ * whose identity ids keep Hibernate from batching. The changes column
+ * stores the canonical JSON the hash was computed over.
+ *
+ * An entry that cannot be written even on its own is appended to a spill
+ * file and replayed onto the chains later, so entries are never dropped.
+ */
+@Service
+@Slf4j
+public class AuditLogWriter implements SmartLifecycle {
+
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    // Advisory lock class for chain partitions, the second key being the partition ("AUDT")
+    static final int CHAIN_LOCK_CLASS = 0x41554454;
+    static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(?, ?)";
+
+    static final String INSERT_SQL = "INSERT INTO audit_logs (action, entity_type, entity_id, user_id, username, "
+            + "ip_address, user_agent, changes, chain_partition, chain_sequence, previous_hash, current_hash, "
+            + "created_at) VALUES (?, ?, ?, ?, ?, ?, ?, %s, ?, ?, ?, ?, ?)";
+
+    private static final String SPILL_FILE = "audit-entries.spill";
+    private static final String REPLAY_FILE = "audit-entries.replay";
+    private static final String DEAD_LETTER_FILE = "audit-entries.dead";
+
+    private final AuditLogRepository auditLogRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final UserDirectoryService userDirectoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationProperties.AuditProperties properties;
+    private final Queue<AuditLog> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Object spillLock = new Object();
+
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter spilledCounter;
+
+    private volatile boolean running;
+    private volatile Thread writerThread;
+    private Boolean postgres;
+
+    public AuditLogWriter(AuditLogRepository auditLogRepository,
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            UserDirectoryService userDirectoryService,
+            PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties,
+            MeterRegistry meterRegistry) {
+        this.auditLogRepository = auditLogRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.userDirectoryService = userDirectoryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getAudit();
+
+        Gauge.builder("audit.writer.queue.depth", depth, AtomicInteger::get)
+                .description("Audit entries waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("audit.writer.flush")
+                .description("Latency of audit batch commits")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("audit.writer.written")
+                .description("Audit entries written to the database")
+                .register(meterRegistry);
+        this.spilledCounter = Counter.builder("audit.writer.spilled")
+                .description("Audit entries spilled to disk for a later replay")
+                .register(meterRegistry);
+    }
+
+    public void append(AuditLog auditLog) {
+        if (!running && writerThread != null) {
+            // Writer already stopped during shutdown; write through
+            flush(List.of(auditLog));
+            return;
+        }
+
+        while (depth.get() >= properties.getQueueCapacity() && running) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        queue.offer(auditLog);
+        if (depth.incrementAndGet() >= properties.getBatchSize()) {
+            Thread writer = writerThread;
+            if (writer != null) {
+                LockSupport.unpark(writer);
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread writer = writerThread;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    int partitionFor(String entityType, Long entityId) {
+        return Math.floorMod(Objects.hash(entityType, entityId), properties.getChainPartitions());
+    }
+
+    /**
+     * Writes everything queued so far, one batch per transaction.
+     */
+    void drain() {
+        int batchSize = properties.getBatchSize();
+        while (true) {
+            List<AuditLog> batch = new ArrayList<>(Math.min(batchSize, Math.max(depth.get(), 1)));
+            AuditLog next;
+            while (batch.size() < batchSize && (next = queue.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            flush(batch);
+            depth.addAndGet(-batch.size());
+        }
+    }
+
+    private void runWriter() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+        while (running) {
+            if (depth.get() < properties.getBatchSize()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            try {
+                drain();
+            } catch (Exception e) {
+                log.error("Audit writer iteration failed", e);
+            }
+        }
+    }
+
+    private synchronized void flush(List<AuditLog> batch) {
+        resolveUsernames(batch);
+        for (int attempt = 1; attempt <= MAX_FLUSH_ATTEMPTS; attempt++) {
+            try {
+                flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                    link(batch, lockHeads(batch));
+                    insert(batch);
+                }));
+                writtenCounter.increment(batch.size());
+                return;
+            } catch (Exception e) {
+                log.warn("Audit batch of {} entries failed (attempt {}/{}): {}", batch.size(), attempt,
+                        MAX_FLUSH_ATTEMPTS, e.toString());
+            }
+        }
+
+        if (batch.size() > 1) {
+            // Isolate the entries that cannot be written so the rest of the batch survives
+            for (AuditLog auditLog : batch) {
+                flush(List.of(auditLog));
+            }
+        } else {
+            AuditLog auditLog = batch.get(0);
+            log.error("Spilling audit entry {} for {} {} after {} failed attempts", auditLog.getAction(),
+                    auditLog.getEntityType(), auditLog.getEntityId(), MAX_FLUSH_ATTEMPTS);
+            spill(auditLog);
+        }
+    }
+
+    /**
+     * Serializes appends to the batch's partitions with other nodes until the
+     * transaction ends and reads their stored heads under the lock. Locks are
+     * taken in partition order so two nodes cannot deadlock.
+     */
+    private Map<Integer, ChainHead> lockHeads(List<AuditLog> batch) {
+        Set<Integer> partitions = new TreeSet<>();
+        for (AuditLog auditLog : batch) {
+            partitions.add(partitionFor(auditLog.getEntityType(), auditLog.getEntityId()));
+        }
+        Map<Integer, ChainHead> heads = new TreeMap<>();
+        for (int partition : partitions) {
+            if (isPostgres()) {
+                jdbcTemplate.query(LOCK_SQL, (RowCallbackHandler) rs -> {
+                }, CHAIN_LOCK_CLASS, partition);
+            }
+            AuditLog last = auditLogRepository.findTopByChainPartitionOrderByChainSequenceDesc(partition)
+                    .orElse(null);
+            heads.put(partition, last != null
+                    ? new ChainHead(last.getChainSequence(), last.getCurrentHash())
+                    : new ChainHead(0, AuditChainHasher.GENESIS_HASH));
+        }
+        return heads;
+    }
+
+    /**
+     * Links the batch, in queue order, onto the heads read under the lock.
+     */
+    private void link(List<AuditLog> batch, Map<Integer, ChainHead> heads) {
+        for (AuditLog auditLog : batch) {
+            int partition = partitionFor(auditLog.getEntityType(), auditLog.getEntityId());
+            ChainHead head = heads.get(partition);
+            auditLog.setChainPartition(partition);
+            auditLog.setChainSequence(head.sequence + 1);
+            auditLog.setPreviousHash(head.hash);
+            auditLog.setCurrentHash(AuditChainHasher.hash(auditLog));
+            head.sequence = auditLog.getChainSequence();
+            head.hash = auditLog.getCurrentHash();
+        }
+    }
+
+    private void insert(List<AuditLog> batch) {
+        jdbcTemplate.batchUpdate(insertSql(), batch, batch.size(), (ps, auditLog) -> {
+            ps.setString(1, auditLog.getAction());
+            ps.setString(2, auditLog.getEntityType());
+            ps.setObject(3, auditLog.getEntityId(), Types.BIGINT);
+            ps.setLong(4, auditLog.getUserId());
+            ps.setString(5, auditLog.getUsername());
+            ps.setString(6, auditLog.getIpAddress());
+            ps.setString(7, auditLog.getUserAgent());
+            ps.setString(8, AuditChainHasher.canonicalJson(auditLog.getChanges()));
+            ps.setInt(9, auditLog.getChainPartition());
+            ps.setLong(10, auditLog.getChainSequence());
+            ps.setString(11, auditLog.getPreviousHash());
+            ps.setString(12, auditLog.getCurrentHash());
+            ps.setTimestamp(13, Timestamp.valueOf(auditLog.getCreatedAt()));
+        });
+    }
+
+    private String insertSql() {
+        // H2 reads a cast string as a JSON string value rather than parsing it
+        return String.format(INSERT_SQL, isPostgres() ? "CAST(? AS jsonb)" : "? FORMAT JSON");
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+
+    private void spill(AuditLog auditLog) {
+        synchronized (spillLock) {
+            try {
+                Path directory = Path.of(properties.getSpillDirectory());
+                Files.createDirectories(directory);
+                append(directory.resolve(SPILL_FILE), objectMapper.writeValueAsString(auditLog) + '\n');
+                spilledCounter.increment();
+            } catch (IOException e) {
+                log.error("Failed to spill audit entry {} for {} {}: {}", auditLog.getAction(),
+                        auditLog.getEntityType(), auditLog.getEntityId(), auditLog, e);
+            }
+        }
+    }
+
+    /**
+     * Replays spilled entries onto the chains in one batch. Entries that
+     * still cannot be written are spilled again, so the replay file is only
+     * removed once each of its entries is either written or back in the
+     * spill file. Lines that do not parse, such as one torn by a crash
+     * mid-append, are moved to a dead-letter file.
+     */
+    @Scheduled(fixedDelayString = "${application.audit.replay-interval-ms:30000}")
+    public void replaySpillFile() {
+        Path directory = Path.of(properties.getSpillDirectory());
+        Path spillFile = directory.resolve(SPILL_FILE);
+        Path replayFile = directory.resolve(REPLAY_FILE);
+
+        try {
+            synchronized (spillLock) {
+                // A replay file left behind by a failed attempt is retried first
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+
+            List<AuditLog> entries = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        entries.add(objectMapper.readValue(line, AuditLog.class));
+                    } catch (JsonProcessingException e) {
+                        log.error("Moving unreadable spilled audit entry to {}", DEAD_LETTER_FILE);
+                        append(directory.resolve(DEAD_LETTER_FILE), line + '\n');
+                    }
+                }
+            }
+            if (!entries.isEmpty()) {
+                flush(entries);
+            }
+            Files.delete(replayFile);
+            log.info("Replayed {} spilled audit entries", entries.size());
+        } catch (Exception e) {
+            log.error("Failed to replay spilled audit entries, will retry", e);
+        }
+    }
+
+    private static void append(Path file, String lines) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private void resolveUsernames(List<AuditLog> batch) {
+        Map<Long, String> usernames = new HashMap<>();
+        for (AuditLog auditLog : batch) {
+            if (auditLog.getUsername() == null && auditLog.getUserId() != null) {
+                String username = usernames.computeIfAbsent(auditLog.getUserId(), userId -> {
+                    UserSnapshot user = userDirectoryService.getUser(userId);
+                    return user != null ? user.getUsername() : null;
+                });
+                auditLog.setUsername(username);
+            }
+        }
+    }
+
+    private static final class ChainHead {
+
+        private long sequence;
+        private String hash;
+
+        ChainHead(long sequence, String hash) {
+            this.sequence = sequence;
+            this.hash = hash;
+        }
+    }
+}
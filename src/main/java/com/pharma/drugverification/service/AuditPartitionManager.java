@@ -0,0 +1,125 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps monthly range partitions of audit_logs ahead of the clock and hands
+ * closed ones to {@link AuditSegmentArchiver}. PostgreSQL only; on other
+ * databases audit_logs is a plain table and this does nothing.
+ */
+@Service
+@Slf4j
+public class AuditPartitionManager {
+
+    static final String PARENT_TABLE = "audit_logs";
+
+    private static final String LIST_SQL = "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) "
+            + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = '" + PARENT_TABLE + "'";
+
+    private static final Pattern LOWER_BOUND = Pattern.compile("FROM \\('([^']+)'\\)");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditSegmentArchiver archiver;
+    private final ApplicationProperties.AuditProperties properties;
+
+    private volatile Boolean postgres;
+
+    public AuditPartitionManager(JdbcTemplate jdbcTemplate,
+            AuditSegmentArchiver archiver,
+            ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiver = archiver;
+        this.properties = applicationProperties.getAudit();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    @Scheduled(fixedDelayString = "${application.audit.partition-maintenance-interval-ms:3600000}",
+            initialDelayString = "${application.audit.partition-maintenance-interval-ms:3600000}")
+    public void maintain() {
+        if (!isPostgres()) {
+            return;
+        }
+        try {
+            ensurePartitions(YearMonth.now());
+            archiver.archiveClosedPartitions(listPartitions());
+        } catch (Exception e) {
+            log.error("Audit partition maintenance failed", e);
+        }
+    }
+
+    void ensurePartitions(YearMonth current) {
+        List<AuditPartition> existing = listPartitions();
+        for (int i = 0; i <= properties.getPartitionMonthsAhead(); i++) {
+            YearMonth month = current.plusMonths(i);
+            LocalDateTime start = month.atDay(1).atStartOfDay();
+            if (existing.stream().anyMatch(partition -> partition.covers(start))) {
+                continue;
+            }
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF "
+                    + PARENT_TABLE + " FOR VALUES FROM ('" + start + "') TO ('"
+                    + month.plusMonths(1).atDay(1).atStartOfDay() + "')");
+            log.info("Created audit partition {}", partitionName(month));
+        }
+    }
+
+    /**
+     * Range partitions ordered by upper bound; the default partition is left out.
+     */
+    List<AuditPartition> listPartitions() {
+        return jdbcTemplate.query(LIST_SQL, (rs, rowNum) -> parse(rs.getString(1), rs.getString(2))).stream()
+                .filter(partition -> partition.to() != null)
+                .sorted(Comparator.comparing(AuditPartition::to))
+                .toList();
+    }
+
+    static AuditPartition parse(String name, String bound) {
+        return new AuditPartition(name, timestamp(LOWER_BOUND.matcher(bound)), timestamp(UPPER_BOUND.matcher(bound)));
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", PARENT_TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    private static LocalDateTime timestamp(Matcher matcher) {
+        return matcher.find() ? LocalDateTime.parse(matcher.group(1).replace(' ', 'T')) : null;
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            postgres = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return postgres;
+    }
+
+    /**
+     * One range partition; a null lower bound stands for MINVALUE.
+     */
+    record AuditPartition(String name, LocalDateTime from, LocalDateTime to) {
+
+        boolean covers(LocalDateTime time) {
+            return (from == null || !time.isBefore(from)) && time.isBefore(to);
+        }
+    }
+}
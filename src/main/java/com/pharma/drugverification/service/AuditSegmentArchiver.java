@@ -0,0 +1,171 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.AuditSegment;
+import com.pharma.drugverification.repository.AuditSegmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Moves closed audit partitions into compressed segment files.
+ *
+ * A partition is only archived once nothing else still needs its rows in the
+ * table: every record is anchored and covered by a signed verification
+ * checkpoint, no later partition holds a lower id, and no chain head lives in
+ * it. The segment is written and re-checked before the partition is detached
+ * and dropped in the same transaction that records the segment.
+ */
+@Service
+@Slf4j
+public class AuditSegmentArchiver {
+
+    private static final String SELECT_SQL = "SELECT " + AuditLogRowMapper.COLUMNS + " FROM %s "
+            + "ORDER BY entity_type COLLATE \"C\" NULLS FIRST, entity_id NULLS FIRST, id";
+
+    private static final String CHAIN_HEADS_SQL = "SELECT COUNT(*) FROM (SELECT chain_partition, "
+            + "MAX(chain_sequence) AS last_sequence FROM %s WHERE chain_partition <> "
+            + AuditChainVerifier.LEGACY_PARTITION + " GROUP BY chain_partition) archived WHERE NOT EXISTS ("
+            + "SELECT 1 FROM " + AuditPartitionManager.PARENT_TABLE + " later "
+            + "WHERE later.chain_partition = archived.chain_partition "
+            + "AND later.chain_sequence > archived.last_sequence)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate cursorTransaction;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditSegmentRepository segmentRepository;
+    private final AuditSegmentStore segmentStore;
+    private final AuditChainVerifier chainVerifier;
+    private final ObjectMapper objectMapper;
+    private final AuditLogRowMapper rowMapper;
+    private final ApplicationProperties.AuditProperties properties;
+
+    public AuditSegmentArchiver(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            AuditSegmentRepository segmentRepository,
+            AuditSegmentStore segmentStore,
+            AuditChainVerifier chainVerifier,
+            ObjectMapper objectMapper,
+            ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = applicationProperties.getAudit();
+        this.cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorTemplate.setFetchSize(properties.getVerificationFetchSize());
+        this.cursorTransaction = new TransactionTemplate(transactionManager);
+        this.cursorTransaction.setReadOnly(true);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.segmentRepository = segmentRepository;
+        this.segmentStore = segmentStore;
+        this.chainVerifier = chainVerifier;
+        this.objectMapper = objectMapper;
+        this.rowMapper = new AuditLogRowMapper(objectMapper);
+    }
+
+    /**
+     * Archives closed partitions oldest first, stopping at the first one that
+     * has to stay in the table.
+     */
+    void archiveClosedPartitions(List<AuditPartitionManager.AuditPartition> partitions) throws IOException {
+        LocalDateTime cutoff = YearMonth.now().minusMonths(properties.getHotMonths()).atDay(1).atStartOfDay();
+        for (AuditPartitionManager.AuditPartition partition : partitions) {
+            if (partition.to().isAfter(cutoff)) {
+                return;
+            }
+            String blocker = archiveBlocker(partition);
+            if (blocker != null) {
+                log.info("Audit partition {} stays in the table: {}", partition.name(), blocker);
+                return;
+            }
+            archive(partition);
+        }
+    }
+
+    String archiveBlocker(AuditPartitionManager.AuditPartition partition) {
+        String table = partition.name();
+        Long unanchored = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE blockchain_transaction_id IS NULL", Long.class);
+        if (unanchored != null && unanchored > 0) {
+            return unanchored + " records are not anchored yet";
+        }
+
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (maxId == null) {
+            return null;
+        }
+        if (maxId > chainVerifier.verifiedUpTo()) {
+            return "records are not covered by a verification checkpoint yet";
+        }
+
+        Long interleaved = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + AuditPartitionManager.PARENT_TABLE
+                + " WHERE id < ? AND created_at >= ?", Long.class, maxId, Timestamp.valueOf(partition.to()));
+        if (interleaved != null && interleaved > 0) {
+            return "later partitions hold records with lower ids";
+        }
+
+        Long heads = jdbcTemplate.queryForObject(String.format(CHAIN_HEADS_SQL, table), Long.class);
+        if (heads != null && heads > 0) {
+            return "it holds the head of " + heads + " audit chains";
+        }
+        return null;
+    }
+
+    private void archive(AuditPartitionManager.AuditPartition partition) throws IOException {
+        Path directory = Path.of(properties.getArchiveDirectory());
+        Files.createDirectories(directory);
+        Path file = directory.resolve(partition.name() + ".seg");
+        Path temporary = directory.resolve(partition.name() + ".seg.tmp");
+        Files.deleteIfExists(temporary);
+
+        AuditSegment segment = new AuditSegment();
+        segment.setPartitionName(partition.name());
+        segment.setRangeEnd(partition.to());
+        try (AuditSegmentFile.Writer writer = new AuditSegmentFile.Writer(temporary, objectMapper,
+                properties.getSegmentBlockRows())) {
+            cursorTransaction.executeWithoutResult(status -> cursorTemplate.query(
+                    String.format(SELECT_SQL, partition.name()), (RowCallbackHandler) rs -> {
+                        try {
+                            writer.append(rowMapper.mapRow(rs, 0));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+            writer.finish(segment);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        segment.setFilePath(file.toString());
+
+        // Re-read the file and recount the rows before they are dropped
+        if (!AuditSegmentFile.checksum(file).equals(segment.getChecksum())) {
+            throw new IOException("Audit segment " + file + " does not match the checksum just written");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition.name(), Long.class);
+            if (rows == null || rows.longValue() != segment.getRowCount()) {
+                throw new IllegalStateException("Audit partition " + partition.name() + " changed while archiving");
+            }
+            segmentRepository.save(segment);
+            jdbcTemplate.execute("ALTER TABLE " + AuditPartitionManager.PARENT_TABLE + " DETACH PARTITION "
+                    + partition.name());
+            jdbcTemplate.execute("DROP TABLE " + partition.name());
+        });
+        segmentStore.refresh();
+
+        log.info("Archived audit partition {} ({} records, {} blocks) to {}", partition.name(),
+                segment.getRowCount(), segment.getBlockIndex().size(), file);
+    }
+}
@@ -0,0 +1,265 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.domain.AuditSegment;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk format of archived audit partitions: a sequence of independently
+ * gzipped blocks of JSON lines, ordered by (entity type, entity id, id).
+ * The sparse block index and whole-file checksum live in
+ * {@link AuditSegment}.
+ */
+public final class AuditSegmentFile {
+
+    // Matches ORDER BY entity_type COLLATE "C" NULLS FIRST, entity_id NULLS FIRST, id
+    static final Comparator<Key> KEY_ORDER = Comparator
+            .comparing(Key::entityType, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparing(Key::entityId, Comparator.nullsFirst(Comparator.<Long>naturalOrder()))
+            .thenComparingLong(Key::id);
+
+    private AuditSegmentFile() {
+    }
+
+    /**
+     * Reads the records of one entity, inflating only the blocks whose key
+     * range can contain it.
+     */
+    public static List<AuditLog> readEntity(AuditSegment segment, String entityType, Long entityId,
+            ObjectMapper objectMapper) throws IOException {
+        List<Map<String, Object>> blocks = segment.getBlockIndex();
+        Key lowest = new Key(entityType, entityId, Long.MIN_VALUE);
+        Key highest = new Key(entityType, entityId, Long.MAX_VALUE);
+
+        // The entity may start inside the block before the first one keyed at or after it
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (KEY_ORDER.compare(firstKey(blocks.get(mid)), lowest) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        List<AuditLog> matches = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Path.of(segment.getFilePath()), StandardOpenOption.READ)) {
+            for (int i = Math.max(0, low - 1); i < blocks.size(); i++) {
+                Map<String, Object> block = blocks.get(i);
+                if (KEY_ORDER.compare(firstKey(block), highest) > 0) {
+                    break;
+                }
+                for (AuditLog auditLog : readBlock(channel, block, objectMapper)) {
+                    if (Objects.equals(auditLog.getEntityType(), entityType)
+                            && Objects.equals(auditLog.getEntityId(), entityId)) {
+                        matches.add(auditLog);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Reads the records with fromId <= id <= toId, in id order. Blocks are
+     * keyed by entity rather than id, so every block is inflated.
+     */
+    public static List<AuditLog> readIdRange(AuditSegment segment, long fromId, long toId,
+            ObjectMapper objectMapper) throws IOException {
+        List<AuditLog> matches = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Path.of(segment.getFilePath()), StandardOpenOption.READ)) {
+            for (Map<String, Object> block : segment.getBlockIndex()) {
+                for (AuditLog auditLog : readBlock(channel, block, objectMapper)) {
+                    if (auditLog.getId() >= fromId && auditLog.getId() <= toId) {
+                        matches.add(auditLog);
+                    }
+                }
+            }
+        }
+        matches.sort(Comparator.comparing(AuditLog::getId));
+        return matches;
+    }
+
+    public static String checksum(Path file) throws IOException {
+        MessageDigest digest = AuditChainHasher.sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static List<AuditLog> readBlock(FileChannel channel, Map<String, Object> block,
+            ObjectMapper objectMapper) throws IOException {
+        long offset = ((Number) block.get("offset")).longValue();
+        int length = ((Number) block.get("length")).intValue();
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Audit segment truncated at block offset " + offset);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array());
+        if (crc.getValue() != ((Number) block.get("crc")).longValue()) {
+            throw new IOException("Audit segment block at offset " + offset + " failed its CRC check");
+        }
+
+        ObjectReader recordReader = objectMapper.readerFor(AuditLog.class)
+                .with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        List<AuditLog> records = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(buffer.array())), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                records.add(recordReader.readValue(line));
+            }
+        }
+        return records;
+    }
+
+    private static Key firstKey(Map<String, Object> block) {
+        Object entityId = block.get("entityId");
+        return new Key((String) block.get("entityType"),
+                entityId != null ? ((Number) entityId).longValue() : null,
+                ((Number) block.get("id")).longValue());
+    }
+
+    record Key(String entityType, Long entityId, long id) {
+
+        static Key of(AuditLog auditLog) {
+            return new Key(auditLog.getEntityType(), auditLog.getEntityId(), auditLog.getId());
+        }
+    }
+
+    /**
+     * Streams records, already in key order, into a new segment file.
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path file;
+        private final FileChannel channel;
+        private final ObjectMapper objectMapper;
+        private final int blockRows;
+        private final MessageDigest digest = AuditChainHasher.sha256();
+        private final List<Map<String, Object>> blockIndex = new ArrayList<>();
+
+        private ByteArrayOutputStream blockBytes;
+        private GZIPOutputStream blockStream;
+        private Key blockFirstKey;
+        private Key lastKey;
+        private int rowsInBlock;
+        private long offset;
+        private long rowCount;
+        private Long firstId;
+        private Long lastId;
+
+        public Writer(Path file, ObjectMapper objectMapper, int blockRows) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            this.objectMapper = objectMapper;
+            this.blockRows = blockRows;
+        }
+
+        public void append(AuditLog auditLog) throws IOException {
+            Key key = Key.of(auditLog);
+            if (lastKey != null && KEY_ORDER.compare(lastKey, key) >= 0) {
+                throw new IllegalArgumentException("Audit segment records out of order at id " + auditLog.getId());
+            }
+            if (blockStream == null) {
+                blockBytes = new ByteArrayOutputStream();
+                blockStream = new GZIPOutputStream(blockBytes);
+                blockFirstKey = key;
+            }
+            blockStream.write(objectMapper.writeValueAsBytes(auditLog));
+            blockStream.write('\n');
+
+            lastKey = key;
+            rowCount++;
+            firstId = firstId == null ? auditLog.getId() : Math.min(firstId, auditLog.getId());
+            lastId = lastId == null ? auditLog.getId() : Math.max(lastId, auditLog.getId());
+            if (++rowsInBlock >= blockRows) {
+                flushBlock();
+            }
+        }
+
+        /**
+         * Writes the last block, forces the file to disk and describes it in
+         * the given segment.
+         */
+        public void finish(AuditSegment segment) throws IOException {
+            flushBlock();
+            channel.force(true);
+            segment.setFilePath(file.toString());
+            segment.setRowCount(rowCount);
+            segment.setFirstAuditLogId(firstId);
+            segment.setLastAuditLogId(lastId);
+            segment.setChecksum(HexFormat.of().formatHex(digest.digest()));
+            segment.setBlockIndex(blockIndex);
+        }
+
+        private void flushBlock() throws IOException {
+            if (blockStream == null) {
+                return;
+            }
+            blockStream.close();
+            byte[] bytes = blockBytes.toByteArray();
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            digest.update(bytes);
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            Map<String, Object> block = new LinkedHashMap<>();
+            block.put("entityType", blockFirstKey.entityType());
+            block.put("entityId", blockFirstKey.entityId());
+            block.put("id", blockFirstKey.id());
+            block.put("offset", offset);
+            block.put("length", bytes.length);
+            block.put("crc", crc.getValue());
+            blockIndex.add(block);
+
+            offset += bytes.length;
+            rowsInBlock = 0;
+            blockStream = null;
+            blockBytes = null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.domain.AuditSegment;
+import com.pharma.drugverification.repository.AuditSegmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read side of the archived audit segments. The segment list is cached
+ * briefly, and every segment file is checked against its recorded checksum
+ * once per process before it is first read.
+ */
+@Service
+@Slf4j
+public class AuditSegmentStore {
+
+    private static final long SEGMENT_LIST_TTL_MS = 60_000;
+
+    private final AuditSegmentRepository segmentRepository;
+    private final ObjectMapper objectMapper;
+    private final Set<Long> verifiedSegments = ConcurrentHashMap.newKeySet();
+
+    private volatile List<AuditSegment> segments;
+    private volatile long loadedAt;
+
+    public AuditSegmentStore(AuditSegmentRepository segmentRepository, ObjectMapper objectMapper) {
+        this.segmentRepository = segmentRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * All archived records of one entity, oldest segment first.
+     */
+    public List<AuditLog> findByEntity(String entityType, Long entityId) {
+        List<AuditLog> matches = new ArrayList<>();
+        for (AuditSegment segment : segments()) {
+            try {
+                verify(segment);
+                matches.addAll(AuditSegmentFile.readEntity(segment, entityType, entityId, objectMapper));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read audit segment " + segment.getPartitionName(), e);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Archived records with fromId <= id <= toId, in id order, read from the
+     * segments whose id range overlaps it.
+     */
+    public List<AuditLog> findByIdRange(long fromId, long toId) {
+        List<AuditLog> matches = new ArrayList<>();
+        for (AuditSegment segment : segments()) {
+            if (segment.getFirstAuditLogId() == null || segment.getFirstAuditLogId() > toId
+                    || segment.getLastAuditLogId() < fromId) {
+                continue;
+            }
+            try {
+                verify(segment);
+                matches.addAll(AuditSegmentFile.readIdRange(segment, fromId, toId, objectMapper));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read audit segment " + segment.getPartitionName(), e);
+            }
+        }
+        matches.sort(Comparator.comparing(AuditLog::getId));
+        return matches;
+    }
+
+    public boolean isEmpty() {
+        return segments().isEmpty();
+    }
+
+    public void refresh() {
+        segments = null;
+    }
+
+    private List<AuditSegment> segments() {
+        List<AuditSegment> current = segments;
+        if (current == null || System.currentTimeMillis() - loadedAt > SEGMENT_LIST_TTL_MS) {
+            current = segmentRepository.findAllByOrderByRangeEndAsc();
+            segments = current;
+            loadedAt = System.currentTimeMillis();
+        }
+        return current;
+    }
+
+    private void verify(AuditSegment segment) throws IOException {
+        if (verifiedSegments.contains(segment.getId())) {
+            return;
+        }
+        String checksum = AuditSegmentFile.checksum(Path.of(segment.getFilePath()));
+        if (!checksum.equals(segment.getChecksum())) {
+            log.error("Audit segment {} does not match its checksum", segment.getPartitionName());
+            throw new IOException("Checksum mismatch in " + segment.getFilePath());
+        }
+        verifiedSegments.add(segment.getId());
+    }
+}
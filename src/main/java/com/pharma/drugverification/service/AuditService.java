@@ -1,61 +1,73 @@
 package com.pharma.drugverification.service;
 
+import com.pharma.drugverification.config.ApplicationProperties;
 import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.dto.AuditLogFilter;
 import com.pharma.drugverification.dto.AuditLogResponse;
+import com.pharma.drugverification.dto.AuditLogSearchResponse;
+import com.pharma.drugverification.exception.BadRequestException;
 import com.pharma.drugverification.repository.AuditLogRepository;
-import com.pharma.drugverification.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import jakarta.persistence.criteria.Predicate;
 import jakarta.servlet.http.HttpServletRequest;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
-import java.util.HexFormat;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Tamper-evident audit trail.
+ *
+ * Records are split into independent hash chains by entity, so all records
+ * of one entity stay in one chain. Entries are captured on the caller's
+ * thread, where the request details are still available, and handed to
+ * {@link AuditLogWriter}, which links and commits them in batches.
+ * {@link AuditChainRootService} periodically commits to all chain heads with
+ * one Merkle root. Closed months are moved out of the table into segment
+ * files by {@link AuditSegmentArchiver} and read back through
+ * {@link AuditSegmentStore}.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuditService {
 
     private final AuditLogRepository auditLogRepository;
-    private final UserRepository userRepository;
+    private final AuditLogWriter auditLogWriter;
+    private final AuditSegmentStore auditSegmentStore;
+    private final ApplicationProperties applicationProperties;
 
-    @Async
-    @Transactional
     public void log(String action, String entityType, Long entityId, Long userId, Map<String, Object> changes) {
         try {
-            AuditLog previousLog = auditLogRepository.findTopByOrderByIdDesc().orElse(null);
-            String previousHash = previousLog != null ? previousLog.getCurrentHash() : "0";
-
             AuditLog auditLog = new AuditLog();
             auditLog.setAction(action);
             auditLog.setEntityType(entityType);
             auditLog.setEntityId(entityId);
             auditLog.setUserId(userId);
             auditLog.setChanges(changes);
-            auditLog.setPreviousHash(previousHash);
+            auditLog.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
 
             // Enrich with request details if available
             enrichWithRequestDetails(auditLog);
-            // Enrich with username
-            enrichWithUsername(auditLog, userId);
-
-            String currentHash = calculateHash(auditLog, previousHash);
-            auditLog.setCurrentHash(currentHash);
 
-            auditLogRepository.save(auditLog);
+            auditLogWriter.append(auditLog);
         } catch (Exception e) {
             log.error("Failed to create audit log", e);
         }
@@ -75,33 +87,152 @@ public class AuditService {
         }
     }
 
-    private void enrichWithUsername(AuditLog log, Long userId) {
-        userRepository.findById(userId).ifPresent(user -> log.setUsername(user.getUsername()));
+    public Page<AuditLogResponse> getLogs(Pageable pageable) {
+        return auditLogRepository.findAll(pageable).map(AuditLogResponse::from);
     }
 
-    private String calculateHash(AuditLog log, String previousHash) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            String data = log.getAction() +
-                    log.getEntityType() +
-                    log.getEntityId() +
-                    log.getUserId() +
-                    previousHash +
-                    LocalDateTime.now().toString();
-            byte[] hash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not available", e);
+    /**
+     * Records of one entity from the live partitions and the archived
+     * segments. Archived records are always older than live ones, so the two
+     * sources are concatenated in creation order; the live side keeps using
+     * the database for paging.
+     */
+    public Page<AuditLogResponse> getLogsByEntity(String entityType, Long entityId, Pageable pageable) {
+        List<AuditLog> archived = auditSegmentStore.isEmpty()
+                ? List.of()
+                : auditSegmentStore.findByEntity(entityType, entityId);
+        if (archived.isEmpty()) {
+            return auditLogRepository.findByEntityTypeAndEntityId(entityType, entityId, pageable)
+                    .map(AuditLogResponse::from);
+        }
+
+        Sort.Order createdAtOrder = pageable.getSort().getOrderFor("createdAt");
+        boolean oldestFirst = createdAtOrder != null && createdAtOrder.isAscending();
+        Comparator<AuditLog> order = Comparator.comparing(AuditLog::getCreatedAt).thenComparing(AuditLog::getId);
+        List<AuditLog> cold = new ArrayList<>(archived);
+        cold.sort(oldestFirst ? order : order.reversed());
+
+        if (pageable.isUnpaged()) {
+            List<AuditLog> hot = auditLogRepository.findByEntityTypeAndEntityId(entityType, entityId, pageable)
+                    .getContent();
+            List<AuditLog> content = new ArrayList<>(hot.size() + cold.size());
+            content.addAll(oldestFirst ? cold : hot);
+            content.addAll(oldestFirst ? hot : cold);
+            return new PageImpl<>(content, pageable, content.size()).map(AuditLogResponse::from);
         }
+
+        int size = pageable.getPageSize();
+        long offset = pageable.getOffset();
+        List<AuditLog> content = new ArrayList<>(size);
+        long hotTotal;
+        if (oldestFirst) {
+            int coldFrom = (int) Math.min(offset, cold.size());
+            content.addAll(cold.subList(coldFrom, (int) Math.min(offset + size, cold.size())));
+            // The live slice no longer lines up with page boundaries, so it can span two pages
+            long hotOffset = Math.max(0, offset - cold.size());
+            int page = (int) (hotOffset / size);
+            Page<AuditLog> hotPage = auditLogRepository.findByEntityTypeAndEntityId(entityType, entityId,
+                    PageRequest.of(page, size, pageable.getSort()));
+            hotTotal = hotPage.getTotalElements();
+            List<AuditLog> hot = new ArrayList<>(hotPage.getContent());
+            if (content.size() < size && hotOffset % size != 0 && hotPage.hasNext()) {
+                hot.addAll(auditLogRepository.findByEntityTypeAndEntityId(entityType, entityId,
+                        PageRequest.of(page + 1, size, pageable.getSort())).getContent());
+            }
+            int from = (int) Math.min(hotOffset - (long) page * size, hot.size());
+            content.addAll(hot.subList(from, Math.min(hot.size(), from + size - content.size())));
+        } else {
+            Page<AuditLog> hotPage = auditLogRepository.findByEntityTypeAndEntityId(entityType, entityId, pageable);
+            hotTotal = hotPage.getTotalElements();
+            content.addAll(hotPage.getContent());
+            long coldOffset = Math.max(0, offset - hotTotal);
+            int from = (int) Math.min(coldOffset, cold.size());
+            content.addAll(cold.subList(from, Math.min(cold.size(), from + size - content.size())));
+        }
+        return new PageImpl<>(content, pageable, hotTotal + cold.size()).map(AuditLogResponse::from);
     }
 
-    public Page<AuditLogResponse> getLogs(Pageable pageable) {
-        return auditLogRepository.findAll(pageable).map(AuditLogResponse::from);
+    /**
+     * Keyset search, newest first. The cursor is the (createdAt, id) of the
+     * last record returned, so every page is one index range scan regardless
+     * of depth, and no total is counted. Archived months are not searched.
+     */
+    public AuditLogSearchResponse searchLogs(AuditLogFilter filter, String cursor, Integer size) {
+        ApplicationProperties.AuditProperties properties = applicationProperties.getAudit();
+        int pageSize = size != null ? size : properties.getSearchDefaultPageSize();
+        if (pageSize < 1 || pageSize > properties.getSearchMaxPageSize()) {
+            throw new BadRequestException("Page size must be between 1 and " + properties.getSearchMaxPageSize());
+        }
+
+        Specification<AuditLog> specification = matching(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            specification = specification.and(before(decodeCursor(cursor)));
+        }
+
+        // One extra row tells whether another page follows
+        List<AuditLog> rows = auditLogRepository.findBy(specification, query -> query
+                .sortBy(Sort.by(Sort.Direction.DESC, "createdAt", "id"))
+                .limit(pageSize + 1)
+                .all());
+        boolean hasMore = rows.size() > pageSize;
+        List<AuditLog> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        AuditLogSearchResponse response = new AuditLogSearchResponse();
+        response.setContent(page.stream().map(AuditLogResponse::from).toList());
+        response.setSize(page.size());
+        response.setHasMore(hasMore);
+        response.setNextCursor(hasMore ? encodeCursor(page.get(page.size() - 1)) : null);
+        return response;
     }
 
-    public Page<AuditLogResponse> getLogsByEntity(String entityType, Long entityId, Pageable pageable) {
-        return auditLogRepository.findByEntityTypeAndEntityId(entityType, entityId, pageable)
-                .map(AuditLogResponse::from);
+    private static Specification<AuditLog> matching(AuditLogFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getAction() != null) {
+                predicates.add(cb.equal(root.get("action"), filter.getAction()));
+            }
+            if (filter.getEntityType() != null) {
+                predicates.add(cb.equal(root.get("entityType"), filter.getEntityType()));
+            }
+            if (filter.getEntityId() != null) {
+                predicates.add(cb.equal(root.get("entityId"), filter.getEntityId()));
+            }
+            if (filter.getUserId() != null) {
+                predicates.add(cb.equal(root.get("userId"), filter.getUserId()));
+            }
+            if (filter.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.getFrom()));
+            }
+            if (filter.getTo() != null) {
+                predicates.add(cb.lessThan(root.get("createdAt"), filter.getTo()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static Specification<AuditLog> before(AuditLog last) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), last.getCreatedAt()),
+                cb.and(cb.equal(root.get("createdAt"), last.getCreatedAt()),
+                        cb.lessThan(root.get("id"), last.getId())));
+    }
+
+    static String encodeCursor(AuditLog last) {
+        String position = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static AuditLog decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            AuditLog last = new AuditLog();
+            last.setCreatedAt(LocalDateTime.parse(position.substring(0, separator)));
+            last.setId(Long.parseLong(position.substring(separator + 1)));
+            return last;
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
     }
 
     public Page<AuditLogResponse> getLogsByUser(Long userId, Pageable pageable) {
@@ -12,6 +12,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -33,6 +34,7 @@ public class BatchService {
     private final DrugRepository drugRepository;
     private final StatusTransitionService statusTransitionService;
     private final AuditService auditService;
+    private final TelemetryThresholdCache telemetryThresholdCache;
 
     @Transactional
     @CacheEvict(value = "batches", allEntries = true)
@@ -71,7 +73,10 @@ public class BatchService {
     }
 
     @Transactional
-    @CacheEvict(value = "batches", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "batches", allEntries = true),
+            @CacheEvict(value = "batchSnapshots", key = "#batchId")
+    })
     public BatchResponse updateBatch(Long batchId, BatchUpdateRequest request, Long userId) {
         Batch batch = batchRepository.findById(batchId)
                 .orElseThrow(() -> new ResourceNotFoundException("Batch not found"));
@@ -81,6 +86,7 @@ public class BatchService {
         batch.setQuantity(request.getQuantity());
 
         Batch saved = batchRepository.save(batch);
+        telemetryThresholdCache.evictBatch(batchId);
 
         auditService.log("BATCH_UPDATED", "Batch", batchId, userId,
                 Map.of("batchNumber", batch.getBatchNumber()));
@@ -89,7 +95,10 @@ public class BatchService {
     }
 
     @Transactional
-    @CacheEvict(value = "batches", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "batches", allEntries = true),
+            @CacheEvict(value = "batchSnapshots", key = "#batchId")
+    })
     public BatchResponse updateBatchStatus(Long batchId, Batch.BatchStatus newStatus, String reason, Long userId) {
         Batch batch = batchRepository.findById(batchId)
                 .orElseThrow(() -> new ResourceNotFoundException("Batch not found"));
@@ -98,6 +107,7 @@ public class BatchService {
         batch.setStatus(newStatus);
 
         Batch saved = batchRepository.save(batch);
+        telemetryThresholdCache.evictBatch(batchId);
 
         statusTransitionService.recordTransition(
                 StatusTransition.EntityType.BATCH,
@@ -148,6 +158,10 @@ public class BatchService {
 
     @Scheduled(cron = "0 0 2 * * ?") // Daily at 2 AM
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "batches", allEntries = true),
+            @CacheEvict(value = "batchSnapshots", allEntries = true)
+    })
     public void markExpiredBatches() {
         LocalDate today = LocalDate.now();
         List<Batch> expiredBatches = batchRepository.findExpiredBatches(today);
@@ -170,6 +184,7 @@ public class BatchService {
         }
 
         if (!expiredBatches.isEmpty()) {
+            telemetryThresholdCache.evictAll();
             log.info("Marked {} batches as expired", expiredBatches.size());
         }
     }
@@ -0,0 +1,290 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.SerializedUnit;
+import com.pharma.drugverification.domain.VerificationRequest;
+import com.pharma.drugverification.domain.VerificationRequest.VerificationResult;
+import com.pharma.drugverification.dto.BatchSnapshot;
+import com.pharma.drugverification.dto.BulkVerificationRequest;
+import com.pharma.drugverification.dto.DrugSnapshot;
+import com.pharma.drugverification.dto.VerificationResponse;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.repository.SerializedUnitRepository;
+import com.pharma.drugverification.repository.VerificationRequestRepository;
+import com.pharma.drugverification.security.HsmService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Verifies many serials in one request, for pallet and case scan-in at
+ * distribution centres.
+ *
+ * Serials are processed in chunks. Each chunk resolves its units with one
+ * {@code IN} query, looks up each distinct batch, drug and recall status once,
+ * checks crypto-tails in parallel and records all verification requests in a
+ * single batch insert. Results are handed to the sink chunk by chunk so the
+ * caller can stream them. The distance-time check loads the recent scans of
+ * the whole chunk with one {@code IN} query and compares each serial with its
+ * own earlier scans, as the single-scan path does.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkVerificationService {
+
+    private final SerializedUnitRepository serializedUnitRepository;
+    private final ReferenceDataService referenceDataService;
+    private final VerificationRequestRepository verificationRequestRepository;
+    private final VerificationRequestWriter verificationRequestWriter;
+    private final ScanHistoryIndex scanHistoryIndex;
+    private final HsmService hsmService;
+    private final AuditService auditService;
+    private final AlertService alertService;
+    private final ApplicationProperties applicationProperties;
+
+    public void validate(BulkVerificationRequest request) {
+        int maxSerials = applicationProperties.getVerification().getBulkMaxSerials();
+        if (request.getSerialNumbers().size() > maxSerials) {
+            throw new BadRequestException("Bulk verification is limited to " + maxSerials + " serial numbers");
+        }
+    }
+
+    public void verifyBulk(BulkVerificationRequest request, Long userId, Consumer<VerificationResponse> sink) {
+        validate(request);
+
+        List<String> serialNumbers = request.getSerialNumbers();
+        int chunkSize = applicationProperties.getVerification().getBulkChunkSize();
+        long validCount = 0;
+
+        for (int from = 0; from < serialNumbers.size(); from += chunkSize) {
+            List<String> chunk = serialNumbers.subList(from, Math.min(from + chunkSize, serialNumbers.size()));
+            for (VerificationResponse response : verifyChunk(chunk, request, userId)) {
+                if (Boolean.TRUE.equals(response.getIsValid())) {
+                    validCount++;
+                }
+                sink.accept(response);
+            }
+        }
+
+        auditService.log("UNITS_BULK_VERIFIED", "SerializedUnit", null, userId,
+                Map.of("count", serialNumbers.size(), "valid", validCount));
+    }
+
+    private List<VerificationResponse> verifyChunk(List<String> chunk, BulkVerificationRequest request, Long userId) {
+        long startTime = System.currentTimeMillis();
+        LocalDateTime verifiedAt = LocalDateTime.now();
+
+        Set<String> distinctSerials = new LinkedHashSet<>(chunk);
+        Map<String, SerializedUnit> units = serializedUnitRepository.findBySerialNumberIn(distinctSerials).stream()
+                .collect(Collectors.toMap(SerializedUnit::getSerialNumber, Function.identity()));
+
+        Map<Long, BatchSnapshot> batches = new HashMap<>();
+        Map<Long, Boolean> recalls = new HashMap<>();
+        Map<Long, DrugSnapshot> drugs = new HashMap<>();
+        for (SerializedUnit unit : units.values()) {
+            batches.computeIfAbsent(unit.getBatchId(), referenceDataService::getBatch);
+        }
+        for (BatchSnapshot batch : batches.values()) {
+            if (batch != null) {
+                recalls.put(batch.getId(), referenceDataService.hasActiveRecall(batch.getId()));
+                drugs.computeIfAbsent(batch.getDrugId(), referenceDataService::getDrug);
+            }
+        }
+
+        Map<String, Boolean> cryptoResults = units.values().parallelStream()
+                .filter(unit -> batches.get(unit.getBatchId()) != null)
+                .collect(Collectors.toConcurrentMap(SerializedUnit::getSerialNumber,
+                        unit -> hsmService.verifyCryptoTail(unit.getSerialNumber(), unit.getGtin(),
+                                batches.get(unit.getBatchId()).getBatchNumber(), unit.getCryptoTail(),
+                                unit.getKeyVersion()),
+                        (first, second) -> first,
+                        ConcurrentHashMap::new));
+
+        Map<String, VerificationResponse> responses = new HashMap<>();
+        List<String> passedSerials = new ArrayList<>();
+        for (String serialNumber : distinctSerials) {
+            SerializedUnit unit = units.get(serialNumber);
+            BatchSnapshot batch = unit != null ? batches.get(unit.getBatchId()) : null;
+            VerificationResponse response = evaluate(serialNumber, unit, batch, cryptoResults, recalls);
+            response.setVerifiedAt(verifiedAt);
+            if (response.getResult() == null) {
+                passedSerials.add(serialNumber);
+            }
+            responses.put(serialNumber, response);
+        }
+
+        Map<String, Long> recentScans = passedSerials.isEmpty()
+                ? Collections.emptyMap()
+                : scanHistoryIndex.recordScans(passedSerials);
+        Map<String, List<VerificationRequest>> earlierScans = findRecentScans(passedSerials, request, verifiedAt);
+        for (String serialNumber : passedSerials) {
+            SerializedUnit unit = units.get(serialNumber);
+            DrugSnapshot drug = drugs.get(batches.get(unit.getBatchId()).getDrugId());
+            VerificationResponse response = responses.get(serialNumber);
+
+            if (scanHistoryIndex.isDuplicate(recentScans.getOrDefault(serialNumber, 0L))) {
+                response.addWarning("Multiple verification attempts detected for this unit");
+                alertService.createAlert(
+                        "DUPLICATE_SCAN",
+                        "Medium",
+                        "Multiple scans detected for unit ID: " + unit.getId(),
+                        "SerializedUnit",
+                        unit.getId());
+            }
+            checkDistanceTimeCollision(serialNumber, request, earlierScans.getOrDefault(serialNumber, List.of()),
+                    response);
+
+            response.setResult(VerificationResult.VALID);
+            response.setIsValid(true);
+            response.setMessage("Product is authentic and valid");
+            response.setDrugName(drug != null ? drug.getName() : "Unknown");
+            response.setManufacturer(drug != null ? drug.getManufacturer() : "Unknown");
+        }
+
+        long responseTimeMs = System.currentTimeMillis() - startTime;
+        List<VerificationResponse> results = new ArrayList<>(chunk.size());
+        List<VerificationRequest> records = new ArrayList<>(chunk.size());
+        for (String serialNumber : chunk) {
+            VerificationResponse response = responses.get(serialNumber);
+            response.setResponseTimeMs(responseTimeMs);
+            results.add(response);
+            records.add(toRecord(response, units.get(serialNumber), request, userId, responseTimeMs, verifiedAt));
+        }
+
+        writeRecords(records);
+        return results;
+    }
+
+    /**
+     * Recent scans of the given serials, by serial, for the distance-time
+     * check. Empty when the bulk request carries no coordinates.
+     */
+    private Map<String, List<VerificationRequest>> findRecentScans(List<String> serialNumbers,
+            BulkVerificationRequest request, LocalDateTime verifiedAt) {
+        if (serialNumbers.isEmpty() || request.getLatitude() == null || request.getLongitude() == null) {
+            return Collections.emptyMap();
+        }
+        LocalDateTime recentTime = verifiedAt.minus(
+                applicationProperties.getVerification().getMinTimeBetweenScansMinutes(), ChronoUnit.MINUTES);
+        return verificationRequestRepository.findRecentVerificationsBySerialIn(serialNumbers, recentTime, verifiedAt)
+                .stream()
+                .collect(Collectors.groupingBy(VerificationRequest::getSerialNumber));
+    }
+
+    private void checkDistanceTimeCollision(String serialNumber, BulkVerificationRequest request,
+            List<VerificationRequest> earlierScans, VerificationResponse response) {
+        double maxDistance = applicationProperties.getVerification().getMaxDistanceKm();
+        for (VerificationRequest earlier : earlierScans) {
+            if (earlier.getLatitude() == null || earlier.getLongitude() == null) {
+                continue;
+            }
+            double distance = VerificationService.calculateDistance(request.getLatitude(), request.getLongitude(),
+                    earlier.getLatitude(), earlier.getLongitude());
+            if (distance > maxDistance) {
+                response.addWarning(
+                        String.format("Suspicious scanning pattern: %.2f km away from previous scan", distance));
+                alertService.createAlert(
+                        "DISTANCE_TIME_COLLISION",
+                        "High",
+                        "Unit scanned " + distance + " km apart in short time for serial: " + serialNumber,
+                        "SerializedUnit",
+                        null);
+            }
+        }
+    }
+
+    /**
+     * Applies the same checks, in the same order, as the single-scan path.
+     * Leaves the result unset for units that pass every check.
+     */
+    private VerificationResponse evaluate(String serialNumber, SerializedUnit unit, BatchSnapshot batch,
+            Map<String, Boolean> cryptoResults, Map<Long, Boolean> recalls) {
+        VerificationResponse response = new VerificationResponse();
+        response.setSerialNumber(serialNumber);
+
+        if (unit == null) {
+            return reject(response, VerificationResult.NOT_FOUND, "Serial number not found in system");
+        }
+        if (batch == null) {
+            return reject(response, VerificationResult.INVALID, "Batch information not found");
+        }
+
+        response.setBatchNumber(batch.getBatchNumber());
+        response.setExpirationDate(batch.getExpirationDate().atStartOfDay());
+
+        if (!Boolean.TRUE.equals(cryptoResults.get(serialNumber))) {
+            alertService.createAlert(
+                    "COUNTERFEIT_DETECTED",
+                    "High",
+                    "Crypto-tail verification failed for serial: " + serialNumber,
+                    "SerializedUnit",
+                    unit.getId());
+            return reject(response, VerificationResult.INVALID,
+                    "Crypto-tail verification failed - possible counterfeit");
+        }
+        if (Boolean.TRUE.equals(recalls.get(batch.getId()))) {
+            return reject(response, VerificationResult.RECALLED, "This product has been recalled");
+        }
+        if (batch.getExpirationDate().isBefore(LocalDate.now())) {
+            response.addWarning("Expired on " + batch.getExpirationDate());
+            return reject(response, VerificationResult.EXPIRED, "Product has expired");
+        }
+        if (unit.getStatus() == SerializedUnit.UnitStatus.QUARANTINED) {
+            return reject(response, VerificationResult.QUARANTINED, "Product is quarantined");
+        }
+        if (unit.getStatus() == SerializedUnit.UnitStatus.DISPENSED) {
+            response.addWarning("Dispensed at: " + unit.getDispensedByPharmacy());
+            return reject(response, VerificationResult.ALREADY_DISPENSED, "Product has already been dispensed");
+        }
+        return response;
+    }
+
+    private VerificationResponse reject(VerificationResponse response, VerificationResult result, String message) {
+        response.setResult(result);
+        response.setIsValid(false);
+        response.setMessage(message);
+        return response;
+    }
+
+    private VerificationRequest toRecord(VerificationResponse response, SerializedUnit unit,
+            BulkVerificationRequest request, Long userId, long responseTimeMs, LocalDateTime verifiedAt) {
+        VerificationRequest record = new VerificationRequest();
+        record.setSerialNumber(response.getSerialNumber());
+        record.setSerializedUnitId(unit != null ? unit.getId() : null);
+        record.setResult(response.getResult());
+        record.setLatitude(request.getLatitude());
+        record.setLongitude(request.getLongitude());
+        record.setLocation(request.getLocation());
+        record.setDeviceId(request.getDeviceId());
+        record.setRequestedByUserId(userId);
+        record.setResponseTimeMs(responseTimeMs);
+        record.setPossibleCounterfeit(response.getResult() == VerificationResult.INVALID);
+        record.setCreatedAt(verifiedAt);
+        return record;
+    }
+
+    private void writeRecords(List<VerificationRequest> records) {
+        try {
+            verificationRequestWriter.writeBatch(records);
+        } catch (Exception e) {
+            log.warn("Bulk insert of {} verification records failed, queueing for write-behind", records.size(), e);
+            records.forEach(verificationRequestWriter::submit);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -31,6 +32,7 @@ public class DrugService {
     private final DrugRepository drugRepository;
     private final StatusTransitionService statusTransitionService;
     private final AuditService auditService;
+    private final TelemetryThresholdCache telemetryThresholdCache;
 
     @Transactional
     @CacheEvict(value = "drugs", allEntries = true)
@@ -64,7 +66,10 @@ public class DrugService {
     }
 
     @Transactional
-    @CacheEvict(value = "drugs", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "drugs", allEntries = true),
+            @CacheEvict(value = "drugSnapshots", key = "#drugId")
+    })
     public DrugResponse approveDrug(Long drugId, Long regulatorId) {
         Drug drug = drugRepository.findById(drugId)
                 .orElseThrow(() -> new ResourceNotFoundException("Drug not found"));
@@ -79,6 +84,7 @@ public class DrugService {
         drug.setRejectionReason(null);
 
         Drug saved = drugRepository.save(drug);
+        telemetryThresholdCache.evictDrug(drugId);
 
         statusTransitionService.recordTransition(
                 StatusTransition.EntityType.DRUG,
@@ -95,7 +101,10 @@ public class DrugService {
     }
 
     @Transactional
-    @CacheEvict(value = "drugs", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "drugs", allEntries = true),
+            @CacheEvict(value = "drugSnapshots", key = "#drugId")
+    })
     public DrugResponse rejectDrug(Long drugId, String reason, Long regulatorId) {
         Drug drug = drugRepository.findById(drugId)
                 .orElseThrow(() -> new ResourceNotFoundException("Drug not found"));
@@ -109,6 +118,7 @@ public class DrugService {
         drug.setRejectionReason(reason);
 
         Drug saved = drugRepository.save(drug);
+        telemetryThresholdCache.evictDrug(drugId);
 
         statusTransitionService.recordTransition(
                 StatusTransition.EntityType.DRUG,
@@ -0,0 +1,38 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.Job;
+
+/**
+ * One type of chunked background work run by {@link JobService}.
+ *
+ * The service drives the loop: it asks for one chunk at a time, commits the
+ * chunk's writes together with the job's progress, retries a chunk that
+ * fails and stops between chunks on cancellation. Handlers only need to make
+ * each chunk's write safe to retry after a rollback.
+ */
+public interface JobHandler {
+
+    Job.JobType getType();
+
+    int getChunkSize();
+
+    /**
+     * Does the chunk's work that needs no transaction, such as signing, and
+     * returns the write to commit with the progress update. {@code offset} is
+     * the number of items already committed.
+     */
+    ChunkWrite prepareChunk(Job job, long offset, int size);
+
+    default void onCompleted(Job job) {
+    }
+
+    @FunctionalInterface
+    interface ChunkWrite {
+
+        /**
+         * Returns the number of items written. Fewer than requested means the
+         * job has run out of work and completes early.
+         */
+        int write();
+    }
+}
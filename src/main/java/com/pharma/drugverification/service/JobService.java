@@ -0,0 +1,319 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.Job;
+import com.pharma.drugverification.domain.User;
+import com.pharma.drugverification.dto.JobResponse;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.exception.ResourceNotFoundException;
+import com.pharma.drugverification.repository.JobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs long operations as chunked background jobs.
+ *
+ * Each chunk is committed in its own short transaction together with the
+ * job's progress counter, so no request thread or pooled connection is held
+ * for the length of the job, and a job interrupted by a restart resumes from
+ * its last committed chunk. The progress update is a compare-and-set that
+ * also fails once cancellation is requested, which stops the runner at the
+ * next chunk boundary. Status changes are conditional updates as well, so a
+ * runner never overwrites a cancellation with its stale copy and a queued
+ * job is either started or cancelled, never both.
+ *
+ * Recall quarantine jobs are managed by regulators; any other job only by
+ * the user who requested it. Administrators may manage every job.
+ */
+@Service
+@Slf4j
+public class JobService {
+
+    private final JobRepository jobRepository;
+    private final AuditService auditService;
+    private final Map<Job.JobType, JobHandler> handlers = new EnumMap<>(Job.JobType.class);
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationProperties.JobProperties properties;
+
+    private final ExecutorService workers;
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    public JobService(JobRepository jobRepository,
+            AuditService auditService,
+            List<JobHandler> jobHandlers,
+            PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties) {
+        this.jobRepository = jobRepository;
+        this.auditService = auditService;
+        for (JobHandler handler : jobHandlers) {
+            handlers.put(handler.getType(), handler);
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getJobs();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(properties.getWorkerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "job-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Saves the job and schedules it once the surrounding transaction, if
+     * any, has committed.
+     */
+    public Job submit(Job job) {
+        Job saved = jobRepository.save(job);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(saved.getId());
+                }
+            });
+        } else {
+            dispatch(saved.getId());
+        }
+        return saved;
+    }
+
+    public JobResponse getJob(Long jobId, Long userId, User.UserRole role) {
+        return JobResponse.from(findAuthorizedJob(jobId, userId, role));
+    }
+
+    public JobResponse cancelJob(Long jobId, Long userId, User.UserRole role) {
+        Job job = findAuthorizedJob(jobId, userId, role);
+        if (job.isFinished()) {
+            throw new BadRequestException("Job has already finished");
+        }
+
+        transactionTemplate.executeWithoutResult(status ->
+                jobRepository.requestCancel(jobId, LocalDateTime.now()));
+
+        // A queued job has no runner to notice the flag; if a runner starts it first, it stops at its next chunk
+        Job current = findJob(jobId);
+        if (current.getStatus() == Job.JobStatus.QUEUED) {
+            markCancelled(current);
+        }
+        auditService.log("JOB_CANCEL_REQUESTED", "Job", jobId, userId, Map.of("type", job.getType().name()));
+        log.info("Cancellation requested for job {}", jobId);
+        return JobResponse.from(current);
+    }
+
+    /**
+     * Re-runs a failed job from its last committed chunk.
+     */
+    public JobResponse retryJob(Long jobId, Long userId, User.UserRole role) {
+        Job job = findAuthorizedJob(jobId, userId, role);
+        if (job.getStatus() != Job.JobStatus.FAILED
+                || !transition(() -> jobRepository.requeueFailed(jobId, LocalDateTime.now()))) {
+            throw new BadRequestException("Only failed jobs can be retried");
+        }
+
+        Job saved = findJob(jobId);
+        dispatch(saved.getId());
+
+        auditService.log("JOB_RETRIED", "Job", jobId, userId,
+                Map.of("type", job.getType().name(), "completedItems", job.getCompletedItems()));
+        return JobResponse.from(saved);
+    }
+
+    /**
+     * Picks up jobs left queued or running by a previous shutdown.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        List<Job> pending = jobRepository.findByStatusIn(List.of(Job.JobStatus.QUEUED, Job.JobStatus.RUNNING));
+        for (Job job : pending) {
+            log.info("Resuming {} job {} at {}/{}", job.getType(), job.getId(), job.getCompletedItems(),
+                    job.getTotalItems());
+            dispatch(job.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Unfinished jobs stay RUNNING and are resumed from their last chunk on restart
+        workers.shutdownNow();
+    }
+
+    void runJob(Long jobId) {
+        if (!runningJobs.add(jobId)) {
+            return;
+        }
+        try {
+            execute(jobId);
+        } finally {
+            runningJobs.remove(jobId);
+        }
+    }
+
+    private void dispatch(Long jobId) {
+        workers.execute(() -> runJob(jobId));
+    }
+
+    private void execute(Long jobId) {
+        Job job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.isFinished()) {
+            return;
+        }
+        if (Boolean.TRUE.equals(job.getCancelRequested())) {
+            markCancelled(job);
+            return;
+        }
+
+        JobHandler handler = handlers.get(job.getType());
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No handler registered for job type " + job.getType());
+            }
+
+            LocalDateTime startedAt = LocalDateTime.now();
+            if (!transition(() -> jobRepository.markRunning(jobId, job.getStatus(), startedAt))) {
+                stopAfterRejectedUpdate(jobId);
+                return;
+            }
+            job.setStatus(Job.JobStatus.RUNNING);
+            if (job.getStartedAt() == null) {
+                job.setStartedAt(startedAt);
+            }
+
+            while (job.getCompletedItems() < job.getTotalItems()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    log.info("Job {} interrupted at {}/{}", jobId, job.getCompletedItems(), job.getTotalItems());
+                    return;
+                }
+                int size = (int) Math.min(handler.getChunkSize(), job.getTotalItems() - job.getCompletedItems());
+                int written = processChunk(handler, job, size);
+                if (written < 0) {
+                    stopAfterRejectedUpdate(jobId);
+                    return;
+                }
+                job.setCompletedItems(job.getCompletedItems() + written);
+                if (written < size) {
+                    job.setTotalItems(job.getCompletedItems());
+                }
+            }
+
+            LocalDateTime completedAt = LocalDateTime.now();
+            if (!transition(() -> jobRepository.markCompleted(jobId, job.getTotalItems(), completedAt))) {
+                stopAfterRejectedUpdate(jobId);
+                return;
+            }
+            job.setStatus(Job.JobStatus.COMPLETED);
+            job.setCompletedAt(completedAt);
+            handler.onCompleted(job);
+            log.info("{} job {} completed: {} items", job.getType(), jobId, job.getCompletedItems());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Job {} interrupted at {}/{}", jobId, job.getCompletedItems(), job.getTotalItems());
+        } catch (Exception e) {
+            log.error("Job {} failed", jobId, e);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            String errorMessage = message.length() > 1000 ? message.substring(0, 1000) : message;
+            if (transition(() -> jobRepository.markFailed(jobId, job.getStatus(), errorMessage, LocalDateTime.now()))) {
+                job.setStatus(Job.JobStatus.FAILED);
+                job.setErrorMessage(errorMessage);
+            } else {
+                log.warn("Job {} changed status while failing, leaving it as stored", jobId);
+            }
+        }
+    }
+
+    /**
+     * Prepares, writes and commits one chunk, retrying it after a rollback.
+     * Returns the number of items written, or -1 if the progress update was
+     * rejected.
+     */
+    private int processChunk(JobHandler handler, Job job, int size) throws InterruptedException {
+        long offset = job.getCompletedItems();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                JobHandler.ChunkWrite chunkWrite = handler.prepareChunk(job, offset, size);
+                Integer written = transactionTemplate.execute(status -> {
+                    int count = chunkWrite.write();
+                    int updated = jobRepository.advanceProgress(job.getId(), offset, offset + count,
+                            LocalDateTime.now());
+                    if (updated == 0) {
+                        status.setRollbackOnly();
+                        return -1;
+                    }
+                    return count;
+                });
+                return written != null ? written : -1;
+            } catch (RuntimeException e) {
+                if (attempt >= properties.getChunkRetries()) {
+                    throw e;
+                }
+                log.warn("Chunk at {} of job {} failed (attempt {}/{}), retrying: {}", offset, job.getId(),
+                        attempt, properties.getChunkRetries(), e.toString());
+                Thread.sleep(properties.getRetryBackoffMs() * attempt);
+            }
+        }
+    }
+
+    private void stopAfterRejectedUpdate(Long jobId) {
+        Job current = jobRepository.findById(jobId).orElse(null);
+        if (current != null && !current.isFinished() && Boolean.TRUE.equals(current.getCancelRequested())) {
+            markCancelled(current);
+        } else {
+            log.warn("Job {} was changed by another runner, stopping", jobId);
+        }
+    }
+
+    private void markCancelled(Job job) {
+        LocalDateTime completedAt = LocalDateTime.now();
+        if (!transition(() -> jobRepository.markCancelled(job.getId(), job.getStatus(), completedAt))) {
+            log.info("Job {} changed status before it could be cancelled", job.getId());
+            return;
+        }
+        job.setStatus(Job.JobStatus.CANCELLED);
+        job.setCompletedAt(completedAt);
+        log.info("{} job {} cancelled at {}/{}", job.getType(), job.getId(), job.getCompletedItems(),
+                job.getTotalItems());
+    }
+
+    private boolean transition(IntSupplier update) {
+        Integer updated = transactionTemplate.execute(status -> update.getAsInt());
+        return updated != null && updated > 0;
+    }
+
+    private Job findAuthorizedJob(Long jobId, Long userId, User.UserRole role) {
+        Job job = findJob(jobId);
+        boolean allowed = switch (role) {
+            case ADMIN -> true;
+            case REGULATOR -> job.getType() == Job.JobType.RECALL_QUARANTINE;
+            default -> job.getType() != Job.JobType.RECALL_QUARANTINE && userId.equals(job.getRequestedByUserId());
+        };
+        if (!allowed) {
+            log.warn("User {} with role {} denied access to job {}", userId, role, jobId);
+            throw new AccessDeniedException("Not permitted to manage this job");
+        }
+        return job;
+    }
+
+    private Job findJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Job not found"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.pharma.drugverification.service;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary SHA-256 Merkle tree. Leaves and interior nodes are hashed with
+ * distinct prefixes so a leaf can never be passed off as a node, and an
+ * unpaired node is promoted to the next level unchanged.
+ */
+public final class MerkleTree {
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    private MerkleTree() {
+    }
+
+    public static byte[] root(List<byte[]> leaves) {
+        if (leaves.isEmpty()) {
+            return AuditChainHasher.sha256().digest();
+        }
+        List<byte[]> level = new ArrayList<>(leaves.size());
+        for (byte[] leaf : leaves) {
+            level.add(hashLeaf(leaf));
+        }
+        while (level.size() > 1) {
+            level = nextLevel(level);
+        }
+        return level.get(0);
+    }
+
+    /**
+     * Sibling hashes from the leaf at {@code index} up to the root. A level
+     * where the node is unpaired contributes no step.
+     */
+    public static List<ProofStep> proof(List<byte[]> leaves, int index) {
+        if (index < 0 || index >= leaves.size()) {
+            throw new IllegalArgumentException("Leaf index out of range: " + index);
+        }
+        List<byte[]> level = new ArrayList<>(leaves.size());
+        for (byte[] leaf : leaves) {
+            level.add(hashLeaf(leaf));
+        }
+        List<ProofStep> steps = new ArrayList<>();
+        while (level.size() > 1) {
+            int sibling = index ^ 1;
+            if (sibling < level.size()) {
+                steps.add(new ProofStep(level.get(sibling), sibling < index));
+            }
+            level = nextLevel(level);
+            index /= 2;
+        }
+        return steps;
+    }
+
+    public static boolean verify(byte[] leaf, List<ProofStep> steps, byte[] root) {
+        byte[] hash = hashLeaf(leaf);
+        for (ProofStep step : steps) {
+            hash = step.left() ? hashNode(step.hash(), hash) : hashNode(hash, step.hash());
+        }
+        return MessageDigest.isEqual(hash, root);
+    }
+
+    static byte[] hashLeaf(byte[] data) {
+        MessageDigest digest = AuditChainHasher.sha256();
+        digest.update(LEAF_PREFIX);
+        return digest.digest(data);
+    }
+
+    static byte[] hashNode(byte[] left, byte[] right) {
+        MessageDigest digest = AuditChainHasher.sha256();
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        return digest.digest(right);
+    }
+
+    private static List<byte[]> nextLevel(List<byte[]> level) {
+        List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+        for (int i = 0; i < level.size(); i += 2) {
+            next.add(i + 1 < level.size() ? hashNode(level.get(i), level.get(i + 1)) : level.get(i));
+        }
+        return next;
+    }
+
+    /**
+     * One step of an inclusion proof; {@code left} is set when the sibling
+     * sits to the left of the running hash.
+     */
+    public record ProofStep(byte[] hash, boolean left) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.Job;
+import com.pharma.drugverification.domain.SerializedUnit;
+import com.pharma.drugverification.repository.SerializedUnitRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Quarantines the active units of a recalled batch in chunks, for batches
+ * too large to update in the recall's own transaction. The recall itself is
+ * already in force while this runs, since verification checks the batch's
+ * recall status before the unit status.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecallQuarantineJobHandler implements JobHandler {
+
+    private final SerializedUnitRepository serializedUnitRepository;
+    private final AuditService auditService;
+    private final ApplicationProperties applicationProperties;
+
+    public Job newJob(Long recallId, Long batchId, long activeUnits, Long userId) {
+        Job job = new Job();
+        job.setType(Job.JobType.RECALL_QUARANTINE);
+        job.setTargetType("Recall");
+        job.setTargetId(recallId);
+        job.setParameters(Map.of("batchId", batchId));
+        job.setTotalItems(activeUnits);
+        job.setRequestedByUserId(userId);
+        return job;
+    }
+
+    @Override
+    public Job.JobType getType() {
+        return Job.JobType.RECALL_QUARANTINE;
+    }
+
+    @Override
+    public int getChunkSize() {
+        return applicationProperties.getRecall().getQuarantineChunkSize();
+    }
+
+    @Override
+    public ChunkWrite prepareChunk(Job job, long offset, int size) {
+        // Always takes the next active units, so the offset is not needed
+        Long batchId = ((Number) job.getParameters().get("batchId")).longValue();
+        return () -> serializedUnitRepository.updateStatusByBatchIdAndStatusLimited(batchId,
+                SerializedUnit.UnitStatus.ACTIVE.name(), SerializedUnit.UnitStatus.QUARANTINED.name(),
+                LocalDateTime.now(), size);
+    }
+
+    @Override
+    public void onCompleted(Job job) {
+        auditService.log("RECALL_UNITS_QUARANTINED", "Recall", job.getTargetId(), job.getRequestedByUserId(),
+                Map.of("jobId", job.getId(), "batchId", job.getParameters().get("batchId"),
+                        "quarantinedCount", job.getCompletedItems()));
+    }
+}
@@ -1,6 +1,8 @@
 package com.pharma.drugverification.service;
 
+import com.pharma.drugverification.config.ApplicationProperties;
 import com.pharma.drugverification.domain.Batch;
+import com.pharma.drugverification.domain.Job;
 import com.pharma.drugverification.domain.Recall;
 import com.pharma.drugverification.domain.SerializedUnit;
 import com.pharma.drugverification.dto.RecallRequest;
@@ -10,6 +12,7 @@ import com.pharma.drugverification.repository.RecallRepository;
 import com.pharma.drugverification.repository.SerializedUnitRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -18,6 +21,7 @@ import com.pharma.drugverification.exception.BadRequestException;
 import com.pharma.drugverification.exception.ResourceNotFoundException;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -31,8 +35,12 @@ public class RecallService {
     private final SerializedUnitRepository serializedUnitRepository;
     private final AuditService auditService;
     private final AlertService alertService;
+    private final JobService jobService;
+    private final RecallQuarantineJobHandler recallQuarantineJobHandler;
+    private final ApplicationProperties applicationProperties;
 
     @Transactional
+    @CacheEvict(value = "recallStatus", key = "#request.batchId")
     public RecallResponse initiateRecall(RecallRequest request, Long regulatorId) {
         Batch batch = batchRepository.findById(request.getBatchId())
                 .orElseThrow(() -> new ResourceNotFoundException("Batch not found"));
@@ -57,11 +65,28 @@ public class RecallService {
 
         Recall saved = recallRepository.save(recall);
 
-        // Quarantine all active units in the batch using bulk update
-        int quarantinedCount = serializedUnitRepository.updateStatusByBatchIdAndStatus(
-                request.getBatchId(),
-                SerializedUnit.UnitStatus.ACTIVE,
-                SerializedUnit.UnitStatus.QUARANTINED);
+        // Quarantine active units inline for ordinary batches; large ones are handed to a background job
+        // so the recall commits without holding a connection for the whole update
+        Map<String, Object> details = new HashMap<>();
+        details.put("batchId", request.getBatchId());
+        details.put("classification", request.getClassification().name());
+        details.put("totalAffected", totalAffected);
+
+        Long quarantineJobId = null;
+        if (totalAffected <= applicationProperties.getRecall().getSyncQuarantineLimit()) {
+            int quarantinedCount = serializedUnitRepository.updateStatusByBatchIdAndStatus(
+                    request.getBatchId(),
+                    SerializedUnit.UnitStatus.ACTIVE,
+                    SerializedUnit.UnitStatus.QUARANTINED);
+            details.put("quarantinedCount", quarantinedCount);
+        } else {
+            long activeUnits = serializedUnitRepository.countByBatchIdAndStatus(
+                    request.getBatchId(), SerializedUnit.UnitStatus.ACTIVE);
+            Job job = jobService.submit(recallQuarantineJobHandler.newJob(
+                    saved.getId(), request.getBatchId(), activeUnits, regulatorId));
+            quarantineJobId = job.getId();
+            details.put("quarantineJobId", quarantineJobId);
+        }
 
         // Create high-priority alert
         alertService.createAlert(
@@ -71,14 +96,13 @@ public class RecallService {
                 "Recall",
                 saved.getId());
 
-        auditService.log("RECALL_INITIATED", "Recall", saved.getId(), regulatorId,
-                Map.of("batchId", request.getBatchId(), "classification", request.getClassification().name(),
-                        "totalAffected", totalAffected, "quarantinedCount", quarantinedCount));
+        auditService.log("RECALL_INITIATED", "Recall", saved.getId(), regulatorId, details);
 
-        log.warn("Recall initiated for batch {} with {} units affected ({} quarantined)",
-                batch.getBatchNumber(), totalAffected, quarantinedCount);
+        log.warn("Recall initiated for batch {} with {} units affected", batch.getBatchNumber(), totalAffected);
 
-        return RecallResponse.from(saved);
+        RecallResponse response = RecallResponse.from(saved);
+        response.setQuarantineJobId(quarantineJobId);
+        return response;
     }
 
     @Transactional
@@ -115,6 +139,7 @@ public class RecallService {
     }
 
     @Transactional
+    @CacheEvict(value = "recallStatus", key = "#result.batchId")
     public RecallResponse completeRecall(Long recallId, Long userId) {
         Recall recall = recallRepository.findById(recallId)
                 .orElseThrow(() -> new ResourceNotFoundException("Recall not found"));
@@ -0,0 +1,47 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.Recall;
+import com.pharma.drugverification.dto.BatchSnapshot;
+import com.pharma.drugverification.dto.DrugSnapshot;
+import com.pharma.drugverification.repository.BatchRepository;
+import com.pharma.drugverification.repository.DrugRepository;
+import com.pharma.drugverification.repository.RecallRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Cached lookups of the slowly changing reference data read on every scan.
+ * Entries are evicted by the batch, drug and recall write paths.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReferenceDataService {
+
+    private final BatchRepository batchRepository;
+    private final DrugRepository drugRepository;
+    private final RecallRepository recallRepository;
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = "batchSnapshots", key = "#batchId", unless = "#result == null")
+    public BatchSnapshot getBatch(Long batchId) {
+        return batchRepository.findById(batchId)
+                .map(BatchSnapshot::from)
+                .orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = "drugSnapshots", key = "#drugId", unless = "#result == null")
+    public DrugSnapshot getDrug(Long drugId) {
+        return drugRepository.findById(drugId)
+                .map(DrugSnapshot::from)
+                .orElse(null);
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = "recallStatus", key = "#batchId")
+    public boolean hasActiveRecall(Long batchId) {
+        return recallRepository.existsByBatchIdAndStatus(batchId, Recall.RecallStatus.ACTIVE);
+    }
+}
@@ -0,0 +1,201 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sliding-window scan counter per serial number, used for duplicate-scan
+ * detection.
+ *
+ * Each serial keeps a small ring buffer of its most recent scan timestamps,
+ * sized to the alert threshold, so a lookup never touches more than
+ * {@code threshold + 1} entries. Buffers live in hash-sharded LRU maps with
+ * one lock per shard. Scans are mirrored to a Redis sorted set per serial so
+ * that scans handled by other nodes are counted too; if Redis is unavailable
+ * the local count is used on its own.
+ */
+@Service
+@Slf4j
+public class ScanHistoryIndex {
+
+    private static final int COMMANDS_PER_SCAN = 4;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ApplicationProperties.VerificationProperties properties;
+    private final List<Map<String, ScanRing>> shards;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong scanSequence = new AtomicLong();
+
+    public ScanHistoryIndex(RedisTemplate<String, String> redisTemplate, ApplicationProperties applicationProperties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = applicationProperties.getVerification();
+
+        ApplicationProperties.ScanHistoryProperties scanHistory = properties.getScanHistory();
+        int shardCount = Math.max(1, scanHistory.getShards());
+        int maxPerShard = Math.max(1, scanHistory.getMaxTrackedSerials() / shardCount);
+
+        this.shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ScanRing> eldest) {
+                    return size() > maxPerShard;
+                }
+            });
+        }
+    }
+
+    /**
+     * Records a scan of the given serial and returns how many earlier scans of
+     * the same serial fall inside the duplicate-scan window.
+     */
+    public long recordScan(String serialNumber) {
+        return recordScan(serialNumber, System.currentTimeMillis());
+    }
+
+    long recordScan(String serialNumber, long nowMillis) {
+        return recordScans(List.of(serialNumber), nowMillis).get(serialNumber);
+    }
+
+    /**
+     * Records one scan for each serial, mirroring them all to Redis in a single
+     * pipeline, and returns the earlier-scan count per serial.
+     */
+    public Map<String, Long> recordScans(Collection<String> serialNumbers) {
+        return recordScans(serialNumbers, System.currentTimeMillis());
+    }
+
+    Map<String, Long> recordScans(Collection<String> serialNumbers, long nowMillis) {
+        long windowStart = nowMillis - Duration.ofSeconds(properties.getDuplicateScanWindowSeconds()).toMillis();
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String serialNumber : serialNumbers) {
+            counts.put(serialNumber, recordLocal(serialNumber, nowMillis, windowStart));
+        }
+
+        List<Long> remoteCounts = mirrorToRedis(List.copyOf(counts.keySet()), nowMillis, windowStart);
+        if (remoteCounts != null) {
+            int i = 0;
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                Long remoteCount = remoteCounts.get(i++);
+                if (remoteCount != null) {
+                    entry.setValue(Math.max(entry.getValue(), remoteCount));
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Whether the earlier-scan count exceeds the configured threshold.
+     */
+    public boolean isDuplicate(long earlierScans) {
+        return earlierScans > properties.getDuplicateScanThreshold();
+    }
+
+    private long recordLocal(String serialNumber, long nowMillis, long windowStart) {
+        Map<String, ScanRing> shard = shardFor(serialNumber);
+        synchronized (shard) {
+            ScanRing ring = shard.computeIfAbsent(serialNumber,
+                    key -> new ScanRing(properties.getDuplicateScanThreshold() + 1));
+            long count = ring.countSince(windowStart);
+            ring.add(nowMillis);
+            return count;
+        }
+    }
+
+    private Map<String, ScanRing> shardFor(String serialNumber) {
+        int hash = serialNumber.hashCode();
+        hash ^= (hash >>> 16);
+        return shards.get(Math.floorMod(hash, shards.size()));
+    }
+
+    private List<Long> mirrorToRedis(List<String> serialNumbers, long nowMillis, long windowStart) {
+        ApplicationProperties.ScanHistoryProperties scanHistory = properties.getScanHistory();
+        if (!scanHistory.isRedisMirrorEnabled() || serialNumbers.isEmpty()) {
+            return null;
+        }
+
+        long ttlSeconds = properties.getDuplicateScanWindowSeconds();
+
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String serialNumber : serialNumbers) {
+                    byte[] key = (scanHistory.getRedisKeyPrefix() + serialNumber).getBytes(StandardCharsets.UTF_8);
+                    byte[] member = (nowMillis + ":" + nodeId + ":" + scanSequence.incrementAndGet())
+                            .getBytes(StandardCharsets.UTF_8);
+                    pipelineScan(connection, key, member, nowMillis, windowStart, ttlSeconds);
+                }
+                return null;
+            });
+            if (results == null || results.size() < serialNumbers.size() * COMMANDS_PER_SCAN) {
+                return null;
+            }
+
+            List<Long> counts = new ArrayList<>(serialNumbers.size());
+            for (int i = 0; i < serialNumbers.size(); i++) {
+                // The cardinality includes the scan just added
+                Object card = results.get(i * COMMANDS_PER_SCAN + 2);
+                counts.add(card instanceof Long value ? Math.max(0, value - 1) : null);
+            }
+            return counts;
+        } catch (Exception e) {
+            log.warn("Scan history mirror unavailable, using local count: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void pipelineScan(RedisConnection connection, byte[] key, byte[] member, long nowMillis,
+            long windowStart, long ttlSeconds) {
+        connection.zSetCommands().zRemRangeByScore(key, Double.NEGATIVE_INFINITY, windowStart - 1);
+        connection.zSetCommands().zAdd(key, nowMillis, member);
+        connection.zSetCommands().zCard(key);
+        connection.keyCommands().expire(key, ttlSeconds);
+    }
+
+    /**
+     * Fixed-size ring of the most recent scan timestamps for one serial.
+     */
+    private static final class ScanRing {
+
+        private final long[] timestamps;
+        private int next;
+        private int size;
+
+        ScanRing(int capacity) {
+            this.timestamps = new long[capacity];
+        }
+
+        void add(long timestamp) {
+            timestamps[next] = timestamp;
+            next = (next + 1) % timestamps.length;
+            if (size < timestamps.length) {
+                size++;
+            }
+        }
+
+        long countSince(long windowStart) {
+            long count = 0;
+            for (int i = 0; i < size; i++) {
+                if (timestamps[i] >= windowStart) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
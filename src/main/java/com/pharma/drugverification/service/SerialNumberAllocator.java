@@ -0,0 +1,106 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.SerialNumberBlock;
+import com.pharma.drugverification.repository.SerialNumberBlockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collision-free serial number generation.
+ *
+ * Each node reserves blocks of counters from a database sequence, one round
+ * trip per block, and hands out counters from the current block with a
+ * single atomic increment. Counters are unique across nodes and restarts, and
+ * the keyed permutation turns each one into a distinct fixed-length serial,
+ * so uniqueness no longer depends on the unique index catching collisions.
+ */
+@Service
+@Slf4j
+public class SerialNumberAllocator {
+
+    // Fixed so that block ranges computed from the sequence can never overlap
+    static final int BLOCK_SIZE = 100_000;
+
+    private final SerialNumberBlockRepository blockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationProperties.SerialNumberProperties properties;
+    private final SerialNumberPermutation permutation;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile Block current;
+
+    public SerialNumberAllocator(SerialNumberBlockRepository blockRepository,
+            PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties) {
+        this.blockRepository = blockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Block reservations must survive a rollback of the caller's transaction
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = applicationProperties.getSerialNumber();
+
+        String key = properties.getPermutationKey();
+        if (key == null || key.isBlank()) {
+            key = "serial-number:" + applicationProperties.getJwt().getSecret();
+        }
+        this.permutation = new SerialNumberPermutation(key.getBytes(StandardCharsets.UTF_8),
+                properties.getDigits(), properties.getRounds());
+    }
+
+    public String nextSerialNumber() {
+        return properties.getPrefix() + permutation.format(nextCounter());
+    }
+
+    long nextCounter() {
+        while (true) {
+            Block block = current;
+            if (block != null) {
+                long counter = block.next.getAndIncrement();
+                if (counter < block.end) {
+                    return counter;
+                }
+            }
+            refill(block);
+        }
+    }
+
+    private synchronized void refill(Block exhausted) {
+        if (current != exhausted) {
+            // Another thread already reserved a fresh block
+            return;
+        }
+
+        SerialNumberBlock reserved = transactionTemplate.execute(status -> {
+            SerialNumberBlock block = new SerialNumberBlock();
+            block.setNodeId(nodeId);
+            block.setBlockSize(BLOCK_SIZE);
+            return blockRepository.save(block);
+        });
+
+        long start = Math.multiplyExact(reserved.getId(), (long) BLOCK_SIZE);
+        long end = start + BLOCK_SIZE;
+        if (end > permutation.domainSize()) {
+            throw new IllegalStateException("Serial number space exhausted at block " + reserved.getId());
+        }
+        current = new Block(start, end);
+        log.debug("Reserved serial number block {} [{}, {})", reserved.getId(), start, end);
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.pharma.drugverification.service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Keyed bijection over the decimal range {@code [0, 10^digits)}.
+ *
+ * A balanced Feistel network on the two decimal halves of the value, so every
+ * counter maps to exactly one serial and sequential counters come out
+ * scattered. Round keys are derived once from the permutation key with
+ * HMAC-SHA256; each round then costs a 64-bit mix and a modulo. This hides
+ * the allocation order from anyone reading printed serials. It does not
+ * authenticate them; that is the job of the crypto-tail.
+ */
+public final class SerialNumberPermutation {
+
+    private final int digits;
+    private final long halfModulus;
+    private final long[] roundKeys;
+
+    public SerialNumberPermutation(byte[] key, int digits, int rounds) {
+        if (digits < 2 || digits > 18 || digits % 2 != 0) {
+            throw new IllegalArgumentException("Serial number digits must be an even number between 2 and 18");
+        }
+        if (rounds < 4) {
+            throw new IllegalArgumentException("At least 4 Feistel rounds are required");
+        }
+        this.digits = digits;
+        this.halfModulus = pow10(digits / 2);
+        this.roundKeys = deriveRoundKeys(key, rounds);
+    }
+
+    public long domainSize() {
+        return halfModulus * halfModulus;
+    }
+
+    public long permute(long value) {
+        if (value < 0 || value >= domainSize()) {
+            throw new IllegalArgumentException("Value outside permutation domain: " + value);
+        }
+        long left = value / halfModulus;
+        long right = value % halfModulus;
+        for (long roundKey : roundKeys) {
+            long next = (left + round(right, roundKey)) % halfModulus;
+            left = right;
+            right = next;
+        }
+        return left * halfModulus + right;
+    }
+
+    public long invert(long value) {
+        long left = value / halfModulus;
+        long right = value % halfModulus;
+        for (int i = roundKeys.length - 1; i >= 0; i--) {
+            long previous = Math.floorMod(right - round(left, roundKeys[i]), halfModulus);
+            right = left;
+            left = previous;
+        }
+        return left * halfModulus + right;
+    }
+
+    /**
+     * Zero-padded decimal form of the permuted value.
+     */
+    public String format(long value) {
+        String permuted = Long.toString(permute(value));
+        if (permuted.length() == digits) {
+            return permuted;
+        }
+        StringBuilder padded = new StringBuilder(digits);
+        for (int i = permuted.length(); i < digits; i++) {
+            padded.append('0');
+        }
+        return padded.append(permuted).toString();
+    }
+
+    private long round(long half, long roundKey) {
+        // MurmurHash3 fmix64 finaliser over the keyed input
+        long h = half ^ roundKey;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return Long.remainderUnsigned(h, halfModulus);
+    }
+
+    private static long[] deriveRoundKeys(byte[] key, int rounds) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            long[] roundKeys = new long[rounds];
+            for (int i = 0; i < rounds; i++) {
+                byte[] digest = mac.doFinal(("serial-number-round-" + i).getBytes(StandardCharsets.UTF_8));
+                roundKeys[i] = ByteBuffer.wrap(digest).getLong();
+            }
+            return roundKeys;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to derive serial number permutation keys", e);
+        }
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
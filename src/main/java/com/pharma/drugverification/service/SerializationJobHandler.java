@@ -0,0 +1,163 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.Batch;
+import com.pharma.drugverification.domain.Job;
+import com.pharma.drugverification.domain.SerializedUnit;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.exception.ResourceNotFoundException;
+import com.pharma.drugverification.repository.BatchRepository;
+import com.pharma.drugverification.security.HsmService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Serializes large unit quantities as a background job.
+ *
+ * Each chunk is signed in parallel on a dedicated fork-join pool before its
+ * transaction opens, then inserted with a JDBC batch (IDENTITY ids rule out
+ * Hibernate batching).
+ */
+@Service
+public class SerializationJobHandler implements JobHandler {
+
+    static final String INSERT_SQL = "INSERT INTO serialized_units (serial_number, batch_id, gtin, crypto_tail, "
+            + "data_matrix, key_version, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final BatchRepository batchRepository;
+    private final HsmService hsmService;
+    private final SerialNumberAllocator serialNumberAllocator;
+    private final AuditService auditService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationProperties.SerializationProperties properties;
+
+    private final ForkJoinPool signingPool;
+
+    public SerializationJobHandler(BatchRepository batchRepository,
+            HsmService hsmService,
+            SerialNumberAllocator serialNumberAllocator,
+            AuditService auditService,
+            JdbcTemplate jdbcTemplate,
+            ApplicationProperties applicationProperties) {
+        this.batchRepository = batchRepository;
+        this.hsmService = hsmService;
+        this.serialNumberAllocator = serialNumberAllocator;
+        this.auditService = auditService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = applicationProperties.getSerialization();
+
+        int parallelism = properties.getSigningParallelism() > 0
+                ? properties.getSigningParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        this.signingPool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Validates the request and builds the job; the caller submits it.
+     */
+    public Job newJob(Long batchId, String gtin, int quantity, Long userId) {
+        if (quantity < 1 || quantity > properties.getMaxJobQuantity()) {
+            throw new BadRequestException(
+                    "Quantity must be between 1 and " + properties.getMaxJobQuantity());
+        }
+
+        Batch batch = batchRepository.findById(batchId)
+                .orElseThrow(() -> new ResourceNotFoundException("Batch not found"));
+
+        if (batch.getStatus() != Batch.BatchStatus.ACTIVE) {
+            throw new BadRequestException("Cannot serialize units for inactive batch");
+        }
+
+        Job job = new Job();
+        job.setType(Job.JobType.SERIALIZATION);
+        job.setTargetType("Batch");
+        job.setTargetId(batchId);
+        // The key version is fixed at submission so a resumed job keeps signing with it
+        job.setParameters(Map.of("gtin", gtin, "keyVersion", hsmService.getCurrentKeyVersion()));
+        job.setTotalItems((long) quantity);
+        job.setRequestedByUserId(userId);
+        return job;
+    }
+
+    @Override
+    public Job.JobType getType() {
+        return Job.JobType.SERIALIZATION;
+    }
+
+    @Override
+    public int getChunkSize() {
+        return properties.getChunkSize();
+    }
+
+    @Override
+    public ChunkWrite prepareChunk(Job job, long offset, int size) {
+        Batch batch = batchRepository.findById(job.getTargetId())
+                .orElseThrow(() -> new ResourceNotFoundException("Batch not found"));
+        SerializedUnit[] units = signChunk(job, batch, size);
+        return () -> insertUnits(units);
+    }
+
+    @Override
+    public void onCompleted(Job job) {
+        auditService.log("UNIT_BULK_SERIALIZED", "Batch", job.getTargetId(), job.getRequestedByUserId(),
+                Map.of("jobId", job.getId(), "gtin", job.getParameters().get("gtin"),
+                        "quantity", job.getCompletedItems()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        signingPool.shutdownNow();
+    }
+
+    private SerializedUnit[] signChunk(Job job, Batch batch, int size) {
+        String gtin = (String) job.getParameters().get("gtin");
+        int keyVersion = ((Number) job.getParameters().get("keyVersion")).intValue();
+        String expirationDate = batch.getExpirationDate().format(DateTimeFormatter.ofPattern("yyMMdd"));
+
+        SerializedUnit[] units = new SerializedUnit[size];
+        signingPool.submit(() -> IntStream.range(0, size).parallel().forEach(i -> {
+            String serialNumber = serialNumberAllocator.nextSerialNumber();
+
+            SerializedUnit unit = new SerializedUnit();
+            unit.setSerialNumber(serialNumber);
+            unit.setBatchId(batch.getId());
+            unit.setGtin(gtin);
+            unit.setCryptoTail(hsmService.generateCryptoTail(serialNumber, gtin, batch.getBatchNumber(),
+                    keyVersion));
+            unit.setDataMatrix(hsmService.generateDataMatrix(gtin, serialNumber, batch.getBatchNumber(),
+                    expirationDate));
+            unit.setKeyVersion(keyVersion);
+            unit.setStatus(SerializedUnit.UnitStatus.ACTIVE);
+            units[i] = unit;
+        })).join();
+        return units;
+    }
+
+    private int insertUnits(SerializedUnit[] units) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<SerializedUnit> rows = Arrays.asList(units);
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, unit) -> {
+            ps.setString(1, unit.getSerialNumber());
+            ps.setObject(2, unit.getBatchId(), Types.BIGINT);
+            ps.setString(3, unit.getGtin());
+            ps.setString(4, unit.getCryptoTail());
+            ps.setString(5, unit.getDataMatrix());
+            ps.setObject(6, unit.getKeyVersion(), Types.INTEGER);
+            ps.setString(7, unit.getStatus().name());
+            ps.setTimestamp(8, now);
+            ps.setTimestamp(9, now);
+        });
+        return units.length;
+    }
+}
@@ -1,8 +1,11 @@
 package com.pharma.drugverification.service;
 
+import com.pharma.drugverification.config.ApplicationProperties;
 import com.pharma.drugverification.domain.Batch;
+import com.pharma.drugverification.domain.Job;
 import com.pharma.drugverification.domain.SerializedUnit;
 import com.pharma.drugverification.domain.StatusTransition;
+import com.pharma.drugverification.dto.JobResponse;
 import com.pharma.drugverification.dto.SerializedUnitCreationRequest;
 import com.pharma.drugverification.dto.SerializedUnitResponse;
 import com.pharma.drugverification.repository.BatchRepository;
@@ -33,8 +36,12 @@ public class SerializationService {
         private final SerializedUnitRepository serializedUnitRepository;
         private final BatchRepository batchRepository;
         private final HsmService hsmService;
+        private final SerialNumberAllocator serialNumberAllocator;
+        private final SerializationJobHandler serializationJobHandler;
+        private final JobService jobService;
         private final StatusTransitionService statusTransitionService;
         private final AuditService auditService;
+        private final ApplicationProperties applicationProperties;
 
         @Transactional
         @CacheEvict(value = "serializedUnits", allEntries = true)
@@ -51,10 +58,12 @@ public class SerializationService {
                         throw new BadRequestException("Cannot serialize units for inactive batch");
                 }
 
+                int keyVersion = hsmService.getCurrentKeyVersion();
                 String cryptoTail = hsmService.generateCryptoTail(
                                 request.getSerialNumber(),
                                 request.getGtin(),
-                                batch.getBatchNumber());
+                                batch.getBatchNumber(),
+                                keyVersion);
 
                 String expirationDate = batch.getExpirationDate()
                                 .format(DateTimeFormatter.ofPattern("yyMMdd"));
@@ -71,7 +80,7 @@ public class SerializationService {
                 unit.setGtin(request.getGtin());
                 unit.setCryptoTail(cryptoTail);
                 unit.setDataMatrix(dataMatrix);
-                unit.setKeyVersion(hsmService.getCurrentKeyVersion());
+                unit.setKeyVersion(keyVersion);
                 unit.setStatus(SerializedUnit.UnitStatus.ACTIVE);
                 unit.setParentAggregationId(request.getParentAggregationId());
 
@@ -87,6 +96,12 @@ public class SerializationService {
         @CacheEvict(value = "serializedUnits", allEntries = true)
         public List<SerializedUnitResponse> bulkCreateSerializedUnits(Long batchId, String gtin, int quantity,
                         Long userId) {
+                int maxQuantity = applicationProperties.getSerialization().getSyncBulkMaxQuantity();
+                if (quantity < 1 || quantity > maxQuantity) {
+                        throw new BadRequestException("Quantity must be between 1 and " + maxQuantity
+                                        + "; submit a serialization job for larger quantities");
+                }
+
                 Batch batch = batchRepository.findById(batchId)
                                 .orElseThrow(() -> new ResourceNotFoundException("Batch not found"));
 
@@ -101,12 +116,13 @@ public class SerializationService {
                 List<SerializedUnit> units = new ArrayList<>();
 
                 for (int i = 0; i < quantity; i++) {
-                        String serialNumber = hsmService.generateSerialNumber();
+                        String serialNumber = serialNumberAllocator.nextSerialNumber();
 
                         String cryptoTail = hsmService.generateCryptoTail(
                                         serialNumber,
                                         gtin,
-                                        batch.getBatchNumber());
+                                        batch.getBatchNumber(),
+                                        currentKeyVersion);
 
                         String dataMatrix = hsmService.generateDataMatrix(
                                         gtin,
@@ -136,6 +152,19 @@ public class SerializationService {
                                 .toList();
         }
 
+        /**
+         * Queues serialization of a quantity too large for a single request.
+         */
+        @Transactional
+        public JobResponse submitSerializationJob(Long batchId, String gtin, int quantity, Long userId) {
+                Job job = jobService.submit(serializationJobHandler.newJob(batchId, gtin, quantity, userId));
+
+                auditService.log("SERIALIZATION_JOB_SUBMITTED", "Batch", batchId, userId,
+                                Map.of("jobId", job.getId(), "gtin", gtin, "quantity", quantity));
+
+                return JobResponse.from(job);
+        }
+
         @Transactional
         @CacheEvict(value = "serializedUnits", allEntries = true)
         public SerializedUnitResponse decommissionUnit(Long unitId, Long userId, String pharmacy) {
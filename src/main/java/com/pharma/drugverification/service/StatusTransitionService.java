@@ -1,9 +1,8 @@
 package com.pharma.drugverification.service;
 
 import com.pharma.drugverification.domain.StatusTransition;
-import com.pharma.drugverification.domain.User;
+import com.pharma.drugverification.dto.UserSnapshot;
 import com.pharma.drugverification.repository.StatusTransitionRepository;
-import com.pharma.drugverification.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -19,7 +18,7 @@ import java.util.List;
 public class StatusTransitionService {
 
     private final StatusTransitionRepository statusTransitionRepository;
-    private final UserRepository userRepository;
+    private final UserDirectoryService userDirectoryService;
 
     @Transactional
     public void recordTransition(
@@ -29,7 +28,7 @@ public class StatusTransitionService {
             String toStatus,
             String reason,
             Long userId) {
-        User user = userRepository.findById(userId).orElse(null);
+        UserSnapshot user = userId != null ? userDirectoryService.getUser(userId) : null;
 
         StatusTransition transition = new StatusTransition();
         transition.setEntityType(entityType);
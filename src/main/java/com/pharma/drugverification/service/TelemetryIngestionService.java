@@ -0,0 +1,188 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.dto.TelemetryBatchRequest;
+import com.pharma.drugverification.dto.TelemetryBatchResponse;
+import com.pharma.drugverification.dto.TelemetryReadingAck;
+import com.pharma.drugverification.dto.TelemetryReadingAck.AckStatus;
+import com.pharma.drugverification.dto.TelemetryReadingRequest;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.repository.TelemetryReadingRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests uploads of many readings from IoT loggers.
+ *
+ * Each reading is validated on its own and checked against its drug's
+ * temperature range, held in memory by {@link TelemetryThresholdCache}.
+ * Accepted readings go to {@link TelemetryReadingWriter} rather than being
+ * inserted one by one, and are fed in timestamp order to the
+ * {@link TemperatureExcursionDetector}, which alerts on excursions rather
+ * than on individual readings.
+ *
+ * Readings carry the device's own timestamp when it sends one, and a
+ * sequence number already seen for the device is acknowledged as a
+ * duplicate without being stored again. A queued reading is only in memory
+ * until the writer commits it, so a logger keeps it buffered until
+ * {@link #findStored} reports its sequence number, and replays whatever is
+ * still missing: a reading lost in a crash or dropped by the writer no
+ * longer holds its sequence number, so the replay is queued again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TelemetryIngestionService {
+
+    private final TelemetryThresholdCache telemetryThresholdCache;
+    private final TelemetryReadingWriter telemetryReadingWriter;
+    private final TemperatureExcursionDetector temperatureExcursionDetector;
+    private final TelemetrySequenceTracker telemetrySequenceTracker;
+    private final TelemetryReadingRepository telemetryReadingRepository;
+    private final Validator validator;
+    private final ApplicationProperties applicationProperties;
+
+    public TelemetryBatchResponse ingest(TelemetryBatchRequest request, Long userId) {
+        List<TelemetryReadingRequest> requests = request.getReadings();
+        int maxReadings = applicationProperties.getTelemetry().getIngestMaxReadings();
+        if (requests.size() > maxReadings) {
+            throw new BadRequestException("Telemetry uploads are limited to " + maxReadings + " readings");
+        }
+
+        LocalDateTime receivedAt = LocalDateTime.now();
+        int maxClockSkewSeconds = applicationProperties.getTelemetry().getMaxClockSkewSeconds();
+        TelemetryReadingAck[] acks = new TelemetryReadingAck[requests.size()];
+        List<TelemetryReading> accepted = new ArrayList<>(requests.size());
+        List<ThresholdSnapshot> acceptedThresholds = new ArrayList<>(requests.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            TelemetryReadingRequest readingRequest = requests.get(i);
+            if (readingRequest == null) {
+                acks[i] = new TelemetryReadingAck(i, null, null, AckStatus.REJECTED, false, "Reading is empty");
+                continue;
+            }
+            String deviceId = readingRequest.getDeviceId();
+            Long batchId = readingRequest.getBatchId();
+
+            Set<ConstraintViolation<TelemetryReadingRequest>> violations = validator.validate(readingRequest);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+                acks[i] = new TelemetryReadingAck(i, deviceId, batchId, AckStatus.REJECTED, false, message);
+                continue;
+            }
+
+            ThresholdSnapshot thresholds = telemetryThresholdCache.get(batchId);
+            if (thresholds == null) {
+                acks[i] = new TelemetryReadingAck(i, deviceId, batchId, AckStatus.REJECTED, false,
+                        "Batch not found");
+                continue;
+            }
+
+            LocalDateTime recordedAt = readingRequest.getRecordedAt();
+            if (recordedAt != null && recordedAt.isAfter(receivedAt.plusSeconds(maxClockSkewSeconds))) {
+                acks[i] = new TelemetryReadingAck(i, deviceId, batchId, AckStatus.REJECTED, false,
+                        "Recorded time is in the future");
+                continue;
+            }
+            Long sequenceNumber = readingRequest.getSequenceNumber();
+            if (sequenceNumber != null && !telemetrySequenceTracker.tryAccept(deviceId, sequenceNumber)) {
+                acks[i] = new TelemetryReadingAck(i, deviceId, batchId, AckStatus.DUPLICATE, false,
+                        "Reading was already received");
+                continue;
+            }
+
+            TelemetryReading reading = new TelemetryReading();
+            reading.setDeviceId(deviceId);
+            reading.setBatchId(batchId);
+            reading.setTemperature(BigDecimal.valueOf(readingRequest.getTemperatureCelsius()));
+            reading.setHumidity(BigDecimal.valueOf(readingRequest.getHumidityPercent()));
+            reading.setLocation(readingRequest.getLocation());
+            reading.setTimestamp(recordedAt != null ? recordedAt : receivedAt);
+            reading.setSequenceNumber(sequenceNumber);
+            accepted.add(reading);
+            acceptedThresholds.add(thresholds);
+            acceptedIndexes.add(i);
+
+            acks[i] = new TelemetryReadingAck(i, deviceId, batchId, AckStatus.QUEUED,
+                    thresholds.isOutOfRange(readingRequest.getTemperatureCelsius()), null);
+        }
+
+        // Readings the writer could not take are not persisted and must be resent
+        int submitted = telemetryReadingWriter.submitAll(accepted);
+        for (int j = submitted; j < acceptedIndexes.size(); j++) {
+            TelemetryReadingAck ack = acks[acceptedIndexes.get(j)];
+            ack.setStatus(AckStatus.RETRY);
+            ack.setThresholdViolation(false);
+            ack.setMessage("Telemetry ingestion is saturated, resend later");
+            TelemetryReading turnedAway = accepted.get(j);
+            if (turnedAway.getSequenceNumber() != null) {
+                telemetrySequenceTracker.release(turnedAway.getDeviceId(), turnedAway.getSequenceNumber());
+            }
+        }
+        if (submitted < acceptedIndexes.size()) {
+            log.warn("Telemetry writer saturated, {} of {} readings turned away",
+                    acceptedIndexes.size() - submitted, acceptedIndexes.size());
+        }
+
+        // Sorted here so an out-of-order upload does not depend on the detector's allowed lateness
+        Integer[] order = new Integer[submitted];
+        for (int j = 0; j < submitted; j++) {
+            order[j] = j;
+        }
+        Arrays.sort(order, Comparator.comparing(j -> accepted.get(j).getTimestamp()));
+        for (int j : order) {
+            temperatureExcursionDetector.observe(accepted.get(j), acceptedThresholds.get(j), userId);
+        }
+
+        TelemetryBatchResponse response = new TelemetryBatchResponse();
+        response.setAcknowledgements(Arrays.asList(acks));
+        response.setQueued(count(acks, AckStatus.QUEUED));
+        response.setRejected(count(acks, AckStatus.REJECTED));
+        response.setRetry(count(acks, AckStatus.RETRY));
+        response.setDuplicate(count(acks, AckStatus.DUPLICATE));
+        return response;
+    }
+
+    /**
+     * Which of the given sequence numbers of a device are stored, so the
+     * device can discard those readings from its buffer.
+     */
+    public List<Long> findStored(String deviceId, List<Long> sequenceNumbers) {
+        int maxReadings = applicationProperties.getTelemetry().getIngestMaxReadings();
+        if (sequenceNumbers.size() > maxReadings) {
+            throw new BadRequestException("Telemetry lookups are limited to " + maxReadings + " sequence numbers");
+        }
+        if (sequenceNumbers.isEmpty()) {
+            return List.of();
+        }
+        return telemetryReadingRepository.findStoredSequenceNumbers(deviceId, sequenceNumbers);
+    }
+
+    private static int count(TelemetryReadingAck[] acks, AckStatus status) {
+        int count = 0;
+        for (TelemetryReadingAck ack : acks) {
+            if (ack.getStatus() == status) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,179 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryBatchKinetics;
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
+import com.pharma.drugverification.repository.TelemetryBatchKineticsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Maintains each batch's mean kinetic temperature and its time and
+ * degree-minutes above the drug's range as readings arrive, so release
+ * decisions never rescan the readings.
+ *
+ * MKT weighs every temperature equally, as for a logger sampling at a fixed
+ * interval, which keeps its sum independent of arrival order. Time above the
+ * range holds each reading until the next one, capped at
+ * {@code kinetics-max-gap-minutes} so a silent logger is not charged for the
+ * whole gap. A reading older than the batch's latest still counts towards
+ * MKT but does not reopen intervals that were already accounted for.
+ */
+@Service
+@Slf4j
+public class TelemetryKineticsService {
+
+    // Activation energy over the gas constant: 83.144 kJ/mol / 8.3144 J/(mol K), the USP default
+    static final double ACTIVATION_ENERGY_OVER_R = 10000.0;
+    private static final double KELVIN_OFFSET = 273.15;
+
+    // Standard MERGE rather than ON CONFLICT so the same statement runs on H2
+    static final String CREATE_SQL = "MERGE INTO telemetry_batch_kinetics t USING (VALUES (CAST(? AS BIGINT), "
+            + "CAST(? AS TIMESTAMP))) AS s (batch_id, updated_at) ON t.batch_id = s.batch_id "
+            + "WHEN NOT MATCHED THEN INSERT (batch_id, temperature_count, kinetic_sum, minutes_above_range, "
+            + "degree_minutes_above_range, updated_at) VALUES (s.batch_id, 0, 0, 0, 0, s.updated_at)";
+
+    static final String LOCK_SQL = "SELECT last_reading_at, last_temperature FROM telemetry_batch_kinetics "
+            + "WHERE batch_id = ? FOR UPDATE";
+
+    static final String UPDATE_SQL = "UPDATE telemetry_batch_kinetics SET "
+            + "temperature_count = temperature_count + ?, kinetic_sum = kinetic_sum + ?, "
+            + "last_reading_at = ?, last_temperature = ?, minutes_above_range = minutes_above_range + ?, "
+            + "degree_minutes_above_range = degree_minutes_above_range + ?, updated_at = ? WHERE batch_id = ?";
+
+    private static final Comparator<TelemetryReading> TIMESTAMP_ORDER =
+            Comparator.comparing(TelemetryReading::getTimestamp);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TelemetryBatchKineticsRepository kineticsRepository;
+    private final TelemetryThresholdCache telemetryThresholdCache;
+    private final double maxGapMinutes;
+
+    public TelemetryKineticsService(JdbcTemplate jdbcTemplate,
+            TelemetryBatchKineticsRepository kineticsRepository,
+            TelemetryThresholdCache telemetryThresholdCache,
+            ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.kineticsRepository = kineticsRepository;
+        this.telemetryThresholdCache = telemetryThresholdCache;
+        this.maxGapMinutes = applicationProperties.getTelemetry().getKineticsMaxGapMinutes();
+    }
+
+    /**
+     * Folds the readings into their batches' kinetics. Runs in the caller's
+     * transaction and locks each batch's row, in batch id order, until it
+     * commits; readings without a temperature are ignored.
+     */
+    public void record(List<TelemetryReading> readings) {
+        Map<Long, List<TelemetryReading>> byBatch = new TreeMap<>();
+        for (TelemetryReading reading : readings) {
+            if (reading.getTemperature() != null) {
+                byBatch.computeIfAbsent(reading.getBatchId(), k -> new ArrayList<>()).add(reading);
+            }
+        }
+        if (byBatch.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> batchIds = new ArrayList<>(byBatch.keySet());
+        jdbcTemplate.batchUpdate(CREATE_SQL, batchIds, batchIds.size(), (ps, batchId) -> {
+            ps.setLong(1, batchId);
+            ps.setTimestamp(2, now);
+        });
+
+        for (Map.Entry<Long, List<TelemetryReading>> entry : byBatch.entrySet()) {
+            Long batchId = entry.getKey();
+            List<TelemetryReading> batchReadings = entry.getValue();
+            batchReadings.sort(TIMESTAMP_ORDER);
+
+            Delta delta = jdbcTemplate.query(LOCK_SQL, rs -> {
+                rs.next();
+                Timestamp lastReadingAt = rs.getTimestamp(1);
+                return new Delta(lastReadingAt != null ? lastReadingAt.toLocalDateTime() : null, rs.getBigDecimal(2));
+            }, batchId);
+            ThresholdSnapshot thresholds = telemetryThresholdCache.get(batchId);
+            double maxTemperature = thresholds != null ? thresholds.getMaxTemperature() : Double.NaN;
+            for (TelemetryReading reading : batchReadings) {
+                delta.add(reading, maxTemperature, maxGapMinutes);
+            }
+
+            jdbcTemplate.update(UPDATE_SQL, delta.temperatureCount, delta.kineticSum,
+                    Timestamp.valueOf(delta.lastReadingAt), delta.lastTemperature, delta.minutesAboveRange,
+                    delta.degreeMinutesAboveRange, now, batchId);
+        }
+    }
+
+    public Optional<TelemetryBatchKinetics> findByBatch(Long batchId) {
+        return kineticsRepository.findById(batchId);
+    }
+
+    /**
+     * Mean kinetic temperature in Celsius, or NaN before the first reading.
+     */
+    public static double meanKineticTemperature(TelemetryBatchKinetics kinetics) {
+        if (kinetics.getTemperatureCount() == 0) {
+            return Double.NaN;
+        }
+        double mean = kinetics.getKineticSum() / kinetics.getTemperatureCount();
+        return ACTIVATION_ENERGY_OVER_R / -Math.log(mean) - KELVIN_OFFSET;
+    }
+
+    static double kineticTerm(double temperatureCelsius) {
+        return Math.exp(-ACTIVATION_ENERGY_OVER_R / (temperatureCelsius + KELVIN_OFFSET));
+    }
+
+    /**
+     * What one write adds to a batch's row, starting from the latest reading
+     * already stored.
+     */
+    private static final class Delta {
+
+        private LocalDateTime lastReadingAt;
+        private BigDecimal lastTemperature;
+        private long temperatureCount;
+        private double kineticSum;
+        private double minutesAboveRange;
+        private double degreeMinutesAboveRange;
+
+        Delta(LocalDateTime lastReadingAt, BigDecimal lastTemperature) {
+            this.lastReadingAt = lastReadingAt;
+            this.lastTemperature = lastTemperature;
+        }
+
+        void add(TelemetryReading reading, double maxTemperature, double maxGapMinutes) {
+            temperatureCount++;
+            kineticSum += kineticTerm(reading.getTemperature().doubleValue());
+
+            LocalDateTime timestamp = reading.getTimestamp();
+            if (lastReadingAt != null && !timestamp.isAfter(lastReadingAt)) {
+                return;
+            }
+            if (lastReadingAt != null) {
+                // NaN when the drug has no upper bound, which never counts as above
+                double excess = lastTemperature.doubleValue() - maxTemperature;
+                if (excess > 0) {
+                    double minutes = Math.min(Duration.between(lastReadingAt, timestamp).toMillis() / 60000.0,
+                            maxGapMinutes);
+                    minutesAboveRange += minutes;
+                    degreeMinutesAboveRange += minutes * excess;
+                }
+            }
+            lastReadingAt = timestamp;
+            lastTemperature = reading.getTemperature();
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryReading;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind pipeline for telemetry readings.
+ *
+ * Uploads hand their accepted readings to a bounded queue. A single
+ * background writer drains it and inserts rows with JDBC batches, so readings
+ * from many concurrent uploads share one round trip, and folds them into the
+ * rollups in the same transaction. When the queue stays full past the offer
+ * timeout the remaining readings of an upload are turned away, and the device
+ * is expected to resend them.
+ *
+ * A batch that keeps failing is retried one reading at a time, so a single
+ * bad row only costs its own reading. A reading that still cannot be written
+ * gives its sequence number back; it is never reported as stored, so the
+ * device resends it and the resend is queued again.
+ */
+@Service
+@Slf4j
+public class TelemetryReadingWriter implements SmartLifecycle {
+
+    static final String INSERT_SQL = "INSERT INTO telemetry_readings (batch_id, timestamp, temperature, humidity, "
+            + "location, device_id, latitude, longitude, sequence_number) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TelemetryRollupService rollupService;
+    private final TelemetryKineticsService kineticsService;
+    private final TelemetrySequenceTracker telemetrySequenceTracker;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationProperties.TelemetryProperties properties;
+    private final BlockingQueue<TelemetryReading> queue;
+
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public TelemetryReadingWriter(JdbcTemplate jdbcTemplate,
+            TelemetryRollupService rollupService,
+            TelemetryKineticsService kineticsService,
+            TelemetrySequenceTracker telemetrySequenceTracker,
+            PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupService = rollupService;
+        this.kineticsService = kineticsService;
+        this.telemetrySequenceTracker = telemetrySequenceTracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getTelemetry();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        Gauge.builder("telemetry.writer.queue.depth", queue, BlockingQueue::size)
+                .description("Telemetry readings waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("telemetry.writer.flush")
+                .description("Latency of telemetry batch inserts")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("telemetry.writer.written")
+                .description("Telemetry readings written to the database")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("telemetry.writer.dropped")
+                .description("Telemetry readings that could not be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues readings in order and returns how many were taken. Only the
+     * first offer may wait, so a saturated queue costs an upload at most one
+     * offer timeout.
+     */
+    public int submitAll(List<TelemetryReading> readings) {
+        int submitted = 0;
+        try {
+            for (TelemetryReading reading : readings) {
+                boolean queued = submitted == 0
+                        ? queue.offer(reading, properties.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)
+                        : queue.offer(reading);
+                if (!queued) {
+                    break;
+                }
+                submitted++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return submitted;
+    }
+
+    /**
+     * Inserts the given readings synchronously as a single JDBC batch and
+     * folds them into the rollups and batch kinetics in the same transaction.
+     */
+    public void writeBatch(List<TelemetryReading> readings) {
+        if (readings.isEmpty()) {
+            return;
+        }
+        flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, readings, readings.size(), (ps, reading) -> {
+                ps.setLong(1, reading.getBatchId());
+                ps.setTimestamp(2, Timestamp.valueOf(reading.getTimestamp()));
+                ps.setBigDecimal(3, reading.getTemperature());
+                ps.setBigDecimal(4, reading.getHumidity());
+                ps.setString(5, reading.getLocation());
+                ps.setString(6, reading.getDeviceId());
+                ps.setObject(7, reading.getLatitude(), Types.DOUBLE);
+                ps.setObject(8, reading.getLongitude(), Types.DOUBLE);
+                ps.setObject(9, reading.getSequenceNumber(), Types.BIGINT);
+            });
+            rollupService.record(readings);
+            kineticsService.record(readings);
+        }));
+        writtenCounter.increment(readings.size());
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "telemetry-reading-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Writes everything queued so far, one JDBC batch at a time.
+     */
+    void drain() {
+        List<TelemetryReading> batch = new ArrayList<>(properties.getBatchSize());
+        while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void runWriter() {
+        int batchSize = properties.getBatchSize();
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+        List<TelemetryReading> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                TelemetryReading first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    TelemetryReading next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested; flush what has been collected
+            }
+
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<TelemetryReading> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (int attempt = 1; attempt <= MAX_FLUSH_ATTEMPTS; attempt++) {
+            try {
+                writeBatch(batch);
+                return;
+            } catch (Exception e) {
+                log.warn("Telemetry batch of {} readings failed (attempt {}/{}): {}", batch.size(), attempt,
+                        MAX_FLUSH_ATTEMPTS, e.toString());
+            }
+        }
+
+        if (batch.size() > 1) {
+            // Isolate the readings that cannot be written so the rest of the batch survives
+            for (TelemetryReading reading : batch) {
+                flush(List.of(reading));
+            }
+        } else {
+            TelemetryReading reading = batch.get(0);
+            log.error("Dropping telemetry reading of device {} for batch {} after {} failed attempts",
+                    reading.getDeviceId(), reading.getBatchId(), MAX_FLUSH_ATTEMPTS);
+            if (reading.getSequenceNumber() != null) {
+                telemetrySequenceTracker.release(reading.getDeviceId(), reading.getSequenceNumber());
+            }
+            droppedCounter.increment();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetryRollup;
+import com.pharma.drugverification.domain.TelemetryRollup.Granularity;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
+import com.pharma.drugverification.repository.TelemetryRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains per-batch telemetry rollups at minute, hour and day granularity.
+ *
+ * Writers fold each batch of readings into one delta per bucket and merge the
+ * deltas in the caller's transaction, so rollups commit together with the
+ * readings. Statistics over a time range then combine whole days, hours and
+ * minutes, reading a bounded number of buckets however many readings there are.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TelemetryRollupService {
+
+    // Standard MERGE rather than ON CONFLICT so the same statement runs on H2
+    static final String MERGE_SQL = "MERGE INTO telemetry_rollups t USING (VALUES (CAST(? AS BIGINT), "
+            + "CAST(? AS VARCHAR(10)), CAST(? AS TIMESTAMP), CAST(? AS BIGINT), CAST(? AS BIGINT), "
+            + "CAST(? AS NUMERIC(5, 2)), CAST(? AS NUMERIC(5, 2)), CAST(? AS DOUBLE PRECISION), "
+            + "CAST(? AS DOUBLE PRECISION), CAST(? AS BIGINT), CAST(? AS DOUBLE PRECISION), CAST(? AS BIGINT))) "
+            + "AS s (batch_id, granularity, bucket_start, reading_count, temperature_count, temperature_min, "
+            + "temperature_max, temperature_sum, temperature_sum_squares, humidity_count, humidity_sum, "
+            + "violation_count) "
+            + "ON t.batch_id = s.batch_id AND t.granularity = s.granularity AND t.bucket_start = s.bucket_start "
+            + "WHEN MATCHED THEN UPDATE SET reading_count = t.reading_count + s.reading_count, "
+            + "temperature_count = t.temperature_count + s.temperature_count, "
+            + "temperature_min = LEAST(COALESCE(t.temperature_min, s.temperature_min), "
+            + "COALESCE(s.temperature_min, t.temperature_min)), "
+            + "temperature_max = GREATEST(COALESCE(t.temperature_max, s.temperature_max), "
+            + "COALESCE(s.temperature_max, t.temperature_max)), "
+            + "temperature_sum = t.temperature_sum + s.temperature_sum, "
+            + "temperature_sum_squares = t.temperature_sum_squares + s.temperature_sum_squares, "
+            + "humidity_count = t.humidity_count + s.humidity_count, "
+            + "humidity_sum = t.humidity_sum + s.humidity_sum, "
+            + "violation_count = t.violation_count + s.violation_count "
+            + "WHEN NOT MATCHED THEN INSERT (batch_id, granularity, bucket_start, reading_count, temperature_count, "
+            + "temperature_min, temperature_max, temperature_sum, temperature_sum_squares, humidity_count, "
+            + "humidity_sum, violation_count) VALUES (s.batch_id, s.granularity, s.bucket_start, s.reading_count, "
+            + "s.temperature_count, s.temperature_min, s.temperature_max, s.temperature_sum, "
+            + "s.temperature_sum_squares, s.humidity_count, s.humidity_sum, s.violation_count)";
+
+    // Buckets are merged in key order so concurrent writers lock rows in the same order
+    private static final Comparator<BucketKey> KEY_ORDER = Comparator.comparing(BucketKey::batchId)
+            .thenComparing(BucketKey::granularity)
+            .thenComparing(BucketKey::bucketStart);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TelemetryRollupRepository rollupRepository;
+    private final TelemetryThresholdCache telemetryThresholdCache;
+
+    /**
+     * Folds the readings into their rollup buckets. Runs in the caller's
+     * transaction; readings without a temperature only count towards humidity.
+     */
+    public void record(List<TelemetryReading> readings) {
+        if (readings.isEmpty()) {
+            return;
+        }
+        Map<BucketKey, Summary> deltas = new TreeMap<>(KEY_ORDER);
+        for (TelemetryReading reading : readings) {
+            ThresholdSnapshot thresholds = telemetryThresholdCache.get(reading.getBatchId());
+            boolean violation = thresholds != null && reading.getTemperature() != null
+                    && thresholds.isOutOfRange(reading.getTemperature().doubleValue());
+            for (Granularity granularity : Granularity.values()) {
+                BucketKey key = new BucketKey(reading.getBatchId(), granularity,
+                        granularity.bucketOf(reading.getTimestamp()));
+                deltas.computeIfAbsent(key, k -> new Summary()).add(reading, violation);
+            }
+        }
+
+        List<Map.Entry<BucketKey, Summary>> rows = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(MERGE_SQL, rows, rows.size(), (ps, row) -> {
+            BucketKey key = row.getKey();
+            Summary delta = row.getValue();
+            ps.setLong(1, key.batchId());
+            ps.setString(2, key.granularity().name());
+            ps.setTimestamp(3, Timestamp.valueOf(key.bucketStart()));
+            ps.setLong(4, delta.readingCount);
+            ps.setLong(5, delta.temperatureCount);
+            ps.setBigDecimal(6, delta.temperatureMin);
+            ps.setBigDecimal(7, delta.temperatureMax);
+            ps.setDouble(8, delta.temperatureSum);
+            ps.setDouble(9, delta.temperatureSumSquares);
+            ps.setLong(10, delta.humidityCount);
+            ps.setDouble(11, delta.humiditySum);
+            ps.setLong(12, delta.violationCount);
+        });
+    }
+
+    /**
+     * Combines the rollups of one batch over [from, to). {@code from} is
+     * rounded down to the minute and the minute holding {@code to} is
+     * included whole.
+     */
+    public Summary summarize(Long batchId, LocalDateTime from, LocalDateTime to) {
+        Summary summary = new Summary();
+        LocalDateTime start = Granularity.MINUTE.bucketOf(from);
+        LocalDateTime end = Granularity.MINUTE.bucketOf(to);
+        if (end.isBefore(to)) {
+            end = Granularity.MINUTE.nextBucket(end);
+        }
+        if (start.isBefore(end)) {
+            cover(batchId, start, end, Granularity.values().length - 1, summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Takes whole buckets of the coarsest granularity that fits inside the
+     * range and covers the ragged edges with the next finer one.
+     */
+    private void cover(Long batchId, LocalDateTime from, LocalDateTime to, int level, Summary summary) {
+        Granularity granularity = Granularity.values()[level];
+        if (level == 0) {
+            merge(batchId, granularity, from, to, summary);
+            return;
+        }
+        LocalDateTime first = granularity.bucketOf(from);
+        if (first.isBefore(from)) {
+            first = granularity.nextBucket(first);
+        }
+        LocalDateTime last = granularity.bucketOf(to);
+        if (!first.isBefore(last)) {
+            cover(batchId, from, to, level - 1, summary);
+            return;
+        }
+        if (from.isBefore(first)) {
+            cover(batchId, from, first, level - 1, summary);
+        }
+        merge(batchId, granularity, first, last, summary);
+        if (last.isBefore(to)) {
+            cover(batchId, last, to, level - 1, summary);
+        }
+    }
+
+    private void merge(Long batchId, Granularity granularity, LocalDateTime from, LocalDateTime to,
+            Summary summary) {
+        for (TelemetryRollup rollup : rollupRepository
+                .findByBatchIdAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+                        batchId, granularity, from, to)) {
+            summary.add(rollup);
+        }
+    }
+
+    private record BucketKey(Long batchId, Granularity granularity, LocalDateTime bucketStart) {
+    }
+
+    /**
+     * Mergeable aggregate of a set of readings; the same shape as a rollup row.
+     */
+    public static final class Summary {
+
+        private long readingCount;
+        private long temperatureCount;
+        private BigDecimal temperatureMin;
+        private BigDecimal temperatureMax;
+        private double temperatureSum;
+        private double temperatureSumSquares;
+        private long humidityCount;
+        private double humiditySum;
+        private long violationCount;
+
+        void add(TelemetryReading reading, boolean violation) {
+            readingCount++;
+            BigDecimal temperature = reading.getTemperature();
+            if (temperature != null) {
+                double value = temperature.doubleValue();
+                temperatureCount++;
+                temperatureSum += value;
+                temperatureSumSquares += value * value;
+                temperatureMin = temperatureMin == null ? temperature : temperatureMin.min(temperature);
+                temperatureMax = temperatureMax == null ? temperature : temperatureMax.max(temperature);
+            }
+            if (reading.getHumidity() != null) {
+                humidityCount++;
+                humiditySum += reading.getHumidity().doubleValue();
+            }
+            if (violation) {
+                violationCount++;
+            }
+        }
+
+        void add(TelemetryRollup rollup) {
+            readingCount += rollup.getReadingCount();
+            temperatureCount += rollup.getTemperatureCount();
+            if (rollup.getTemperatureMin() != null) {
+                temperatureMin = temperatureMin == null
+                        ? rollup.getTemperatureMin()
+                        : temperatureMin.min(rollup.getTemperatureMin());
+                temperatureMax = temperatureMax == null
+                        ? rollup.getTemperatureMax()
+                        : temperatureMax.max(rollup.getTemperatureMax());
+            }
+            temperatureSum += rollup.getTemperatureSum();
+            temperatureSumSquares += rollup.getTemperatureSumSquares();
+            humidityCount += rollup.getHumidityCount();
+            humiditySum += rollup.getHumiditySum();
+            violationCount += rollup.getViolationCount();
+        }
+
+        public long getReadingCount() {
+            return readingCount;
+        }
+
+        public long getViolationCount() {
+            return violationCount;
+        }
+
+        public double getMinTemperature() {
+            return temperatureMin != null ? temperatureMin.doubleValue() : 0.0;
+        }
+
+        public double getMaxTemperature() {
+            return temperatureMax != null ? temperatureMax.doubleValue() : 0.0;
+        }
+
+        public double getAverageTemperature() {
+            return temperatureCount > 0 ? temperatureSum / temperatureCount : 0.0;
+        }
+
+        public double getTemperatureStdDev() {
+            if (temperatureCount == 0) {
+                return 0.0;
+            }
+            double mean = temperatureSum / temperatureCount;
+            return Math.sqrt(Math.max(0.0, temperatureSumSquares / temperatureCount - mean * mean));
+        }
+
+        public double getAverageHumidity() {
+            return humidityCount > 0 ? humiditySum / humidityCount : 0.0;
+        }
+    }
+}
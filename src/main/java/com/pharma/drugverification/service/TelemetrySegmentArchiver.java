@@ -0,0 +1,144 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetrySegment;
+import com.pharma.drugverification.repository.TelemetrySegmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Moves telemetry readings older than the archive age out of the table into
+ * per-batch columnar segment files.
+ *
+ * Each segment holds up to segment-max-readings of one batch. The file is
+ * written and re-checked before its readings are deleted, by id, in the
+ * same transaction that records the segment. Rollups are left alone, so
+ * statistics over archived ranges are unchanged.
+ */
+@Service
+@Slf4j
+public class TelemetrySegmentArchiver {
+
+    static final String BATCHES_SQL = "SELECT batch_id FROM telemetry_readings WHERE timestamp < ? "
+            + "GROUP BY batch_id ORDER BY batch_id LIMIT ?";
+
+    static final String SELECT_SQL = "SELECT id, batch_id, timestamp, temperature, humidity, location, device_id, "
+            + "latitude, longitude, sequence_number FROM telemetry_readings WHERE batch_id = ? AND timestamp < ? "
+            + "ORDER BY timestamp, id LIMIT ?";
+
+    static final String DELETE_SQL = "DELETE FROM telemetry_readings WHERE id = ?";
+
+    private static final RowMapper<TelemetryReading> ROW_MAPPER = (rs, rowNum) -> new TelemetryReading(
+            rs.getLong("id"),
+            rs.getLong("batch_id"),
+            rs.getTimestamp("timestamp").toLocalDateTime(),
+            rs.getObject("temperature", BigDecimal.class),
+            rs.getObject("humidity", BigDecimal.class),
+            rs.getString("location"),
+            rs.getString("device_id"),
+            rs.getObject("latitude", Double.class),
+            rs.getObject("longitude", Double.class),
+            rs.getObject("sequence_number", Long.class));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TelemetrySegmentRepository segmentRepository;
+    private final ApplicationProperties.TelemetryProperties properties;
+
+    public TelemetrySegmentArchiver(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            TelemetrySegmentRepository segmentRepository,
+            ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.segmentRepository = segmentRepository;
+        this.properties = applicationProperties.getTelemetry();
+    }
+
+    @Scheduled(fixedDelayString = "${application.telemetry.archive-interval-ms:3600000}",
+            initialDelayString = "${application.telemetry.archive-interval-ms:3600000}")
+    public void archiveOldReadings() {
+        if (properties.getArchiveAfterDays() <= 0) {
+            return;
+        }
+        try {
+            archiveBefore(LocalDateTime.now().minusDays(properties.getArchiveAfterDays()));
+        } catch (Exception e) {
+            log.error("Telemetry archiving failed", e);
+        }
+    }
+
+    /**
+     * Archives the readings older than the cutoff of up to
+     * archive-max-batches-per-run batches and returns how many were moved.
+     */
+    long archiveBefore(LocalDateTime cutoff) throws IOException {
+        long archived = 0;
+        List<Long> batchIds = jdbcTemplate.queryForList(BATCHES_SQL, Long.class, Timestamp.valueOf(cutoff),
+                properties.getArchiveMaxBatchesPerRun());
+        for (Long batchId : batchIds) {
+            List<TelemetryReading> readings;
+            do {
+                readings = jdbcTemplate.query(SELECT_SQL, ROW_MAPPER, batchId, Timestamp.valueOf(cutoff),
+                        properties.getSegmentMaxReadings());
+                if (!readings.isEmpty()) {
+                    archive(batchId, readings);
+                    archived += readings.size();
+                }
+            } while (readings.size() >= properties.getSegmentMaxReadings());
+        }
+        return archived;
+    }
+
+    private void archive(Long batchId, List<TelemetryReading> readings) throws IOException {
+        Path directory = Path.of(properties.getArchiveDirectory(), String.valueOf(batchId));
+        Files.createDirectories(directory);
+        String name = readings.get(0).getId() + "-" + readings.get(readings.size() - 1).getId();
+        Path file = directory.resolve(name + ".tseg");
+        Path temporary = directory.resolve(name + ".tseg.tmp");
+        Files.deleteIfExists(temporary);
+
+        TelemetrySegment segment = new TelemetrySegment();
+        TelemetrySegmentFile.write(temporary, readings, segment);
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        segment.setFilePath(file.toString());
+
+        // Re-read the file before the rows are deleted
+        if (!TelemetrySegmentFile.checksum(file).equals(segment.getChecksum())) {
+            throw new IOException("Telemetry segment " + file + " does not match the checksum just written");
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                segmentRepository.save(segment);
+                int[][] deleted = jdbcTemplate.batchUpdate(DELETE_SQL, readings, readings.size(),
+                        (ps, reading) -> ps.setLong(1, reading.getId()));
+                if (Arrays.stream(deleted).flatMapToInt(Arrays::stream).sum() != readings.size()) {
+                    throw new IllegalStateException("Telemetry readings of batch " + batchId
+                            + " changed while archiving");
+                }
+            });
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        log.info("Archived {} telemetry readings of batch {} ({} bytes) to {}", readings.size(), batchId,
+                segment.getSizeBytes(), file);
+    }
+}
@@ -0,0 +1,545 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetrySegment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk format of archived telemetry: the readings of one batch, ordered
+ * by (timestamp, id), stored column by column.
+ *
+ * Ids and timestamps (microseconds since the epoch) are encoded as
+ * delta-of-deltas, so a device reporting at a steady interval costs one bit
+ * per reading for each. Temperature, humidity and coordinates are
+ * XOR-compressed against the previous value of their column, and device ids
+ * and locations are dictionary-encoded with run lengths. Device sequence
+ * numbers, added in version 2, are delta-of-deltas behind a presence bit.
+ * The whole-file checksum lives in {@link TelemetrySegment}.
+ */
+public final class TelemetrySegmentFile {
+
+    static final Comparator<TelemetryReading> READING_ORDER = Comparator
+            .comparing(TelemetryReading::getTimestamp)
+            .thenComparing(TelemetryReading::getId);
+
+    private static final int MAGIC = 0x54534547; // "TSEG"
+    private static final short VERSION = 2;
+    private static final short VERSION_WITHOUT_SEQUENCES = 1;
+    private static final int READING_SCALE = 2;
+
+    private TelemetrySegmentFile() {
+    }
+
+    /**
+     * Writes readings of one batch, already in {@link #READING_ORDER}, to a
+     * new file, forces it to disk and describes it in the given segment.
+     */
+    public static void write(Path file, List<TelemetryReading> readings, TelemetrySegment segment)
+            throws IOException {
+        byte[] bytes = encode(readings);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        TelemetryReading first = readings.get(0);
+        TelemetryReading last = readings.get(readings.size() - 1);
+        segment.setBatchId(first.getBatchId());
+        segment.setRangeStart(first.getTimestamp());
+        segment.setRangeEnd(last.getTimestamp());
+        segment.setReadingCount((long) readings.size());
+        segment.setFirstReadingId(readings.stream().mapToLong(TelemetryReading::getId).min().orElseThrow());
+        segment.setLastReadingId(readings.stream().mapToLong(TelemetryReading::getId).max().orElseThrow());
+        segment.setFilePath(file.toString());
+        segment.setSizeBytes((long) bytes.length);
+        segment.setChecksum(HexFormat.of().formatHex(AuditChainHasher.sha256().digest(bytes)));
+    }
+
+    public static List<TelemetryReading> read(TelemetrySegment segment) throws IOException {
+        return decode(Files.readAllBytes(Path.of(segment.getFilePath())), segment.getBatchId());
+    }
+
+    public static String checksum(Path file) throws IOException {
+        MessageDigest digest = AuditChainHasher.sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static byte[] encode(List<TelemetryReading> readings) throws IOException {
+        if (readings.isEmpty()) {
+            throw new IllegalArgumentException("A telemetry segment needs at least one reading");
+        }
+        BitWriter ids = new BitWriter();
+        BitWriter timestamps = new BitWriter();
+        BitWriter temperatures = new BitWriter();
+        BitWriter humidities = new BitWriter();
+        BitWriter latitudes = new BitWriter();
+        BitWriter longitudes = new BitWriter();
+        Dictionary deviceIds = new Dictionary();
+        Dictionary locations = new Dictionary();
+        BitWriter sequences = new BitWriter();
+
+        DeltaEncoder idEncoder = new DeltaEncoder(ids);
+        DeltaEncoder timestampEncoder = new DeltaEncoder(timestamps);
+        FloatEncoder temperatureEncoder = new FloatEncoder(temperatures);
+        FloatEncoder humidityEncoder = new FloatEncoder(humidities);
+        FloatEncoder latitudeEncoder = new FloatEncoder(latitudes);
+        FloatEncoder longitudeEncoder = new FloatEncoder(longitudes);
+        DeltaEncoder sequenceEncoder = new DeltaEncoder(sequences);
+
+        TelemetryReading previous = null;
+        for (TelemetryReading reading : readings) {
+            if (previous != null && READING_ORDER.compare(previous, reading) >= 0) {
+                throw new IllegalArgumentException("Telemetry segment readings out of order at id " + reading.getId());
+            }
+            idEncoder.write(reading.getId());
+            timestampEncoder.write(toMicros(reading.getTimestamp()));
+            temperatureEncoder.write(reading.getTemperature() != null ? reading.getTemperature().doubleValue() : null);
+            humidityEncoder.write(reading.getHumidity() != null ? reading.getHumidity().doubleValue() : null);
+            latitudeEncoder.write(reading.getLatitude());
+            longitudeEncoder.write(reading.getLongitude());
+            deviceIds.add(reading.getDeviceId());
+            locations.add(reading.getLocation());
+            if (reading.getSequenceNumber() != null) {
+                sequences.write(1, 1);
+                sequenceEncoder.write(reading.getSequenceNumber());
+            } else {
+                sequences.write(0, 1);
+            }
+            previous = reading;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer header = ByteBuffer.allocate(10).putInt(MAGIC).putShort(VERSION).putInt(readings.size());
+        out.write(header.array());
+        for (byte[] column : List.of(ids.toByteArray(), timestamps.toByteArray(), temperatures.toByteArray(),
+                humidities.toByteArray(), latitudes.toByteArray(), longitudes.toByteArray(),
+                deviceIds.toByteArray(), locations.toByteArray(), sequences.toByteArray())) {
+            out.write(ByteBuffer.allocate(4).putInt(column.length).array());
+            out.write(column);
+        }
+        return out.toByteArray();
+    }
+
+    static List<TelemetryReading> decode(byte[] bytes, Long batchId) throws IOException {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a telemetry segment");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION && version != VERSION_WITHOUT_SEQUENCES) {
+                throw new IOException("Unsupported telemetry segment version " + version);
+            }
+            int count = buffer.getInt();
+            DeltaDecoder ids = new DeltaDecoder(new BitReader(column(buffer)));
+            DeltaDecoder timestamps = new DeltaDecoder(new BitReader(column(buffer)));
+            FloatDecoder temperatures = new FloatDecoder(new BitReader(column(buffer)));
+            FloatDecoder humidities = new FloatDecoder(new BitReader(column(buffer)));
+            FloatDecoder latitudes = new FloatDecoder(new BitReader(column(buffer)));
+            FloatDecoder longitudes = new FloatDecoder(new BitReader(column(buffer)));
+            DictionaryDecoder deviceIds = new DictionaryDecoder(ByteBuffer.wrap(column(buffer)));
+            DictionaryDecoder locations = new DictionaryDecoder(ByteBuffer.wrap(column(buffer)));
+            BitReader sequenceBits = version != VERSION_WITHOUT_SEQUENCES ? new BitReader(column(buffer)) : null;
+            DeltaDecoder sequences = sequenceBits != null ? new DeltaDecoder(sequenceBits) : null;
+
+            List<TelemetryReading> readings = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                TelemetryReading reading = new TelemetryReading();
+                reading.setId(ids.read());
+                reading.setBatchId(batchId);
+                reading.setTimestamp(fromMicros(timestamps.read()));
+                reading.setTemperature(toDecimal(temperatures.read()));
+                reading.setHumidity(toDecimal(humidities.read()));
+                reading.setLatitude(latitudes.read());
+                reading.setLongitude(longitudes.read());
+                reading.setDeviceId(deviceIds.read());
+                reading.setLocation(locations.read());
+                if (sequenceBits != null && sequenceBits.read(1) == 1) {
+                    reading.setSequenceNumber(sequences.read());
+                }
+                readings.add(reading);
+            }
+            return readings;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Telemetry segment is truncated", e);
+        }
+    }
+
+    private static byte[] column(ByteBuffer buffer) {
+        byte[] column = new byte[buffer.getInt()];
+        buffer.get(column);
+        return column;
+    }
+
+    // The column is NUMERIC(5, 2), so every stored value survives the round trip through a double
+    private static BigDecimal toDecimal(Double value) {
+        return value != null ? BigDecimal.valueOf(value).setScale(READING_SCALE, RoundingMode.HALF_UP) : null;
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in telemetry segment");
+    }
+
+    /**
+     * Delta-of-deltas: a zero difference between consecutive intervals is
+     * one bit, small jitter takes a short prefix and 7 to 32 bits, anything
+     * else is written in full.
+     */
+    private static final class DeltaEncoder {
+
+        private final BitWriter bits;
+        private boolean first = true;
+        private long previous;
+        private long previousDelta;
+
+        DeltaEncoder(BitWriter bits) {
+            this.bits = bits;
+        }
+
+        void write(long value) {
+            if (first) {
+                bits.write(value, 64);
+                first = false;
+            } else {
+                long delta = value - previous;
+                long deltaOfDelta = delta - previousDelta;
+                if (deltaOfDelta == 0) {
+                    bits.write(0b0, 1);
+                } else if (fits(deltaOfDelta, 7)) {
+                    bits.write(0b10, 2);
+                    bits.write(deltaOfDelta, 7);
+                } else if (fits(deltaOfDelta, 9)) {
+                    bits.write(0b110, 3);
+                    bits.write(deltaOfDelta, 9);
+                } else if (fits(deltaOfDelta, 12)) {
+                    bits.write(0b1110, 4);
+                    bits.write(deltaOfDelta, 12);
+                } else if (fits(deltaOfDelta, 32)) {
+                    bits.write(0b11110, 5);
+                    bits.write(deltaOfDelta, 32);
+                } else {
+                    bits.write(0b11111, 5);
+                    bits.write(deltaOfDelta, 64);
+                }
+                previousDelta = delta;
+            }
+            previous = value;
+        }
+
+        private static boolean fits(long value, int width) {
+            return value >= -(1L << (width - 1)) && value < (1L << (width - 1));
+        }
+    }
+
+    private static final class DeltaDecoder {
+
+        private final BitReader bits;
+        private boolean first = true;
+        private long previous;
+        private long previousDelta;
+
+        DeltaDecoder(BitReader bits) {
+            this.bits = bits;
+        }
+
+        long read() {
+            if (first) {
+                first = false;
+                previous = bits.read(64);
+                return previous;
+            }
+            int prefix = 0;
+            while (prefix < 5 && bits.read(1) == 1) {
+                prefix++;
+            }
+            long deltaOfDelta = switch (prefix) {
+                case 0 -> 0;
+                case 1 -> bits.readSigned(7);
+                case 2 -> bits.readSigned(9);
+                case 3 -> bits.readSigned(12);
+                case 4 -> bits.readSigned(32);
+                default -> bits.read(64);
+            };
+            previousDelta += deltaOfDelta;
+            previous += previousDelta;
+            return previous;
+        }
+    }
+
+    /**
+     * Nullable doubles, each XORed with the previous value of the column.
+     * An unchanged value is one bit; otherwise only the meaningful bits of
+     * the XOR are written, reusing the previous window when they fit in it.
+     */
+    private static final class FloatEncoder {
+
+        private final BitWriter bits;
+        private boolean first = true;
+        private long previous;
+        private int leading = -1;
+        private int trailing;
+
+        FloatEncoder(BitWriter bits) {
+            this.bits = bits;
+        }
+
+        void write(Double value) {
+            if (value == null) {
+                bits.write(0, 1);
+                return;
+            }
+            bits.write(1, 1);
+            long raw = Double.doubleToRawLongBits(value);
+            if (first) {
+                bits.write(raw, 64);
+                first = false;
+                previous = raw;
+                return;
+            }
+            long xor = raw ^ previous;
+            previous = raw;
+            if (xor == 0) {
+                bits.write(0, 1);
+                return;
+            }
+            bits.write(1, 1);
+            int newLeading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int newTrailing = Long.numberOfTrailingZeros(xor);
+            if (leading >= 0 && newLeading >= leading && newTrailing >= trailing) {
+                bits.write(0, 1);
+                bits.write(xor >>> trailing, 64 - leading - trailing);
+            } else {
+                int significant = 64 - newLeading - newTrailing;
+                bits.write(1, 1);
+                bits.write(newLeading, 5);
+                bits.write(significant - 1, 6);
+                bits.write(xor >>> newTrailing, significant);
+                leading = newLeading;
+                trailing = newTrailing;
+            }
+        }
+    }
+
+    private static final class FloatDecoder {
+
+        private final BitReader bits;
+        private boolean first = true;
+        private long previous;
+        private int leading;
+        private int trailing;
+
+        FloatDecoder(BitReader bits) {
+            this.bits = bits;
+        }
+
+        Double read() {
+            if (bits.read(1) == 0) {
+                return null;
+            }
+            if (first) {
+                first = false;
+                previous = bits.read(64);
+            } else if (bits.read(1) == 1) {
+                if (bits.read(1) == 1) {
+                    leading = (int) bits.read(5);
+                    int significant = (int) bits.read(6) + 1;
+                    trailing = 64 - leading - significant;
+                }
+                previous ^= bits.read(64 - leading - trailing) << trailing;
+            }
+            return Double.longBitsToDouble(previous);
+        }
+    }
+
+    /**
+     * Distinct strings in order of first appearance, then the readings as
+     * runs of (code, length) varints: code 0 for null, otherwise the
+     * position in the dictionary plus one.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final ByteArrayOutputStream runs = new ByteArrayOutputStream();
+        private int runCode = -1;
+        private long runLength;
+
+        void add(String value) {
+            int code = 0;
+            if (value != null) {
+                Integer known = codes.get(value);
+                if (known == null) {
+                    values.add(value);
+                    known = values.size();
+                    codes.put(value, known);
+                }
+                code = known;
+            }
+            if (code != runCode) {
+                endRun();
+                runCode = code;
+            }
+            runLength++;
+        }
+
+        byte[] toByteArray() throws IOException {
+            endRun();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writeVarLong(out, values.size());
+            for (String value : values) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(out, utf8.length);
+                out.write(utf8);
+            }
+            runs.writeTo(out);
+            return out.toByteArray();
+        }
+
+        private void endRun() {
+            if (runLength > 0) {
+                writeVarLong(runs, runCode);
+                writeVarLong(runs, runLength);
+                runLength = 0;
+            }
+        }
+    }
+
+    private static final class DictionaryDecoder {
+
+        private final ByteBuffer buffer;
+        private final List<String> values;
+        private String current;
+        private long remaining;
+
+        DictionaryDecoder(ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            int size = (int) readVarLong(buffer);
+            this.values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                byte[] utf8 = new byte[(int) readVarLong(buffer)];
+                buffer.get(utf8);
+                values.add(new String(utf8, StandardCharsets.UTF_8));
+            }
+        }
+
+        String read() throws IOException {
+            if (remaining == 0) {
+                long code = readVarLong(buffer);
+                current = code == 0 ? null : values.get((int) code - 1);
+                remaining = readVarLong(buffer);
+            }
+            remaining--;
+            return current;
+        }
+    }
+
+    private static final class BitWriter {
+
+        private byte[] bytes = new byte[256];
+        private long position;
+
+        /**
+         * Appends the low {@code width} bits of the value, most significant first.
+         */
+        void write(long value, int width) {
+            while (width > 0) {
+                int index = (int) (position >>> 3);
+                if (index >= bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                int free = 8 - (int) (position & 7);
+                int taken = Math.min(free, width);
+                int chunk = (int) (value >>> (width - taken)) & ((1 << taken) - 1);
+                bytes[index] |= (byte) (chunk << (free - taken));
+                width -= taken;
+                position += taken;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, (int) ((position + 7) >>> 3));
+        }
+    }
+
+    private static final class BitReader {
+
+        private final byte[] bytes;
+        private long position;
+
+        BitReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long read(int width) {
+            long value = 0;
+            while (width > 0) {
+                int available = 8 - (int) (position & 7);
+                int taken = Math.min(available, width);
+                int chunk = ((bytes[(int) (position >>> 3)] & 0xFF) >>> (available - taken)) & ((1 << taken) - 1);
+                value = (value << taken) | chunk;
+                width -= taken;
+                position += taken;
+            }
+            return value;
+        }
+
+        long readSigned(int width) {
+            return (read(width) << (64 - width)) >> (64 - width);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetrySegment;
+import com.pharma.drugverification.repository.TelemetrySegmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read side of the archived telemetry segments. Pages and time ranges only
+ * decode the segments they overlap, using the reading counts and ranges
+ * recorded for each segment, and every segment file is checked against its
+ * checksum once per process before it is first decoded.
+ *
+ * Readings that arrive late are archived into a later segment whose range
+ * can overlap older ones. Segments whose ranges overlap are read as one run
+ * and merged by (timestamp, id), so pages stay in order across them.
+ */
+@Service
+@Slf4j
+public class TelemetrySegmentStore {
+
+    private final TelemetrySegmentRepository segmentRepository;
+    private final Set<Long> verifiedSegments = ConcurrentHashMap.newKeySet();
+
+    public TelemetrySegmentStore(TelemetrySegmentRepository segmentRepository) {
+        this.segmentRepository = segmentRepository;
+    }
+
+    /**
+     * Segments of one batch, oldest range first.
+     */
+    public List<TelemetrySegment> segmentsOf(Long batchId) {
+        return segmentRepository.findByBatchIdOrderByRangeStartAscIdAsc(batchId);
+    }
+
+    public static long countReadings(List<TelemetrySegment> segments) {
+        return segments.stream().mapToLong(TelemetrySegment::getReadingCount).sum();
+    }
+
+    /**
+     * Latest timestamp covered by the segments.
+     */
+    public static LocalDateTime latestTimestamp(List<TelemetrySegment> segments) {
+        return segments.stream().map(TelemetrySegment::getRangeEnd).max(Comparator.naturalOrder()).orElseThrow();
+    }
+
+    /**
+     * Up to {@code limit} archived readings starting at {@code offset}, in
+     * (timestamp, id) order or its reverse. Runs of overlapping segments are
+     * skipped by their reading counts and only the runs on the page decoded.
+     */
+    public List<TelemetryReading> read(List<TelemetrySegment> segments, long offset, int limit,
+            boolean ascending) {
+        List<List<TelemetrySegment>> runs = overlappingRuns(segments);
+        if (!ascending) {
+            Collections.reverse(runs);
+        }
+        Comparator<TelemetryReading> order = ascending
+                ? TelemetrySegmentFile.READING_ORDER
+                : TelemetrySegmentFile.READING_ORDER.reversed();
+        List<TelemetryReading> page = new ArrayList<>(limit);
+        long skip = offset;
+        for (List<TelemetrySegment> run : runs) {
+            if (page.size() >= limit) {
+                break;
+            }
+            long count = countReadings(run);
+            if (skip >= count) {
+                skip -= count;
+                continue;
+            }
+            List<TelemetryReading> readings = new ArrayList<>();
+            for (TelemetrySegment segment : run) {
+                readings.addAll(decode(segment));
+            }
+            readings.sort(order);
+            int from = (int) skip;
+            int to = (int) Math.min(readings.size(), from + (long) (limit - page.size()));
+            page.addAll(readings.subList(from, to));
+            skip = 0;
+        }
+        return page;
+    }
+
+    /**
+     * Splits segments, oldest range first, into runs whose ranges overlap,
+     * so that the runs themselves follow each other without overlapping.
+     */
+    static List<List<TelemetrySegment>> overlappingRuns(List<TelemetrySegment> segments) {
+        List<List<TelemetrySegment>> runs = new ArrayList<>();
+        LocalDateTime runEnd = null;
+        for (TelemetrySegment segment : segments) {
+            if (runEnd == null || segment.getRangeStart().isAfter(runEnd)) {
+                runs.add(new ArrayList<>());
+                runEnd = segment.getRangeEnd();
+            } else if (segment.getRangeEnd().isAfter(runEnd)) {
+                runEnd = segment.getRangeEnd();
+            }
+            runs.get(runs.size() - 1).add(segment);
+        }
+        return runs;
+    }
+
+    /**
+     * Archived readings of one batch with from <= timestamp < to, oldest first.
+     */
+    public List<TelemetryReading> findByBatch(Long batchId, LocalDateTime from, LocalDateTime to) {
+        List<TelemetryReading> matches = new ArrayList<>();
+        for (TelemetrySegment segment : segmentsOf(batchId)) {
+            if (segment.getRangeEnd().isBefore(from) || !segment.getRangeStart().isBefore(to)) {
+                continue;
+            }
+            for (TelemetryReading reading : decode(segment)) {
+                if (!reading.getTimestamp().isBefore(from) && reading.getTimestamp().isBefore(to)) {
+                    matches.add(reading);
+                }
+            }
+        }
+        matches.sort(TelemetrySegmentFile.READING_ORDER);
+        return matches;
+    }
+
+    private List<TelemetryReading> decode(TelemetrySegment segment) {
+        try {
+            byte[] bytes = Files.readAllBytes(Path.of(segment.getFilePath()));
+            if (!verifiedSegments.contains(segment.getId())) {
+                String checksum = HexFormat.of().formatHex(AuditChainHasher.sha256().digest(bytes));
+                if (!checksum.equals(segment.getChecksum())) {
+                    log.error("Telemetry segment {} does not match its checksum", segment.getFilePath());
+                    throw new IOException("Checksum mismatch in " + segment.getFilePath());
+                }
+                verifiedSegments.add(segment.getId());
+            }
+            return TelemetrySegmentFile.decode(bytes, segment.getBatchId());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read telemetry segment " + segment.getFilePath(), e);
+        }
+    }
+}
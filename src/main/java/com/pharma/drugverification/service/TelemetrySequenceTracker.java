@@ -0,0 +1,171 @@
+package com.pharma.drugverification.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pharma.drugverification.config.ApplicationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Recognises readings a device has already sent, by their sequence numbers.
+ *
+ * Each device gets a sliding window over its latest sequence numbers, one
+ * bit per number, as in IPsec anti-replay. The window is loaded from the
+ * stored readings the first time a device is seen, so replays are caught
+ * across restarts. A number older than the window is checked against the
+ * table instead, which does not see readings already archived to segments.
+ * Windows are per node; a device replaying through two nodes at once is only
+ * caught by each node's own window.
+ */
+@Service
+@Slf4j
+public class TelemetrySequenceTracker {
+
+    static final String RECENT_SQL = "SELECT sequence_number FROM telemetry_readings "
+            + "WHERE device_id = ? AND sequence_number IS NOT NULL ORDER BY sequence_number DESC LIMIT ?";
+
+    static final String EXISTS_SQL = "SELECT COUNT(*) FROM telemetry_readings "
+            + "WHERE device_id = ? AND sequence_number = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int windowWords;
+    private final Cache<String, Window> windows;
+    private final Function<String, Window> loader = this::load;
+
+    public TelemetrySequenceTracker(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        ApplicationProperties.TelemetryProperties properties = applicationProperties.getTelemetry();
+        this.windowWords = Math.max(1, (properties.getSequenceWindow() + Long.SIZE - 1) / Long.SIZE);
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(properties.getSequenceMaxDevices())
+                .expireAfterAccess(Duration.ofMinutes(properties.getSequenceIdleMinutes()))
+                .build();
+    }
+
+    /**
+     * Claims the sequence number for a new reading of the device. Returns
+     * false when the device already sent it, or when it was claimed by an
+     * earlier reading of the same upload.
+     */
+    public boolean tryAccept(String deviceId, long sequenceNumber) {
+        Window window = windows.get(deviceId, loader);
+        return switch (window.mark(sequenceNumber)) {
+            case MARKED -> true;
+            case SEEN -> false;
+            case BEFORE_WINDOW -> {
+                Integer stored = jdbcTemplate.queryForObject(EXISTS_SQL, Integer.class, deviceId, sequenceNumber);
+                yield stored == null || stored == 0;
+            }
+        };
+    }
+
+    /**
+     * Gives back a number claimed by a reading that was not persisted after
+     * all, so its resend is accepted.
+     */
+    public void release(String deviceId, long sequenceNumber) {
+        Window window = windows.getIfPresent(deviceId);
+        if (window != null) {
+            window.clear(sequenceNumber);
+        }
+    }
+
+    /**
+     * Releases the number if the current transaction rolls back, as the
+     * reading it was claimed for is then not stored.
+     */
+    public void releaseOnRollback(String deviceId, long sequenceNumber) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    release(deviceId, sequenceNumber);
+                }
+            }
+        });
+    }
+
+    private Window load(String deviceId) {
+        Window window = new Window(windowWords);
+        for (Long sequenceNumber : jdbcTemplate.queryForList(RECENT_SQL, Long.class, deviceId,
+                windowWords * Long.SIZE)) {
+            window.mark(sequenceNumber);
+        }
+        return window;
+    }
+
+    enum Mark {
+        MARKED,
+        SEEN,
+        BEFORE_WINDOW
+    }
+
+    /**
+     * Bitmap over the numbers (highest - size, highest], used as a ring so
+     * advancing only clears the bits that come back into the window.
+     */
+    static final class Window {
+
+        private final long[] bits;
+        private final int size;
+        private long highest = -1;
+
+        Window(int words) {
+            this.bits = new long[words];
+            this.size = words * Long.SIZE;
+        }
+
+        synchronized Mark mark(long sequenceNumber) {
+            if (sequenceNumber > highest) {
+                if (sequenceNumber - highest >= size) {
+                    Arrays.fill(bits, 0L);
+                } else {
+                    for (long n = highest + 1; n < sequenceNumber; n++) {
+                        assign(n, false);
+                    }
+                }
+                highest = sequenceNumber;
+                assign(sequenceNumber, true);
+                return Mark.MARKED;
+            }
+            if (highest - sequenceNumber >= size) {
+                return Mark.BEFORE_WINDOW;
+            }
+            if (isSet(sequenceNumber)) {
+                return Mark.SEEN;
+            }
+            assign(sequenceNumber, true);
+            return Mark.MARKED;
+        }
+
+        synchronized void clear(long sequenceNumber) {
+            if (sequenceNumber <= highest && highest - sequenceNumber < size) {
+                assign(sequenceNumber, false);
+            }
+        }
+
+        private boolean isSet(long sequenceNumber) {
+            int position = (int) Math.floorMod(sequenceNumber, (long) size);
+            return (bits[position >>> 6] & (1L << position)) != 0;
+        }
+
+        private void assign(long sequenceNumber, boolean set) {
+            int position = (int) Math.floorMod(sequenceNumber, (long) size);
+            if (set) {
+                bits[position >>> 6] |= 1L << position;
+            } else {
+                bits[position >>> 6] &= ~(1L << position);
+            }
+        }
+    }
+}
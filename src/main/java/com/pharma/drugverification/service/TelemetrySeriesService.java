@@ -0,0 +1,161 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetryRollup;
+import com.pharma.drugverification.domain.TelemetryRollup.Granularity;
+import com.pharma.drugverification.dto.TelemetrySeriesResponse;
+import com.pharma.drugverification.dto.TelemetrySeriesResponse.Point;
+import com.pharma.drugverification.dto.TelemetrySeriesResponse.Source;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.repository.TelemetryRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Downsampled temperature series for charting a batch.
+ *
+ * The range is cut into at most the requested number of equal buckets, and
+ * each bucket reports the minimum, maximum and average of its readings, so
+ * a short excursion survives however far the series is reduced. Once a
+ * bucket spans at least a minute the series is built from the coarsest
+ * rollups that fit, which also cover archived readings; rollups straddling
+ * {@code from} or a bucket edge are attributed to the bucket holding their
+ * start. Narrower buckets stream the readings through a cursor, together
+ * with any archived ones in the range.
+ */
+@Service
+@Slf4j
+public class TelemetrySeriesService {
+
+    static final String SELECT_SQL = "SELECT timestamp, temperature FROM telemetry_readings "
+            + "WHERE batch_id = ? AND timestamp >= ? AND timestamp < ? AND temperature IS NOT NULL";
+
+    private final JdbcTemplate cursorTemplate;
+    private final TelemetryRollupRepository rollupRepository;
+    private final TelemetrySegmentStore telemetrySegmentStore;
+    private final ApplicationProperties.TelemetryProperties properties;
+
+    public TelemetrySeriesService(JdbcTemplate jdbcTemplate,
+            TelemetryRollupRepository rollupRepository,
+            TelemetrySegmentStore telemetrySegmentStore,
+            ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getTelemetry();
+        // PostgreSQL only streams with a fetch size inside a transaction
+        this.cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorTemplate.setFetchSize(properties.getSeriesFetchSize());
+        this.rollupRepository = rollupRepository;
+        this.telemetrySegmentStore = telemetrySegmentStore;
+    }
+
+    @Transactional(readOnly = true)
+    public TelemetrySeriesResponse getSeries(Long batchId, LocalDateTime from, LocalDateTime to, Integer points) {
+        int maxPoints = points != null ? points : properties.getSeriesDefaultPoints();
+        if (maxPoints < 1 || maxPoints > properties.getSeriesMaxPoints()) {
+            throw new BadRequestException("Points must be between 1 and " + properties.getSeriesMaxPoints());
+        }
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("Series must start before it ends");
+        }
+
+        long rangeSeconds = Math.max(1, Duration.between(from, to).toSeconds());
+        long bucketSeconds = Math.max(1, (rangeSeconds + maxPoints - 1) / maxPoints);
+        int bucketCount = (int) ((rangeSeconds + bucketSeconds - 1) / bucketSeconds);
+        Buckets buckets = new Buckets(from, bucketSeconds, bucketCount);
+
+        Source source = Source.READINGS;
+        Granularity granularity = coarsestWithin(bucketSeconds);
+        if (granularity != null) {
+            source = Source.valueOf(granularity.name() + "_ROLLUPS");
+            for (TelemetryRollup rollup : rollupRepository
+                    .findByBatchIdAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+                            batchId, granularity, granularity.bucketOf(from), to)) {
+                if (rollup.getTemperatureCount() > 0) {
+                    buckets.add(rollup.getBucketStart(), rollup.getTemperatureCount(),
+                            rollup.getTemperatureMin().doubleValue(), rollup.getTemperatureMax().doubleValue(),
+                            rollup.getTemperatureSum());
+                }
+            }
+        } else {
+            for (TelemetryReading reading : telemetrySegmentStore.findByBatch(batchId, from, to)) {
+                if (reading.getTemperature() != null) {
+                    double temperature = reading.getTemperature().doubleValue();
+                    buckets.add(reading.getTimestamp(), 1, temperature, temperature, temperature);
+                }
+            }
+            // Buckets do not depend on order, so the readings are not sorted
+            cursorTemplate.query(SELECT_SQL, (RowCallbackHandler) rs -> {
+                double temperature = rs.getBigDecimal(2).doubleValue();
+                buckets.add(rs.getTimestamp(1).toLocalDateTime(), 1, temperature, temperature, temperature);
+            }, batchId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        }
+
+        return new TelemetrySeriesResponse(batchId, from, to, bucketSeconds, source, buckets.toPoints());
+    }
+
+    private static Granularity coarsestWithin(long bucketSeconds) {
+        Granularity coarsest = null;
+        for (Granularity granularity : Granularity.values()) {
+            if (granularity.duration().toSeconds() <= bucketSeconds) {
+                coarsest = granularity;
+            }
+        }
+        return coarsest;
+    }
+
+    /**
+     * Running minimum, maximum and sum per bucket, in parallel arrays.
+     */
+    private static final class Buckets {
+
+        private final LocalDateTime from;
+        private final long bucketSeconds;
+        private final long[] counts;
+        private final double[] minimums;
+        private final double[] maximums;
+        private final double[] sums;
+
+        Buckets(LocalDateTime from, long bucketSeconds, int size) {
+            this.from = from;
+            this.bucketSeconds = bucketSeconds;
+            this.counts = new long[size];
+            this.minimums = new double[size];
+            this.maximums = new double[size];
+            this.sums = new double[size];
+        }
+
+        void add(LocalDateTime timestamp, long count, double minimum, double maximum, double sum) {
+            long offset = Duration.between(from, timestamp).toSeconds() / bucketSeconds;
+            int index = (int) Math.max(0, Math.min(counts.length - 1, offset));
+            if (counts[index] == 0) {
+                minimums[index] = minimum;
+                maximums[index] = maximum;
+            } else {
+                minimums[index] = Math.min(minimums[index], minimum);
+                maximums[index] = Math.max(maximums[index], maximum);
+            }
+            counts[index] += count;
+            sums[index] += sum;
+        }
+
+        List<Point> toPoints() {
+            List<Point> points = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    points.add(new Point(from.plusSeconds(i * bucketSeconds), counts[i], minimums[i],
+                            maximums[i], sums[i] / counts[i]));
+                }
+            }
+            return points;
+        }
+    }
+}
@@ -1,21 +1,29 @@
 package com.pharma.drugverification.service;
 
-import com.pharma.drugverification.domain.Batch;
-import com.pharma.drugverification.domain.Drug;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryBatchKinetics;
 import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetrySegment;
 import com.pharma.drugverification.dto.TelemetryReadingRequest;
 import com.pharma.drugverification.dto.TelemetryReadingResponse;
-import com.pharma.drugverification.repository.BatchRepository;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.exception.ResourceNotFoundException;
 import com.pharma.drugverification.repository.TelemetryReadingRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -25,76 +33,199 @@ import java.util.Map;
 public class TelemetryService {
 
         private final TelemetryReadingRepository telemetryReadingRepository;
-        private final BatchRepository batchRepository;
-        private final AlertService alertService;
-        private final AuditService auditService;
+        private final TelemetryThresholdCache telemetryThresholdCache;
+        private final TelemetryRollupService telemetryRollupService;
+        private final TelemetryKineticsService telemetryKineticsService;
+        private final TemperatureExcursionDetector temperatureExcursionDetector;
+        private final TelemetrySegmentStore telemetrySegmentStore;
+        private final TelemetrySequenceTracker telemetrySequenceTracker;
+        private final ApplicationProperties applicationProperties;
 
         @Transactional
         public TelemetryReadingResponse recordReading(TelemetryReadingRequest request, Long userId) {
-                Batch batch = batchRepository.findById(request.getBatchId())
-                                .orElseThrow(() -> new RuntimeException("Batch not found"));
+                // Range, drug and batch number come from memory; only the insert touches the database
+                ThresholdSnapshot thresholds = telemetryThresholdCache.get(request.getBatchId());
+                if (thresholds == null) {
+                        throw new ResourceNotFoundException("Batch not found");
+                }
+                LocalDateTime receivedAt = LocalDateTime.now();
+                LocalDateTime recordedAt = request.getRecordedAt();
+                int maxClockSkewSeconds = applicationProperties.getTelemetry().getMaxClockSkewSeconds();
+                if (recordedAt != null && recordedAt.isAfter(receivedAt.plusSeconds(maxClockSkewSeconds))) {
+                        throw new BadRequestException("Recorded time is in the future");
+                }
+                boolean violation = thresholds.isOutOfRange(request.getTemperatureCelsius());
+
+                // A replayed reading is answered with the stored one instead of being recorded again
+                Long sequenceNumber = request.getSequenceNumber();
+                if (sequenceNumber != null
+                                && !telemetrySequenceTracker.tryAccept(request.getDeviceId(), sequenceNumber)) {
+                        TelemetryReading existing = telemetryReadingRepository
+                                        .findFirstByDeviceIdAndSequenceNumber(request.getDeviceId(), sequenceNumber);
+                        TelemetryReadingResponse response = existing != null
+                                        ? TelemetryReadingResponse.from(existing)
+                                        : TelemetryReadingResponse.from(toReading(request, recordedAt, receivedAt));
+                        response.setThresholdViolation(violation);
+                        return response;
+                }
 
-                Drug drug = batch.getDrug();
-                if (drug == null) {
-                        throw new RuntimeException("Drug information not found for batch");
+                if (sequenceNumber != null) {
+                        telemetrySequenceTracker.releaseOnRollback(request.getDeviceId(), sequenceNumber);
                 }
+                TelemetryReading saved = telemetryReadingRepository.save(toReading(request, recordedAt, receivedAt));
+                telemetryRollupService.record(List.of(saved));
+                telemetryKineticsService.record(List.of(saved));
+
+                // Alerts and excursion records only change when an excursion opens, escalates or closes
+                temperatureExcursionDetector.observe(saved, thresholds, userId);
 
-                // Create telemetry reading
+                TelemetryReadingResponse response = TelemetryReadingResponse.from(saved);
+                response.setThresholdViolation(violation);
+                return response;
+        }
+
+        private static TelemetryReading toReading(TelemetryReadingRequest request, LocalDateTime recordedAt,
+                        LocalDateTime receivedAt) {
                 TelemetryReading reading = new TelemetryReading();
                 reading.setDeviceId(request.getDeviceId());
                 reading.setBatchId(request.getBatchId());
                 reading.setTemperature(BigDecimal.valueOf(request.getTemperatureCelsius()));
                 reading.setHumidity(BigDecimal.valueOf(request.getHumidityPercent()));
                 reading.setLocation(request.getLocation());
-                reading.setTimestamp(LocalDateTime.now());
-
-                TelemetryReading saved = telemetryReadingRepository.save(reading);
-
-                // Check for threshold violations
-                boolean violation = false;
-                StringBuilder violationMessage = new StringBuilder();
-
-                if (drug.getMinTemperature() != null && drug.getMaxTemperature() != null &&
-                                (request.getTemperatureCelsius() < drug.getMinTemperature().doubleValue() ||
-                                                request.getTemperatureCelsius() > drug.getMaxTemperature()
-                                                                .doubleValue())) {
-                        violation = true;
-                        violationMessage.append(String.format(
-                                        "Temperature %.1f°C outside range [%.1f, %.1f]. ",
-                                        request.getTemperatureCelsius(),
-                                        drug.getMinTemperature().doubleValue(),
-                                        drug.getMaxTemperature().doubleValue()));
+                reading.setTimestamp(recordedAt != null ? recordedAt : receivedAt);
+                reading.setSequenceNumber(request.getSequenceNumber());
+                return reading;
+        }
+
+        /**
+         * Readings of a batch from the table and, once some have been
+         * archived, from its segments, in (timestamp, id) order: newest first
+         * unless the page asks for ascending timestamps. The table usually
+         * only holds readings newer than the archive, and the two are then
+         * concatenated; readings that arrived late are merged in instead.
+         */
+        @Transactional(readOnly = true)
+        public Page<TelemetryReadingResponse> getReadingsByBatch(Long batchId, Pageable pageable) {
+                List<TelemetrySegment> segments = telemetrySegmentStore.segmentsOf(batchId);
+                if (segments.isEmpty() || pageable.isUnpaged()) {
+                        return telemetryReadingRepository.findByBatchId(batchId, pageable)
+                                        .map(TelemetryReadingResponse::from);
                 }
 
-                // Create alert if threshold violated
-                if (violation) {
-                        alertService.createAlert(
-                                        "TEMPERATURE_EXCURSION",
-                                        "High",
-                                        String.format("Batch %s: %s", batch.getBatchNumber(),
-                                                        violationMessage.toString()),
-                                        "Batch",
-                                        batch.getId());
-
-                        auditService.log("TEMPERATURE_EXCURSION", "Batch", batch.getId(), userId,
-                                        Map.of("deviceId", request.getDeviceId(),
-                                                        "temperature", request.getTemperatureCelsius(),
-                                                        "location",
-                                                        request.getLocation() != null ? request.getLocation() : ""));
-
-                        log.warn("Temperature excursion detected: Batch {} - {}",
-                                        batch.getBatchNumber(), violationMessage.toString());
+                Sort.Order order = pageable.getSort().getOrderFor("timestamp");
+                boolean ascending = order != null && order.isAscending();
+                Sort sort = ascending ? Sort.by("timestamp", "id") : Sort.by("timestamp", "id").descending();
+                long live = telemetryReadingRepository.countByBatchId(batchId);
+                long archived = TelemetrySegmentStore.countReadings(segments);
+                List<TelemetryReading> late = telemetryReadingRepository.findByBatchIdAndTimestampLessThanEqual(
+                                batchId, TelemetrySegmentStore.latestTimestamp(segments), Sort.by("timestamp", "id"));
+
+                long offset = pageable.getOffset();
+                int size = pageable.getPageSize();
+                List<TelemetryReading> content;
+                if (late.isEmpty()) {
+                        // Ascending pages start in the archive, descending ones in the table
+                        long liveOffset = ascending ? offset - archived : offset;
+                        long archivedOffset = ascending ? offset : offset - live;
+                        List<TelemetryReading> liveReadings = readLive(batchId, liveOffset, size, live, sort);
+                        List<TelemetryReading> archivedReadings = archivedOffset + size > 0 && archivedOffset < archived
+                                        ? telemetrySegmentStore.read(segments, Math.max(0, archivedOffset),
+                                                        (int) Math.min(size, archivedOffset + size), ascending)
+                                        : List.of();
+                        content = new ArrayList<>(size);
+                        content.addAll(ascending ? archivedReadings : liveReadings);
+                        content.addAll(ascending ? liveReadings : archivedReadings);
+                } else {
+                        content = readWithLate(batchId, segments, archived, late, live, offset, size, ascending);
                 }
+                return new PageImpl<>(content.subList(0, Math.min(size, content.size())), pageable, live + archived)
+                                .map(TelemetryReadingResponse::from);
+        }
 
-                TelemetryReadingResponse response = TelemetryReadingResponse.from(saved);
-                response.setThresholdViolation(violation);
-                return response;
+        /**
+         * A page when some table readings are no newer than the archive. In
+         * ascending order those late readings are merged into the archive and
+         * the rest of the table follows; the slice is worked out in that order
+         * and reversed for descending pages.
+         */
+        private List<TelemetryReading> readWithLate(Long batchId, List<TelemetrySegment> segments, long archived,
+                        List<TelemetryReading> late, long live, long offset, int size, boolean ascending) {
+                long total = archived + live;
+                long from = ascending ? offset : Math.max(0, total - offset - size);
+                long to = Math.min(total, ascending ? offset + size : total - offset);
+                long merged = archived + late.size();
+
+                List<TelemetryReading> content = new ArrayList<>(size);
+                if (from < Math.min(to, merged)) {
+                        content.addAll(mergeLate(segments, late, from, Math.min(to, merged)));
+                }
+                long newerFrom = Math.max(from, merged);
+                if (newerFrom < to) {
+                        content.addAll(readLive(batchId, late.size() + newerFrom - merged, (int) (to - newerFrom),
+                                        live, Sort.by("timestamp", "id")));
+                }
+                if (!ascending) {
+                        Collections.reverse(content);
+                }
+                return content;
         }
 
-        @Transactional(readOnly = true)
-        public Page<TelemetryReadingResponse> getReadingsByBatch(Long batchId, Pageable pageable) {
-                return telemetryReadingRepository.findByBatchId(batchId, pageable)
-                                .map(TelemetryReadingResponse::from);
+        /**
+         * The slice [from, to) of the archive merged with the late readings.
+         * At most late.size() of those precede the slice, so the archive is
+         * read from that many positions earlier and the merge resumes at the
+         * first of its readings.
+         */
+        private List<TelemetryReading> mergeLate(List<TelemetrySegment> segments, List<TelemetryReading> late,
+                        long from, long to) {
+                long start = Math.max(0, from - late.size());
+                List<TelemetryReading> archivedReadings = telemetrySegmentStore.read(segments, start,
+                                (int) (to - start), true);
+                int lateIndex = 0;
+                if (start > 0) {
+                        TelemetryReading first = archivedReadings.get(0);
+                        while (lateIndex < late.size()
+                                        && TelemetrySegmentFile.READING_ORDER.compare(late.get(lateIndex), first) < 0) {
+                                lateIndex++;
+                        }
+                }
+
+                List<TelemetryReading> slice = new ArrayList<>((int) (to - from));
+                int archivedIndex = 0;
+                for (long position = start + lateIndex; position < to; position++) {
+                        boolean takeLate = archivedIndex >= archivedReadings.size()
+                                        || lateIndex < late.size() && TelemetrySegmentFile.READING_ORDER.compare(
+                                                        late.get(lateIndex), archivedReadings.get(archivedIndex)) < 0;
+                        TelemetryReading next = takeLate
+                                        ? late.get(lateIndex++)
+                                        : archivedReadings.get(archivedIndex++);
+                        if (position >= from) {
+                                slice.add(next);
+                        }
+                }
+                return slice;
+        }
+
+        /**
+         * The slice [offset, offset + size) of the table's readings, clipped
+         * to [0, count). Table pages are aligned to the page size, so the
+         * slice spans at most two of them.
+         */
+        private List<TelemetryReading> readLive(Long batchId, long offset, int size, long count, Sort sort) {
+                long from = Math.max(0, offset);
+                long to = Math.min(count, offset + size);
+                if (from >= to) {
+                        return List.of();
+                }
+                int first = (int) (from / size);
+                List<TelemetryReading> readings = new ArrayList<>(telemetryReadingRepository
+                                .findSliceByBatchId(batchId, PageRequest.of(first, size, sort)).getContent());
+                if ((to - 1) / size > first) {
+                        readings.addAll(telemetryReadingRepository.findSliceByBatchId(batchId,
+                                        PageRequest.of(first + 1, size, sort)).getContent());
+                }
+                int start = (int) (from - (long) first * size);
+                return readings.subList(start, Math.min(readings.size(), start + (int) (to - from)));
         }
 
         @Transactional(readOnly = true)
@@ -103,96 +234,73 @@ public class TelemetryService {
                                 .map(TelemetryReadingResponse::from);
         }
 
+        /**
+         * Out-of-range readings since the given time, newest first. The range
+         * comes from the threshold cache and is applied in the query.
+         */
         @Transactional(readOnly = true)
-        public List<TelemetryReadingResponse> getViolationsByBatch(Long batchId, LocalDateTime since) {
-                // Get all readings and filter in memory for violations
-                List<TelemetryReading> readings = telemetryReadingRepository
-                                .findByBatchIdOrderByTimestampDesc(batchId);
-
-                Batch batch = batchRepository.findById(batchId).orElse(null);
-                if (batch == null || batch.getDrug() == null) {
-                        return List.of();
+        public Page<TelemetryReadingResponse> getViolationsByBatch(Long batchId, LocalDateTime since,
+                        Pageable pageable) {
+                ThresholdSnapshot thresholds = telemetryThresholdCache.get(batchId);
+                if (thresholds == null || !thresholds.hasRange()) {
+                        return Page.empty(pageable);
                 }
 
-                Drug drug = batch.getDrug();
-
-                return readings.stream()
-                                .filter(r -> r.getTemperature() != null && drug.getMinTemperature() != null &&
-                                                drug.getMaxTemperature() != null &&
-                                                (r.getTemperature()
-                                                                .doubleValue() < drug.getMinTemperature().doubleValue()
-                                                                ||
-                                                                r.getTemperature().doubleValue() > drug
-                                                                                .getMaxTemperature().doubleValue()))
+                return telemetryReadingRepository.findViolations(batchId,
+                                BigDecimal.valueOf(thresholds.getMinTemperature()),
+                                BigDecimal.valueOf(thresholds.getMaxTemperature()), since, pageable)
                                 .map(r -> {
                                         TelemetryReadingResponse resp = TelemetryReadingResponse.from(r);
                                         resp.setThresholdViolation(true);
                                         return resp;
-                                })
-                                .toList();
+                                });
         }
 
+        /**
+         * Statistics since the given time, combined from the rollups rather
+         * than the readings themselves. Mean kinetic temperature and the time
+         * above the drug's range cover the whole batch, whatever the window.
+         */
         @Transactional(readOnly = true)
         public Map<String, Object> getTelemetryStats(Long batchId, LocalDateTime since) {
-                List<TelemetryReading> readings = telemetryReadingRepository
-                                .findByBatchIdOrderByTimestampDesc(batchId);
+                TelemetryRollupService.Summary summary = telemetryRollupService.summarize(batchId, since,
+                                LocalDateTime.now());
+                TelemetryBatchKinetics kinetics = telemetryKineticsService.findByBatch(batchId).orElse(null);
+                double meanKineticTemperature = kinetics != null
+                                ? TelemetryKineticsService.meanKineticTemperature(kinetics)
+                                : Double.NaN;
+                Object mkt = Double.isNaN(meanKineticTemperature) ? 0.0
+                                : String.format("%.2f", meanKineticTemperature);
+                Object minutesAboveRange = kinetics != null
+                                ? String.format("%.1f", kinetics.getMinutesAboveRange())
+                                : 0.0;
+                Object degreeMinutesAboveRange = kinetics != null
+                                ? String.format("%.1f", kinetics.getDegreeMinutesAboveRange())
+                                : 0.0;
 
-                if (readings.isEmpty()) {
+                if (summary.getReadingCount() == 0) {
                         return Map.of(
                                         "totalReadings", 0,
                                         "violations", 0,
                                         "averageTemperature", 0.0,
                                         "minTemperature", 0.0,
                                         "maxTemperature", 0.0,
-                                        "averageHumidity", 0.0);
+                                        "averageHumidity", 0.0,
+                                        "meanKineticTemperature", mkt,
+                                        "minutesAboveRange", minutesAboveRange,
+                                        "degreeMinutesAboveRange", degreeMinutesAboveRange);
                 }
 
-                Batch batch = batchRepository.findById(batchId).orElse(null);
-                long violations = 0;
-
-                if (batch != null && batch.getDrug() != null) {
-                        Drug drug = batch.getDrug();
-                        violations = readings.stream()
-                                        .filter(r -> r.getTemperature() != null && drug.getMinTemperature() != null &&
-                                                        drug.getMaxTemperature() != null &&
-                                                        (r.getTemperature().doubleValue() < drug.getMinTemperature()
-                                                                        .doubleValue() ||
-                                                                        r.getTemperature().doubleValue() > drug
-                                                                                        .getMaxTemperature()
-                                                                                        .doubleValue()))
-                                        .count();
-                }
-
-                double avgTemp = readings.stream()
-                                .filter(r -> r.getTemperature() != null)
-                                .mapToDouble(r -> r.getTemperature().doubleValue())
-                                .average()
-                                .orElse(0.0);
-
-                double minTemp = readings.stream()
-                                .filter(r -> r.getTemperature() != null)
-                                .mapToDouble(r -> r.getTemperature().doubleValue())
-                                .min()
-                                .orElse(0.0);
-
-                double maxTemp = readings.stream()
-                                .filter(r -> r.getTemperature() != null)
-                                .mapToDouble(r -> r.getTemperature().doubleValue())
-                                .max()
-                                .orElse(0.0);
-
-                double avgHumidity = readings.stream()
-                                .filter(r -> r.getHumidity() != null)
-                                .mapToDouble(r -> r.getHumidity().doubleValue())
-                                .average()
-                                .orElse(0.0);
-
                 return Map.of(
-                                "totalReadings", readings.size(),
-                                "violations", violations,
-                                "averageTemperature", String.format("%.1f", avgTemp),
-                                "minTemperature", String.format("%.1f", minTemp),
-                                "maxTemperature", String.format("%.1f", maxTemp),
-                                "averageHumidity", String.format("%.1f", avgHumidity));
+                                "totalReadings", summary.getReadingCount(),
+                                "violations", summary.getViolationCount(),
+                                "averageTemperature", String.format("%.1f", summary.getAverageTemperature()),
+                                "minTemperature", String.format("%.1f", summary.getMinTemperature()),
+                                "maxTemperature", String.format("%.1f", summary.getMaxTemperature()),
+                                "temperatureStdDev", String.format("%.2f", summary.getTemperatureStdDev()),
+                                "averageHumidity", String.format("%.1f", summary.getAverageHumidity()),
+                                "meanKineticTemperature", mkt,
+                                "minutesAboveRange", minutesAboveRange,
+                                "degreeMinutesAboveRange", degreeMinutesAboveRange);
         }
 }
@@ -0,0 +1,113 @@
+package com.pharma.drugverification.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.config.CacheInvalidationPublisher;
+import com.pharma.drugverification.dto.BatchSnapshot;
+import com.pharma.drugverification.dto.DrugSnapshot;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * In-process batch to temperature range map for the telemetry hot path. A
+ * hit is a single map lookup; misses are filled from the cached batch and
+ * drug snapshots. Batch and drug updates evict after commit and broadcast
+ * the eviction to the other nodes; the TTL only bounds staleness when a
+ * broadcast is lost.
+ */
+@Service
+@Slf4j
+public class TelemetryThresholdCache {
+
+    public static final String CACHE_NAME = "telemetryThresholds";
+
+    private final ReferenceDataService referenceDataService;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final Cache<Long, ThresholdSnapshot> thresholds;
+    private final Function<Long, ThresholdSnapshot> loader = this::load;
+
+    public TelemetryThresholdCache(ReferenceDataService referenceDataService,
+            CacheInvalidationPublisher invalidationPublisher,
+            ApplicationProperties applicationProperties) {
+        this.referenceDataService = referenceDataService;
+        this.invalidationPublisher = invalidationPublisher;
+        ApplicationProperties.TelemetryProperties properties = applicationProperties.getTelemetry();
+        this.thresholds = Caffeine.newBuilder()
+                .maximumSize(properties.getThresholdCacheMaximumSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getThresholdCacheTtlSeconds()))
+                .build();
+    }
+
+    /**
+     * The range of the batch's drug, or null when the batch or its drug does
+     * not exist. Missing entries are not cached.
+     */
+    public ThresholdSnapshot get(Long batchId) {
+        return thresholds.get(batchId, loader);
+    }
+
+    public void evictBatch(Long batchId) {
+        afterCommit(() -> {
+            thresholds.invalidate(batchId);
+            invalidationPublisher.publishEviction(CACHE_NAME, batchId);
+        });
+    }
+
+    /**
+     * Drug changes are rare and a drug covers many batches, so they clear
+     * the whole map.
+     */
+    public void evictDrug(Long drugId) {
+        evictAll();
+    }
+
+    public void evictAll() {
+        afterCommit(() -> {
+            thresholds.invalidateAll();
+            invalidationPublisher.publishClear(CACHE_NAME);
+        });
+    }
+
+    /**
+     * Applies an eviction published by another node; a null key clears.
+     */
+    public void evictLocal(Object key) {
+        if (key instanceof Number batchId) {
+            thresholds.invalidate(batchId.longValue());
+        } else {
+            thresholds.invalidateAll();
+        }
+    }
+
+    private ThresholdSnapshot load(Long batchId) {
+        BatchSnapshot batch = referenceDataService.getBatch(batchId);
+        if (batch == null || batch.getDrugId() == null) {
+            return null;
+        }
+        DrugSnapshot drug = referenceDataService.getDrug(batch.getDrugId());
+        return drug != null ? ThresholdSnapshot.from(batch, drug) : null;
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        // After completion rather than after commit, so the batch and drug snapshots are evicted first
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    eviction.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,508 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TemperatureExcursion;
+import com.pharma.drugverification.domain.TemperatureExcursion.Severity;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
+import com.pharma.drugverification.repository.TemperatureExcursionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns the stream of readings of each batch into temperature excursions.
+ *
+ * A batch is either in range or has one open excursion, held in memory. The
+ * first out-of-range reading opens an excursion, further ones widen its
+ * min/max and age it, and the first reading back in range closes it. Only
+ * transitions touch the database or raise alerts: opening, moving up a
+ * severity grade, and closing. Open excursions are reloaded on startup, and
+ * one opened by another node is adopted instead of duplicated. Excursion rows
+ * are versioned: when another node has updated the row first, it is reloaded
+ * and this node's change applied to it again, unless it has been closed.
+ *
+ * Devices send their own timestamps and replay buffered readings, so each
+ * batch's readings pass through a reorder buffer first. A reading is
+ * released once the batch's watermark, its latest timestamp less the
+ * allowed lateness, has passed it, or once the batch has been quiet for that
+ * long. A reading older than one already released is late: it is still
+ * stored and rolled up, but cannot rewrite the live state machine. A run of
+ * late out-of-range readings, such as a logger replaying its offline buffer,
+ * is instead recorded as a closed excursion in the past and alerted on. The
+ * buffer of a batch that has gone quiet with no open excursion is dropped.
+ */
+@Service
+@Slf4j
+public class TemperatureExcursionDetector {
+
+    private static final int LOCK_STRIPES = 64;
+    // Bounds memory when a batch's readings arrive far faster than its watermark advances
+    private static final int MAX_BUFFERED_READINGS = 10_000;
+    private static final int MAX_SAVE_ATTEMPTS = 3;
+
+    private final TemperatureExcursionRepository excursionRepository;
+    private final AlertService alertService;
+    private final AuditService auditService;
+    private final ApplicationProperties.ExcursionProperties properties;
+    private final Map<Long, TemperatureExcursion> openExcursions = new ConcurrentHashMap<>();
+    private final Map<Long, ReorderBuffer> reorderBuffers = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final Duration allowedLateness;
+    private final AtomicLong lateReadings = new AtomicLong();
+
+    public TemperatureExcursionDetector(TemperatureExcursionRepository excursionRepository,
+            AlertService alertService,
+            AuditService auditService,
+            ApplicationProperties applicationProperties) {
+        this.excursionRepository = excursionRepository;
+        this.alertService = alertService;
+        this.auditService = auditService;
+        this.properties = applicationProperties.getTelemetry().getExcursion();
+        this.allowedLateness = Duration.ofSeconds(properties.getAllowedLatenessSeconds());
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public enum Transition {
+        NONE,
+        OPENED,
+        ESCALATED,
+        CLOSED,
+        RECORDED_LATE
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOpenExcursions() {
+        for (TemperatureExcursion excursion : excursionRepository.findByResolvedFalse()) {
+            openExcursions.merge(excursion.getBatchId(), excursion, TemperatureExcursionDetector::earlier);
+        }
+        if (!openExcursions.isEmpty()) {
+            log.info("Resumed {} open temperature excursions", openExcursions.size());
+        }
+    }
+
+    /**
+     * Feeds one reading of a batch into its reorder buffer and runs the state
+     * machine over whatever that releases, returning the last transition.
+     * Readings without a temperature or batches without a range leave the
+     * state unchanged.
+     */
+    public Transition observe(TelemetryReading reading, ThresholdSnapshot thresholds, Long userId) {
+        if (reading.getTemperature() == null || thresholds == null || !thresholds.hasRange()) {
+            return Transition.NONE;
+        }
+        Long batchId = reading.getBatchId();
+        synchronized (lockOf(batchId)) {
+            ReorderBuffer buffer = reorderBuffers.computeIfAbsent(batchId, id -> new ReorderBuffer());
+            PendingReading pending = new PendingReading(reading, thresholds, userId);
+            if (!buffer.offer(pending)) {
+                lateReadings.incrementAndGet();
+                return observeLate(buffer, pending);
+            }
+            return release(buffer, buffer.getLatest().minus(allowedLateness));
+        }
+    }
+
+    /**
+     * Releases the buffered readings and late runs of batches that have been
+     * quiet for the allowed lateness, so a batch's last readings are not held
+     * indefinitely, and drops the buffers left with nothing to track.
+     */
+    @Scheduled(fixedDelayString = "${application.telemetry.excursion.reorder-flush-interval-ms:5000}")
+    public void flushIdleBuffers() {
+        flushIdleBuffers(System.nanoTime());
+    }
+
+    void flushIdleBuffers(long now) {
+        for (Map.Entry<Long, ReorderBuffer> entry : reorderBuffers.entrySet()) {
+            Long batchId = entry.getKey();
+            synchronized (lockOf(batchId)) {
+                ReorderBuffer buffer = entry.getValue();
+                if (!buffer.isIdle(now, allowedLateness)) {
+                    continue;
+                }
+                release(buffer, LocalDateTime.MAX);
+                recordLateRun(buffer, null);
+                // An open excursion still needs the buffer to tell late readings from current ones
+                if (!openExcursions.containsKey(batchId)) {
+                    reorderBuffers.remove(batchId);
+                }
+            }
+        }
+    }
+
+    public int getOpenExcursionCount() {
+        return openExcursions.size();
+    }
+
+    public long getLateReadingCount() {
+        return lateReadings.get();
+    }
+
+    int getBufferedBatchCount() {
+        return reorderBuffers.size();
+    }
+
+    private Object lockOf(Long batchId) {
+        return locks[Math.floorMod(batchId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private Transition release(ReorderBuffer buffer, LocalDateTime watermark) {
+        Transition last = Transition.NONE;
+        PendingReading pending;
+        while ((pending = buffer.poll(watermark)) != null) {
+            Transition transition = advance(pending.reading(), pending.thresholds(), pending.userId());
+            if (transition != Transition.NONE) {
+                last = transition;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Collects late out-of-range readings into a run, which the next late
+     * reading back in range, or the batch going quiet, records as a past
+     * excursion. Called with the batch's lock held.
+     */
+    private Transition observeLate(ReorderBuffer buffer, PendingReading pending) {
+        TelemetryReading reading = pending.reading();
+        if (pending.thresholds().isOutOfRange(reading.getTemperature().doubleValue())) {
+            buffer.extendLateRun(pending);
+            return Transition.NONE;
+        }
+        LateRun run = buffer.getLateRun();
+        if (run == null || !reading.getTimestamp().isAfter(run.excursion.getStartTime())) {
+            log.debug("Late telemetry reading for batch {} at {} skipped by excursion detection",
+                    reading.getBatchId(), reading.getTimestamp());
+            return Transition.NONE;
+        }
+        return recordLateRun(buffer, reading.getTimestamp());
+    }
+
+    /**
+     * Stores the buffer's late run, if any, as a resolved excursion ending at
+     * the given time, or at its last out-of-range reading if none is given.
+     */
+    private Transition recordLateRun(ReorderBuffer buffer, LocalDateTime endTime) {
+        LateRun run = buffer.takeLateRun();
+        if (run == null) {
+            return Transition.NONE;
+        }
+        TemperatureExcursion excursion = run.excursion;
+        excursion.setEndTime(endTime != null ? endTime : run.lastOutOfRange);
+        excursion.setDurationMinutes(minutesBetween(excursion.getStartTime(), excursion.getEndTime()));
+        excursion.setSeverity(severityOf(excursion));
+        TemperatureExcursion saved = excursionRepository.save(excursion);
+
+        Long batchId = saved.getBatchId();
+        String message = String.format("Batch %s: late readings show a past temperature excursion from %s, %s",
+                run.thresholds.getBatchNumber(), saved.getStartTime(), describe(saved));
+        alertService.createAlert("TEMPERATURE_EXCURSION", saved.getSeverity().name(), message, "Batch", batchId);
+        auditService.log("TEMPERATURE_EXCURSION_LATE", "Batch", batchId, run.userId,
+                Map.of("excursionId", saved.getId(),
+                        "startTime", saved.getStartTime().toString(),
+                        "endTime", saved.getEndTime().toString(),
+                        "severity", saved.getSeverity().name()));
+        log.warn("Late temperature excursion recorded: {}", message);
+        return Transition.RECORDED_LATE;
+    }
+
+    /**
+     * Moves a batch's state machine on by one reading, in timestamp order.
+     * Called with the batch's lock held.
+     */
+    private Transition advance(TelemetryReading reading, ThresholdSnapshot thresholds, Long userId) {
+        BigDecimal temperature = reading.getTemperature();
+        boolean outOfRange = thresholds.isOutOfRange(temperature.doubleValue());
+        Long batchId = reading.getBatchId();
+        String batchNumber = thresholds.getBatchNumber();
+
+        TemperatureExcursion excursion = openExcursions.get(batchId);
+        if (excursion == null) {
+            return outOfRange ? open(reading, thresholds, userId) : Transition.NONE;
+        }
+        if (!outOfRange) {
+            return close(excursion, reading, batchNumber, userId);
+        }
+
+        excursion.setMinTemperature(excursion.getMinTemperature().min(temperature));
+        excursion.setMaxTemperature(excursion.getMaxTemperature().max(temperature));
+        excursion.setDurationMinutes(minutesBetween(excursion.getStartTime(), reading.getTimestamp()));
+        Severity severity = severityOf(excursion);
+        if (severity.compareTo(excursion.getSeverity()) <= 0) {
+            return Transition.NONE;
+        }
+        excursion.setSeverity(severity);
+        TemperatureExcursion saved = saveMerging(excursion);
+        if (saved == null) {
+            openExcursions.remove(batchId);
+            return Transition.NONE;
+        }
+        openExcursions.put(batchId, saved);
+        alertService.createAlert("TEMPERATURE_EXCURSION", saved.getSeverity().name(),
+                String.format("Batch %s: temperature excursion escalated to %s, %s", batchNumber,
+                        saved.getSeverity(), describe(saved)),
+                "Batch", batchId);
+        return Transition.ESCALATED;
+    }
+
+    private Transition open(TelemetryReading reading, ThresholdSnapshot thresholds, Long userId) {
+        Long batchId = reading.getBatchId();
+        String batchNumber = thresholds.getBatchNumber();
+        List<TemperatureExcursion> existing = excursionRepository.findByBatchIdAndResolvedFalse(batchId);
+        if (!existing.isEmpty()) {
+            // Opened by another node or before a restart; carry on with it
+            openExcursions.put(batchId, existing.stream().min(Comparator.comparing(
+                    TemperatureExcursion::getStartTime)).orElseThrow());
+            return advance(reading, thresholds, userId);
+        }
+
+        TemperatureExcursion excursion = new TemperatureExcursion();
+        excursion.setBatchId(batchId);
+        excursion.setStartTime(reading.getTimestamp());
+        excursion.setMinTemperature(reading.getTemperature());
+        excursion.setMaxTemperature(reading.getTemperature());
+        excursion.setThresholdMin(BigDecimal.valueOf(thresholds.getMinTemperature()));
+        excursion.setThresholdMax(BigDecimal.valueOf(thresholds.getMaxTemperature()));
+        excursion.setDurationMinutes(0);
+        excursion.setResolved(false);
+        excursion.setSeverity(severityOf(excursion));
+        TemperatureExcursion saved = excursionRepository.save(excursion);
+        openExcursions.put(batchId, saved);
+
+        String message = String.format("Batch %s: temperature excursion opened, %s", batchNumber, describe(saved));
+        alertService.createAlert("TEMPERATURE_EXCURSION", saved.getSeverity().name(), message, "Batch", batchId);
+        auditService.log("TEMPERATURE_EXCURSION", "Batch", batchId, userId,
+                Map.of("excursionId", saved.getId(),
+                        "deviceId", reading.getDeviceId() != null ? reading.getDeviceId() : "",
+                        "temperature", reading.getTemperature(),
+                        "severity", saved.getSeverity().name()));
+        log.warn("Temperature excursion detected: {}", message);
+        return Transition.OPENED;
+    }
+
+    private Transition close(TemperatureExcursion excursion, TelemetryReading reading, String batchNumber,
+            Long userId) {
+        excursion.setEndTime(reading.getTimestamp());
+        excursion.setDurationMinutes(minutesBetween(excursion.getStartTime(), reading.getTimestamp()));
+        Severity severity = severityOf(excursion);
+        if (severity.compareTo(excursion.getSeverity()) > 0) {
+            excursion.setSeverity(severity);
+        }
+        excursion.setResolved(true);
+        TemperatureExcursion saved = saveMerging(excursion);
+        openExcursions.remove(excursion.getBatchId());
+        if (saved == null) {
+            return Transition.NONE;
+        }
+
+        auditService.log("TEMPERATURE_EXCURSION_CLOSED", "Batch", saved.getBatchId(), userId,
+                Map.of("excursionId", saved.getId(),
+                        "durationMinutes", saved.getDurationMinutes(),
+                        "minTemperature", saved.getMinTemperature(),
+                        "maxTemperature", saved.getMaxTemperature(),
+                        "severity", saved.getSeverity().name()));
+        log.info("Temperature excursion closed: Batch {} - {}", batchNumber, describe(saved));
+        return Transition.CLOSED;
+    }
+
+    /**
+     * Saves a change to an open excursion. If another node saved the row
+     * first, the change is applied to the stored row and saved again; returns
+     * null if that node has closed it meanwhile.
+     */
+    private TemperatureExcursion saveMerging(TemperatureExcursion excursion) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return excursionRepository.save(excursion);
+            } catch (OptimisticLockingFailureException e) {
+                TemperatureExcursion stored = excursionRepository.findById(excursion.getId()).orElse(null);
+                if (stored == null || Boolean.TRUE.equals(stored.getResolved())) {
+                    log.info("Temperature excursion {} was closed by another node", excursion.getId());
+                    return null;
+                }
+                if (attempt >= MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+                merge(excursion, stored);
+                excursion = stored;
+            }
+        }
+    }
+
+    private void merge(TemperatureExcursion change, TemperatureExcursion stored) {
+        stored.setMinTemperature(stored.getMinTemperature().min(change.getMinTemperature()));
+        stored.setMaxTemperature(stored.getMaxTemperature().max(change.getMaxTemperature()));
+        if (Boolean.TRUE.equals(change.getResolved())) {
+            stored.setEndTime(change.getEndTime());
+            stored.setResolved(true);
+            stored.setDurationMinutes(minutesBetween(stored.getStartTime(), change.getEndTime()));
+        } else {
+            int storedMinutes = stored.getDurationMinutes() != null ? stored.getDurationMinutes() : 0;
+            stored.setDurationMinutes(Math.max(storedMinutes, change.getDurationMinutes()));
+        }
+        Severity severity = severityOf(stored);
+        if (severity.compareTo(stored.getSeverity()) > 0) {
+            stored.setSeverity(severity);
+        }
+    }
+
+    /**
+     * The higher of the grade reached by duration and the grade reached by
+     * the furthest reading outside the range.
+     */
+    Severity severityOf(TemperatureExcursion excursion) {
+        double delta = 0.0;
+        if (excursion.getThresholdMin() != null) {
+            delta = Math.max(delta, excursion.getThresholdMin().subtract(excursion.getMinTemperature()).doubleValue());
+        }
+        if (excursion.getThresholdMax() != null) {
+            delta = Math.max(delta, excursion.getMaxTemperature().subtract(excursion.getThresholdMax()).doubleValue());
+        }
+        int minutes = excursion.getDurationMinutes() != null ? excursion.getDurationMinutes() : 0;
+
+        if (minutes >= properties.getCriticalMinutes() || delta >= properties.getCriticalDeltaCelsius()) {
+            return Severity.CRITICAL;
+        }
+        if (minutes >= properties.getHighMinutes() || delta >= properties.getHighDeltaCelsius()) {
+            return Severity.HIGH;
+        }
+        if (minutes >= properties.getMediumMinutes() || delta >= properties.getMediumDeltaCelsius()) {
+            return Severity.MEDIUM;
+        }
+        return Severity.LOW;
+    }
+
+    private static String describe(TemperatureExcursion excursion) {
+        return String.format("%.1f°C to %.1f°C against range [%.1f, %.1f] for %d min",
+                excursion.getMinTemperature().doubleValue(), excursion.getMaxTemperature().doubleValue(),
+                excursion.getThresholdMin().doubleValue(), excursion.getThresholdMax().doubleValue(),
+                excursion.getDurationMinutes());
+    }
+
+    private static int minutesBetween(LocalDateTime from, LocalDateTime to) {
+        return (int) Math.max(0, Duration.between(from, to).toMinutes());
+    }
+
+    private static TemperatureExcursion earlier(TemperatureExcursion first, TemperatureExcursion second) {
+        return first.getStartTime().isAfter(second.getStartTime()) ? second : first;
+    }
+
+    private record PendingReading(TelemetryReading reading, ThresholdSnapshot thresholds, Long userId) {
+    }
+
+    /**
+     * Consecutive late out-of-range readings of one batch, not yet stored.
+     */
+    private static final class LateRun {
+
+        private final TemperatureExcursion excursion = new TemperatureExcursion();
+        private final ThresholdSnapshot thresholds;
+        private final Long userId;
+        private LocalDateTime lastOutOfRange;
+
+        LateRun(PendingReading first) {
+            TelemetryReading reading = first.reading();
+            this.thresholds = first.thresholds();
+            this.userId = first.userId();
+            this.lastOutOfRange = reading.getTimestamp();
+            excursion.setBatchId(reading.getBatchId());
+            excursion.setStartTime(reading.getTimestamp());
+            excursion.setMinTemperature(reading.getTemperature());
+            excursion.setMaxTemperature(reading.getTemperature());
+            excursion.setThresholdMin(BigDecimal.valueOf(thresholds.getMinTemperature()));
+            excursion.setThresholdMax(BigDecimal.valueOf(thresholds.getMaxTemperature()));
+            excursion.setResolved(true);
+        }
+
+        void extend(TelemetryReading reading) {
+            LocalDateTime timestamp = reading.getTimestamp();
+            if (timestamp.isBefore(excursion.getStartTime())) {
+                excursion.setStartTime(timestamp);
+            }
+            if (timestamp.isAfter(lastOutOfRange)) {
+                lastOutOfRange = timestamp;
+            }
+            excursion.setMinTemperature(excursion.getMinTemperature().min(reading.getTemperature()));
+            excursion.setMaxTemperature(excursion.getMaxTemperature().max(reading.getTemperature()));
+        }
+    }
+
+    /**
+     * Readings of one batch waiting for the watermark, earliest first.
+     */
+    private static final class ReorderBuffer {
+
+        private final PriorityQueue<PendingReading> pending = new PriorityQueue<>(
+                Comparator.comparing(p -> p.reading().getTimestamp()));
+        private LocalDateTime latest;
+        private LocalDateTime lastReleased;
+        private long lastOfferNanos;
+        private LateRun lateRun;
+
+        boolean offer(PendingReading reading) {
+            LocalDateTime timestamp = reading.reading().getTimestamp();
+            if (lastReleased != null && timestamp.isBefore(lastReleased)) {
+                return false;
+            }
+            pending.add(reading);
+            if (latest == null || timestamp.isAfter(latest)) {
+                latest = timestamp;
+            }
+            lastOfferNanos = System.nanoTime();
+            return true;
+        }
+
+        LocalDateTime getLatest() {
+            return latest;
+        }
+
+        LateRun getLateRun() {
+            return lateRun;
+        }
+
+        void extendLateRun(PendingReading reading) {
+            if (lateRun == null) {
+                lateRun = new LateRun(reading);
+            } else {
+                lateRun.extend(reading.reading());
+            }
+            lastOfferNanos = System.nanoTime();
+        }
+
+        LateRun takeLateRun() {
+            LateRun run = lateRun;
+            lateRun = null;
+            return run;
+        }
+
+        PendingReading poll(LocalDateTime watermark) {
+            PendingReading next = pending.peek();
+            if (next == null
+                    || (next.reading().getTimestamp().isAfter(watermark) && pending.size() <= MAX_BUFFERED_READINGS)) {
+                return null;
+            }
+            lastReleased = next.reading().getTimestamp();
+            return pending.poll();
+        }
+
+        boolean isIdle(long now, Duration allowedLateness) {
+            return now - lastOfferNanos >= allowedLateness.toNanos();
+        }
+    }
+}
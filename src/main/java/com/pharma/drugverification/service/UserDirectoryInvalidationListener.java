@@ -0,0 +1,35 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+/**
+ * Evicts a user's cached identity whenever the row is updated or removed,
+ * whichever code path made the change. The cache is transaction-aware, so
+ * the eviction lands after commit and is broadcast to the other nodes.
+ */
+public class UserDirectoryInvalidationListener {
+
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    public UserDirectoryInvalidationListener(ObjectProvider<CacheManager> cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        CacheManager manager = cacheManager.getIfAvailable();
+        if (manager == null || user.getId() == null) {
+            return;
+        }
+        Cache cache = manager.getCache(UserDirectoryService.CACHE_NAME);
+        if (cache != null) {
+            cache.evict(user.getId());
+        }
+    }
+}
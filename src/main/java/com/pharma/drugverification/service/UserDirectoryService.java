@@ -0,0 +1,30 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.dto.UserSnapshot;
+import com.pharma.drugverification.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Cached user identities (id to username, role and active flag). Entries
+ * live in the two-level cache and are evicted by
+ * {@link UserDirectoryInvalidationListener} whenever a user row changes.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserDirectoryService {
+
+    public static final String CACHE_NAME = "userIdentities";
+
+    private final UserRepository userRepository;
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = CACHE_NAME, key = "#userId", unless = "#result == null")
+    public UserSnapshot getUser(Long userId) {
+        return userRepository.findById(userId)
+                .map(UserSnapshot::from)
+                .orElse(null);
+    }
+}
@@ -0,0 +1,342 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.VerificationRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind pipeline for verification request records.
+ *
+ * Scans hand their record to a bounded queue and return immediately. A single
+ * background writer drains the queue and inserts rows with JDBC batches,
+ * flushing when a batch is full or the flush interval elapses. When the queue
+ * stays full for longer than the offer timeout the record is appended to a
+ * spill file instead, which is replayed into the database once the backlog
+ * clears. Failed flushes are spilled the same way so no record is lost.
+ *
+ * Replay records how many lines it has committed after every batch, so a
+ * failed attempt resumes after them rather than inserting them again; a crash
+ * between a commit and that record repeats at most one batch. Lines that do
+ * not parse, such as one torn by a crash mid-append, are moved to a
+ * dead-letter file instead of blocking the replay.
+ */
+@Service
+@Slf4j
+public class VerificationRequestWriter implements SmartLifecycle {
+
+    static final String INSERT_SQL = "INSERT INTO verification_requests (serial_number, serialized_unit_id, result, "
+            + "latitude, longitude, location, device_id, requested_by_user_id, response_time_ms, warnings, "
+            + "possible_counterfeit, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SPILL_FILE = "verification-requests.spill";
+    private static final String REPLAY_FILE = "verification-requests.replay";
+    private static final String REPLAY_OFFSET_FILE = "verification-requests.replay.offset";
+    private static final String DEAD_LETTER_FILE = "verification-requests.dead";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationProperties.WriteBehindProperties properties;
+    private final BlockingQueue<VerificationRequest> queue;
+    private final Object spillLock = new Object();
+
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter spilledCounter;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public VerificationRequestWriter(JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            ApplicationProperties applicationProperties,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = applicationProperties.getVerification().getWriteBehind();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        Gauge.builder("verification.writer.queue.depth", queue, BlockingQueue::size)
+                .description("Verification records waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("verification.writer.flush")
+                .description("Latency of verification record batch inserts")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("verification.writer.written")
+                .description("Verification records written to the database")
+                .register(meterRegistry);
+        this.spilledCounter = Counter.builder("verification.writer.spilled")
+                .description("Verification records diverted to the spill file")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a record for insertion. Blocks for at most the configured offer
+     * timeout when the queue is full, then spills the record to disk.
+     */
+    public void submit(VerificationRequest request) {
+        if (request.getCreatedAt() == null) {
+            request.setCreatedAt(LocalDateTime.now());
+        }
+
+        try {
+            if (queue.offer(request, properties.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        spill(List.of(request));
+    }
+
+    /**
+     * Inserts the given records synchronously as a single JDBC batch.
+     */
+    public void writeBatch(List<VerificationRequest> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (VerificationRequest request : requests) {
+            if (request.getCreatedAt() == null) {
+                request.setCreatedAt(now);
+            }
+        }
+        flushTimer.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, requests, requests.size(), (ps, request) -> {
+            ps.setString(1, request.getSerialNumber());
+            ps.setObject(2, request.getSerializedUnitId(), Types.BIGINT);
+            ps.setString(3, request.getResult().name());
+            ps.setObject(4, request.getLatitude(), Types.DOUBLE);
+            ps.setObject(5, request.getLongitude(), Types.DOUBLE);
+            ps.setString(6, request.getLocation());
+            ps.setString(7, request.getDeviceId());
+            ps.setObject(8, request.getRequestedByUserId(), Types.BIGINT);
+            ps.setObject(9, request.getResponseTimeMs(), Types.BIGINT);
+            ps.setString(10, request.getWarnings());
+            ps.setObject(11, request.getPossibleCounterfeit(), Types.BOOLEAN);
+            ps.setTimestamp(12, Timestamp.valueOf(request.getCreatedAt()));
+        }));
+        writtenCounter.increment(requests.size());
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "verification-request-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Anything still queued after the writer exits goes to the database or disk
+        List<VerificationRequest> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        flush(remaining);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void runWriter() {
+        int batchSize = properties.getBatchSize();
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+        List<VerificationRequest> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                VerificationRequest first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    VerificationRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested; flush what has been collected
+            }
+
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<VerificationRequest> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            writeBatch(batch);
+        } catch (Exception e) {
+            log.error("Failed to write {} verification records, spilling to disk", batch.size(), e);
+            spill(batch);
+        }
+    }
+
+    private void spill(List<VerificationRequest> requests) {
+        synchronized (spillLock) {
+            try {
+                Path directory = Path.of(properties.getSpillDirectory());
+                Files.createDirectories(directory);
+
+                StringBuilder lines = new StringBuilder();
+                for (VerificationRequest request : requests) {
+                    lines.append(objectMapper.writeValueAsString(request)).append('\n');
+                }
+
+                append(directory.resolve(SPILL_FILE), lines.toString());
+                spilledCounter.increment(requests.size());
+            } catch (IOException e) {
+                log.error("Failed to spill {} verification records", requests.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Replays spilled records once the queue has drained below half capacity.
+     */
+    @Scheduled(fixedDelayString = "${application.verification.write-behind.replay-interval-ms:30000}")
+    public void replaySpillFile() {
+        if (queue.size() > properties.getQueueCapacity() / 2) {
+            return;
+        }
+
+        Path directory = Path.of(properties.getSpillDirectory());
+        Path spillFile = directory.resolve(SPILL_FILE);
+        Path replayFile = directory.resolve(REPLAY_FILE);
+
+        try {
+            synchronized (spillLock) {
+                // A replay file left behind by a failed attempt is retried first
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            }
+
+            Path offsetFile = directory.resolve(REPLAY_OFFSET_FILE);
+            long committedLines = readOffset(offsetFile);
+            long lineNumber = 0;
+            int replayed = 0;
+            int deadLettered = 0;
+            List<VerificationRequest> batch = new ArrayList<>(properties.getBatchSize());
+            try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (lineNumber <= committedLines || line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        batch.add(objectMapper.readValue(line, VerificationRequest.class));
+                    } catch (JsonProcessingException e) {
+                        log.warn("Moving unreadable spilled verification record at line {} to {}",
+                                lineNumber, DEAD_LETTER_FILE);
+                        append(directory.resolve(DEAD_LETTER_FILE), line + '\n');
+                        deadLettered++;
+                    }
+                    if (batch.size() >= properties.getBatchSize()) {
+                        writeBatch(batch);
+                        replayed += batch.size();
+                        batch.clear();
+                        writeOffset(offsetFile, lineNumber);
+                    }
+                }
+            }
+            writeBatch(batch);
+            replayed += batch.size();
+
+            // The offset goes first: a stale one would skip lines of the next replay file
+            Files.deleteIfExists(offsetFile);
+            Files.delete(replayFile);
+            log.info("Replayed {} spilled verification records, {} moved to {}", replayed, deadLettered,
+                    DEAD_LETTER_FILE);
+        } catch (Exception e) {
+            log.error("Failed to replay spilled verification records, will retry", e);
+        }
+    }
+
+    private static void append(Path file, String lines) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private static long readOffset(Path offsetFile) throws IOException {
+        if (!Files.exists(offsetFile)) {
+            return 0;
+        }
+        String offset = Files.readString(offsetFile, StandardCharsets.UTF_8).trim();
+        return offset.isEmpty() ? 0 : Long.parseLong(offset);
+    }
+
+    private static void writeOffset(Path offsetFile, long committedLines) throws IOException {
+        // Written aside and moved into place so a crash never leaves a torn offset
+        Path pending = offsetFile.resolveSibling(offsetFile.getFileName() + ".tmp");
+        Files.writeString(pending, Long.toString(committedLines), StandardCharsets.UTF_8);
+        Files.move(pending, offsetFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -1,12 +1,10 @@
 package com.pharma.drugverification.service;
 
 import com.pharma.drugverification.config.ApplicationProperties;
-import com.pharma.drugverification.domain.Batch;
-import com.pharma.drugverification.domain.Recall;
 import com.pharma.drugverification.domain.SerializedUnit;
+import com.pharma.drugverification.dto.BatchSnapshot;
+import com.pharma.drugverification.dto.DrugSnapshot;
 import com.pharma.drugverification.dto.VerificationResponse;
-import com.pharma.drugverification.repository.BatchRepository;
-import com.pharma.drugverification.repository.RecallRepository;
 import com.pharma.drugverification.repository.SerializedUnitRepository;
 import com.pharma.drugverification.repository.VerificationRequestRepository;
 import com.pharma.drugverification.security.HsmService;
@@ -28,9 +26,10 @@ import java.util.Map;
 public class VerificationService {
 
     private final SerializedUnitRepository serializedUnitRepository;
-    private final BatchRepository batchRepository;
-    private final RecallRepository recallRepository;
+    private final ReferenceDataService referenceDataService;
     private final VerificationRequestRepository verificationRequestRepository;
+    private final VerificationRequestWriter verificationRequestWriter;
+    private final ScanHistoryIndex scanHistoryIndex;
     private final HsmService hsmService;
     private final AuditService auditService;
     private final AlertService alertService;
@@ -62,7 +61,7 @@ public class VerificationService {
         }
 
         // Get batch information
-        Batch batch = batchRepository.findById(unit.getBatchId()).orElse(null);
+        BatchSnapshot batch = referenceDataService.getBatch(unit.getBatchId());
         if (batch == null) {
             response.setResult(com.pharma.drugverification.domain.VerificationRequest.VerificationResult.INVALID);
             response.setIsValid(false);
@@ -80,7 +79,8 @@ public class VerificationService {
                 unit.getSerialNumber(),
                 unit.getGtin(),
                 batch.getBatchNumber(),
-                unit.getCryptoTail());
+                unit.getCryptoTail(),
+                unit.getKeyVersion());
 
         if (!cryptoValid) {
             response.setResult(com.pharma.drugverification.domain.VerificationRequest.VerificationResult.INVALID);
@@ -100,9 +100,7 @@ public class VerificationService {
         }
 
         // Check for recalls
-        boolean isRecalled = recallRepository.existsByBatchIdAndStatus(
-                batch.getId(),
-                Recall.RecallStatus.ACTIVE);
+        boolean isRecalled = referenceDataService.hasActiveRecall(batch.getId());
 
         if (isRecalled) {
             response.setResult(com.pharma.drugverification.domain.VerificationRequest.VerificationResult.RECALLED);
@@ -145,8 +143,8 @@ public class VerificationService {
             return response;
         }
 
-        // Check for duplicate scans (within last hour)
-        checkForDuplicateScans(unit.getId(), response);
+        // Check for repeated scans of this serial within the duplicate-scan window
+        checkForDuplicateScans(serialNumber, unit.getId(), response);
 
         // Check for distance-time collision
         if (latitude != null && longitude != null) {
@@ -157,8 +155,9 @@ public class VerificationService {
         response.setResult(com.pharma.drugverification.domain.VerificationRequest.VerificationResult.VALID);
         response.setIsValid(true);
         response.setMessage("Product is authentic and valid");
-        response.setDrugName(batch.getDrug() != null ? batch.getDrug().getName() : "Unknown");
-        response.setManufacturer(batch.getDrug() != null ? batch.getDrug().getManufacturer() : "Unknown");
+        DrugSnapshot drug = referenceDataService.getDrug(batch.getDrugId());
+        response.setDrugName(drug != null ? drug.getName() : "Unknown");
+        response.setManufacturer(drug != null ? drug.getManufacturer() : "Unknown");
 
         recordVerificationRequest(serialNumber, unit.getId(), response.getResult(), latitude, longitude, location,
                 deviceId, userId, startTime);
@@ -169,14 +168,11 @@ public class VerificationService {
         return response;
     }
 
-    private void checkForDuplicateScans(Long unitId, VerificationResponse response) {
-        LocalDateTime oneHourAgo = LocalDateTime.now().minus(1, ChronoUnit.HOURS);
-        long recentScans = verificationRequestRepository.countByResultAndCreatedAtAfter(
-                com.pharma.drugverification.domain.VerificationRequest.VerificationResult.VALID,
-                oneHourAgo);
+    private void checkForDuplicateScans(String serialNumber, Long unitId, VerificationResponse response) {
+        long recentScans = scanHistoryIndex.recordScan(serialNumber);
 
-        if (recentScans > 3) {
-            response.addWarning("Multiple verification attempts detected in the last hour");
+        if (scanHistoryIndex.isDuplicate(recentScans)) {
+            response.addWarning("Multiple verification attempts detected for this unit");
 
             alertService.createAlert(
                     "DUPLICATE_SCAN",
@@ -222,7 +218,7 @@ public class VerificationService {
         }
     }
 
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+    static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
         // Haversine formula for calculating distance between two coordinates
         final int EARTH_RADIUS_KM = 6371;
 
@@ -262,7 +258,7 @@ public class VerificationService {
         request.setPossibleCounterfeit(
                 result == com.pharma.drugverification.domain.VerificationRequest.VerificationResult.INVALID);
 
-        verificationRequestRepository.save(request);
+        verificationRequestWriter.submit(request);
     }
 
     @Transactional(readOnly = true)
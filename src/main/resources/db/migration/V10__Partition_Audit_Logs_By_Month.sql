@@ -0,0 +1,94 @@
+-- Audit records move into a table range-partitioned on created_at. Existing
+-- records become the legacy partition, covering everything up to the end of
+-- the current month; AuditPartitionManager creates the monthly partitions
+-- after it and AuditSegmentArchiver moves closed ones to segment files.
+
+ALTER TABLE audit_logs RENAME TO audit_logs_legacy;
+
+DROP INDEX IF EXISTS idx_action;
+DROP INDEX IF EXISTS idx_entity_type_id;
+DROP INDEX IF EXISTS idx_user_id;
+DROP INDEX IF EXISTS idx_created_at;
+DROP INDEX IF EXISTS idx_audit_chain_position;
+DROP INDEX IF EXISTS idx_audit_blockchain_tx;
+DROP INDEX IF EXISTS idx_audit_unanchored;
+
+-- Ids keep counting from the legacy records whether the old column was an
+-- identity or a serial
+DO $$
+DECLARE
+    next_id BIGINT;
+    old_sequence TEXT;
+BEGIN
+    SELECT COALESCE(MAX(id), 0) + 1 INTO next_id FROM audit_logs_legacy;
+    old_sequence := pg_get_serial_sequence('audit_logs_legacy', 'id');
+
+    IF EXISTS (SELECT 1 FROM pg_attribute
+               WHERE attrelid = 'audit_logs_legacy'::regclass AND attname = 'id' AND attidentity <> '') THEN
+        ALTER TABLE audit_logs_legacy ALTER COLUMN id DROP IDENTITY;
+    ELSE
+        ALTER TABLE audit_logs_legacy ALTER COLUMN id DROP DEFAULT;
+        IF old_sequence IS NOT NULL THEN
+            EXECUTE 'DROP SEQUENCE ' || old_sequence;
+        END IF;
+    END IF;
+
+    EXECUTE 'CREATE SEQUENCE audit_logs_id_seq START WITH ' || next_id;
+END $$;
+
+CREATE TABLE audit_logs (
+    id BIGINT NOT NULL DEFAULT nextval('audit_logs_id_seq'),
+    action VARCHAR(100) NOT NULL,
+    entity_type VARCHAR(50),
+    entity_id BIGINT,
+    user_id BIGINT NOT NULL,
+    username VARCHAR(100),
+    ip_address VARCHAR(100),
+    user_agent VARCHAR(500),
+    changes JSONB,
+    chain_partition INTEGER NOT NULL,
+    chain_sequence BIGINT NOT NULL,
+    current_hash VARCHAR(64) NOT NULL,
+    previous_hash VARCHAR(64),
+    blockchain_transaction_id VARCHAR(255),
+    blockchain_anchored_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE audit_logs_id_seq OWNED BY audit_logs.id;
+
+DO $$
+BEGIN
+    EXECUTE format('ALTER TABLE audit_logs ATTACH PARTITION audit_logs_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+            date_trunc('month', LOCALTIMESTAMP) + INTERVAL '1 month');
+END $$;
+
+-- Only reached if partition maintenance falls behind
+CREATE TABLE audit_logs_default PARTITION OF audit_logs DEFAULT;
+
+CREATE INDEX idx_action ON audit_logs(action);
+CREATE INDEX idx_entity_type_id ON audit_logs(entity_type, entity_id);
+CREATE INDEX idx_user_id ON audit_logs(user_id);
+CREATE INDEX idx_created_at ON audit_logs(created_at);
+-- Unique indexes on a partitioned table must include the partition key, so
+-- this one is not unique: the audit writers keep chain positions unique by
+-- taking a per-partition advisory lock before reading and extending a chain
+CREATE INDEX idx_audit_chain_position ON audit_logs(chain_partition, chain_sequence);
+CREATE INDEX idx_audit_blockchain_tx ON audit_logs(blockchain_transaction_id);
+CREATE INDEX idx_audit_unanchored ON audit_logs(id) WHERE blockchain_transaction_id IS NULL;
+
+CREATE TABLE audit_segments (
+    id BIGSERIAL PRIMARY KEY,
+    partition_name VARCHAR(63) NOT NULL,
+    range_end TIMESTAMP NOT NULL,
+    file_path VARCHAR(500) NOT NULL,
+    row_count BIGINT NOT NULL,
+    first_audit_log_id BIGINT,
+    last_audit_log_id BIGINT,
+    checksum VARCHAR(64) NOT NULL,
+    block_index JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE UNIQUE INDEX idx_audit_segment_partition ON audit_segments(partition_name);
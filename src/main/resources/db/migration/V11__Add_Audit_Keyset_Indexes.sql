@@ -0,0 +1,13 @@
+-- Keyset search orders by (created_at, id) within each filter, so every
+-- filter column leads a composite index ending in the cursor columns. The
+-- single-column indexes they replace are prefixes of these.
+
+DROP INDEX IF EXISTS idx_action;
+DROP INDEX IF EXISTS idx_entity_type_id;
+DROP INDEX IF EXISTS idx_user_id;
+DROP INDEX IF EXISTS idx_created_at;
+
+CREATE INDEX idx_audit_action_created ON audit_logs(action, created_at, id);
+CREATE INDEX idx_audit_entity_created ON audit_logs(entity_type, entity_id, created_at, id);
+CREATE INDEX idx_audit_user_created ON audit_logs(user_id, created_at, id);
+CREATE INDEX idx_audit_created ON audit_logs(created_at, id);
@@ -0,0 +1,34 @@
+-- Per-batch telemetry aggregates by minute, hour and day, merged into on every write
+
+CREATE TABLE telemetry_rollups (
+    id BIGSERIAL PRIMARY KEY,
+    batch_id BIGINT NOT NULL,
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    reading_count BIGINT NOT NULL,
+    temperature_count BIGINT NOT NULL,
+    temperature_min NUMERIC(5, 2),
+    temperature_max NUMERIC(5, 2),
+    temperature_sum DOUBLE PRECISION NOT NULL,
+    temperature_sum_squares DOUBLE PRECISION NOT NULL,
+    humidity_count BIGINT NOT NULL,
+    humidity_sum DOUBLE PRECISION NOT NULL,
+    violation_count BIGINT NOT NULL
+);
+
+CREATE UNIQUE INDEX idx_telemetry_rollup_bucket ON telemetry_rollups(batch_id, granularity, bucket_start);
+
+-- Backfill from the readings already stored, judged against the current drug thresholds
+INSERT INTO telemetry_rollups (batch_id, granularity, bucket_start, reading_count, temperature_count,
+    temperature_min, temperature_max, temperature_sum, temperature_sum_squares, humidity_count, humidity_sum,
+    violation_count)
+SELECT r.batch_id, g.granularity, date_trunc(g.unit, r.timestamp), COUNT(*), COUNT(r.temperature),
+    MIN(r.temperature), MAX(r.temperature),
+    COALESCE(SUM(r.temperature), 0), COALESCE(SUM(r.temperature * r.temperature), 0),
+    COUNT(r.humidity), COALESCE(SUM(r.humidity), 0),
+    COUNT(*) FILTER (WHERE r.temperature < d.min_temperature OR r.temperature > d.max_temperature)
+FROM telemetry_readings r
+CROSS JOIN (VALUES ('MINUTE', 'minute'), ('HOUR', 'hour'), ('DAY', 'day')) AS g (granularity, unit)
+LEFT JOIN batches b ON b.id = r.batch_id
+LEFT JOIN drugs d ON d.id = b.drug_id
+GROUP BY r.batch_id, g.granularity, date_trunc(g.unit, r.timestamp);
@@ -0,0 +1,4 @@
+-- Violation lookups read the two temperature ranges outside a drug's limits for one batch.
+-- Limits differ per drug, so a partial index cannot encode them; the timestamp rides along
+-- so the time filter is checked in the index.
+CREATE INDEX idx_telemetry_batch_temperature ON telemetry_readings(batch_id, temperature, timestamp);
@@ -0,0 +1,17 @@
+-- Telemetry readings older than application.telemetry.archive-after-days move to per-batch columnar segment files
+
+CREATE TABLE telemetry_segments (
+    id BIGSERIAL PRIMARY KEY,
+    batch_id BIGINT NOT NULL,
+    range_start TIMESTAMP NOT NULL,
+    range_end TIMESTAMP NOT NULL,
+    reading_count BIGINT NOT NULL,
+    first_reading_id BIGINT NOT NULL,
+    last_reading_id BIGINT NOT NULL,
+    file_path VARCHAR(500) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    checksum VARCHAR(64) NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_telemetry_segment_batch ON telemetry_segments(batch_id, range_start);
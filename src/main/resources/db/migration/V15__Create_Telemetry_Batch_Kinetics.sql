@@ -0,0 +1,34 @@
+-- Per-batch mean kinetic temperature inputs and time above the drug's range, merged into on every write
+
+CREATE TABLE telemetry_batch_kinetics (
+    batch_id BIGINT PRIMARY KEY,
+    temperature_count BIGINT NOT NULL,
+    kinetic_sum DOUBLE PRECISION NOT NULL,
+    last_reading_at TIMESTAMP,
+    last_temperature NUMERIC(5, 2),
+    minutes_above_range DOUBLE PRECISION NOT NULL,
+    degree_minutes_above_range DOUBLE PRECISION NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- Backfill from the readings already stored, judged against the current drug thresholds. Each reading holds
+-- until the next one, for at most application.telemetry.kinetics-max-gap-minutes (60 by default)
+INSERT INTO telemetry_batch_kinetics (batch_id, temperature_count, kinetic_sum, last_reading_at, last_temperature,
+    minutes_above_range, degree_minutes_above_range, updated_at)
+SELECT s.batch_id, COUNT(*), SUM(EXP(-10000.0 / (s.temperature + 273.15))),
+    MAX(s.timestamp), (ARRAY_AGG(s.temperature ORDER BY s.timestamp DESC))[1],
+    COALESCE(SUM(s.held_minutes) FILTER (WHERE s.previous_temperature > s.max_temperature), 0),
+    COALESCE(SUM(s.held_minutes * (s.previous_temperature - s.max_temperature))
+        FILTER (WHERE s.previous_temperature > s.max_temperature), 0),
+    now()
+FROM (
+    SELECT r.batch_id, r.timestamp, r.temperature, d.max_temperature,
+        LAG(r.temperature) OVER w AS previous_temperature,
+        LEAST(EXTRACT(EPOCH FROM r.timestamp - LAG(r.timestamp) OVER w) / 60.0, 60) AS held_minutes
+    FROM telemetry_readings r
+    LEFT JOIN batches b ON b.id = r.batch_id
+    LEFT JOIN drugs d ON d.id = b.drug_id
+    WHERE r.temperature IS NOT NULL
+    WINDOW w AS (PARTITION BY r.batch_id ORDER BY r.timestamp, r.id)
+) s
+GROUP BY s.batch_id;
@@ -0,0 +1,6 @@
+-- Device-assigned reading sequence numbers, used to recognise replayed readings
+
+ALTER TABLE telemetry_readings ADD COLUMN sequence_number BIGINT;
+
+CREATE INDEX idx_telemetry_device_sequence ON telemetry_readings(device_id, sequence_number)
+    WHERE sequence_number IS NOT NULL;
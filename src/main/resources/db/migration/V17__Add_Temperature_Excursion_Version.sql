@@ -0,0 +1,3 @@
+-- Optimistic lock for excursions that the detectors of several nodes may update
+
+ALTER TABLE temperature_excursions ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,19 @@
+-- Progress tracking for asynchronous bulk serialization
+
+CREATE TABLE serialization_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    batch_id BIGINT NOT NULL,
+    gtin VARCHAR(14) NOT NULL,
+    requested_quantity INTEGER NOT NULL,
+    completed_quantity INTEGER NOT NULL DEFAULT 0,
+    key_version INTEGER NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    error_message VARCHAR(1000),
+    requested_by_user_id BIGINT,
+    completed_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_serialization_job_batch_id ON serialization_jobs(batch_id);
+CREATE INDEX idx_serialization_job_status ON serialization_jobs(status);
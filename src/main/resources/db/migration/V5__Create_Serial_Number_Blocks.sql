@@ -0,0 +1,10 @@
+-- Block allocation for collision-free serial number generation
+
+CREATE SEQUENCE serial_number_block_seq START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE serial_number_blocks (
+    id BIGINT PRIMARY KEY,
+    node_id VARCHAR(100) NOT NULL,
+    block_size INTEGER NOT NULL,
+    allocated_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,32 @@
+-- Generic chunked background jobs; replaces serialization_jobs
+
+CREATE TABLE jobs (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    target_type VARCHAR(50),
+    target_id BIGINT,
+    parameters JSONB,
+    total_items BIGINT NOT NULL,
+    completed_items BIGINT NOT NULL DEFAULT 0,
+    cancel_requested BOOLEAN NOT NULL DEFAULT FALSE,
+    error_message VARCHAR(1000),
+    requested_by_user_id BIGINT,
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_job_type_target ON jobs(type, target_id);
+CREATE INDEX idx_job_status ON jobs(status);
+
+INSERT INTO jobs (type, status, target_type, target_id, parameters, total_items, completed_items,
+                  error_message, requested_by_user_id, completed_at, created_at, updated_at)
+SELECT 'SERIALIZATION', status, 'Batch', batch_id,
+       jsonb_build_object('gtin', gtin, 'keyVersion', key_version),
+       requested_quantity, completed_quantity, error_message, requested_by_user_id, completed_at,
+       created_at, updated_at
+FROM serialization_jobs;
+
+DROP TABLE serialization_jobs;
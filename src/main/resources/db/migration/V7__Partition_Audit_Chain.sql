@@ -0,0 +1,24 @@
+-- Audit records are chained per partition instead of in one global chain.
+-- Existing records keep their hashes as the frozen legacy partition -1.
+
+ALTER TABLE audit_logs ADD COLUMN chain_partition INTEGER;
+ALTER TABLE audit_logs ADD COLUMN chain_sequence BIGINT;
+
+UPDATE audit_logs SET chain_partition = -1, chain_sequence = ordered.sequence
+FROM (SELECT id, ROW_NUMBER() OVER (ORDER BY id) AS sequence FROM audit_logs) ordered
+WHERE audit_logs.id = ordered.id;
+
+ALTER TABLE audit_logs ALTER COLUMN chain_partition SET NOT NULL;
+ALTER TABLE audit_logs ALTER COLUMN chain_sequence SET NOT NULL;
+
+CREATE UNIQUE INDEX idx_audit_chain_position ON audit_logs(chain_partition, chain_sequence);
+
+CREATE TABLE audit_chain_roots (
+    id BIGSERIAL PRIMARY KEY,
+    root_hash VARCHAR(64) NOT NULL,
+    partition_count INTEGER NOT NULL,
+    heads JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_audit_chain_root_created_at ON audit_chain_roots(created_at);
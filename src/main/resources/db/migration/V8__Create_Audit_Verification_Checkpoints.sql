@@ -0,0 +1,10 @@
+-- Signed progress markers for incremental audit chain verification
+
+CREATE TABLE audit_verification_checkpoints (
+    id BIGSERIAL PRIMARY KEY,
+    last_verified_id BIGINT NOT NULL,
+    rows_verified BIGINT NOT NULL,
+    heads JSONB NOT NULL,
+    signature VARCHAR(64) NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
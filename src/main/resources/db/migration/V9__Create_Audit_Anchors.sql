@@ -0,0 +1,20 @@
+-- Merkle roots over windows of audit records, mirrored from the anchor ledger
+
+CREATE TABLE audit_anchors (
+    id BIGSERIAL PRIMARY KEY,
+    transaction_id VARCHAR(64) NOT NULL,
+    previous_transaction_id VARCHAR(64) NOT NULL,
+    root_hash VARCHAR(64) NOT NULL,
+    leaf_count INTEGER NOT NULL,
+    first_audit_log_id BIGINT NOT NULL,
+    last_audit_log_id BIGINT NOT NULL,
+    anchored_at TIMESTAMP NOT NULL
+);
+
+CREATE UNIQUE INDEX idx_audit_anchor_transaction ON audit_anchors(transaction_id);
+
+-- Proofs load the whole window of an anchor
+CREATE INDEX idx_audit_blockchain_tx ON audit_logs(blockchain_transaction_id);
+
+-- The anchoring job only ever scans the unanchored tail
+CREATE INDEX idx_audit_unanchored ON audit_logs(id) WHERE blockchain_transaction_id IS NULL;
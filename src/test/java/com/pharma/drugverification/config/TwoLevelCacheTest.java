@@ -0,0 +1,72 @@
+package com.pharma.drugverification.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TwoLevelCacheTest {
+
+    private Cache remoteCache;
+    private CacheInvalidationPublisher invalidationPublisher;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remoteCache = spy(new ConcurrentMapCache("batchSnapshots"));
+        invalidationPublisher = mock(CacheInvalidationPublisher.class);
+        cache = new TwoLevelCache("batchSnapshots", Caffeine.newBuilder().maximumSize(100).build(),
+                remoteCache, invalidationPublisher);
+    }
+
+    @Test
+    void get_ServesRepeatReadsFromNearTier() {
+        remoteCache.put(1L, "BATCH-001");
+
+        assertEquals("BATCH-001", cache.get(1L).get());
+        assertEquals("BATCH-001", cache.get(1L).get());
+
+        verify(remoteCache, times(1)).get(1L);
+    }
+
+    @Test
+    void get_ReturnsNullWhenBothTiersMiss() {
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void evict_ClearsBothTiersAndBroadcasts() {
+        cache.put(1L, "BATCH-001");
+
+        cache.evict(1L);
+
+        assertNull(cache.get(1L));
+        assertNull(remoteCache.get(1L));
+        verify(invalidationPublisher).publishEviction("batchSnapshots", 1L);
+    }
+
+    @Test
+    void evict_BroadcastsEvenWhenRemoteTierFails() {
+        doThrow(new IllegalStateException("redis down")).when(remoteCache).evict(any());
+
+        assertThrows(IllegalStateException.class, () -> cache.evict(1L));
+
+        verify(invalidationPublisher).publishEviction("batchSnapshots", 1L);
+    }
+
+    @Test
+    void evictLocal_DropsNearCopyOnly() {
+        cache.put(1L, "BATCH-001");
+
+        cache.evictLocal(1L);
+        remoteCache.put(1L, "BATCH-001-UPDATED");
+
+        assertEquals("BATCH-001-UPDATED", cache.get(1L).get());
+        verify(invalidationPublisher, never()).publishEviction(any(), any());
+    }
+}
@@ -1,6 +1,10 @@
 package com.pharma.drugverification.controller;
 
 import com.pharma.drugverification.dto.AuditLogResponse;
+import com.pharma.drugverification.dto.AuditVerificationStatus;
+import com.pharma.drugverification.service.AuditAnchorService;
+import com.pharma.drugverification.service.AuditChainRootService;
+import com.pharma.drugverification.service.AuditChainVerifier;
 import com.pharma.drugverification.service.AuditService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,6 +34,15 @@ class AuditControllerTest {
     @Mock
     private AuditService auditService;
 
+    @Mock
+    private AuditChainRootService auditChainRootService;
+
+    @Mock
+    private AuditChainVerifier auditChainVerifier;
+
+    @Mock
+    private AuditAnchorService auditAnchorService;
+
     @InjectMocks
     private AuditController auditController;
 
@@ -87,4 +100,17 @@ class AuditControllerTest {
         assertEquals(1L, response.getBody().getContent().get(0).getUserId());
         verify(auditService).getLogsByUser(eq(1L), any(Pageable.class));
     }
+
+    @Test
+    void startVerification_Accepted() {
+        AuditVerificationStatus status = new AuditVerificationStatus();
+        status.setState(AuditVerificationStatus.State.RUNNING);
+        when(auditChainVerifier.startVerification()).thenReturn(status);
+
+        ResponseEntity<AuditVerificationStatus> response = auditController.startVerification();
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(AuditVerificationStatus.State.RUNNING, response.getBody().getState());
+    }
 }
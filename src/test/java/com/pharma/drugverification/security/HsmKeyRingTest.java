@@ -0,0 +1,111 @@
+package com.pharma.drugverification.security;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.KeyStore;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HsmKeyRingTest {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    @TempDir
+    Path directory;
+
+    private Path keystore;
+    private ApplicationProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        keystore = directory.resolve("keys.p12");
+
+        properties = new ApplicationProperties();
+        properties.getJwt().setSecret("legacy-jwt-secret-used-for-version-one");
+        properties.getHsm().setKeystorePath(keystore.toString());
+        properties.getHsm().setKeystorePassword(new String(PASSWORD));
+    }
+
+    @Test
+    void load_UsesLegacySecretWhenNoKeystore() {
+        HsmKeyRing keyRing = new HsmKeyRing(properties);
+
+        assertEquals(1, keyRing.getActiveVersion());
+        assertNotNull(keyRing.getKey(1));
+    }
+
+    @Test
+    void load_ActivatesHighestVersionAndKeepsLegacyKey() throws Exception {
+        writeKeystore(Map.of(2, "second-key-material-0123456789abcdef"));
+        HsmService hsmService = new HsmService(new HsmKeyRing(properties));
+
+        assertEquals(2, hsmService.getCurrentKeyVersion());
+        String legacyTail = hsmService.generateCryptoTail("SN001", "GTIN", "BATCH", 1);
+        String currentTail = hsmService.generateCryptoTail("SN001", "GTIN", "BATCH");
+
+        assertNotEquals(legacyTail, currentTail);
+        assertTrue(hsmService.verifyCryptoTail("SN001", "GTIN", "BATCH", legacyTail, 1));
+        assertTrue(hsmService.verifyCryptoTail("SN001", "GTIN", "BATCH", legacyTail, null));
+        assertTrue(hsmService.verifyCryptoTail("SN001", "GTIN", "BATCH", currentTail, 2));
+        assertFalse(hsmService.verifyCryptoTail("SN001", "GTIN", "BATCH", currentTail, 1));
+    }
+
+    @Test
+    void refresh_PicksUpRotatedKeyAndKeepsUnchangedKeys() throws Exception {
+        writeKeystore(Map.of(2, "second-key-material-0123456789abcdef"));
+        HsmKeyRing keyRing = new HsmKeyRing(properties);
+        HsmKeyRing.SigningKey secondKey = keyRing.getKey(2);
+
+        writeKeystore(Map.of(
+                2, "second-key-material-0123456789abcdef",
+                3, "third-key-material-0123456789abcdef"));
+        Files.setLastModifiedTime(keystore, FileTime.from(Instant.now().plusSeconds(60)));
+        keyRing.refresh();
+
+        assertEquals(3, keyRing.getActiveVersion());
+        assertSame(secondKey, keyRing.getKey(2));
+    }
+
+    @Test
+    void refresh_KeepsCurrentKeysWhenKeystoreIsCorrupt() throws Exception {
+        writeKeystore(Map.of(2, "second-key-material-0123456789abcdef"));
+        HsmKeyRing keyRing = new HsmKeyRing(properties);
+
+        Files.writeString(keystore, "not a keystore");
+        Files.setLastModifiedTime(keystore, FileTime.from(Instant.now().plusSeconds(60)));
+        keyRing.refresh();
+
+        assertEquals(2, keyRing.getActiveVersion());
+    }
+
+    @Test
+    void getKey_RejectsUnknownVersion() {
+        HsmKeyRing keyRing = new HsmKeyRing(properties);
+
+        assertThrows(IllegalArgumentException.class, () -> keyRing.getKey(7));
+    }
+
+    private void writeKeystore(Map<Integer, String> keys) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, PASSWORD);
+        for (Map.Entry<Integer, String> entry : keys.entrySet()) {
+            SecretKeySpec key = new SecretKeySpec(entry.getValue().getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+            keyStore.setEntry("crypto-tail-v" + entry.getKey(), new KeyStore.SecretKeyEntry(key),
+                    new KeyStore.PasswordProtection(PASSWORD));
+        }
+        try (OutputStream out = Files.newOutputStream(keystore)) {
+            keyStore.store(out, PASSWORD);
+        }
+    }
+}
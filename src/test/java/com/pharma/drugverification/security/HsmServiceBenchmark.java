@@ -0,0 +1,84 @@
+package com.pharma.drugverification.security;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crypto-tail throughput, compared with the previous per-call Mac setup.
+ * Not part of the test suite; run with:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     com.pharma.drugverification.security.HsmServiceBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class HsmServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits-of-entropy";
+    private static final String SERIAL = "SN170000000000012345";
+    private static final String GTIN = "00312345678906";
+    private static final String BATCH = "BATCH-2024-001";
+
+    private HsmService hsmService;
+    private String cryptoTail;
+
+    @Setup
+    public void setUp() {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getJwt().setSecret(SECRET);
+        hsmService = new HsmService(new HsmKeyRing(properties));
+        cryptoTail = hsmService.generateCryptoTail(SERIAL, GTIN, BATCH);
+    }
+
+    @Benchmark
+    public String generate() {
+        return hsmService.generateCryptoTail(SERIAL, GTIN, BATCH);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hsmService.verifyCryptoTail(SERIAL, GTIN, BATCH, cryptoTail);
+    }
+
+    @Benchmark
+    public boolean verifyPerCallMac() throws Exception {
+        String data = SERIAL + ":" + GTIN + ":" + BATCH;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String expected = Base64.getEncoder().encodeToString(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+        return expected.equals(cryptoTail);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HsmServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
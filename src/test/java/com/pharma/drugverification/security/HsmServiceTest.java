@@ -0,0 +1,77 @@
+package com.pharma.drugverification.security;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HsmServiceTest {
+
+    private static final String SECRET = "test-secret-key-for-crypto-tail-signatures";
+
+    private HsmService hsmService;
+
+    @BeforeEach
+    void setUp() {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getJwt().setSecret(SECRET);
+        hsmService = new HsmService(new HsmKeyRing(properties));
+    }
+
+    @Test
+    void generateCryptoTail_MatchesHmacOfJoinedFields() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String expected = Base64.getEncoder().encodeToString(
+                mac.doFinal("SN001:00312345678906:BATCH-001".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(expected, hsmService.generateCryptoTail("SN001", "00312345678906", "BATCH-001"));
+    }
+
+    @Test
+    void verifyCryptoTail_AcceptsOwnSignatureAndRejectsTampering() {
+        String cryptoTail = hsmService.generateCryptoTail("SN001", "00312345678906", "BATCH-001");
+
+        assertTrue(hsmService.verifyCryptoTail("SN001", "00312345678906", "BATCH-001", cryptoTail));
+        assertFalse(hsmService.verifyCryptoTail("SN002", "00312345678906", "BATCH-001", cryptoTail));
+        assertFalse(hsmService.verifyCryptoTail("SN001", "00312345678906", "BATCH-001", "not-base64!"));
+        assertFalse(hsmService.verifyCryptoTail("SN001", "00312345678906", "BATCH-001", null));
+    }
+
+    @Test
+    void verifyCryptoTail_RejectsUnknownKeyVersion() {
+        String cryptoTail = hsmService.generateCryptoTail("SN001", "00312345678906", "BATCH-001");
+
+        assertFalse(hsmService.verifyCryptoTail("SN001", "00312345678906", "BATCH-001", cryptoTail, 99));
+    }
+
+    @Test
+    void generateCryptoTail_IsConsistentAcrossThreads() throws Exception {
+        String expected = hsmService.generateCryptoTail("SN001", "00312345678906", "BATCH-001");
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = executor.invokeAll(IntStream.range(0, 200)
+                    .<Callable<String>>mapToObj(
+                            i -> () -> hsmService.generateCryptoTail("SN001", "00312345678906", "BATCH-001"))
+                    .toList());
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.AuditAnchor;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.dto.AuditAnchorProofResponse;
+import com.pharma.drugverification.exception.ResourceNotFoundException;
+import com.pharma.drugverification.repository.AuditAnchorRepository;
+import com.pharma.drugverification.repository.AuditLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AuditAnchorServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AuditLogRepository auditLogRepository;
+    private AuditAnchorRepository anchorRepository;
+    private AuditSegmentStore segmentStore;
+    private ApplicationProperties properties;
+    private AuditAnchorService anchorService;
+
+    @BeforeEach
+    void setUp() {
+        auditLogRepository = mock(AuditLogRepository.class);
+        anchorRepository = mock(AuditAnchorRepository.class);
+        segmentStore = mock(AuditSegmentStore.class);
+        when(anchorRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        properties = new ApplicationProperties();
+        properties.getAudit().setAnchorFile(tempDir.resolve("anchors.log").toString());
+        properties.getAudit().setAnchorWindowSize(5);
+        anchorService = new AuditAnchorService(auditLogRepository, anchorRepository, segmentStore,
+                new AuditAnchorLedger(properties, new ObjectMapper()), transactionManager, properties);
+    }
+
+    @Test
+    void anchorNextWindow_RecordsRootAndMarksLogs() throws Exception {
+        List<AuditLog> window = logs(1, 5);
+        when(auditLogRepository.findUnanchoredLogs(any())).thenReturn(window);
+        when(auditLogRepository.markAnchored(anyList(), any(), any())).thenReturn(5);
+
+        assertEquals(5, anchorService.anchorNextWindow());
+
+        ArgumentCaptor<AuditAnchor> anchor = ArgumentCaptor.forClass(AuditAnchor.class);
+        verify(anchorRepository).save(anchor.capture());
+        assertEquals(AuditChainHasher.GENESIS_HASH, anchor.getValue().getPreviousTransactionId());
+        assertEquals(1L, anchor.getValue().getFirstAuditLogId());
+        assertEquals(5L, anchor.getValue().getLastAuditLogId());
+        verify(auditLogRepository).markAnchored(eq(List.of(1L, 2L, 3L, 4L, 5L)),
+                eq(anchor.getValue().getTransactionId()), any());
+
+        List<String> ledger = Files.readAllLines(Path.of(properties.getAudit().getAnchorFile()));
+        assertEquals(1, ledger.size());
+        assertTrue(ledger.get(0).contains(anchor.getValue().getRootHash()));
+    }
+
+    @Test
+    void anchorNextWindow_FailsWhenAnchoredConcurrently() {
+        when(auditLogRepository.findUnanchoredLogs(any())).thenReturn(logs(1, 5));
+        when(auditLogRepository.markAnchored(anyList(), any(), any())).thenReturn(3);
+
+        assertThrows(IllegalStateException.class, () -> anchorService.anchorNextWindow());
+    }
+
+    @Test
+    void anchorNextWindow_StopsAtMonthBoundary() {
+        List<AuditLog> window = logs(1, 5);
+        window.get(3).setCreatedAt(LocalDateTime.of(2026, 2, 1, 0, 0));
+        window.get(4).setCreatedAt(LocalDateTime.of(2026, 2, 1, 0, 1));
+        when(auditLogRepository.findUnanchoredLogs(any())).thenReturn(window);
+        when(auditLogRepository.markAnchored(anyList(), any(), any())).thenReturn(3);
+
+        assertEquals(3, anchorService.anchorNextWindow());
+        verify(auditLogRepository).markAnchored(eq(List.of(1L, 2L, 3L)), any(), any());
+    }
+
+    @Test
+    void ledger_ChainsAcrossRestarts() {
+        AuditAnchorLedger first = new AuditAnchorLedger(properties, new ObjectMapper());
+        AuditAnchor anchor = anchor();
+        first.append(anchor);
+
+        AuditAnchorLedger restarted = new AuditAnchorLedger(properties, new ObjectMapper());
+        AuditAnchor next = anchor();
+        restarted.append(next);
+
+        assertEquals(anchor.getTransactionId(), next.getPreviousTransactionId());
+        assertEquals(AuditAnchorLedger.transactionId(next), next.getTransactionId());
+    }
+
+    @Test
+    void getProof_ProvesEveryRecordInWindow() {
+        List<AuditLog> window = anchorWindow(logs(1, 7));
+
+        for (AuditLog auditLog : window) {
+            AuditAnchorProofResponse proof = anchorService.getProof(auditLog.getId());
+
+            assertTrue(proof.getVerified());
+            assertEquals(7, proof.getLeafCount());
+            assertTrue(proof.getProof().size() <= 3);
+        }
+    }
+
+    @Test
+    void getProof_FailsForTamperedRecord() {
+        List<AuditLog> window = anchorWindow(logs(1, 7));
+        window.get(3).setCurrentHash("f".repeat(64));
+
+        assertFalse(anchorService.getProof(4L).getVerified());
+    }
+
+    @Test
+    void getProof_ProvesArchivedRecordFromItsSegment() {
+        List<AuditLog> window = anchorWindow(logs(1, 7));
+        AuditAnchor anchor = anchorRepository.findByTransactionId(window.get(0).getBlockchainTransactionId())
+                .orElseThrow();
+        List<AuditLog> segment = new ArrayList<>(logs(8, 3));
+        segment.addAll(0, window);
+        when(auditLogRepository.findById(5L)).thenReturn(Optional.empty());
+        when(anchorRepository.findByFirstAuditLogIdLessThanEqualAndLastAuditLogIdGreaterThanEqual(5L, 5L))
+                .thenReturn(List.of(anchor));
+        when(segmentStore.findByIdRange(1L, 7L)).thenReturn(segment.subList(0, 7));
+
+        AuditAnchorProofResponse proof = anchorService.getProof(5L);
+
+        assertTrue(proof.getVerified());
+        assertEquals(4, proof.getLeafIndex());
+        assertEquals(7, proof.getLeafCount());
+    }
+
+    @Test
+    void getProof_NotFoundInTableOrArchive() {
+        when(auditLogRepository.findById(42L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> anchorService.getProof(42L));
+        verifyNoInteractions(segmentStore);
+    }
+
+    @Test
+    void getProof_NotAnchored() {
+        AuditLog auditLog = logs(1, 1).get(0);
+        when(auditLogRepository.findById(1L)).thenReturn(Optional.of(auditLog));
+
+        assertThrows(ResourceNotFoundException.class, () -> anchorService.getProof(1L));
+    }
+
+    private List<AuditLog> anchorWindow(List<AuditLog> window) {
+        properties.getAudit().setAnchorWindowSize(window.size());
+        when(auditLogRepository.findUnanchoredLogs(any())).thenReturn(window);
+        when(auditLogRepository.markAnchored(anyList(), any(), any())).thenReturn(window.size());
+        anchorService.anchorNextWindow();
+
+        ArgumentCaptor<AuditAnchor> captor = ArgumentCaptor.forClass(AuditAnchor.class);
+        verify(anchorRepository).save(captor.capture());
+        AuditAnchor anchor = captor.getValue();
+        for (AuditLog auditLog : window) {
+            auditLog.setBlockchainTransactionId(anchor.getTransactionId());
+            when(auditLogRepository.findById(auditLog.getId())).thenReturn(Optional.of(auditLog));
+        }
+        when(anchorRepository.findByTransactionId(anchor.getTransactionId())).thenReturn(Optional.of(anchor));
+        when(auditLogRepository.findByBlockchainTransactionIdOrderById(anchor.getTransactionId())).thenReturn(window);
+        return window;
+    }
+
+    private AuditAnchor anchor() {
+        AuditAnchor anchor = new AuditAnchor();
+        anchor.setRootHash("a".repeat(64));
+        anchor.setLeafCount(1);
+        anchor.setFirstAuditLogId(1L);
+        anchor.setLastAuditLogId(1L);
+        anchor.setAnchoredAt(LocalDateTime.of(2026, 1, 1, 0, 0));
+        return anchor;
+    }
+
+    private List<AuditLog> logs(long firstId, int count) {
+        List<AuditLog> logs = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            AuditLog auditLog = new AuditLog();
+            auditLog.setId(id);
+            auditLog.setCurrentHash(String.format("%064x", id));
+            auditLog.setCreatedAt(LocalDateTime.of(2026, 1, 1, 0, 0).plusMinutes(id));
+            logs.add(auditLog);
+        }
+        return logs;
+    }
+}
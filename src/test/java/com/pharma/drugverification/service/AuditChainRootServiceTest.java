@@ -0,0 +1,68 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.AuditChainRoot;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.repository.AuditChainRootRepository;
+import com.pharma.drugverification.repository.AuditLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AuditChainRootServiceTest {
+
+    private AuditLogRepository auditLogRepository;
+    private AuditChainRootRepository chainRootRepository;
+    private AuditChainRootService auditChainRootService;
+
+    @BeforeEach
+    void setUp() {
+        auditLogRepository = mock(AuditLogRepository.class);
+        chainRootRepository = mock(AuditChainRootRepository.class);
+        auditChainRootService = new AuditChainRootService(auditLogRepository, chainRootRepository);
+    }
+
+    @Test
+    void publishRoot_SavesRootWhenHeadsMoved() {
+        when(auditLogRepository.findChainHeads()).thenReturn(List.of(head(0, 5L, "aa"), head(1, 3L, "bb")));
+        when(chainRootRepository.findTopByOrderByIdDesc()).thenReturn(Optional.empty());
+
+        auditChainRootService.publishRoot();
+
+        verify(chainRootRepository).save(argThat(root -> root.getPartitionCount() == 2
+                && root.getHeads().containsKey("0") && root.getRootHash().length() == 64));
+    }
+
+    @Test
+    void publishRoot_SkipsWhenHeadsUnchanged() {
+        List<AuditLog> heads = List.of(head(0, 5L, "aa"), head(1, 3L, "bb"));
+        when(auditLogRepository.findChainHeads()).thenReturn(heads);
+        AuditChainRoot previous = AuditChainRootService.buildRoot(heads);
+        when(chainRootRepository.findTopByOrderByIdDesc()).thenReturn(Optional.of(previous));
+
+        auditChainRootService.publishRoot();
+
+        verify(chainRootRepository, never()).save(any());
+    }
+
+    @Test
+    void buildRoot_ChangesWhenAnyHeadChanges() {
+        AuditChainRoot before = AuditChainRootService.buildRoot(List.of(head(0, 5L, "aa"), head(1, 3L, "bb")));
+        AuditChainRoot after = AuditChainRootService.buildRoot(List.of(head(0, 5L, "aa"), head(1, 4L, "cc")));
+
+        assertNotEquals(before.getRootHash(), after.getRootHash());
+    }
+
+    private AuditLog head(int partition, long sequence, String hash) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setChainPartition(partition);
+        auditLog.setChainSequence(sequence);
+        auditLog.setCurrentHash(hash);
+        return auditLog;
+    }
+}
@@ -0,0 +1,240 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.domain.AuditVerificationCheckpoint;
+import com.pharma.drugverification.dto.AuditVerificationStatus;
+import com.pharma.drugverification.repository.AuditVerificationCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AuditChainVerifierTest {
+
+    private AuditVerificationCheckpointRepository checkpointRepository;
+    private AuditChainVerifier verifier;
+    private final List<AuditVerificationCheckpoint> savedCheckpoints = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        checkpointRepository = mock(AuditVerificationCheckpointRepository.class);
+        when(checkpointRepository.findTopByOrderByIdDesc()).thenReturn(Optional.empty());
+        when(checkpointRepository.save(any())).thenAnswer(invocation -> {
+            AuditVerificationCheckpoint checkpoint = invocation.getArgument(0);
+            checkpoint.setId((long) savedCheckpoints.size() + 1);
+            savedCheckpoints.add(checkpoint);
+            return checkpoint;
+        });
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.getDataSource()).thenReturn(mock(DataSource.class));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getJwt().setSecret("test-secret");
+        properties.getAudit().setVerificationParallelism(2);
+        properties.getAudit().setVerificationSegmentSize(3);
+        properties.getAudit().setCheckpointEveryRows(4);
+
+        verifier = new AuditChainVerifier(checkpointRepository, jdbcTemplate, transactionManager,
+                new ObjectMapper(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        verifier.shutdown();
+    }
+
+    @Test
+    void verify_ValidChainsAcrossSegments() {
+        List<AuditLog> rows = chains(20, 3);
+
+        verifier.verify(20, source(rows));
+
+        AuditVerificationStatus status = verifier.getStatus();
+        assertEquals(AuditVerificationStatus.State.VERIFIED, status.getState());
+        assertEquals(20L, status.getLastVerifiedId());
+        assertEquals(20L, status.getRowsVerified());
+        assertNull(status.getBrokenLink());
+
+        AuditVerificationCheckpoint last = savedCheckpoints.get(savedCheckpoints.size() - 1);
+        assertEquals(20L, last.getLastVerifiedId());
+        assertEquals(verifier.sign(20, 20, last.getHeads()), last.getSignature());
+    }
+
+    @Test
+    void verify_DetectsTamperedRecord() {
+        List<AuditLog> rows = chains(20, 3);
+        rows.get(10).setAction("TAMPERED");
+
+        verifier.verify(20, source(rows));
+
+        AuditVerificationStatus status = verifier.getStatus();
+        assertEquals(AuditVerificationStatus.State.BROKEN, status.getState());
+        assertEquals(11L, status.getBrokenLink().getAuditLogId());
+        assertTrue(status.getLastVerifiedId() < 11L);
+    }
+
+    @Test
+    void verify_DetectsDeletedRecord() {
+        List<AuditLog> rows = chains(20, 3);
+        // Record 8 is the third entry of partition 1; its successor is record 11
+        rows.remove(7);
+
+        verifier.verify(20, source(rows));
+
+        AuditVerificationStatus status = verifier.getStatus();
+        assertEquals(AuditVerificationStatus.State.BROKEN, status.getState());
+        assertEquals(11L, status.getBrokenLink().getAuditLogId());
+        assertEquals(1, status.getBrokenLink().getChainPartition());
+    }
+
+    @Test
+    void verify_SkipsForkedLegacyRecords() {
+        List<AuditLog> rows = new ArrayList<>();
+        for (long id = 1; id <= 6; id++) {
+            // Two legacy writers linked onto the same predecessor
+            AuditLog legacy = new AuditLog();
+            legacy.setId(id);
+            legacy.setAction("LEGACY");
+            legacy.setUserId(1L);
+            legacy.setChainPartition(AuditChainVerifier.LEGACY_PARTITION);
+            legacy.setChainSequence(id);
+            legacy.setPreviousHash("legacy-fork");
+            legacy.setCurrentHash("legacy-" + id);
+            legacy.setCreatedAt(LocalDateTime.of(2025, 1, 1, 0, 0));
+            rows.add(legacy);
+        }
+        rows.addAll(chains(7, 14, 3));
+
+        verifier.verify(20, source(rows));
+
+        AuditVerificationStatus status = verifier.getStatus();
+        assertEquals(AuditVerificationStatus.State.VERIFIED, status.getState());
+        assertEquals(20L, status.getLastVerifiedId());
+        assertNull(status.getBrokenLink());
+    }
+
+    @Test
+    void verify_ResumesFromCheckpoint() {
+        List<AuditLog> rows = chains(30, 3);
+        verifier.verify(20, source(rows.subList(0, 20)));
+        AuditVerificationCheckpoint checkpoint = savedCheckpoints.get(savedCheckpoints.size() - 1);
+        when(checkpointRepository.findTopByOrderByIdDesc()).thenReturn(Optional.of(checkpoint));
+
+        List<Long> fromIds = new ArrayList<>();
+        verifier.verify(30, (fromId, sink) -> {
+            fromIds.add(fromId);
+            rows.stream().filter(row -> row.getId() > fromId).forEach(sink);
+        });
+
+        AuditVerificationStatus status = verifier.getStatus();
+        assertEquals(List.of(20L), fromIds);
+        assertEquals(AuditVerificationStatus.State.VERIFIED, status.getState());
+        assertEquals(30L, status.getLastVerifiedId());
+        assertEquals(30L, status.getRowsVerified());
+        assertFalse(status.getCheckpointRejected());
+    }
+
+    @Test
+    void verify_RejectsForgedCheckpoint() {
+        AuditVerificationCheckpoint forged = new AuditVerificationCheckpoint();
+        forged.setId(99L);
+        forged.setLastVerifiedId(15L);
+        forged.setRowsVerified(15L);
+        forged.setHeads(Map.of());
+        forged.setSignature("00".repeat(32));
+        when(checkpointRepository.findTopByOrderByIdDesc()).thenReturn(Optional.of(forged));
+
+        List<Long> fromIds = new ArrayList<>();
+        List<AuditLog> rows = chains(20, 3);
+        verifier.verify(20, (fromId, sink) -> {
+            fromIds.add(fromId);
+            rows.stream().filter(row -> row.getId() > fromId).forEach(sink);
+        });
+
+        AuditVerificationStatus status = verifier.getStatus();
+        assertEquals(List.of(0L), fromIds);
+        assertTrue(status.getCheckpointRejected());
+        assertEquals(AuditVerificationStatus.State.VERIFIED, status.getState());
+        assertEquals(20L, status.getRowsVerified());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void verify_AcceptsChangesReadBackFromJson() throws Exception {
+        List<AuditLog> rows = chains(6, 2);
+        AuditLog excursion = rows.get(5);
+        excursion.setChanges(Map.of("minTemperature", new BigDecimal("9.50"), "maxTemperature", 12,
+                "startedAt", LocalDateTime.of(2026, 1, 1, 8, 30)));
+        excursion.setCurrentHash(AuditChainHasher.hash(excursion));
+
+        // As stored in JSONB and parsed back into a plain map, where 9.50 becomes 9.5
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        excursion.setChanges(objectMapper.readValue(objectMapper.writeValueAsString(excursion.getChanges()),
+                Map.class));
+        assertEquals(9.5, excursion.getChanges().get("minTemperature"));
+
+        verifier.verify(6, source(rows));
+
+        assertEquals(AuditVerificationStatus.State.VERIFIED, verifier.getStatus().getState());
+    }
+
+    private AuditChainVerifier.RowSource source(List<AuditLog> rows) {
+        return (fromId, sink) -> rows.stream().filter(row -> row.getId() > fromId).forEach(sink);
+    }
+
+    /**
+     * Records 1..count spread round-robin over the given partitions, each
+     * correctly linked and hashed.
+     */
+    private List<AuditLog> chains(int count, int partitions) {
+        return chains(1, count, partitions);
+    }
+
+    private List<AuditLog> chains(long firstId, int count, int partitions) {
+        Map<Integer, AuditLog> heads = new HashMap<>();
+        List<AuditLog> rows = new ArrayList<>();
+        LocalDateTime createdAt = LocalDateTime.of(2026, 1, 1, 0, 0);
+        for (long id = firstId; id < firstId + count; id++) {
+            int partition = (int) ((id - firstId) % partitions);
+            AuditLog previous = heads.get(partition);
+
+            AuditLog row = new AuditLog();
+            row.setId(id);
+            row.setAction("UPDATE_BATCH");
+            row.setEntityType("Batch");
+            row.setEntityId(id);
+            row.setUserId(1L);
+            row.setUsername("admin");
+            row.setChanges(Map.of("status", "ACTIVE"));
+            row.setChainPartition(partition);
+            row.setChainSequence(previous != null ? previous.getChainSequence() + 1 : 1L);
+            row.setPreviousHash(previous != null ? previous.getCurrentHash() : AuditChainHasher.GENESIS_HASH);
+            row.setCreatedAt(createdAt.plusSeconds(id));
+            row.setCurrentHash(AuditChainHasher.hash(row));
+
+            heads.put(partition, row);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
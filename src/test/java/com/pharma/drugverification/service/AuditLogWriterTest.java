@@ -0,0 +1,342 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.domain.User;
+import com.pharma.drugverification.dto.UserSnapshot;
+import com.pharma.drugverification.repository.AuditLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuditLogWriterTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private AuditLogRepository auditLogRepository;
+    private JdbcTemplate jdbcTemplate;
+    private UserDirectoryService userDirectoryService;
+    private PlatformTransactionManager transactionManager;
+    private SimpleMeterRegistry meterRegistry;
+    private AuditLogWriter writer;
+    private List<AuditLog> saved;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        auditLogRepository = mock(AuditLogRepository.class);
+        userDirectoryService = mock(UserDirectoryService.class);
+        saved = Collections.synchronizedList(new ArrayList<>());
+        when(auditLogRepository.findTopByChainPartitionOrderByChainSequenceDesc(anyInt()))
+                .thenAnswer(invocation -> storedHead(invocation.getArgument(0)));
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(this::save);
+
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        meterRegistry = new SimpleMeterRegistry();
+
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getAudit().setChainPartitions(4);
+        properties.getAudit().setBatchSize(50);
+        properties.getAudit().setFlushIntervalMs(5);
+        properties.getAudit().setSpillDirectory(spillDirectory.toString());
+        writer = new AuditLogWriter(auditLogRepository, jdbcTemplate, new ObjectMapper().findAndRegisterModules(),
+                userDirectoryService, transactionManager, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer.isRunning()) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void drain_LinksRecordsOfSameEntityInOneChain() {
+        writer.append(record("Batch", 10L, Map.of("status", "ACTIVE")));
+        writer.append(record("Batch", 10L, Map.of("status", "RECALLED")));
+
+        writer.drain();
+
+        assertEquals(2, saved.size());
+        AuditLog first = saved.get(0);
+        AuditLog second = saved.get(1);
+        assertEquals(first.getChainPartition(), second.getChainPartition());
+        assertEquals(1L, first.getChainSequence());
+        assertEquals(2L, second.getChainSequence());
+        assertEquals(AuditChainHasher.GENESIS_HASH, first.getPreviousHash());
+        assertEquals(first.getCurrentHash(), second.getPreviousHash());
+        assertEquals(AuditChainHasher.hash(second), second.getCurrentHash());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_CommitsOneTransactionPerBatch() {
+        for (int i = 0; i < 120; i++) {
+            writer.append(record("SerializedUnit", (long) i, null));
+        }
+
+        writer.drain();
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(transactionManager, times(3)).commit(any());
+        assertEquals(120, saved.size());
+        assertEquals(0, writer.getQueueDepth());
+    }
+
+    @Test
+    void drain_ResolvesUsernamesOncePerBatch() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("regulator");
+        user.setRole(User.UserRole.REGULATOR);
+        user.setActive(true);
+        when(userDirectoryService.getUser(1L)).thenReturn(UserSnapshot.from(user));
+
+        writer.append(record("Batch", 1L, null));
+        writer.append(record("Batch", 2L, null));
+        writer.drain();
+
+        verify(userDirectoryService, times(1)).getUser(1L);
+        assertTrue(saved.stream().allMatch(auditLog -> "regulator".equals(auditLog.getUsername())));
+    }
+
+    @Test
+    void drain_ContinuesFromStoredHead() {
+        int partition = writer.partitionFor("Batch", 10L);
+        AuditLog head = new AuditLog();
+        head.setChainPartition(partition);
+        head.setChainSequence(41L);
+        head.setCurrentHash("stored-head");
+        when(auditLogRepository.findTopByChainPartitionOrderByChainSequenceDesc(partition))
+                .thenReturn(Optional.of(head));
+
+        writer.append(record("Batch", 10L, null));
+        writer.drain();
+
+        assertEquals(42L, saved.get(0).getChainSequence());
+        assertEquals("stored-head", saved.get(0).getPreviousHash());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_RelinksBatchAfterConcurrentAppendFromAnotherNode() {
+        int partition = writer.partitionFor("Batch", 10L);
+        AuditLog otherNode = new AuditLog();
+        otherNode.setChainPartition(partition);
+        otherNode.setChainSequence(1L);
+        otherNode.setCurrentHash("other-node");
+        when(auditLogRepository.findTopByChainPartitionOrderByChainSequenceDesc(partition))
+                .thenReturn(Optional.empty(), Optional.of(otherNode));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataIntegrityViolationException("idx_audit_chain_position"))
+                .thenAnswer(this::save);
+
+        writer.append(record("Batch", 10L, null));
+        writer.drain();
+
+        assertEquals(2L, saved.get(0).getChainSequence());
+        assertEquals("other-node", saved.get(0).getPreviousHash());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_LocksPartitionBeforeReadingItsHead() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn("PostgreSQL");
+        int partition = writer.partitionFor("Batch", 10L);
+        AuditLog otherNode = new AuditLog();
+        otherNode.setChainPartition(partition);
+        otherNode.setChainSequence(1L);
+        otherNode.setCurrentHash("other-node");
+        when(auditLogRepository.findTopByChainPartitionOrderByChainSequenceDesc(partition))
+                .thenReturn(Optional.of(otherNode));
+
+        writer.append(record("Batch", 10L, null));
+        writer.drain();
+
+        InOrder inOrder = inOrder(jdbcTemplate, auditLogRepository);
+        inOrder.verify(jdbcTemplate).query(eq(AuditLogWriter.LOCK_SQL), any(RowCallbackHandler.class),
+                eq(AuditLogWriter.CHAIN_LOCK_CLASS), eq(partition));
+        inOrder.verify(auditLogRepository).findTopByChainPartitionOrderByChainSequenceDesc(partition);
+        inOrder.verify(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1, saved.size());
+        assertEquals(2L, saved.get(0).getChainSequence());
+        assertEquals("other-node", saved.get(0).getPreviousHash());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_SpillsEntriesThatCannotBeWrittenAndReplaysThemLater() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new IllegalStateException("database down"));
+        writer.append(record("Batch", 10L, Map.of("status", "RECALLED")));
+        writer.append(record("Batch", 11L, null));
+
+        writer.drain();
+
+        assertTrue(saved.isEmpty());
+        assertEquals(2.0, meterRegistry.get("audit.writer.spilled").counter().count());
+        assertEquals(2, Files.readAllLines(spillDirectory.resolve("audit-entries.spill")).size());
+
+        reset(jdbcTemplate);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(this::save);
+        writer.replaySpillFile();
+
+        assertEquals(List.of(10L, 11L), saved.stream().map(AuditLog::getEntityId).toList());
+        assertEquals(Map.of("status", "RECALLED"), saved.get(0).getChanges());
+        assertTrue(saved.stream()
+                .allMatch(auditLog -> auditLog.getCurrentHash().equals(AuditChainHasher.hash(auditLog))));
+        assertFalse(Files.exists(spillDirectory.resolve("audit-entries.spill")));
+        assertFalse(Files.exists(spillDirectory.resolve("audit-entries.replay")));
+    }
+
+    @Test
+    void writerThread_ProducesUnforkedChainsUnderConcurrentAppends() throws Exception {
+        writer.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            long entityId = i % 25;
+            executor.execute(() -> writer.append(record("SerializedUnit", entityId, Map.of("n", entityId))));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        writer.stop();
+
+        assertEquals(400, saved.size());
+        Map<Integer, List<AuditLog>> chains = saved.stream()
+                .collect(Collectors.groupingBy(AuditLog::getChainPartition));
+        for (List<AuditLog> chain : chains.values()) {
+            String previousHash = AuditChainHasher.GENESIS_HASH;
+            for (int i = 0; i < chain.size(); i++) {
+                AuditLog auditLog = chain.get(i);
+                assertEquals(i + 1, auditLog.getChainSequence());
+                assertEquals(previousHash, auditLog.getPreviousHash());
+                assertEquals(AuditChainHasher.hash(auditLog), auditLog.getCurrentHash());
+                previousHash = auditLog.getCurrentHash();
+            }
+        }
+    }
+
+    @Test
+    void hash_DetectsTamperedChanges() {
+        writer.append(record("Recall", 3L, Map.of("quarantinedCount", 120)));
+        writer.drain();
+        AuditLog appended = saved.get(0);
+
+        appended.setChanges(Map.of("quarantinedCount", 12));
+
+        assertNotEquals(appended.getCurrentHash(), AuditChainHasher.hash(appended));
+    }
+
+    @Test
+    void drain_StoresChangesThatRehashToTheSameValue() {
+        JdbcTemplate h2 = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:audit-writer;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "sa"));
+        h2.execute("CREATE TABLE audit_logs (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                + "action VARCHAR(100) NOT NULL, entity_type VARCHAR(50), entity_id BIGINT, user_id BIGINT NOT NULL, "
+                + "username VARCHAR(100), ip_address VARCHAR(100), user_agent VARCHAR(500), changes JSONB, "
+                + "chain_partition INT NOT NULL, chain_sequence BIGINT NOT NULL, previous_hash VARCHAR(64), "
+                + "current_hash VARCHAR(64) NOT NULL, blockchain_transaction_id VARCHAR(255), "
+                + "blockchain_anchored_at TIMESTAMP, created_at TIMESTAMP NOT NULL)");
+        try {
+            ApplicationProperties properties = new ApplicationProperties();
+            AuditLogWriter h2Writer = new AuditLogWriter(auditLogRepository, h2, new ObjectMapper(),
+                    userDirectoryService, transactionManager, properties, meterRegistry);
+            AuditLog excursion = record("TemperatureExcursion", 5L, Map.of("minTemperature", new BigDecimal("9.50"),
+                    "startedAt", LocalDateTime.of(2026, 1, 1, 8, 30)));
+            excursion.setCreatedAt(LocalDateTime.of(2026, 1, 1, 9, 0));
+            h2Writer.append(excursion);
+            h2Writer.drain();
+
+            List<AuditLog> stored = h2.query("SELECT " + AuditLogRowMapper.COLUMNS + " FROM audit_logs",
+                    new AuditLogRowMapper(new ObjectMapper()));
+            assertEquals(1, stored.size());
+            assertEquals(stored.get(0).getCurrentHash(), AuditChainHasher.hash(stored.get(0)));
+        } finally {
+            h2.execute("DROP TABLE audit_logs");
+        }
+    }
+
+    private Optional<AuditLog> storedHead(int partition) {
+        synchronized (saved) {
+            return saved.stream()
+                    .filter(auditLog -> auditLog.getChainPartition() == partition)
+                    .max(Comparator.comparing(AuditLog::getChainSequence));
+        }
+    }
+
+    private int[][] save(InvocationOnMock invocation) {
+        Collection<AuditLog> batch = invocation.getArgument(1);
+        batch.forEach(auditLog -> saved.add(copy(auditLog)));
+        return new int[0][];
+    }
+
+    private AuditLog record(String entityType, Long entityId, Map<String, Object> changes) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setAction("TEST_ACTION");
+        auditLog.setEntityType(entityType);
+        auditLog.setEntityId(entityId);
+        auditLog.setUserId(1L);
+        auditLog.setChanges(changes);
+        auditLog.setCreatedAt(LocalDateTime.now());
+        return auditLog;
+    }
+
+    private static AuditLog copy(AuditLog source) {
+        AuditLog copy = new AuditLog();
+        copy.setAction(source.getAction());
+        copy.setEntityType(source.getEntityType());
+        copy.setEntityId(source.getEntityId());
+        copy.setUserId(source.getUserId());
+        copy.setUsername(source.getUsername());
+        copy.setChanges(source.getChanges());
+        copy.setChainPartition(source.getChainPartition());
+        copy.setChainSequence(source.getChainSequence());
+        copy.setPreviousHash(source.getPreviousHash());
+        copy.setCurrentHash(source.getCurrentHash());
+        copy.setCreatedAt(source.getCreatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,144 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.repository.AuditSegmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class AuditSegmentArchiverTest {
+
+    private static final String TABLE = "audit_logs_2020_01";
+    private static final AuditPartitionManager.AuditPartition PARTITION = new AuditPartitionManager.AuditPartition(
+            TABLE, LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.of(2020, 2, 1, 0, 0));
+
+    @TempDir
+    Path archiveDirectory;
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+    private AuditSegmentRepository segmentRepository;
+    private AuditSegmentStore segmentStore;
+    private AuditChainVerifier chainVerifier;
+    private AuditSegmentArchiver archiver;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // The archive cursor runs on its own JdbcTemplate; here it reads an empty partition
+        ResultSet resultSet = mock(ResultSet.class);
+        Statement statement = mock(Statement.class);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        Connection connection = mock(Connection.class);
+        when(connection.createStatement()).thenReturn(statement);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.getDataSource()).thenReturn(dataSource);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        segmentRepository = mock(AuditSegmentRepository.class);
+        segmentStore = mock(AuditSegmentStore.class);
+        chainVerifier = mock(AuditChainVerifier.class);
+
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getAudit().setArchiveDirectory(archiveDirectory.toString());
+        archiver = new AuditSegmentArchiver(jdbcTemplate, transactionManager, segmentRepository, segmentStore,
+                chainVerifier, new ObjectMapper(), properties);
+
+        // By default the partition is ready to archive
+        stubCount("SELECT COUNT(*) FROM " + TABLE + " WHERE blockchain_transaction_id IS NULL", 0L);
+        when(jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + TABLE, Long.class)).thenReturn(100L);
+        when(chainVerifier.verifiedUpTo()).thenReturn(100L);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM audit_logs WHERE id < ?"), eq(Long.class),
+                anyLong(), any(Timestamp.class))).thenReturn(0L);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM (SELECT chain_partition"), eq(Long.class)))
+                .thenReturn(0L);
+    }
+
+    @Test
+    void archiveBlocker_NoneForAnchoredVerifiedClosedPartition() {
+        assertNull(archiver.archiveBlocker(PARTITION));
+    }
+
+    @Test
+    void archiveBlocker_UnanchoredRecords() {
+        stubCount("SELECT COUNT(*) FROM " + TABLE + " WHERE blockchain_transaction_id IS NULL", 3L);
+
+        assertEquals("3 records are not anchored yet", archiver.archiveBlocker(PARTITION));
+        verify(chainVerifier, never()).verifiedUpTo();
+    }
+
+    @Test
+    void archiveBlocker_RecordsPastTheVerificationCheckpoint() {
+        when(chainVerifier.verifiedUpTo()).thenReturn(99L);
+
+        assertEquals("records are not covered by a verification checkpoint yet", archiver.archiveBlocker(PARTITION));
+    }
+
+    @Test
+    void archiveBlocker_LaterPartitionsHoldLowerIds() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM audit_logs WHERE id < ?"), eq(Long.class),
+                eq(100L), eq(Timestamp.valueOf(PARTITION.to())))).thenReturn(2L);
+
+        assertEquals("later partitions hold records with lower ids", archiver.archiveBlocker(PARTITION));
+    }
+
+    @Test
+    void archiveBlocker_PartitionHoldsChainHeads() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM (SELECT chain_partition"), eq(Long.class)))
+                .thenReturn(2L);
+
+        assertEquals("it holds the head of 2 audit chains", archiver.archiveBlocker(PARTITION));
+    }
+
+    @Test
+    void archiveClosedPartitions_StopsAtBlockedPartition() throws Exception {
+        stubCount("SELECT COUNT(*) FROM " + TABLE + " WHERE blockchain_transaction_id IS NULL", 1L);
+
+        archiver.archiveClosedPartitions(List.of(PARTITION));
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verifyNoInteractions(segmentRepository, segmentStore);
+    }
+
+    @Test
+    void archiveClosedPartitions_RollsBackWhenRecountDiffers() {
+        // A row arrived after the cursor read the (empty) partition
+        stubCount("SELECT COUNT(*) FROM " + TABLE, 1L);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> archiver.archiveClosedPartitions(List.of(PARTITION)));
+
+        assertEquals("Audit partition " + TABLE + " changed while archiving", failure.getMessage());
+        verify(transactionManager).rollback(any());
+        verify(segmentRepository, never()).save(any());
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(segmentStore, never()).refresh();
+    }
+
+    private void stubCount(String sql, long count) {
+        when(jdbcTemplate.queryForObject(sql, Long.class)).thenReturn(count);
+    }
+}
@@ -0,0 +1,146 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.domain.AuditSegment;
+import com.pharma.drugverification.repository.AuditSegmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuditSegmentStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private AuditSegmentRepository segmentRepository;
+    private AuditSegmentStore segmentStore;
+
+    @BeforeEach
+    void setUp() {
+        segmentRepository = mock(AuditSegmentRepository.class);
+        segmentStore = new AuditSegmentStore(segmentRepository, objectMapper);
+    }
+
+    @Test
+    void findByEntity_ReadsOnlyMatchingRecords() throws Exception {
+        AuditSegment segment = writeSegment("audit_logs_y2026m01", records());
+        when(segmentRepository.findAllByOrderByRangeEndAsc()).thenReturn(List.of(segment));
+
+        List<AuditLog> batch7 = segmentStore.findByEntity("Batch", 7L);
+
+        assertEquals(5, batch7.size());
+        assertTrue(batch7.stream().allMatch(log -> log.getEntityId() == 7L && "Batch".equals(log.getEntityType())));
+        assertEquals(Map.of("status", "ACTIVE"), batch7.get(0).getChanges());
+        assertEquals(0, segmentStore.findByEntity("Batch", 99L).size());
+        assertEquals(5, segmentStore.findByEntity("Drug", 3L).size());
+        // Small blocks, so the sparse index has to skip most of them
+        assertTrue(segment.getBlockIndex().size() > 10);
+    }
+
+    @Test
+    void findByIdRange_ReadsRecordsInIdOrderAcrossBlocks() throws Exception {
+        AuditSegment segment = writeSegment("audit_logs_y2026m03", records());
+        when(segmentRepository.findAllByOrderByRangeEndAsc()).thenReturn(List.of(segment));
+
+        List<AuditLog> range = segmentStore.findByIdRange(20L, 29L);
+
+        assertEquals(List.of(20L, 21L, 22L, 23L, 24L, 25L, 26L, 27L, 28L, 29L),
+                range.stream().map(AuditLog::getId).toList());
+        assertTrue(segmentStore.findByIdRange(500L, 600L).isEmpty());
+    }
+
+    @Test
+    void findByEntity_RejectsCorruptedSegment() throws Exception {
+        AuditSegment segment = writeSegment("audit_logs_y2026m02", records());
+        when(segmentRepository.findAllByOrderByRangeEndAsc()).thenReturn(List.of(segment));
+        Files.write(Path.of(segment.getFilePath()), new byte[]{0}, StandardOpenOption.APPEND);
+
+        assertThrows(UncheckedIOException.class, () -> segmentStore.findByEntity("Batch", 7L));
+    }
+
+    @Test
+    void writer_RejectsRecordsOutOfOrder() throws Exception {
+        try (AuditSegmentFile.Writer writer = new AuditSegmentFile.Writer(tempDir.resolve("unordered.seg"),
+                objectMapper, 4)) {
+            writer.append(record(2L, "Drug", 1L));
+            assertThrows(IllegalArgumentException.class, () -> writer.append(record(3L, "Batch", 1L)));
+        }
+    }
+
+    @Test
+    void partitionBounds_AreParsed() {
+        AuditPartitionManager.AuditPartition legacy = AuditPartitionManager.parse("audit_logs_legacy",
+                "FOR VALUES FROM (MINVALUE) TO ('2026-11-01 00:00:00')");
+        AuditPartitionManager.AuditPartition month = AuditPartitionManager.parse("audit_logs_y2026m11",
+                "FOR VALUES FROM ('2026-11-01 00:00:00') TO ('2026-12-01 00:00:00')");
+
+        assertTrue(legacy.covers(LocalDateTime.of(2020, 1, 1, 0, 0)));
+        assertFalse(legacy.covers(LocalDateTime.of(2026, 11, 1, 0, 0)));
+        assertTrue(month.covers(LocalDateTime.of(2026, 11, 1, 0, 0)));
+        assertEquals("audit_logs_y2026m11", AuditPartitionManager.partitionName(YearMonth.of(2026, 11)));
+    }
+
+    private AuditSegment writeSegment(String name, List<AuditLog> records) throws Exception {
+        records.sort((a, b) -> AuditSegmentFile.KEY_ORDER.compare(AuditSegmentFile.Key.of(a),
+                AuditSegmentFile.Key.of(b)));
+        AuditSegment segment = new AuditSegment();
+        segment.setId((long) name.hashCode());
+        segment.setPartitionName(name);
+        try (AuditSegmentFile.Writer writer = new AuditSegmentFile.Writer(tempDir.resolve(name + ".seg"),
+                objectMapper, 4)) {
+            for (AuditLog record : records) {
+                writer.append(record);
+            }
+            writer.finish(segment);
+        }
+        return segment;
+    }
+
+    private List<AuditLog> records() {
+        List<AuditLog> records = new ArrayList<>();
+        long id = 1;
+        for (long entityId = 1; entityId <= 10; entityId++) {
+            for (int i = 0; i < 5; i++) {
+                records.add(record(id++, "Batch", entityId));
+                records.add(record(id++, "Drug", entityId));
+            }
+        }
+        records.add(record(id, null, null));
+        return records;
+    }
+
+    private AuditLog record(long id, String entityType, Long entityId) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setId(id);
+        auditLog.setAction("UPDATE");
+        auditLog.setEntityType(entityType);
+        auditLog.setEntityId(entityId);
+        auditLog.setUserId(1L);
+        auditLog.setChanges(Map.of("status", "ACTIVE"));
+        auditLog.setChainPartition(0);
+        auditLog.setChainSequence(id);
+        auditLog.setCurrentHash(String.format("%064x", id));
+        auditLog.setCreatedAt(LocalDateTime.of(2026, 1, 1, 0, 0).plusMinutes(id));
+        return auditLog;
+    }
+}
@@ -0,0 +1,151 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.AuditLog;
+import com.pharma.drugverification.dto.AuditLogFilter;
+import com.pharma.drugverification.dto.AuditLogResponse;
+import com.pharma.drugverification.dto.AuditLogSearchResponse;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.repository.AuditLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AuditServiceTest {
+
+    private AuditLogRepository auditLogRepository;
+    private AuditSegmentStore segmentStore;
+    private AuditService auditService;
+
+    // Ids 1-4 are archived, 5-7 are live
+    private final List<AuditLog> archived = records(1, 4);
+    private final List<AuditLog> live = records(5, 3);
+
+    @BeforeEach
+    void setUp() {
+        auditLogRepository = mock(AuditLogRepository.class);
+        segmentStore = mock(AuditSegmentStore.class);
+        auditService = new AuditService(auditLogRepository, mock(AuditLogWriter.class), segmentStore,
+                new ApplicationProperties());
+
+        when(segmentStore.isEmpty()).thenReturn(false);
+        when(segmentStore.findByEntity("Batch", 7L)).thenReturn(archived);
+        when(auditLogRepository.findByEntityTypeAndEntityId(eq("Batch"), eq(7L), any(Pageable.class)))
+                .thenAnswer(invocation -> livePage(invocation.getArgument(2)));
+    }
+
+    @Test
+    void getLogsByEntity_NewestFirstPutsArchivedAfterLive() {
+        Sort newestFirst = Sort.by(Sort.Direction.DESC, "createdAt");
+
+        Page<AuditLogResponse> first = auditService.getLogsByEntity("Batch", 7L, PageRequest.of(0, 5, newestFirst));
+        Page<AuditLogResponse> second = auditService.getLogsByEntity("Batch", 7L, PageRequest.of(1, 5, newestFirst));
+
+        assertEquals(7, first.getTotalElements());
+        assertEquals(List.of(7L, 6L, 5L, 4L, 3L), ids(first));
+        assertEquals(List.of(2L, 1L), ids(second));
+    }
+
+    @Test
+    void getLogsByEntity_OldestFirstPutsArchivedBeforeLive() {
+        Sort oldestFirst = Sort.by(Sort.Direction.ASC, "createdAt");
+
+        Page<AuditLogResponse> first = auditService.getLogsByEntity("Batch", 7L, PageRequest.of(0, 3, oldestFirst));
+        Page<AuditLogResponse> second = auditService.getLogsByEntity("Batch", 7L, PageRequest.of(1, 3, oldestFirst));
+        Page<AuditLogResponse> third = auditService.getLogsByEntity("Batch", 7L, PageRequest.of(2, 3, oldestFirst));
+
+        assertEquals(List.of(1L, 2L, 3L), ids(first));
+        assertEquals(List.of(4L, 5L, 6L), ids(second));
+        assertEquals(List.of(7L), ids(third));
+        assertEquals(7, third.getTotalElements());
+    }
+
+    @Test
+    void getLogsByEntity_WithoutArchivedRecordsUsesRepositoryPage() {
+        when(segmentStore.isEmpty()).thenReturn(true);
+
+        Page<AuditLogResponse> page = auditService.getLogsByEntity("Batch", 7L, PageRequest.of(0, 5));
+
+        assertEquals(3, page.getTotalElements());
+        verify(segmentStore, never()).findByEntity(any(), any());
+    }
+
+    @Test
+    void searchLogs_ReturnsCursorWhenMoreRowsFollow() {
+        List<AuditLog> newestFirst = new ArrayList<>(live);
+        Collections.reverse(newestFirst);
+        doReturn(newestFirst).when(auditLogRepository).findBy(any(Specification.class), any());
+
+        AuditLogSearchResponse response = auditService.searchLogs(new AuditLogFilter(), null, 2);
+
+        assertEquals(2, response.getSize());
+        assertTrue(response.getHasMore());
+        AuditLog last = AuditService.decodeCursor(response.getNextCursor());
+        assertEquals(6L, last.getId());
+        assertEquals(live.get(1).getCreatedAt(), last.getCreatedAt());
+    }
+
+    @Test
+    void searchLogs_LastPageHasNoCursor() {
+        doReturn(List.of(live.get(0))).when(auditLogRepository).findBy(any(Specification.class), any());
+
+        AuditLogSearchResponse response = auditService.searchLogs(new AuditLogFilter(),
+                AuditService.encodeCursor(live.get(1)), 2);
+
+        assertFalse(response.getHasMore());
+        assertNull(response.getNextCursor());
+    }
+
+    @Test
+    void searchLogs_RejectsBadInput() {
+        AuditLogFilter filter = new AuditLogFilter();
+
+        assertThrows(BadRequestException.class, () -> auditService.searchLogs(filter, "not-a-cursor", 10));
+        assertThrows(BadRequestException.class, () -> auditService.searchLogs(filter, null, 100_000));
+    }
+
+    private Page<AuditLog> livePage(Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor("createdAt");
+        List<AuditLog> sorted = new ArrayList<>(live);
+        if (order == null || order.isDescending()) {
+            Collections.reverse(sorted);
+        }
+        int from = (int) Math.min(pageable.getOffset(), sorted.size());
+        int to = Math.min(from + pageable.getPageSize(), sorted.size());
+        return new PageImpl<>(sorted.subList(from, to), pageable, sorted.size());
+    }
+
+    private List<Long> ids(Page<AuditLogResponse> page) {
+        return page.getContent().stream().map(AuditLogResponse::getId).toList();
+    }
+
+    private static List<AuditLog> records(long firstId, int count) {
+        List<AuditLog> records = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            AuditLog auditLog = new AuditLog();
+            auditLog.setId(id);
+            auditLog.setAction("UPDATE_BATCH");
+            auditLog.setEntityType("Batch");
+            auditLog.setEntityId(7L);
+            auditLog.setUserId(1L);
+            auditLog.setCreatedAt(LocalDateTime.of(2026, 1, 1, 0, 0).plusDays(id));
+            records.add(auditLog);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,160 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.Batch;
+import com.pharma.drugverification.domain.SerializedUnit;
+import com.pharma.drugverification.domain.VerificationRequest;
+import com.pharma.drugverification.domain.VerificationRequest.VerificationResult;
+import com.pharma.drugverification.dto.BatchSnapshot;
+import com.pharma.drugverification.dto.BulkVerificationRequest;
+import com.pharma.drugverification.dto.DrugSnapshot;
+import com.pharma.drugverification.dto.VerificationResponse;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.repository.SerializedUnitRepository;
+import com.pharma.drugverification.repository.VerificationRequestRepository;
+import com.pharma.drugverification.security.HsmService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkVerificationServiceTest {
+
+    @Mock
+    private SerializedUnitRepository serializedUnitRepository;
+
+    @Mock
+    private ReferenceDataService referenceDataService;
+
+    @Mock
+    private VerificationRequestRepository verificationRequestRepository;
+
+    @Mock
+    private VerificationRequestWriter verificationRequestWriter;
+
+    @Mock
+    private ScanHistoryIndex scanHistoryIndex;
+
+    @Mock
+    private HsmService hsmService;
+
+    @Mock
+    private AuditService auditService;
+
+    @Mock
+    private AlertService alertService;
+
+    @Spy
+    private ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    @InjectMocks
+    private BulkVerificationService bulkVerificationService;
+
+    private BulkVerificationRequest request;
+
+    @BeforeEach
+    void setUp() {
+        applicationProperties.getVerification().setBulkMaxSerials(10);
+        applicationProperties.getVerification().setBulkChunkSize(2);
+
+        request = new BulkVerificationRequest();
+        request.setSerialNumbers(List.of("SN001", "SN002", "SN003"));
+        request.setLocation("DC-1");
+    }
+
+    @Test
+    void verifyBulk_ResolvesEachChunkOnceAndPreservesOrder() {
+        when(serializedUnitRepository.findBySerialNumberIn(any()))
+                .thenReturn(List.of(unit(1L, "SN001", "TAIL1"), unit(2L, "SN002", "BAD")))
+                .thenReturn(List.of());
+        when(referenceDataService.getBatch(10L))
+                .thenReturn(new BatchSnapshot(10L, "BATCH-001", 100L, LocalDate.now().plusYears(1),
+                        Batch.BatchStatus.ACTIVE));
+        when(referenceDataService.getDrug(100L))
+                .thenReturn(new DrugSnapshot(100L, "Aspirin", "Acme", null, null, null));
+        when(hsmService.verifyCryptoTail(eq("SN001"), any(), eq("BATCH-001"), eq("TAIL1"), any())).thenReturn(true);
+        when(hsmService.verifyCryptoTail(eq("SN002"), any(), eq("BATCH-001"), eq("BAD"), any())).thenReturn(false);
+        when(scanHistoryIndex.recordScans(List.of("SN001"))).thenReturn(Map.of("SN001", 0L));
+
+        List<VerificationResponse> results = new ArrayList<>();
+        bulkVerificationService.verifyBulk(request, 5L, results::add);
+
+        assertEquals(List.of("SN001", "SN002", "SN003"),
+                results.stream().map(VerificationResponse::getSerialNumber).toList());
+        assertEquals(VerificationResult.VALID, results.get(0).getResult());
+        assertEquals("Aspirin", results.get(0).getDrugName());
+        assertEquals(VerificationResult.INVALID, results.get(1).getResult());
+        assertEquals(VerificationResult.NOT_FOUND, results.get(2).getResult());
+
+        verify(serializedUnitRepository, times(2)).findBySerialNumberIn(any());
+        verify(referenceDataService, times(1)).getBatch(10L);
+        verify(referenceDataService, times(1)).hasActiveRecall(10L);
+        verify(verificationRequestWriter, times(2)).writeBatch(anyList());
+        verify(alertService).createAlert(eq("COUNTERFEIT_DETECTED"), eq("High"), anyString(),
+                eq("SerializedUnit"), eq(2L));
+    }
+
+    @Test
+    void verifyBulk_FlagsSerialsScannedFarAwayShortlyBefore() {
+        request.setSerialNumbers(List.of("SN001", "SN002"));
+        request.setLatitude(52.52);
+        request.setLongitude(13.40);
+        VerificationRequest earlier = new VerificationRequest();
+        earlier.setSerialNumber("SN002");
+        earlier.setLatitude(48.86);
+        earlier.setLongitude(2.35);
+        when(serializedUnitRepository.findBySerialNumberIn(any()))
+                .thenReturn(List.of(unit(1L, "SN001", "TAIL1"), unit(2L, "SN002", "TAIL2")));
+        when(referenceDataService.getBatch(10L))
+                .thenReturn(new BatchSnapshot(10L, "BATCH-001", 100L, LocalDate.now().plusYears(1),
+                        Batch.BatchStatus.ACTIVE));
+        when(hsmService.verifyCryptoTail(any(), any(), any(), any(), any())).thenReturn(true);
+        when(scanHistoryIndex.recordScans(List.of("SN001", "SN002"))).thenReturn(Map.of());
+        when(verificationRequestRepository.findRecentVerificationsBySerialIn(eq(List.of("SN001", "SN002")), any(),
+                any())).thenReturn(List.of(earlier));
+
+        List<VerificationResponse> results = new ArrayList<>();
+        bulkVerificationService.verifyBulk(request, 5L, results::add);
+
+        assertTrue(results.get(0).getWarnings().isEmpty());
+        assertTrue(results.get(1).getWarnings().get(0).startsWith("Suspicious scanning pattern"));
+        assertEquals(VerificationResult.VALID, results.get(1).getResult());
+        verify(alertService).createAlert(eq("DISTANCE_TIME_COLLISION"), eq("High"), contains("SN002"),
+                eq("SerializedUnit"), isNull());
+    }
+
+    @Test
+    void verifyBulk_RejectsOversizedRequest() {
+        applicationProperties.getVerification().setBulkMaxSerials(2);
+
+        assertThrows(BadRequestException.class,
+                () -> bulkVerificationService.verifyBulk(request, 5L, response -> {
+                }));
+
+        verifyNoInteractions(serializedUnitRepository, verificationRequestWriter);
+    }
+
+    private SerializedUnit unit(Long id, String serialNumber, String cryptoTail) {
+        SerializedUnit unit = new SerializedUnit();
+        unit.setId(id);
+        unit.setSerialNumber(serialNumber);
+        unit.setBatchId(10L);
+        unit.setGtin("00312345678906");
+        unit.setCryptoTail(cryptoTail);
+        unit.setStatus(SerializedUnit.UnitStatus.ACTIVE);
+        return unit;
+    }
+}
@@ -0,0 +1,252 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.Job;
+import com.pharma.drugverification.domain.User;
+import com.pharma.drugverification.dto.JobResponse;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.repository.JobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JobServiceTest {
+
+    private JobRepository jobRepository;
+    private JobHandler handler;
+    private JobService jobService;
+
+    private Job job;
+
+    @BeforeEach
+    void setUp() {
+        jobRepository = mock(JobRepository.class);
+        handler = mock(JobHandler.class);
+        when(handler.getType()).thenReturn(Job.JobType.SERIALIZATION);
+        when(handler.getChunkSize()).thenReturn(2);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getJobs().setWorkerThreads(1);
+        properties.getJobs().setRetryBackoffMs(0);
+
+        jobService = new JobService(jobRepository, mock(AuditService.class), List.of(handler), transactionManager,
+                properties);
+
+        job = new Job();
+        job.setId(7L);
+        job.setType(Job.JobType.SERIALIZATION);
+        job.setTotalItems(5L);
+        job.setRequestedByUserId(1L);
+        when(jobRepository.findById(7L)).thenReturn(Optional.of(job));
+        when(jobRepository.markRunning(eq(7L), any(), any())).thenReturn(1);
+        when(jobRepository.markCompleted(eq(7L), anyLong(), any())).thenReturn(1);
+        when(jobRepository.markFailed(eq(7L), any(), anyString(), any())).thenReturn(1);
+        when(jobRepository.markCancelled(eq(7L), any(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void runJob_CommitsEachChunkWithProgress() {
+        when(handler.prepareChunk(any(), anyLong(), anyInt()))
+                .thenAnswer(invocation -> (JobHandler.ChunkWrite) () -> invocation.getArgument(2));
+        when(jobRepository.advanceProgress(eq(7L), anyLong(), anyLong(), any())).thenReturn(1);
+
+        jobService.runJob(7L);
+
+        verify(handler).prepareChunk(job, 0L, 2);
+        verify(handler).prepareChunk(job, 2L, 2);
+        verify(handler).prepareChunk(job, 4L, 1);
+        verify(jobRepository).advanceProgress(eq(7L), eq(4L), eq(5L), any());
+        verify(handler).onCompleted(job);
+        verify(jobRepository).markRunning(eq(7L), eq(Job.JobStatus.QUEUED), any());
+        verify(jobRepository).markCompleted(eq(7L), eq(5L), any());
+        verify(jobRepository, never()).save(any());
+        assertEquals(Job.JobStatus.COMPLETED, job.getStatus());
+        assertEquals(5L, job.getCompletedItems());
+    }
+
+    @Test
+    void runJob_ResumesFromCommittedProgress() {
+        job.setStatus(Job.JobStatus.RUNNING);
+        job.setCompletedItems(4L);
+        when(handler.prepareChunk(any(), anyLong(), anyInt())).thenReturn(() -> 1);
+        when(jobRepository.advanceProgress(eq(7L), anyLong(), anyLong(), any())).thenReturn(1);
+
+        jobService.runJob(7L);
+
+        verify(handler, times(1)).prepareChunk(job, 4L, 1);
+        assertEquals(Job.JobStatus.COMPLETED, job.getStatus());
+    }
+
+    @Test
+    void runJob_CompletesEarlyWhenWorkRunsOut() {
+        when(handler.prepareChunk(any(), anyLong(), anyInt())).thenReturn(() -> 2, () -> 1);
+        when(jobRepository.advanceProgress(eq(7L), anyLong(), anyLong(), any())).thenReturn(1);
+
+        jobService.runJob(7L);
+
+        assertEquals(Job.JobStatus.COMPLETED, job.getStatus());
+        assertEquals(3L, job.getCompletedItems());
+        assertEquals(3L, job.getTotalItems());
+        verify(jobRepository).markCompleted(eq(7L), eq(3L), any());
+    }
+
+    @Test
+    void runJob_RetriesFailedChunk() {
+        AtomicInteger attempts = new AtomicInteger();
+        when(handler.prepareChunk(any(), anyLong(), anyInt())).thenAnswer(invocation -> (JobHandler.ChunkWrite) () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new DuplicateKeyException("serial collision");
+            }
+            return invocation.getArgument(2);
+        });
+        when(jobRepository.advanceProgress(eq(7L), anyLong(), anyLong(), any())).thenReturn(1);
+
+        jobService.runJob(7L);
+
+        verify(handler, times(2)).prepareChunk(job, 0L, 2);
+        assertEquals(Job.JobStatus.COMPLETED, job.getStatus());
+    }
+
+    @Test
+    void runJob_FailsAfterRetriesExhausted() {
+        when(handler.prepareChunk(any(), anyLong(), anyInt())).thenThrow(new IllegalStateException("signer down"));
+
+        jobService.runJob(7L);
+
+        verify(handler, times(3)).prepareChunk(job, 0L, 2);
+        assertEquals(Job.JobStatus.FAILED, job.getStatus());
+        assertEquals("signer down", job.getErrorMessage());
+        verify(handler, never()).onCompleted(any());
+    }
+
+    @Test
+    void runJob_StopsWhenCancelled() {
+        when(handler.prepareChunk(any(), anyLong(), anyInt())).thenReturn(() -> 2);
+        when(jobRepository.advanceProgress(eq(7L), anyLong(), anyLong(), any())).thenReturn(0);
+        Job cancelled = new Job();
+        cancelled.setId(7L);
+        cancelled.setType(Job.JobType.SERIALIZATION);
+        cancelled.setTotalItems(5L);
+        cancelled.setCancelRequested(true);
+        when(jobRepository.findById(7L)).thenReturn(Optional.of(job), Optional.of(cancelled));
+
+        jobService.runJob(7L);
+
+        assertEquals(Job.JobStatus.CANCELLED, cancelled.getStatus());
+        verify(handler, never()).onCompleted(any());
+    }
+
+    @Test
+    void runJob_DoesNotStartJobCancelledWhileQueued() {
+        // The cancellation landed between reading the job and claiming it
+        when(jobRepository.markRunning(eq(7L), any(), any())).thenReturn(0);
+        Job cancelled = new Job();
+        cancelled.setId(7L);
+        cancelled.setType(Job.JobType.SERIALIZATION);
+        cancelled.setTotalItems(5L);
+        cancelled.setStatus(Job.JobStatus.CANCELLED);
+        cancelled.setCancelRequested(true);
+        when(jobRepository.findById(7L)).thenReturn(Optional.of(job), Optional.of(cancelled));
+
+        jobService.runJob(7L);
+
+        verify(handler, never()).prepareChunk(any(), anyLong(), anyInt());
+        verify(jobRepository, never()).markCancelled(anyLong(), any(), any());
+        assertEquals(Job.JobStatus.QUEUED, job.getStatus());
+    }
+
+    @Test
+    void retryJob_RejectsJobThatHasNotFailed() {
+        job.setStatus(Job.JobStatus.COMPLETED);
+
+        assertThrows(BadRequestException.class, () -> jobService.retryJob(7L, 1L, User.UserRole.MANUFACTURER));
+    }
+
+    @Test
+    void retryJob_RejectsJobRequeuedConcurrently() {
+        job.setStatus(Job.JobStatus.FAILED);
+        when(jobRepository.requeueFailed(eq(7L), any())).thenReturn(0);
+
+        assertThrows(BadRequestException.class, () -> jobService.retryJob(7L, 1L, User.UserRole.MANUFACTURER));
+    }
+
+    @Test
+    void cancelJob_CancelsQueuedJobImmediately() {
+        Job flagged = new Job();
+        flagged.setId(7L);
+        flagged.setType(Job.JobType.SERIALIZATION);
+        flagged.setTotalItems(5L);
+        flagged.setCancelRequested(true);
+        when(jobRepository.findById(7L)).thenReturn(Optional.of(job), Optional.of(flagged));
+
+        JobResponse response = jobService.cancelJob(7L, 1L, User.UserRole.MANUFACTURER);
+
+        verify(jobRepository).requestCancel(eq(7L), any());
+        verify(jobRepository).markCancelled(eq(7L), eq(Job.JobStatus.QUEUED), any());
+        assertEquals(Job.JobStatus.CANCELLED, response.getStatus());
+    }
+
+    @Test
+    void cancelJob_LeavesJobClaimedByRunnerToStopAtNextChunk() {
+        Job flagged = new Job();
+        flagged.setId(7L);
+        flagged.setType(Job.JobType.SERIALIZATION);
+        flagged.setTotalItems(5L);
+        flagged.setCancelRequested(true);
+        when(jobRepository.findById(7L)).thenReturn(Optional.of(job), Optional.of(flagged));
+        // A runner moved it to RUNNING after it was read as queued
+        when(jobRepository.markCancelled(eq(7L), any(), any())).thenReturn(0);
+
+        JobResponse response = jobService.cancelJob(7L, 1L, User.UserRole.MANUFACTURER);
+
+        assertEquals(Job.JobStatus.QUEUED, response.getStatus());
+        verify(jobRepository, never()).save(any());
+    }
+
+    @Test
+    void cancelJob_DeniesOtherUsersJob() {
+        assertThrows(AccessDeniedException.class,
+                () -> jobService.cancelJob(7L, 2L, User.UserRole.MANUFACTURER));
+        assertThrows(AccessDeniedException.class,
+                () -> jobService.retryJob(7L, 2L, User.UserRole.REGULATOR));
+        assertThrows(AccessDeniedException.class, () -> jobService.getJob(7L, 2L, User.UserRole.MANUFACTURER));
+        verify(jobRepository, never()).requestCancel(anyLong(), any());
+
+        assertEquals(7L, jobService.getJob(7L, 2L, User.UserRole.ADMIN).getId());
+    }
+
+    @Test
+    void cancelJob_LimitsRecallQuarantineJobsToRegulators() {
+        job.setType(Job.JobType.RECALL_QUARANTINE);
+        job.setStatus(Job.JobStatus.FAILED);
+
+        // Not even the requester, once they no longer hold the regulator role
+        assertThrows(AccessDeniedException.class,
+                () -> jobService.cancelJob(7L, 1L, User.UserRole.MANUFACTURER));
+        assertThrows(AccessDeniedException.class,
+                () -> jobService.retryJob(7L, 3L, User.UserRole.MANUFACTURER));
+        verify(jobRepository, never()).requestCancel(anyLong(), any());
+
+        assertEquals(7L, jobService.getJob(7L, 3L, User.UserRole.REGULATOR).getId());
+    }
+}
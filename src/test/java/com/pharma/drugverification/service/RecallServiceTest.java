@@ -1,6 +1,8 @@
 package com.pharma.drugverification.service;
 
+import com.pharma.drugverification.config.ApplicationProperties;
 import com.pharma.drugverification.domain.Batch;
+import com.pharma.drugverification.domain.Job;
 import com.pharma.drugverification.domain.Recall;
 import com.pharma.drugverification.domain.Recall.RecallClassification;
 import com.pharma.drugverification.domain.Recall.RecallStatus;
@@ -15,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
@@ -45,6 +48,15 @@ class RecallServiceTest {
     @Mock
     private AuditService auditService;
 
+    @Mock
+    private JobService jobService;
+
+    @Mock
+    private RecallQuarantineJobHandler recallQuarantineJobHandler;
+
+    @Spy
+    private ApplicationProperties applicationProperties = new ApplicationProperties();
+
     @InjectMocks
     private RecallService recallService;
 
@@ -109,6 +121,28 @@ class RecallServiceTest {
         verify(auditService, times(1)).log(eq("RECALL_INITIATED"), eq("Recall"), eq(1L), eq(1L), any());
     }
 
+    @Test
+    void initiateRecall_LargeBatchQuarantinesInBackgroundJob() {
+        applicationProperties.getRecall().setSyncQuarantineLimit(100);
+        Job job = new Job();
+        job.setId(42L);
+
+        when(batchRepository.findById(1L)).thenReturn(Optional.of(batch));
+        when(recallRepository.existsByBatchIdAndStatus(eq(1L), any(RecallStatus.class))).thenReturn(false);
+        when(serializedUnitRepository.countByBatchId(1L)).thenReturn(500L);
+        when(serializedUnitRepository.countByBatchIdAndStatus(1L, SerializedUnit.UnitStatus.ACTIVE)).thenReturn(450L);
+        when(recallRepository.save(any(Recall.class))).thenReturn(recall);
+        when(recallQuarantineJobHandler.newJob(1L, 1L, 450L, 1L)).thenReturn(job);
+        when(jobService.submit(job)).thenReturn(job);
+
+        RecallResponse response = recallService.initiateRecall(request, 1L);
+
+        assertEquals(42L, response.getQuarantineJobId());
+        verify(serializedUnitRepository, never()).updateStatusByBatchIdAndStatus(anyLong(), any(), any());
+        verify(auditService).log(eq("RECALL_INITIATED"), eq("Recall"), eq(1L), eq(1L),
+                argThat(details -> Long.valueOf(42L).equals(details.get("quarantineJobId"))));
+    }
+
     @Test
     void completeRecall_Success() {
         when(recallRepository.findById(1L)).thenReturn(Optional.of(recall));
@@ -0,0 +1,87 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ScanHistoryIndexTest {
+
+    private static final long HOUR_MILLIS = 3_600_000L;
+
+    private RedisTemplate<String, String> redisTemplate;
+    private ScanHistoryIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getVerification().setDuplicateScanWindowSeconds(3600);
+        properties.getVerification().setDuplicateScanThreshold(3);
+        properties.getVerification().getScanHistory().setShards(4);
+
+        index = new ScanHistoryIndex(redisTemplate, properties);
+    }
+
+    @Test
+    void recordScan_CountsEarlierScansOfSameSerialOnly() {
+        long now = 10 * HOUR_MILLIS;
+
+        assertEquals(0, index.recordScan("SN001", now));
+        assertEquals(1, index.recordScan("SN001", now + 1));
+        assertEquals(0, index.recordScan("SN002", now + 2));
+        assertEquals(2, index.recordScan("SN001", now + 3));
+    }
+
+    @Test
+    void recordScan_IgnoresScansOutsideWindow() {
+        long now = 10 * HOUR_MILLIS;
+
+        index.recordScan("SN001", now);
+        index.recordScan("SN001", now + 1);
+
+        assertEquals(0, index.recordScan("SN001", now + HOUR_MILLIS + 2));
+    }
+
+    @Test
+    void isDuplicate_FlagsOnceThresholdExceeded() {
+        long now = 10 * HOUR_MILLIS;
+        long earlier = 0;
+        for (int i = 0; i < 5; i++) {
+            earlier = index.recordScan("SN001", now + i);
+        }
+
+        assertEquals(4, earlier);
+        assertTrue(index.isDuplicate(earlier));
+        assertFalse(index.isDuplicate(3));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordScan_UsesRedisCountFromOtherNodes() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(List.of(0L, true, 6L, true));
+
+        assertEquals(5, index.recordScan("SN001", 10 * HOUR_MILLIS));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordScan_FallsBackToLocalCountWhenRedisFails() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new IllegalStateException("redis down"));
+
+        index.recordScan("SN001", 10 * HOUR_MILLIS);
+
+        assertEquals(1, index.recordScan("SN001", 10 * HOUR_MILLIS + 1));
+    }
+}
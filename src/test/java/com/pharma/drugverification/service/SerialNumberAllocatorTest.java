@@ -0,0 +1,82 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.SerialNumberBlock;
+import com.pharma.drugverification.repository.SerialNumberBlockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SerialNumberAllocatorTest {
+
+    private SerialNumberBlockRepository blockRepository;
+    private SerialNumberAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        blockRepository = mock(SerialNumberBlockRepository.class);
+        AtomicLong sequence = new AtomicLong();
+        when(blockRepository.save(any(SerialNumberBlock.class))).thenAnswer(invocation -> {
+            SerialNumberBlock block = invocation.getArgument(0);
+            block.setId(sequence.incrementAndGet());
+            return block;
+        });
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getJwt().setSecret("allocator-test-secret");
+
+        allocator = new SerialNumberAllocator(blockRepository, transactionManager, properties);
+    }
+
+    @Test
+    void nextSerialNumber_UsesPrefixAndFixedLength() {
+        String serialNumber = allocator.nextSerialNumber();
+
+        assertTrue(serialNumber.startsWith("SN"));
+        assertEquals(14, serialNumber.length());
+    }
+
+    @Test
+    void nextCounter_ReservesOneBlockPerBlockSize() {
+        for (int i = 0; i < SerialNumberAllocator.BLOCK_SIZE + 1; i++) {
+            allocator.nextCounter();
+        }
+
+        verify(blockRepository, times(2)).save(any(SerialNumberBlock.class));
+    }
+
+    @Test
+    void nextSerialNumber_IsUniqueAcrossThreads() throws Exception {
+        Set<String> serialNumbers = ConcurrentHashMap.newKeySet();
+        int perThread = 60_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    serialNumbers.add(allocator.nextSerialNumber());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertEquals(4 * perThread, serialNumbers.size());
+        verify(blockRepository, times(3)).save(any(SerialNumberBlock.class));
+    }
+}
@@ -0,0 +1,53 @@
+package com.pharma.drugverification.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerialNumberPermutationTest {
+
+    private static final byte[] KEY = "permutation-test-key".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void permute_IsBijectionOverDomain() {
+        SerialNumberPermutation permutation = new SerialNumberPermutation(KEY, 4, 8);
+
+        Set<Long> outputs = new HashSet<>();
+        for (long value = 0; value < permutation.domainSize(); value++) {
+            long permuted = permutation.permute(value);
+            assertTrue(permuted >= 0 && permuted < permutation.domainSize());
+            assertEquals(value, permutation.invert(permuted));
+            outputs.add(permuted);
+        }
+
+        assertEquals(10_000, outputs.size());
+    }
+
+    @Test
+    void format_PadsToFixedLength() {
+        SerialNumberPermutation permutation = new SerialNumberPermutation(KEY, 12, 8);
+
+        for (long value = 100_000; value < 100_100; value++) {
+            assertEquals(12, permutation.format(value).length());
+        }
+    }
+
+    @Test
+    void permute_DependsOnKey() {
+        SerialNumberPermutation first = new SerialNumberPermutation(KEY, 12, 8);
+        SerialNumberPermutation second = new SerialNumberPermutation(
+                "another-key".getBytes(StandardCharsets.UTF_8), 12, 8);
+
+        assertNotEquals(first.permute(100_000), second.permute(100_000));
+        assertEquals(first.permute(100_000), new SerialNumberPermutation(KEY, 12, 8).permute(100_000));
+    }
+
+    @Test
+    void constructor_RejectsOddDigitCount() {
+        assertThrows(IllegalArgumentException.class, () -> new SerialNumberPermutation(KEY, 11, 8));
+    }
+}
@@ -0,0 +1,96 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.Batch;
+import com.pharma.drugverification.domain.Job;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.repository.BatchRepository;
+import com.pharma.drugverification.security.HsmService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SerializationJobHandlerTest {
+
+    private BatchRepository batchRepository;
+    private HsmService hsmService;
+    private JdbcTemplate jdbcTemplate;
+    private SerializationJobHandler serializationJobHandler;
+
+    @BeforeEach
+    void setUp() {
+        batchRepository = mock(BatchRepository.class);
+        hsmService = mock(HsmService.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        SerialNumberAllocator serialNumberAllocator = mock(SerialNumberAllocator.class);
+        AtomicInteger counter = new AtomicInteger();
+        when(serialNumberAllocator.nextSerialNumber()).thenAnswer(invocation -> "SN" + counter.incrementAndGet());
+
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getSerialization().setChunkSize(2);
+        properties.getSerialization().setSigningParallelism(2);
+        properties.getSerialization().setMaxJobQuantity(100);
+
+        serializationJobHandler = new SerializationJobHandler(batchRepository, hsmService, serialNumberAllocator,
+                mock(AuditService.class), jdbcTemplate, properties);
+
+        Batch batch = new Batch();
+        batch.setId(1L);
+        batch.setBatchNumber("BATCH-001");
+        batch.setExpirationDate(LocalDate.now().plusYears(1));
+        batch.setStatus(Batch.BatchStatus.ACTIVE);
+        when(batchRepository.findById(1L)).thenReturn(Optional.of(batch));
+    }
+
+    @AfterEach
+    void tearDown() {
+        serializationJobHandler.shutdown();
+    }
+
+    @Test
+    void newJob_PinsCurrentKeyVersion() {
+        when(hsmService.getCurrentKeyVersion()).thenReturn(3);
+
+        Job job = serializationJobHandler.newJob(1L, "00312345678906", 5, 1L);
+
+        assertEquals(Job.JobType.SERIALIZATION, job.getType());
+        assertEquals(1L, job.getTargetId());
+        assertEquals(5L, job.getTotalItems());
+        assertEquals(Map.of("gtin", "00312345678906", "keyVersion", 3), job.getParameters());
+    }
+
+    @Test
+    void newJob_RejectsQuantityAboveLimit() {
+        assertThrows(BadRequestException.class,
+                () -> serializationJobHandler.newJob(1L, "00312345678906", 101, 1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void prepareChunk_SignsBeforeWriteAndInsertsOnWrite() {
+        Job job = new Job();
+        job.setTargetId(1L);
+        job.setParameters(Map.of("gtin", "00312345678906", "keyVersion", 2));
+
+        JobHandler.ChunkWrite write = serializationJobHandler.prepareChunk(job, 0, 2);
+
+        verify(hsmService, times(2)).generateCryptoTail(anyString(), eq("00312345678906"), eq("BATCH-001"), eq(2));
+        verifyNoInteractions(jdbcTemplate);
+
+        assertEquals(2, write.write());
+        verify(jdbcTemplate).batchUpdate(eq(SerializationJobHandler.INSERT_SQL), any(Collection.class),
+                eq(2), any(ParameterizedPreparedStatementSetter.class));
+    }
+}
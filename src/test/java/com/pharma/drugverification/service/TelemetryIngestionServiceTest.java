@@ -0,0 +1,163 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.dto.TelemetryBatchRequest;
+import com.pharma.drugverification.dto.TelemetryBatchResponse;
+import com.pharma.drugverification.dto.TelemetryReadingAck.AckStatus;
+import com.pharma.drugverification.dto.TelemetryReadingRequest;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.repository.TelemetryReadingRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TelemetryIngestionServiceTest {
+
+    private static final ThresholdSnapshot THRESHOLDS = new ThresholdSnapshot(1L, 10L, "BATCH-123", 2.0, 8.0);
+
+    private TelemetryThresholdCache thresholdCache;
+    private TelemetryReadingWriter writer;
+    private TemperatureExcursionDetector detector;
+    private TelemetrySequenceTracker sequenceTracker;
+    private TelemetryReadingRepository readingRepository;
+    private ApplicationProperties properties;
+    private TelemetryIngestionService service;
+
+    @BeforeEach
+    void setUp() {
+        thresholdCache = mock(TelemetryThresholdCache.class);
+        writer = mock(TelemetryReadingWriter.class);
+        detector = mock(TemperatureExcursionDetector.class);
+        sequenceTracker = mock(TelemetrySequenceTracker.class);
+        readingRepository = mock(TelemetryReadingRepository.class);
+        when(sequenceTracker.tryAccept(anyString(), anyLong())).thenReturn(true);
+        properties = new ApplicationProperties();
+
+        when(thresholdCache.get(1L)).thenReturn(THRESHOLDS);
+        when(writer.submitAll(anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(0).size());
+
+        service = new TelemetryIngestionService(thresholdCache, writer, detector, sequenceTracker,
+                readingRepository, Validation.buildDefaultValidatorFactory().getValidator(), properties);
+    }
+
+    @Test
+    void ingest_AcknowledgesEachReadingAgainstCachedThresholds() {
+        TelemetryBatchResponse response = service.ingest(upload(
+                reading("SENSOR-001", 1L, 5.0),
+                reading("SENSOR-002", 1L, 12.0),
+                reading("SENSOR-003", 1L, 14.5),
+                reading("SENSOR-004", 99L, 5.0),
+                reading("", 1L, 5.0)), 7L);
+
+        assertEquals(3, response.getQueued());
+        assertEquals(2, response.getRejected());
+        assertEquals(0, response.getRetry());
+        assertFalse(response.getAcknowledgements().get(0).getThresholdViolation());
+        assertTrue(response.getAcknowledgements().get(1).getThresholdViolation());
+        assertEquals("Batch not found", response.getAcknowledgements().get(3).getMessage());
+        assertEquals(AckStatus.REJECTED, response.getAcknowledgements().get(4).getStatus());
+
+        verify(writer).submitAll(argThat(readings -> readings.size() == 3));
+        verify(detector, times(3)).observe(any(), eq(THRESHOLDS), eq(7L));
+    }
+
+    @Test
+    void ingest_AsksForResendOfReadingsTheWriterCannotTake() {
+        when(writer.submitAll(anyList())).thenReturn(1);
+
+        TelemetryBatchResponse response = service.ingest(upload(
+                reading("SENSOR-001", 1L, 5.0),
+                reading("SENSOR-001", 1L, 12.0)), 7L);
+
+        assertEquals(1, response.getQueued());
+        assertEquals(1, response.getRetry());
+        assertEquals(AckStatus.RETRY, response.getAcknowledgements().get(1).getStatus());
+        verify(detector, times(1)).observe(any(), any(), any());
+    }
+
+    @Test
+    void ingest_AcknowledgesReplayedReadingsAsDuplicatesAndKeepsDeviceTime() {
+        LocalDateTime recordedAt = LocalDateTime.now().minusHours(3);
+        when(sequenceTracker.tryAccept("SENSOR-001", 41L)).thenReturn(false);
+        when(writer.submitAll(anyList())).thenReturn(2);
+
+        TelemetryBatchResponse response = service.ingest(upload(
+                reading("SENSOR-001", 1L, 5.0, recordedAt.plusMinutes(2), 42L),
+                reading("SENSOR-001", 1L, 5.0, recordedAt.plusMinutes(1), 41L),
+                reading("SENSOR-001", 1L, 9.0, recordedAt, 40L),
+                reading("SENSOR-001", 1L, 5.0, recordedAt.plusMinutes(3), 43L),
+                reading("SENSOR-001", 1L, 5.0, LocalDateTime.now().plusHours(1), 44L)), 7L);
+
+        assertEquals(2, response.getQueued());
+        assertEquals(1, response.getDuplicate());
+        assertEquals(1, response.getRetry());
+        assertEquals(1, response.getRejected());
+        assertEquals(AckStatus.DUPLICATE, response.getAcknowledgements().get(1).getStatus());
+        assertEquals("Recorded time is in the future", response.getAcknowledgements().get(4).getMessage());
+        verify(sequenceTracker).release("SENSOR-001", 43L);
+        verify(sequenceTracker, never()).tryAccept("SENSOR-001", 44L);
+
+        // Observed in device time order rather than upload order
+        ArgumentCaptor<TelemetryReading> observed = ArgumentCaptor.forClass(TelemetryReading.class);
+        verify(detector, times(2)).observe(observed.capture(), eq(THRESHOLDS), eq(7L));
+        assertEquals(List.of(recordedAt, recordedAt.plusMinutes(2)),
+                observed.getAllValues().stream().map(TelemetryReading::getTimestamp).toList());
+        assertEquals(40L, observed.getAllValues().get(0).getSequenceNumber());
+    }
+
+    @Test
+    void ingest_RejectsOversizedUpload() {
+        properties.getTelemetry().setIngestMaxReadings(1);
+
+        assertThrows(BadRequestException.class, () -> service.ingest(upload(
+                reading("SENSOR-001", 1L, 5.0),
+                reading("SENSOR-002", 1L, 5.0)), 7L));
+        verifyNoInteractions(writer);
+    }
+
+    @Test
+    void findStored_ReportsOnlySequenceNumbersTheWriterCommitted() {
+        when(readingRepository.findStoredSequenceNumbers("SENSOR-001", List.of(11L, 12L, 13L)))
+                .thenReturn(List.of(11L, 13L));
+
+        assertEquals(List.of(11L, 13L), service.findStored("SENSOR-001", List.of(11L, 12L, 13L)));
+        assertEquals(List.of(), service.findStored("SENSOR-001", List.of()));
+
+        properties.getTelemetry().setIngestMaxReadings(2);
+        assertThrows(BadRequestException.class, () -> service.findStored("SENSOR-001", List.of(1L, 2L, 3L)));
+    }
+
+    private static TelemetryBatchRequest upload(TelemetryReadingRequest... readings) {
+        TelemetryBatchRequest request = new TelemetryBatchRequest();
+        request.setReadings(new ArrayList<>(List.of(readings)));
+        return request;
+    }
+
+    private static TelemetryReadingRequest reading(String deviceId, Long batchId, double temperature,
+            LocalDateTime recordedAt, Long sequenceNumber) {
+        TelemetryReadingRequest request = reading(deviceId, batchId, temperature);
+        request.setRecordedAt(recordedAt);
+        request.setSequenceNumber(sequenceNumber);
+        return request;
+    }
+
+    private static TelemetryReadingRequest reading(String deviceId, Long batchId, double temperature) {
+        TelemetryReadingRequest request = new TelemetryReadingRequest();
+        request.setDeviceId(deviceId);
+        request.setBatchId(batchId);
+        request.setTemperatureCelsius(temperature);
+        request.setHumidityPercent(60.0);
+        return request;
+    }
+}
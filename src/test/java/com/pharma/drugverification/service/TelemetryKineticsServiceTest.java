@@ -0,0 +1,109 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryBatchKinetics;
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
+import com.pharma.drugverification.repository.TelemetryBatchKineticsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TelemetryKineticsServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 10, 8, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private TelemetryKineticsService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:kinetics;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "sa"));
+        jdbcTemplate.execute("CREATE TABLE telemetry_batch_kinetics (batch_id BIGINT PRIMARY KEY, "
+                + "temperature_count BIGINT NOT NULL, kinetic_sum DOUBLE PRECISION NOT NULL, "
+                + "last_reading_at TIMESTAMP, last_temperature NUMERIC(5, 2), "
+                + "minutes_above_range DOUBLE PRECISION NOT NULL, "
+                + "degree_minutes_above_range DOUBLE PRECISION NOT NULL, updated_at TIMESTAMP NOT NULL)");
+
+        TelemetryThresholdCache thresholdCache = mock(TelemetryThresholdCache.class);
+        when(thresholdCache.get(1L)).thenReturn(new ThresholdSnapshot(1L, 10L, "BATCH-123", 2.0, 8.0));
+
+        service = new TelemetryKineticsService(jdbcTemplate, mock(TelemetryBatchKineticsRepository.class),
+                thresholdCache, new ApplicationProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE telemetry_batch_kinetics");
+    }
+
+    @Test
+    void record_AccumulatesTimeAboveRangeAcrossWrites() {
+        // Out of order within a write; 10.0 holds for 10 minutes, 9.0 for 5
+        service.record(List.of(reading(T0.plusMinutes(10), 9.0), reading(T0, 10.0)));
+        service.record(List.of(reading(T0.plusMinutes(15), 5.0), reading(T0.plusMinutes(5), 12.0)));
+        // 5.0 is in range, and a gap after it costs nothing
+        service.record(List.of(reading(T0.plusHours(5), 6.0), reading(T0.plusHours(6), 20.0)));
+
+        TelemetryBatchKinetics kinetics = load();
+        assertEquals(6L, kinetics.getTemperatureCount());
+        assertEquals(15.0, kinetics.getMinutesAboveRange(), 1e-9);
+        assertEquals(10 * 2.0 + 5 * 1.0, kinetics.getDegreeMinutesAboveRange(), 1e-9);
+        assertEquals(T0.plusHours(6), kinetics.getLastReadingAt());
+        assertEquals(0, new BigDecimal("20.00").compareTo(kinetics.getLastTemperature()));
+
+        // A silent logger is only charged for the configured gap
+        service.record(List.of(reading(T0.plusHours(9), 4.0)));
+        assertEquals(75.0, load().getMinutesAboveRange(), 1e-9);
+    }
+
+    @Test
+    void meanKineticTemperature_WeighsWarmReadingsAboveTheMean() {
+        service.record(List.of(reading(T0, 5.0), reading(T0.plusMinutes(1), 5.0)));
+        assertEquals(5.0, TelemetryKineticsService.meanKineticTemperature(load()), 1e-9);
+
+        service.record(List.of(reading(T0.plusMinutes(2), 25.0), reading(T0.plusMinutes(3), 25.0),
+                reading(T0.plusMinutes(4), null)));
+
+        TelemetryBatchKinetics kinetics = load();
+        assertEquals(4L, kinetics.getTemperatureCount());
+        double mkt = TelemetryKineticsService.meanKineticTemperature(kinetics);
+        // Half the readings at 5 C and half at 25 C: well above the arithmetic mean of 15 C
+        assertEquals(19.70, mkt, 0.01);
+    }
+
+    private TelemetryBatchKinetics load() {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT * FROM telemetry_batch_kinetics WHERE batch_id = 1");
+        Timestamp lastReadingAt = (Timestamp) row.get("LAST_READING_AT");
+        return new TelemetryBatchKinetics(1L,
+                ((Number) row.get("TEMPERATURE_COUNT")).longValue(),
+                ((Number) row.get("KINETIC_SUM")).doubleValue(),
+                lastReadingAt != null ? lastReadingAt.toLocalDateTime() : null,
+                (BigDecimal) row.get("LAST_TEMPERATURE"),
+                ((Number) row.get("MINUTES_ABOVE_RANGE")).doubleValue(),
+                ((Number) row.get("DEGREE_MINUTES_ABOVE_RANGE")).doubleValue(),
+                LocalDateTime.now());
+    }
+
+    private static TelemetryReading reading(LocalDateTime timestamp, Double temperature) {
+        TelemetryReading reading = new TelemetryReading();
+        reading.setBatchId(1L);
+        reading.setTimestamp(timestamp);
+        reading.setTemperature(temperature != null ? BigDecimal.valueOf(temperature) : null);
+        reading.setDeviceId("SENSOR-001");
+        return reading;
+    }
+}
@@ -0,0 +1,118 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryReading;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TelemetryReadingWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TelemetryRollupService rollupService;
+    private TelemetrySequenceTracker sequenceTracker;
+    private SimpleMeterRegistry meterRegistry;
+    private TelemetryReadingWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getTelemetry().setQueueCapacity(3);
+        properties.getTelemetry().setBatchSize(2);
+        properties.getTelemetry().setOfferTimeoutMs(1);
+
+        rollupService = mock(TelemetryRollupService.class);
+        sequenceTracker = mock(TelemetrySequenceTracker.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        writer = new TelemetryReadingWriter(jdbcTemplate, rollupService, mock(TelemetryKineticsService.class),
+                sequenceTracker, transactionManager, properties, meterRegistry);
+    }
+
+    @Test
+    void submitAll_TakesReadingsUntilQueueIsFull() {
+        int submitted = writer.submitAll(List.of(reading(1), reading(2), reading(3), reading(4), reading(5)));
+
+        assertEquals(3, submitted);
+        assertEquals(3, writer.getQueueDepth());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_InsertsQueuedReadingsInJdbcBatches() {
+        writer.submitAll(List.of(reading(1), reading(2), reading(3)));
+
+        writer.drain();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(TelemetryReadingWriter.INSERT_SQL), any(Collection.class),
+                anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        verify(rollupService, times(2)).record(anyList());
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(3.0, meterRegistry.get("telemetry.writer.written").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_CountsReadingsDroppedAfterRepeatedFailures() {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new IllegalStateException("database down"));
+        writer.submitAll(List.of(reading(1)));
+
+        writer.drain();
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1.0, meterRegistry.get("telemetry.writer.dropped").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void drain_IsolatesBadReadingAndReleasesItsSequenceNumber() {
+        TelemetryReading bad = reading(2);
+        bad.setSequenceNumber(42L);
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    Collection<TelemetryReading> readings = invocation.getArgument(1);
+                    if (readings.contains(bad)) {
+                        throw new IllegalStateException("value out of range");
+                    }
+                    return new int[0][];
+                });
+        writer.submitAll(List.of(reading(1), bad));
+
+        writer.drain();
+
+        assertEquals(1.0, meterRegistry.get("telemetry.writer.written").counter().count());
+        assertEquals(1.0, meterRegistry.get("telemetry.writer.dropped").counter().count());
+        verify(sequenceTracker).release("SENSOR-001", 42L);
+    }
+
+    private static TelemetryReading reading(long batchId) {
+        TelemetryReading reading = new TelemetryReading();
+        reading.setBatchId(batchId);
+        reading.setDeviceId("SENSOR-001");
+        reading.setTemperature(BigDecimal.valueOf(5.0));
+        reading.setHumidity(BigDecimal.valueOf(60.0));
+        reading.setTimestamp(LocalDateTime.now());
+        return reading;
+    }
+}
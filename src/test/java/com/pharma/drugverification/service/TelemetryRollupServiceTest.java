@@ -0,0 +1,129 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetryRollup;
+import com.pharma.drugverification.domain.TelemetryRollup.Granularity;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
+import com.pharma.drugverification.repository.TelemetryRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TelemetryRollupServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 10, 8, 15, 20);
+
+    private JdbcTemplate jdbcTemplate;
+    private TelemetryRollupRepository rollupRepository;
+    private TelemetryRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:rollups;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "sa"));
+        jdbcTemplate.execute("CREATE TABLE telemetry_rollups ("
+                + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, batch_id BIGINT NOT NULL, "
+                + "granularity VARCHAR(10) NOT NULL, bucket_start TIMESTAMP NOT NULL, "
+                + "reading_count BIGINT NOT NULL, temperature_count BIGINT NOT NULL, "
+                + "temperature_min NUMERIC(5, 2), temperature_max NUMERIC(5, 2), "
+                + "temperature_sum DOUBLE PRECISION NOT NULL, temperature_sum_squares DOUBLE PRECISION NOT NULL, "
+                + "humidity_count BIGINT NOT NULL, humidity_sum DOUBLE PRECISION NOT NULL, "
+                + "violation_count BIGINT NOT NULL, UNIQUE (batch_id, granularity, bucket_start))");
+
+        TelemetryThresholdCache thresholdCache = mock(TelemetryThresholdCache.class);
+        when(thresholdCache.get(1L)).thenReturn(new ThresholdSnapshot(1L, 10L, "BATCH-123", 2.0, 8.0));
+
+        rollupRepository = mock(TelemetryRollupRepository.class);
+        service = new TelemetryRollupService(jdbcTemplate, rollupRepository, thresholdCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE telemetry_rollups");
+    }
+
+    @Test
+    void record_MergesReadingsIntoExistingBuckets() {
+        service.record(List.of(reading(T0, 5.0), reading(T0.plusSeconds(10), 9.0)));
+        service.record(List.of(reading(T0.plusMinutes(1), 1.5)));
+
+        Map<String, Object> hour = jdbcTemplate.queryForMap(
+                "SELECT * FROM telemetry_rollups WHERE granularity = 'HOUR'");
+        assertEquals(3L, ((Number) hour.get("READING_COUNT")).longValue());
+        assertEquals(0, new BigDecimal("1.50").compareTo((BigDecimal) hour.get("TEMPERATURE_MIN")));
+        assertEquals(0, new BigDecimal("9.00").compareTo((BigDecimal) hour.get("TEMPERATURE_MAX")));
+        assertEquals(15.5, ((Number) hour.get("TEMPERATURE_SUM")).doubleValue(), 1e-9);
+        assertEquals(2L, ((Number) hour.get("VIOLATION_COUNT")).longValue());
+
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM telemetry_rollups WHERE granularity = 'MINUTE'", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM telemetry_rollups WHERE granularity = 'DAY'", Integer.class));
+    }
+
+    @Test
+    void summarize_CoversRangeWithCoarsestWholeBuckets() {
+        List<String> ranges = new ArrayList<>();
+        when(rollupRepository.findByBatchIdAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+                eq(1L), any(), any(), any())).thenAnswer(invocation -> {
+                    ranges.add(invocation.getArgument(1) + " " + invocation.getArgument(2) + " "
+                            + invocation.getArgument(3));
+                    return List.of();
+                });
+
+        service.summarize(1L, T0, LocalDateTime.of(2024, 3, 13, 14, 40, 5));
+
+        assertEquals(List.of(
+                "MINUTE 2024-03-10T08:15 2024-03-10T09:00",
+                "HOUR 2024-03-10T09:00 2024-03-11T00:00",
+                "DAY 2024-03-11T00:00 2024-03-13T00:00",
+                "HOUR 2024-03-13T00:00 2024-03-13T14:00",
+                "MINUTE 2024-03-13T14:00 2024-03-13T14:41"), ranges);
+    }
+
+    @Test
+    void summarize_CombinesRollups() {
+        when(rollupRepository.findByBatchIdAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+                eq(1L), eq(Granularity.MINUTE), any(), any())).thenReturn(List.of(
+                        rollup(2, 2, "4.00", "6.00", 10.0, 52.0, 0),
+                        rollup(2, 2, "3.00", "9.00", 12.0, 90.0, 1)));
+
+        TelemetryRollupService.Summary summary = service.summarize(1L, T0, T0.plusMinutes(5));
+
+        assertEquals(4, summary.getReadingCount());
+        assertEquals(1, summary.getViolationCount());
+        assertEquals(3.0, summary.getMinTemperature());
+        assertEquals(9.0, summary.getMaxTemperature());
+        assertEquals(5.5, summary.getAverageTemperature(), 1e-9);
+        assertEquals(Math.sqrt(142.0 / 4 - 5.5 * 5.5), summary.getTemperatureStdDev(), 1e-9);
+        assertEquals(60.0, summary.getAverageHumidity(), 1e-9);
+    }
+
+    private static TelemetryReading reading(LocalDateTime timestamp, double temperature) {
+        TelemetryReading reading = new TelemetryReading();
+        reading.setBatchId(1L);
+        reading.setDeviceId("SENSOR-001");
+        reading.setTimestamp(timestamp);
+        reading.setTemperature(BigDecimal.valueOf(temperature));
+        reading.setHumidity(BigDecimal.valueOf(60.0));
+        return reading;
+    }
+
+    private static TelemetryRollup rollup(long readings, long temperatures, String min, String max, double sum,
+            double sumSquares, long violations) {
+        return new TelemetryRollup(null, 1L, Granularity.MINUTE, T0, readings, temperatures, new BigDecimal(min),
+                new BigDecimal(max), sum, sumSquares, readings, 60.0 * readings, violations);
+    }
+}
@@ -0,0 +1,115 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetrySegment;
+import com.pharma.drugverification.repository.TelemetrySegmentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TelemetrySegmentArchiverTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 10, 8, 0);
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private TelemetrySegmentRepository segmentRepository;
+    private TelemetrySegmentArchiver archiver;
+    private TelemetrySegmentStore store;
+    private final List<TelemetrySegment> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:telemetry_archive;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "sa"));
+        jdbcTemplate.execute("CREATE TABLE telemetry_readings ("
+                + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, batch_id BIGINT NOT NULL, "
+                + "timestamp TIMESTAMP NOT NULL, temperature NUMERIC(5, 2), humidity NUMERIC(5, 2), "
+                + "location VARCHAR(255), device_id VARCHAR(100), latitude DOUBLE PRECISION, "
+                + "longitude DOUBLE PRECISION, sequence_number BIGINT)");
+
+        segmentRepository = mock(TelemetrySegmentRepository.class);
+        when(segmentRepository.save(any(TelemetrySegment.class))).thenAnswer(invocation -> {
+            TelemetrySegment segment = invocation.getArgument(0);
+            segment.setId((long) saved.size() + 1);
+            saved.add(segment);
+            return segment;
+        });
+        when(segmentRepository.findByBatchIdOrderByRangeStartAscIdAsc(1L)).thenReturn(saved);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getTelemetry().setArchiveDirectory(tempDir.toString());
+        properties.getTelemetry().setSegmentMaxReadings(40);
+        archiver = new TelemetrySegmentArchiver(jdbcTemplate, transactionManager, segmentRepository, properties);
+        store = new TelemetrySegmentStore(segmentRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE telemetry_readings");
+    }
+
+    @Test
+    void archiveBefore_MovesOldReadingsIntoSegments() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            insert(1L, T0.plusMinutes(i), 4.0 + (i % 8) * 0.5);
+        }
+        insert(2L, T0.plusMinutes(5), 5.0);
+
+        long archived = archiver.archiveBefore(T0.plusMinutes(90));
+
+        assertEquals(91, archived);
+        assertEquals(3, saved.stream().filter(segment -> segment.getBatchId() == 1L).count());
+        assertEquals(10, count(1L));
+        assertEquals(0, count(2L));
+        assertEquals(0, archiver.archiveBefore(T0.plusMinutes(90)));
+
+        List<TelemetrySegment> batch1 = saved.stream().filter(segment -> segment.getBatchId() == 1L).toList();
+        List<TelemetryReading> oldest = store.read(batch1, 0, 50, true);
+        assertEquals(50, oldest.size());
+        assertEquals(T0, oldest.get(0).getTimestamp());
+        assertEquals(0, new BigDecimal("4.00").compareTo(oldest.get(0).getTemperature()));
+        assertEquals(T0.plusMinutes(49), oldest.get(49).getTimestamp());
+
+        List<TelemetryReading> newest = store.read(batch1, 5, 10, false);
+        assertEquals(T0.plusMinutes(84), newest.get(0).getTimestamp());
+        assertEquals(T0.plusMinutes(75), newest.get(9).getTimestamp());
+
+        List<TelemetryReading> range = store.findByBatch(1L, T0.plusMinutes(30), T0.plusMinutes(45));
+        assertEquals(15, range.size());
+        assertEquals(T0.plusMinutes(30), range.get(0).getTimestamp());
+    }
+
+    private void insert(Long batchId, LocalDateTime timestamp, double temperature) {
+        jdbcTemplate.update("INSERT INTO telemetry_readings (batch_id, timestamp, temperature, humidity, location, "
+                + "device_id) VALUES (?, ?, ?, ?, ?, ?)", batchId, Timestamp.valueOf(timestamp),
+                BigDecimal.valueOf(temperature), BigDecimal.valueOf(60.0), "Warehouse A", "SENSOR-001");
+    }
+
+    private int count(Long batchId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM telemetry_readings WHERE batch_id = ?",
+                Integer.class, batchId);
+    }
+}
@@ -0,0 +1,103 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetrySegment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetrySegmentFileTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 10, 8, 0, 0, 123_456_000);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void encode_RoundTripsEveryColumn() throws IOException {
+        Random random = new Random(42);
+        List<TelemetryReading> readings = new ArrayList<>();
+        LocalDateTime timestamp = T0;
+        long id = 1000;
+        for (int i = 0; i < 2000; i++) {
+            // Mostly steady intervals with jitter, gaps and the odd null
+            timestamp = timestamp.plusNanos(i % 100 == 0 ? 3_600_000_000_000L : 5_000_000_000L
+                    + random.nextInt(2_000) * 1_000L);
+            id += i % 10 == 0 ? 7 : 1;
+            readings.add(reading(id, timestamp,
+                    i % 50 == 0 ? null : decimal(-20 + random.nextInt(6000) / 100.0),
+                    i % 30 == 0 ? null : decimal(40 + random.nextInt(2000) / 100.0),
+                    i % 25 == 0 ? null : "SENSOR-" + (i % 3),
+                    i % 40 == 0 ? null : "Truck " + (i / 500),
+                    i % 20 == 0 ? null : 52.5 + random.nextDouble(),
+                    i % 20 == 0 ? null : 13.4 - random.nextDouble()));
+        }
+
+        List<TelemetryReading> decoded = TelemetrySegmentFile.decode(TelemetrySegmentFile.encode(readings), 7L);
+
+        assertEquals(readings, decoded);
+    }
+
+    @Test
+    void encode_CompressesRegularReadings() throws IOException {
+        List<TelemetryReading> readings = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            readings.add(reading(i + 1L, T0.plusSeconds(30L * i), decimal(5.0 + (i / 60) % 3 * 0.25),
+                    decimal(60.0), "SENSOR-001", "Warehouse A", null, null));
+        }
+
+        byte[] bytes = TelemetrySegmentFile.encode(readings);
+
+        // A table row costs well over 100 bytes; a steady sensor should need a few bytes per reading
+        assertTrue(bytes.length < readings.size() * 2, "segment is " + bytes.length + " bytes");
+        assertEquals(readings, TelemetrySegmentFile.decode(bytes, 7L));
+    }
+
+    @Test
+    void write_DescribesSegmentAndRejectsCorruption() throws IOException {
+        List<TelemetryReading> readings = List.of(
+                reading(5L, T0, decimal(4.0), null, "SENSOR-001", null, null, null),
+                reading(3L, T0.plusMinutes(1), decimal(4.5), null, "SENSOR-001", null, null, null));
+        Path file = tempDir.resolve("segment.tseg");
+        TelemetrySegment segment = new TelemetrySegment();
+
+        TelemetrySegmentFile.write(file, readings, segment);
+
+        assertEquals(7L, segment.getBatchId());
+        assertEquals(2L, segment.getReadingCount());
+        assertEquals(T0, segment.getRangeStart());
+        assertEquals(T0.plusMinutes(1), segment.getRangeEnd());
+        assertEquals(3L, segment.getFirstReadingId());
+        assertEquals(5L, segment.getLastReadingId());
+        assertEquals(Files.size(file), segment.getSizeBytes());
+        assertEquals(TelemetrySegmentFile.checksum(file), segment.getChecksum());
+        assertEquals(readings, TelemetrySegmentFile.read(segment));
+
+        byte[] truncated = Arrays.copyOf(Files.readAllBytes(file), (int) Files.size(file) - 3);
+        assertThrows(IOException.class, () -> TelemetrySegmentFile.decode(truncated, 7L));
+        assertThrows(IllegalArgumentException.class, () -> TelemetrySegmentFile.encode(
+                List.of(readings.get(1), readings.get(0))));
+    }
+
+    private static BigDecimal decimal(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static TelemetryReading reading(long id, LocalDateTime timestamp, BigDecimal temperature,
+            BigDecimal humidity, String deviceId, String location, Double latitude, Double longitude) {
+        return new TelemetryReading(id, 7L, timestamp, temperature, humidity, location, deviceId, latitude,
+                longitude, id % 5 == 0 ? null : id * 2);
+    }
+}
@@ -0,0 +1,55 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetrySegment;
+import com.pharma.drugverification.repository.TelemetrySegmentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TelemetrySegmentStoreTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 10, 8, 0);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_MergesSegmentsWhoseRangesOverlap() throws IOException {
+        // The second segment holds a late reading from inside the first one's range
+        TelemetrySegment first = segment(1L, List.of(reading(1L, 0), reading(2L, 20), reading(3L, 40)));
+        TelemetrySegment late = segment(2L, List.of(reading(9L, 10)));
+        TelemetrySegment newer = segment(3L, List.of(reading(10L, 60), reading(11L, 70)));
+        List<TelemetrySegment> segments = List.of(first, late, newer);
+        TelemetrySegmentStore store = new TelemetrySegmentStore(mock(TelemetrySegmentRepository.class));
+
+        assertEquals(List.of(1L, 9L, 2L, 3L, 10L, 11L), ids(store.read(segments, 0, 10, true)));
+        assertEquals(List.of(2L, 3L, 10L), ids(store.read(segments, 2, 3, true)));
+        assertEquals(List.of(10L, 3L, 2L, 9L), ids(store.read(segments, 1, 4, false)));
+        assertEquals(2, TelemetrySegmentStore.overlappingRuns(segments).size());
+    }
+
+    private TelemetrySegment segment(long id, List<TelemetryReading> readings) throws IOException {
+        TelemetrySegment segment = new TelemetrySegment();
+        segment.setId(id);
+        TelemetrySegmentFile.write(tempDir.resolve("segment-" + id + ".tseg"), readings, segment);
+        return segment;
+    }
+
+    private static List<Long> ids(List<TelemetryReading> readings) {
+        return readings.stream().map(TelemetryReading::getId).toList();
+    }
+
+    private static TelemetryReading reading(long id, int minutes) {
+        return new TelemetryReading(id, 7L, T0.plusMinutes(minutes), BigDecimal.valueOf(5.0),
+                BigDecimal.valueOf(60.0), "Warehouse A", "SENSOR-001", null, null, null);
+    }
+}
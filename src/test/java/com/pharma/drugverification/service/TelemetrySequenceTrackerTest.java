@@ -0,0 +1,65 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetrySequenceTrackerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TelemetrySequenceTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:sequences;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "sa"));
+        jdbcTemplate.execute("CREATE TABLE telemetry_readings ("
+                + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, device_id VARCHAR(100), "
+                + "sequence_number BIGINT)");
+
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getTelemetry().setSequenceWindow(64);
+        tracker = new TelemetrySequenceTracker(jdbcTemplate, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE telemetry_readings");
+    }
+
+    @Test
+    void tryAccept_RejectsNumbersSeenInTheWindow() {
+        assertTrue(tracker.tryAccept("SENSOR-001", 10));
+        assertTrue(tracker.tryAccept("SENSOR-001", 12));
+        assertTrue(tracker.tryAccept("SENSOR-001", 11));
+        assertFalse(tracker.tryAccept("SENSOR-001", 12));
+        assertFalse(tracker.tryAccept("SENSOR-001", 10));
+        assertTrue(tracker.tryAccept("SENSOR-002", 10));
+
+        tracker.release("SENSOR-001", 12);
+        assertTrue(tracker.tryAccept("SENSOR-001", 12));
+
+        // Numbers leaving the window are forgotten; reused slots start clear
+        assertTrue(tracker.tryAccept("SENSOR-001", 74));
+        assertTrue(tracker.tryAccept("SENSOR-001", 13));
+        assertFalse(tracker.tryAccept("SENSOR-001", 74));
+    }
+
+    @Test
+    void tryAccept_LoadsWindowFromStoredReadingsAndChecksOlderNumbers() {
+        for (long sequenceNumber : new long[] {3, 500, 520, 530}) {
+            jdbcTemplate.update("INSERT INTO telemetry_readings (device_id, sequence_number) VALUES (?, ?)",
+                    "SENSOR-001", sequenceNumber);
+        }
+
+        assertFalse(tracker.tryAccept("SENSOR-001", 520));
+        assertTrue(tracker.tryAccept("SENSOR-001", 521));
+        assertFalse(tracker.tryAccept("SENSOR-001", 3));
+        assertTrue(tracker.tryAccept("SENSOR-001", 4));
+    }
+}
@@ -0,0 +1,122 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetryRollup;
+import com.pharma.drugverification.domain.TelemetryRollup.Granularity;
+import com.pharma.drugverification.dto.TelemetrySeriesResponse;
+import com.pharma.drugverification.dto.TelemetrySeriesResponse.Point;
+import com.pharma.drugverification.exception.BadRequestException;
+import com.pharma.drugverification.repository.TelemetryRollupRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TelemetrySeriesServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 10, 8, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private TelemetryRollupRepository rollupRepository;
+    private TelemetrySegmentStore segmentStore;
+    private TelemetrySeriesService service;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:series;DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "sa", "sa"));
+        jdbcTemplate.execute("CREATE TABLE telemetry_readings ("
+                + "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, batch_id BIGINT NOT NULL, "
+                + "timestamp TIMESTAMP NOT NULL, temperature NUMERIC(5, 2))");
+
+        rollupRepository = mock(TelemetryRollupRepository.class);
+        segmentStore = mock(TelemetrySegmentStore.class);
+        service = new TelemetrySeriesService(jdbcTemplate, rollupRepository, segmentStore,
+                new ApplicationProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE telemetry_readings");
+    }
+
+    @Test
+    void getSeries_KeepsSpikesOfArchivedAndLiveReadings() {
+        TelemetryReading archived = new TelemetryReading();
+        archived.setBatchId(1L);
+        archived.setTimestamp(T0.plusSeconds(5));
+        archived.setTemperature(new BigDecimal("3.00"));
+        when(segmentStore.findByBatch(1L, T0, T0.plusMinutes(10))).thenReturn(List.of(archived));
+        // A reading every second, with a single spike
+        for (int i = 10; i < 600; i++) {
+            insert(T0.plusSeconds(i), i == 317 ? 15.0 : 5.0);
+        }
+        insert(T0.plusSeconds(20), null);
+        insert(T0.plusMinutes(10), 30.0);
+
+        TelemetrySeriesResponse series = service.getSeries(1L, T0, T0.plusMinutes(10), 20);
+
+        assertEquals(TelemetrySeriesResponse.Source.READINGS, series.getSource());
+        assertEquals(30L, series.getBucketSeconds());
+        assertEquals(20, series.getPoints().size());
+        Point first = series.getPoints().get(0);
+        assertEquals(T0, first.getTimestamp());
+        assertEquals(21L, first.getReadingCount());
+        assertEquals(3.0, first.getMinTemperatureCelsius());
+        Point spike = series.getPoints().get(10);
+        assertEquals(T0.plusMinutes(5), spike.getTimestamp());
+        assertEquals(15.0, spike.getMaxTemperatureCelsius());
+        assertEquals(5.0 + 10.0 / 30, spike.getAverageTemperatureCelsius(), 1e-9);
+    }
+
+    @Test
+    void getSeries_UsesCoarsestRollupsThatFit() {
+        when(rollupRepository.findByBatchIdAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThan(
+                1L, Granularity.HOUR, T0, T0.plusDays(2))).thenReturn(List.of(
+                        rollup(T0, 60, 4.0, 6.0, 300.0),
+                        rollup(T0.plusHours(1), 60, 5.0, 11.0, 360.0),
+                        rollup(T0.plusHours(2), 0, null, null, 0.0),
+                        rollup(T0.plusHours(30), 60, 2.5, 5.0, 240.0)));
+
+        TelemetrySeriesResponse series = service.getSeries(1L, T0.plusMinutes(20), T0.plusDays(2), 24);
+
+        assertEquals(TelemetrySeriesResponse.Source.HOUR_ROLLUPS, series.getSource());
+        assertEquals(2, series.getPoints().size());
+        Point first = series.getPoints().get(0);
+        assertEquals(120L, first.getReadingCount());
+        assertEquals(4.0, first.getMinTemperatureCelsius());
+        assertEquals(11.0, first.getMaxTemperatureCelsius());
+        assertEquals(5.5, first.getAverageTemperatureCelsius(), 1e-9);
+        assertEquals(2.5, series.getPoints().get(1).getMinTemperatureCelsius());
+        verifyNoInteractions(segmentStore);
+    }
+
+    @Test
+    void getSeries_RejectsBadRanges() {
+        assertThrows(BadRequestException.class, () -> service.getSeries(1L, T0, T0, null));
+        assertThrows(BadRequestException.class, () -> service.getSeries(1L, T0, T0.plusDays(1), 5000));
+        assertThrows(BadRequestException.class, () -> service.getSeries(1L, T0, T0.plusDays(1), 0));
+    }
+
+    private void insert(LocalDateTime timestamp, Double temperature) {
+        jdbcTemplate.update("INSERT INTO telemetry_readings (batch_id, timestamp, temperature) VALUES (1, ?, ?)",
+                Timestamp.valueOf(timestamp), temperature != null ? BigDecimal.valueOf(temperature) : null);
+    }
+
+    private static TelemetryRollup rollup(LocalDateTime bucketStart, long count, Double min, Double max,
+            double sum) {
+        return new TelemetryRollup(null, 1L, Granularity.HOUR, bucketStart, count, count,
+                min != null ? BigDecimal.valueOf(min) : null, max != null ? BigDecimal.valueOf(max) : null,
+                sum, 0.0, 0L, 0.0, 0L);
+    }
+}
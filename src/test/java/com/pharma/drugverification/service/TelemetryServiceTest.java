@@ -1,22 +1,27 @@
 package com.pharma.drugverification.service;
 
-import com.pharma.drugverification.domain.Batch;
-import com.pharma.drugverification.domain.Drug;
+import com.pharma.drugverification.config.ApplicationProperties;
 import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TelemetrySegment;
 import com.pharma.drugverification.dto.TelemetryReadingRequest;
 import com.pharma.drugverification.dto.TelemetryReadingResponse;
-import com.pharma.drugverification.repository.BatchRepository;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
 import com.pharma.drugverification.repository.TelemetryReadingRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -25,24 +30,36 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class TelemetryServiceTest {
 
+    private static final ThresholdSnapshot THRESHOLDS = new ThresholdSnapshot(1L, 1L, "BATCH-123", 2.0, 8.0);
+
     @Mock
     private TelemetryReadingRepository telemetryReadingRepository;
 
     @Mock
-    private BatchRepository batchRepository;
+    private TelemetryThresholdCache telemetryThresholdCache;
+
+    @Mock
+    private TelemetryRollupService telemetryRollupService;
+
+    @Mock
+    private TelemetryKineticsService telemetryKineticsService;
+
+    @Mock
+    private TemperatureExcursionDetector temperatureExcursionDetector;
 
     @Mock
-    private AlertService alertService;
+    private TelemetrySegmentStore telemetrySegmentStore;
 
     @Mock
-    private AuditService auditService;
+    private TelemetrySequenceTracker telemetrySequenceTracker;
+
+    @Spy
+    private ApplicationProperties applicationProperties = new ApplicationProperties();
 
     @InjectMocks
     private TelemetryService telemetryService;
 
     private TelemetryReadingRequest request;
-    private Batch batch;
-    private Drug drug;
     private TelemetryReading reading;
 
     @BeforeEach
@@ -54,17 +71,6 @@ class TelemetryServiceTest {
         request.setHumidityPercent(60.0);
         request.setLocation("Warehouse A");
 
-        drug = new Drug();
-        drug.setId(1L);
-        drug.setName("ValidDrug");
-        drug.setMinTemperature(BigDecimal.valueOf(2.0));
-        drug.setMaxTemperature(BigDecimal.valueOf(8.0)); // 2-8 degrees
-
-        batch = new Batch();
-        batch.setId(1L);
-        batch.setBatchNumber("BATCH-123");
-        batch.setDrug(drug);
-
         reading = new TelemetryReading();
         reading.setId(1L);
         reading.setDeviceId("SENSOR-001");
@@ -76,15 +82,14 @@ class TelemetryServiceTest {
 
     @Test
     void recordReading_Violation() {
-        when(batchRepository.findById(1L)).thenReturn(Optional.of(batch));
+        when(telemetryThresholdCache.get(1L)).thenReturn(THRESHOLDS);
         when(telemetryReadingRepository.save(any(TelemetryReading.class))).thenReturn(reading);
 
         TelemetryReadingResponse response = telemetryService.recordReading(request, 1L);
 
         assertNotNull(response);
         assertTrue(response.getThresholdViolation()); // 25.0 is > 8.0
-        verify(alertService, times(1)).createAlert(eq("TEMPERATURE_EXCURSION"), eq("High"), any(), eq("Batch"), eq(1L));
-        verify(auditService, times(1)).log(eq("TEMPERATURE_EXCURSION"), eq("Batch"), eq(1L), eq(1L), any());
+        verify(temperatureExcursionDetector, times(1)).observe(eq(reading), eq(THRESHOLDS), eq(1L));
     }
 
     @Test
@@ -92,13 +97,101 @@ class TelemetryServiceTest {
         request.setTemperatureCelsius(5.0); // Within 2-8 range
         reading.setTemperature(BigDecimal.valueOf(5.0));
 
-        when(batchRepository.findById(1L)).thenReturn(Optional.of(batch));
+        when(telemetryThresholdCache.get(1L)).thenReturn(THRESHOLDS);
         when(telemetryReadingRepository.save(any(TelemetryReading.class))).thenReturn(reading);
 
         TelemetryReadingResponse response = telemetryService.recordReading(request, 1L);
 
         assertNotNull(response);
         assertFalse(response.getThresholdViolation());
-        verify(alertService, never()).createAlert(any(), any(), any(), any(), any());
+        verify(temperatureExcursionDetector, times(1)).observe(eq(reading), eq(THRESHOLDS), eq(1L));
+    }
+
+    @Test
+    void recordReading_AnswersReplayWithStoredReading() {
+        request.setSequenceNumber(12L);
+        reading.setSequenceNumber(12L);
+        when(telemetryThresholdCache.get(1L)).thenReturn(THRESHOLDS);
+        when(telemetrySequenceTracker.tryAccept("SENSOR-001", 12L)).thenReturn(false);
+        when(telemetryReadingRepository.findFirstByDeviceIdAndSequenceNumber("SENSOR-001", 12L)).thenReturn(reading);
+
+        TelemetryReadingResponse response = telemetryService.recordReading(request, 1L);
+
+        assertEquals(1L, response.getId());
+        assertEquals(12L, response.getSequenceNumber());
+        verify(telemetryReadingRepository, never()).save(any());
+        verifyNoInteractions(telemetryRollupService, telemetryKineticsService, temperatureExcursionDetector);
+    }
+
+    @Test
+    void getViolationsByBatch_PushesThresholdsAndRangeIntoQuery() {
+        LocalDateTime since = LocalDateTime.now().minusDays(1);
+        PageRequest pageable = PageRequest.of(0, 20);
+        when(telemetryThresholdCache.get(1L)).thenReturn(THRESHOLDS);
+        when(telemetryReadingRepository.findViolations(1L, BigDecimal.valueOf(2.0), BigDecimal.valueOf(8.0),
+                since, pageable)).thenReturn(new PageImpl<>(List.of(reading), pageable, 1));
+
+        Page<TelemetryReadingResponse> violations = telemetryService.getViolationsByBatch(1L, since, pageable);
+
+        assertEquals(1, violations.getTotalElements());
+        assertTrue(violations.getContent().get(0).getThresholdViolation());
+        verify(telemetryReadingRepository, never()).findByBatchIdOrderByTimestampDesc(any());
+    }
+
+    @Test
+    void getReadingsByBatch_ContinuesIntoArchivedSegments() {
+        TelemetrySegment segment = new TelemetrySegment();
+        segment.setReadingCount(3L);
+        segment.setRangeStart(LocalDateTime.now().minusDays(101));
+        segment.setRangeEnd(LocalDateTime.now().minusDays(100));
+        TelemetryReading archived = new TelemetryReading();
+        archived.setId(0L);
+        archived.setBatchId(1L);
+        archived.setTimestamp(LocalDateTime.now().minusDays(100));
+        when(telemetrySegmentStore.segmentsOf(1L)).thenReturn(List.of(segment));
+        when(telemetryReadingRepository.countByBatchId(1L)).thenReturn(2L);
+        when(telemetryReadingRepository.findSliceByBatchId(eq(1L), any()))
+                .thenReturn(new SliceImpl<>(List.of(reading, reading)));
+        when(telemetrySegmentStore.read(List.of(segment), 0, 2, false)).thenReturn(List.of(archived, archived));
+
+        Page<TelemetryReadingResponse> page = telemetryService.getReadingsByBatch(1L, PageRequest.of(0, 4));
+
+        assertEquals(5, page.getTotalElements());
+        assertEquals(List.of(1L, 1L, 0L, 0L), page.getContent().stream().map(TelemetryReadingResponse::getId).toList());
+    }
+
+    @Test
+    void getReadingsByBatch_MergesLateReadingsIntoTheArchiveByTimestamp() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 10, 8, 0);
+        TelemetrySegment segment = new TelemetrySegment();
+        segment.setReadingCount(3L);
+        segment.setRangeStart(start.plusHours(1));
+        segment.setRangeEnd(start.plusHours(5));
+        List<TelemetrySegment> segments = List.of(segment);
+        TelemetryReading late = reading(40L, start.plusHours(2));
+        when(telemetrySegmentStore.segmentsOf(1L)).thenReturn(segments);
+        when(telemetryReadingRepository.countByBatchId(1L)).thenReturn(2L);
+        when(telemetryReadingRepository.findByBatchIdAndTimestampLessThanEqual(eq(1L), eq(start.plusHours(5)),
+                any())).thenReturn(List.of(late));
+        when(telemetryReadingRepository.findSliceByBatchId(eq(1L), any()))
+                .thenReturn(new SliceImpl<>(List.of(reading(50L, start.plusHours(6)))));
+        when(telemetrySegmentStore.read(segments, 2, 2, true)).thenReturn(List.of(reading(30L, start.plusHours(5))));
+        when(telemetrySegmentStore.read(segments, 0, 3, true)).thenReturn(List.of(reading(10L, start.plusHours(1)),
+                reading(20L, start.plusHours(3)), reading(30L, start.plusHours(5))));
+
+        Page<TelemetryReadingResponse> first = telemetryService.getReadingsByBatch(1L, PageRequest.of(0, 2));
+        Page<TelemetryReadingResponse> second = telemetryService.getReadingsByBatch(1L, PageRequest.of(1, 2));
+
+        assertEquals(5, first.getTotalElements());
+        assertEquals(List.of(50L, 30L), first.getContent().stream().map(TelemetryReadingResponse::getId).toList());
+        assertEquals(List.of(20L, 40L), second.getContent().stream().map(TelemetryReadingResponse::getId).toList());
+    }
+
+    private static TelemetryReading reading(long id, LocalDateTime timestamp) {
+        TelemetryReading reading = new TelemetryReading();
+        reading.setId(id);
+        reading.setBatchId(1L);
+        reading.setTimestamp(timestamp);
+        return reading;
     }
 }
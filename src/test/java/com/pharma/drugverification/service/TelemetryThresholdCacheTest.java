@@ -0,0 +1,88 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.config.CacheInvalidationPublisher;
+import com.pharma.drugverification.domain.Batch;
+import com.pharma.drugverification.domain.Drug;
+import com.pharma.drugverification.dto.BatchSnapshot;
+import com.pharma.drugverification.dto.DrugSnapshot;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TelemetryThresholdCacheTest {
+
+    private ReferenceDataService referenceDataService;
+    private CacheInvalidationPublisher invalidationPublisher;
+    private TelemetryThresholdCache cache;
+
+    @BeforeEach
+    void setUp() {
+        referenceDataService = mock(ReferenceDataService.class);
+        invalidationPublisher = mock(CacheInvalidationPublisher.class);
+        when(referenceDataService.getBatch(1L)).thenReturn(new BatchSnapshot(1L, "BATCH-123", 10L,
+                LocalDate.now().plusYears(1), Batch.BatchStatus.ACTIVE));
+        when(referenceDataService.getDrug(10L)).thenReturn(new DrugSnapshot(10L, "ValidDrug", "Acme",
+                Drug.DrugStatus.APPROVED, BigDecimal.valueOf(2.0), BigDecimal.valueOf(8.0)));
+
+        cache = new TelemetryThresholdCache(referenceDataService, invalidationPublisher, new ApplicationProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_LoadsOnceAndChecksWithPrimitives() {
+        ThresholdSnapshot thresholds = cache.get(1L);
+
+        assertSame(thresholds, cache.get(1L));
+        assertEquals("BATCH-123", thresholds.getBatchNumber());
+        assertEquals(10L, thresholds.getDrugId());
+        assertTrue(thresholds.isOutOfRange(8.5));
+        assertFalse(thresholds.isOutOfRange(2.0));
+        verify(referenceDataService, times(1)).getBatch(1L);
+
+        assertNull(cache.get(99L));
+        assertNull(cache.get(99L));
+        verify(referenceDataService, times(2)).getBatch(99L);
+    }
+
+    @Test
+    void evictBatch_WaitsForCommitAndBroadcasts() {
+        ThresholdSnapshot before = cache.get(1L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.evictBatch(1L);
+        assertSame(before, cache.get(1L));
+        verifyNoInteractions(invalidationPublisher);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        assertNotSame(before, cache.get(1L));
+        verify(invalidationPublisher).publishEviction(TelemetryThresholdCache.CACHE_NAME, 1L);
+    }
+
+    @Test
+    void evictLocal_AcceptsKeysDecodedAsIntegers() {
+        ThresholdSnapshot before = cache.get(1L);
+
+        cache.evictLocal(1);
+
+        assertNotSame(before, cache.get(1L));
+        verifyNoInteractions(invalidationPublisher);
+    }
+}
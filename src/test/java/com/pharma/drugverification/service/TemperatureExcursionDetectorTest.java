@@ -0,0 +1,252 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.TelemetryReading;
+import com.pharma.drugverification.domain.TemperatureExcursion;
+import com.pharma.drugverification.domain.TemperatureExcursion.Severity;
+import com.pharma.drugverification.dto.ThresholdSnapshot;
+import com.pharma.drugverification.repository.TemperatureExcursionRepository;
+import com.pharma.drugverification.service.TemperatureExcursionDetector.Transition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TemperatureExcursionDetectorTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 10, 8, 0);
+    private static final ThresholdSnapshot THRESHOLDS = new ThresholdSnapshot(1L, 10L, "BATCH-123", 2.0, 8.0);
+
+    private TemperatureExcursionRepository repository;
+    private AlertService alertService;
+    private AuditService auditService;
+    private TemperatureExcursionDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TemperatureExcursionRepository.class);
+        alertService = mock(AlertService.class);
+        auditService = mock(AuditService.class);
+        when(repository.save(any(TemperatureExcursion.class))).thenAnswer(invocation -> {
+            TemperatureExcursion excursion = invocation.getArgument(0);
+            if (excursion.getId() == null) {
+                excursion.setId(100L);
+            }
+            return excursion;
+        });
+
+        // Readings are in order unless a test says otherwise, so release them immediately
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getTelemetry().getExcursion().setAllowedLatenessSeconds(0);
+        detector = new TemperatureExcursionDetector(repository, alertService, auditService, properties);
+    }
+
+    @Test
+    void observe_PersistsOnlyTransitionsOfOneExcursion() {
+        assertEquals(Transition.NONE, detector.observe(reading(0, 5.0), THRESHOLDS, 1L));
+        assertEquals(Transition.OPENED, detector.observe(reading(1, 8.5), THRESHOLDS, 1L));
+        assertEquals(Transition.NONE, detector.observe(reading(2, 8.7), THRESHOLDS, 1L));
+        assertEquals(Transition.NONE, detector.observe(reading(3, 8.6), THRESHOLDS, 1L));
+        assertEquals(Transition.ESCALATED, detector.observe(reading(31, 8.6), THRESHOLDS, 1L));
+        assertEquals(Transition.CLOSED, detector.observe(reading(40, 6.0), THRESHOLDS, 1L));
+        assertEquals(Transition.NONE, detector.observe(reading(41, 6.0), THRESHOLDS, 1L));
+
+        verify(repository, times(3)).save(any(TemperatureExcursion.class));
+        verify(alertService, times(2)).createAlert(eq("TEMPERATURE_EXCURSION"), anyString(), anyString(),
+                eq("Batch"), eq(1L));
+        assertEquals(0, detector.getOpenExcursionCount());
+
+        TemperatureExcursion closed = lastSaved();
+        assertTrue(closed.getResolved());
+        assertEquals(T0.plusMinutes(1), closed.getStartTime());
+        assertEquals(T0.plusMinutes(40), closed.getEndTime());
+        assertEquals(39, closed.getDurationMinutes());
+        assertEquals(0, BigDecimal.valueOf(8.5).compareTo(closed.getMinTemperature()));
+        assertEquals(0, BigDecimal.valueOf(8.7).compareTo(closed.getMaxTemperature()));
+        assertEquals(Severity.MEDIUM, closed.getSeverity());
+    }
+
+    @Test
+    void observe_GradesSeverityByDistanceOutsideRange() {
+        detector.observe(reading(0, 16.5), THRESHOLDS, 1L);
+
+        verify(alertService).createAlert(eq("TEMPERATURE_EXCURSION"), eq("CRITICAL"), anyString(), eq("Batch"),
+                eq(1L));
+    }
+
+    @Test
+    void observe_AdoptsExcursionOpenedElsewhere() {
+        TemperatureExcursion existing = new TemperatureExcursion();
+        existing.setId(7L);
+        existing.setBatchId(1L);
+        existing.setStartTime(T0);
+        existing.setMinTemperature(BigDecimal.valueOf(9.0));
+        existing.setMaxTemperature(BigDecimal.valueOf(9.0));
+        existing.setThresholdMin(BigDecimal.valueOf(2.0));
+        existing.setThresholdMax(BigDecimal.valueOf(8.0));
+        existing.setSeverity(Severity.MEDIUM);
+        existing.setDurationMinutes(0);
+        when(repository.findByBatchIdAndResolvedFalse(1L)).thenReturn(List.of(existing));
+
+        assertEquals(Transition.NONE, detector.observe(reading(5, 9.5), THRESHOLDS, 1L));
+        assertEquals(Transition.CLOSED, detector.observe(reading(10, 5.0), THRESHOLDS, 1L));
+
+        verify(alertService, never()).createAlert(any(), any(), any(), any(), any());
+        assertEquals(7L, lastSaved().getId());
+        assertEquals(10, lastSaved().getDurationMinutes());
+    }
+
+    @Test
+    void observe_DoesNotReopenExcursionClosedByAnotherNode() {
+        assertEquals(Transition.OPENED, detector.observe(reading(0, 8.5), THRESHOLDS, 1L));
+        TemperatureExcursion closed = excursion(100L, T0, 8.5);
+        closed.setResolved(true);
+        closed.setEndTime(T0.plusMinutes(20));
+        when(repository.findById(100L)).thenReturn(Optional.of(closed));
+        when(repository.save(any(TemperatureExcursion.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(TemperatureExcursion.class, 100L));
+
+        // Thirty minutes out of range would escalate this node's stale copy
+        assertEquals(Transition.NONE, detector.observe(reading(31, 8.6), THRESHOLDS, 1L));
+
+        assertEquals(0, detector.getOpenExcursionCount());
+        verify(repository, times(2)).save(any(TemperatureExcursion.class));
+        verify(alertService, times(1)).createAlert(any(), any(), any(), any(), any());
+        assertTrue(closed.getResolved());
+    }
+
+    @Test
+    void observe_ReappliesChangeToExcursionUpdatedByAnotherNode() {
+        assertEquals(Transition.OPENED, detector.observe(reading(0, 8.5), THRESHOLDS, 1L));
+        TemperatureExcursion stored = excursion(100L, T0, 9.8);
+        when(repository.findById(100L)).thenReturn(Optional.of(stored));
+        when(repository.save(any(TemperatureExcursion.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(TemperatureExcursion.class, 100L))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(Transition.CLOSED, detector.observe(reading(40, 5.0), THRESHOLDS, 1L));
+
+        TemperatureExcursion saved = lastSaved();
+        assertSame(stored, saved);
+        assertTrue(saved.getResolved());
+        assertEquals(T0.plusMinutes(40), saved.getEndTime());
+        assertEquals(40, saved.getDurationMinutes());
+        assertEquals(0, BigDecimal.valueOf(9.8).compareTo(saved.getMaxTemperature()));
+        assertEquals(Severity.MEDIUM, saved.getSeverity());
+    }
+
+    @Test
+    void observe_ReordersReadingsWithinAllowedLatenessAndSkipsLateOnes() {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getTelemetry().getExcursion().setAllowedLatenessSeconds(300);
+        detector = new TemperatureExcursionDetector(repository, alertService, auditService, properties);
+
+        // Replayed out of order: the excursion runs from minute 1 to minute 4
+        assertEquals(Transition.NONE, detector.observe(reading(4, 5.0), THRESHOLDS, 1L));
+        assertEquals(Transition.NONE, detector.observe(reading(1, 9.0), THRESHOLDS, 1L));
+        assertEquals(Transition.NONE, detector.observe(reading(0, 5.0), THRESHOLDS, 1L));
+        assertEquals(Transition.NONE, detector.observe(reading(2, 9.5), THRESHOLDS, 1L));
+        verifyNoInteractions(repository);
+
+        // Minute 7 moves the watermark past minutes 0 to 2
+        assertEquals(Transition.OPENED, detector.observe(reading(7, 5.0), THRESHOLDS, 1L));
+        assertEquals(1, detector.getOpenExcursionCount());
+        assertEquals(Transition.NONE, detector.observe(reading(1, 5.0), THRESHOLDS, 1L));
+        assertEquals(1L, detector.getLateReadingCount());
+
+        // Minute 4 closes the excursion only once the batch has been quiet for the allowed lateness
+        detector.flushIdleBuffers(System.nanoTime());
+        assertEquals(1, detector.getOpenExcursionCount());
+        detector.flushIdleBuffers(System.nanoTime() + Duration.ofSeconds(301).toNanos());
+        assertEquals(0, detector.getOpenExcursionCount());
+        assertEquals(T0.plusMinutes(4), lastSaved().getEndTime());
+        assertEquals(0, BigDecimal.valueOf(9.5).compareTo(lastSaved().getMaxTemperature()));
+    }
+
+    @Test
+    void observe_RecordsLateOutOfRangeRunAsPastExcursion() {
+        assertEquals(Transition.NONE, detector.observe(reading(60, 5.0), THRESHOLDS, 1L));
+
+        // A logger replays its offline buffer after the batch has moved on
+        assertEquals(Transition.NONE, detector.observe(reading(10, 9.0), THRESHOLDS, 1L));
+        assertEquals(Transition.NONE, detector.observe(reading(11, 9.6), THRESHOLDS, 1L));
+        assertEquals(Transition.NONE, detector.observe(reading(40, 9.2), THRESHOLDS, 1L));
+        assertEquals(Transition.RECORDED_LATE, detector.observe(reading(41, 5.0), THRESHOLDS, 1L));
+
+        TemperatureExcursion recorded = lastSaved();
+        assertTrue(recorded.getResolved());
+        assertEquals(T0.plusMinutes(10), recorded.getStartTime());
+        assertEquals(T0.plusMinutes(41), recorded.getEndTime());
+        assertEquals(31, recorded.getDurationMinutes());
+        assertEquals(0, BigDecimal.valueOf(9.6).compareTo(recorded.getMaxTemperature()));
+        assertEquals(Severity.MEDIUM, recorded.getSeverity());
+        verify(alertService).createAlert(eq("TEMPERATURE_EXCURSION"), eq("MEDIUM"), contains("late readings"),
+                eq("Batch"), eq(1L));
+        assertEquals(0, detector.getOpenExcursionCount());
+        assertEquals(4L, detector.getLateReadingCount());
+    }
+
+    @Test
+    void flushIdleBuffers_RecordsUnfinishedLateRunAndDropsQuietBuffers() {
+        detector.observe(reading(60, 5.0), THRESHOLDS, 1L);
+        detector.observe(reading(10, 9.0), THRESHOLDS, 1L);
+        detector.observe(reading(12, 9.5), THRESHOLDS, 1L);
+        verify(repository, never()).save(any());
+
+        detector.flushIdleBuffers(System.nanoTime());
+
+        assertEquals(T0.plusMinutes(10), lastSaved().getStartTime());
+        assertEquals(T0.plusMinutes(12), lastSaved().getEndTime());
+        assertEquals(0, detector.getBufferedBatchCount());
+    }
+
+    @Test
+    void flushIdleBuffers_KeepsBufferOfBatchWithOpenExcursion() {
+        assertEquals(Transition.OPENED, detector.observe(reading(0, 9.0), THRESHOLDS, 1L));
+
+        detector.flushIdleBuffers(System.nanoTime());
+
+        assertEquals(1, detector.getBufferedBatchCount());
+        assertEquals(1, detector.getOpenExcursionCount());
+    }
+
+    private static TemperatureExcursion excursion(Long id, LocalDateTime startTime, double temperature) {
+        TemperatureExcursion excursion = new TemperatureExcursion();
+        excursion.setId(id);
+        excursion.setBatchId(1L);
+        excursion.setStartTime(startTime);
+        excursion.setMinTemperature(BigDecimal.valueOf(temperature));
+        excursion.setMaxTemperature(BigDecimal.valueOf(temperature));
+        excursion.setThresholdMin(BigDecimal.valueOf(2.0));
+        excursion.setThresholdMax(BigDecimal.valueOf(8.0));
+        excursion.setSeverity(Severity.LOW);
+        excursion.setDurationMinutes(0);
+        excursion.setResolved(false);
+        return excursion;
+    }
+
+    private TemperatureExcursion lastSaved() {
+        ArgumentCaptor<TemperatureExcursion> captor = ArgumentCaptor.forClass(TemperatureExcursion.class);
+        verify(repository, atLeastOnce()).save(captor.capture());
+        return captor.getValue();
+    }
+
+    private static TelemetryReading reading(int minute, double temperature) {
+        TelemetryReading reading = new TelemetryReading();
+        reading.setBatchId(1L);
+        reading.setDeviceId("SENSOR-001");
+        reading.setTimestamp(T0.plusMinutes(minute));
+        reading.setTemperature(BigDecimal.valueOf(temperature));
+        return reading;
+    }
+}
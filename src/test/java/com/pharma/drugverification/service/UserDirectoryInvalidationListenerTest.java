@@ -0,0 +1,45 @@
+package com.pharma.drugverification.service;
+
+import com.pharma.drugverification.domain.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserDirectoryInvalidationListenerTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void evict_RemovesCachedIdentityOfChangedUser() {
+        Cache cache = mock(Cache.class);
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache(UserDirectoryService.CACHE_NAME)).thenReturn(cache);
+        ObjectProvider<CacheManager> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(cacheManager);
+
+        User user = new User();
+        user.setId(7L);
+        new UserDirectoryInvalidationListener(provider).evict(user);
+
+        verify(cache).evict(7L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void evict_IgnoresUnsavedUserAndMissingCacheManager() {
+        ObjectProvider<CacheManager> provider = mock(ObjectProvider.class);
+        UserDirectoryInvalidationListener listener = new UserDirectoryInvalidationListener(provider);
+
+        listener.evict(new User());
+
+        User user = new User();
+        user.setId(7L);
+        listener.evict(user);
+
+        verify(provider, times(2)).getIfAvailable();
+        verify(provider, never()).getObject(any());
+    }
+}
@@ -0,0 +1,138 @@
+package com.pharma.drugverification.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pharma.drugverification.config.ApplicationProperties;
+import com.pharma.drugverification.domain.VerificationRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VerificationRequestWriterTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private VerificationRequestWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        ApplicationProperties properties = new ApplicationProperties();
+        ApplicationProperties.WriteBehindProperties writeBehind = properties.getVerification().getWriteBehind();
+        writeBehind.setQueueCapacity(1);
+        writeBehind.setBatchSize(10);
+        writeBehind.setOfferTimeoutMs(1);
+        writeBehind.setSpillDirectory(spillDirectory.toString());
+
+        writer = new VerificationRequestWriter(jdbcTemplate, new ObjectMapper().findAndRegisterModules(),
+                properties, meterRegistry);
+    }
+
+    @Test
+    void submit_SpillsToDiskWhenQueueIsFull() throws Exception {
+        writer.submit(request("SN001"));
+        writer.submit(request("SN002"));
+
+        assertEquals(1, writer.getQueueDepth());
+        Path spillFile = spillDirectory.resolve("verification-requests.spill");
+        assertTrue(Files.readString(spillFile).contains("SN002"));
+        assertEquals(1.0, meterRegistry.get("verification.writer.spilled").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaySpillFile_WritesSpilledRecordsAndRemovesFile() {
+        writer.submit(request("SN001"));
+        writer.submit(request("SN002"));
+        writer.stop();
+
+        writer.replaySpillFile();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(VerificationRequestWriter.INSERT_SQL),
+                any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertFalse(Files.exists(spillDirectory.resolve("verification-requests.spill")));
+        assertFalse(Files.exists(spillDirectory.resolve("verification-requests.replay")));
+        assertEquals(2.0, meterRegistry.get("verification.writer.written").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replaySpillFile_ResumesAfterCommittedBatchesAndDeadLettersBadLines() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            lines.append(objectMapper.writeValueAsString(request("SN" + i))).append('\n');
+            if (i == 12) {
+                lines.append("{\"serialNumber\":\"SN-TORN\n");
+            }
+        }
+        Files.writeString(spillDirectory.resolve("verification-requests.spill"), lines);
+        List<List<String>> written = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    written.add(serialNumbers(invocation.getArgument(1)));
+                    return new int[0][];
+                })
+                .thenThrow(new IllegalStateException("database down"))
+                .thenAnswer(invocation -> {
+                    written.add(serialNumbers(invocation.getArgument(1)));
+                    return new int[0][];
+                });
+
+        writer.replaySpillFile();
+        assertTrue(Files.exists(spillDirectory.resolve("verification-requests.replay")));
+        writer.replaySpillFile();
+
+        // The first batch is not written again, and the torn line does not block the rest
+        List<String> all = written.stream().flatMap(List::stream).toList();
+        assertEquals(25, all.size());
+        assertEquals(25, all.stream().distinct().count());
+        assertTrue(Files.readString(spillDirectory.resolve("verification-requests.dead")).contains("SN-TORN"));
+        assertFalse(Files.exists(spillDirectory.resolve("verification-requests.replay")));
+        assertFalse(Files.exists(spillDirectory.resolve("verification-requests.replay.offset")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stop_SpillsQueuedRecordsWhenDatabaseWriteFails() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new IllegalStateException("database down"));
+
+        writer.submit(request("SN001"));
+        writer.stop();
+
+        assertEquals(0, writer.getQueueDepth());
+        assertTrue(Files.readString(spillDirectory.resolve("verification-requests.spill")).contains("SN001"));
+    }
+
+    private static List<String> serialNumbers(Collection<VerificationRequest> requests) {
+        return requests.stream().map(VerificationRequest::getSerialNumber).toList();
+    }
+
+    private VerificationRequest request(String serialNumber) {
+        VerificationRequest request = new VerificationRequest();
+        request.setSerialNumber(serialNumber);
+        request.setResult(VerificationRequest.VerificationResult.VALID);
+        request.setPossibleCounterfeit(false);
+        return request;
+    }
+}